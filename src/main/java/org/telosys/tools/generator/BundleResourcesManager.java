@@ -25,7 +25,6 @@ import org.telosys.tools.commons.bundles.TargetDefinition;
 import org.telosys.tools.commons.cfg.TelosysToolsCfg;
 import org.telosys.tools.commons.io.CopyHandler;
 import org.telosys.tools.commons.io.OverwriteChooser;
-import org.telosys.tools.commons.io.ResourcesCopier;
 import org.telosys.tools.commons.variables.Variable;
 import org.telosys.tools.generator.context.Target;
 
@@ -153,9 +152,10 @@ public class BundleResourcesManager {
 	private int copy(File origin, File destination, OverwriteChooser overwriteChooser, CopyHandler copyHandler ) {
 		int n = 0 ;
 		log("copy from '" + origin + "' to '" + destination + "'...");
-		ResourcesCopier copier = new ResourcesCopier(overwriteChooser, copyHandler );
+		// v 3.3.0 : incremental copy (only new or modified files are copied)
+		ResourcesSynchronizer synchronizer = new ResourcesSynchronizer(logger);
 		try {
-			n = copier.copy(origin, destination);
+			n = synchronizer.copy(origin, destination, overwriteChooser, copyHandler);
 			log(n + " file(s) copied");
 		} catch (Exception e) {
 			log("Error : exception " + e);
@@ -0,0 +1,188 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.telosys.tools.generator.context.names.ContextName;
+
+/**
+ * Detection of the "entity independent" templates : templates used for each entity 
+ * but producing the same result whatever the entity <br>
+ * An entity independent template is rendered only once, the result is reused for the other entities <br>
+ * 
+ * Detection in 2 steps : <br>
+ *  - static analysis : the template AST (with the '#parse' files and the macros) 
+ *    doesn't use the objects depending on the current entity ( $entity, $target, $generator ) <br>
+ *  - runtime check (fallback) : the first rendering doesn't read these objects by name 
+ *    ( eg "$fn.get('entity', '')" ) <br>
+ *    
+ * A new instance must be used for each task (the results are not valid after a template change)
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class EntityIndependentTemplates {
+
+	/**
+	 * Context objects depending on the current entity 
+	 */
+	public static final List<String> ENTITY_DEPENDENT_OBJECTS = Collections.unmodifiableList(Arrays.asList(
+			ContextName.ENTITY, 
+			ContextName.TARGET, 
+			ContextName.GENERATOR ) );
+	
+	private final File                        bundleFolder ;
+	private TemplatesDependencyGraph          templatesDependencyGraph = null ; // built at the first use
+	
+	// template -> true if entity independent (static analysis and runtime check)
+	private final Map<String, Boolean>          independentTemplates = new HashMap<>();
+	// template -> result of the first rendering 
+	private final Map<String, RenderedTemplate> renderedTemplates = new HashMap<>();
+	
+	/**
+	 * Result of a rendering
+	 */
+	public static class RenderedTemplate {
+		private final String      result ;
+		private final Set<String> usedEntities ;
+		private RenderedTemplate(String result, Set<String> usedEntities) {
+			this.result = result ;
+			this.usedEntities = usedEntities ;
+		}
+		/**
+		 * Returns the result of the rendering 
+		 * @return
+		 */
+		public String getResult() {
+			return result;
+		}
+		/**
+		 * Returns the entities used by the rendering (or null if unknown)
+		 * @return
+		 */
+		public Set<String> getUsedEntities() {
+			return usedEntities;
+		}
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor
+	 * @param bundleFolder the bundle folder containing the templates
+	 */
+	public EntityIndependentTemplates(File bundleFolder) {
+		super();
+		this.bundleFolder = bundleFolder ;
+	}
+	
+	/**
+	 * Constructor with an existing dependency graph 
+	 * @param templatesDependencyGraph
+	 */
+	public EntityIndependentTemplates(TemplatesDependencyGraph templatesDependencyGraph) {
+		super();
+		this.bundleFolder = null ;
+		this.templatesDependencyGraph = templatesDependencyGraph ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Returns true if the given template is considered as entity independent 
+	 * (static analysis or runtime check if already done) 
+	 * @param template
+	 * @return
+	 */
+	public synchronized boolean isEntityIndependent(String template) {
+		Boolean independent = independentTemplates.get(template);
+		if ( independent == null ) {
+			independent = analyze(template) ;
+			independentTemplates.put(template, independent);
+		}
+		return independent ;
+	}
+	
+	private boolean analyze(String template) {
+		if ( templatesDependencyGraph == null ) {
+			TemplatesDependencyGraph graph = new TemplatesDependencyGraph(bundleFolder);
+			try {
+				graph.build();
+			} catch (IOException | RuntimeException e) {
+				// cannot analyze the templates : keep the standard rendering for all the templates
+				graph = null ;
+			}
+			templatesDependencyGraph = graph ;
+			if ( graph == null ) {
+				return false ;
+			}
+		}
+		Set<String> references = templatesDependencyGraph.getReferences(template);
+		return references != null && Collections.disjoint(references, ENTITY_DEPENDENT_OBJECTS) ;
+	}
+	
+	/**
+	 * Runtime check : checks the context objects read by name during the first rendering <br>
+	 * If an entity dependent object has been read the template is no longer considered as entity independent 
+	 * @param template
+	 * @param contextObjects the names of the objects read by name 
+	 * @return true if the template is still entity independent
+	 */
+	public synchronized boolean checkContextObjects(String template, Set<String> contextObjects) {
+		if ( ! Collections.disjoint(contextObjects, ENTITY_DEPENDENT_OBJECTS) ) {
+			independentTemplates.put(template, Boolean.FALSE);
+			renderedTemplates.remove(template);
+			return false ;
+		}
+		return true ;
+	}
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Keeps the result of the first rendering of the given template 
+	 * @param template
+	 * @param result
+	 * @param usedEntities
+	 */
+	public synchronized void putRenderedTemplate(String template, String result, Set<String> usedEntities) {
+		renderedTemplates.put(template, new RenderedTemplate(result, 
+				usedEntities != null ? Collections.unmodifiableSet(new HashSet<>(usedEntities)) : null ) );
+	}
+	
+	/**
+	 * Returns the result of the first rendering of the given template 
+	 * @param template
+	 * @return the result (or null if none)
+	 */
+	public synchronized RenderedTemplate getRenderedTemplate(String template) {
+		return renderedTemplates.get(template);
+	}
+	
+	/**
+	 * Returns the number of templates already rendered once 
+	 * @return
+	 */
+	public synchronized int getRenderedTemplatesCount() {
+		return renderedTemplates.size();
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator;
+
+import org.telosys.tools.generator.context.tools.MemoCache;
+import org.telosys.tools.generator.context.tools.StringsPool;
+
+/**
+ * Cache shared by all the generations of the same task <br>
+ * ( the generator context is rebuilt for each target, this cache is not ) <br>
+ * A new instance is created for each task, so nothing is kept from one task to another 
+ * (except in the generation daemon where the same instance is reused while the model doesn't change)
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class GenerationCache {
+
+	private final StringsPool stringsPool = new StringsPool();
+	private final MemoCache   memoCache   = new MemoCache();
+	
+	/**
+	 * Constructor
+	 */
+	public GenerationCache() {
+		super();
+	}
+	
+	/**
+	 * Returns the pool of canonical strings (names, types, packages, etc)
+	 * @return
+	 */
+	public StringsPool getStringsPool() {
+		return stringsPool;
+	}
+	
+	/**
+	 * Returns the cache for the results of the context functions ( $java, $jpa, etc )
+	 * @return
+	 */
+	public MemoCache getMemoCache() {
+		return memoCache;
+	}
+}
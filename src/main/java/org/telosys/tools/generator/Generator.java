@@ -16,12 +16,16 @@
 package org.telosys.tools.generator;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.telosys.tools.commons.DirUtil;
 import org.telosys.tools.commons.FileUtil;
@@ -29,6 +33,8 @@ import org.telosys.tools.commons.StrUtil;
 import org.telosys.tools.commons.TelosysToolsLogger;
 import org.telosys.tools.commons.cfg.TelosysToolsCfg;
 import org.telosys.tools.generator.context.Target;
+import org.telosys.tools.generator.context.tools.EntitiesTracker;
+import org.telosys.tools.generator.context.tools.RenderingResources;
 import org.telosys.tools.generator.engine.GeneratorContext;
 import org.telosys.tools.generator.engine.GeneratorEngine;
 import org.telosys.tools.generator.engine.GeneratorTemplate;
@@ -49,6 +55,11 @@ public class Generator {
 	private final TelosysToolsCfg          telosysToolsCfg ; // v 3.0.0
 	private final String                   bundleName ; // v 3.0.0
 	private final TelosysToolsLogger       logger ;
+	private final GenerationCache          generationCache ; 
+	private boolean                        entitiesTracing = false ; // v 3.3.0
+	private Set<String>                    tracedEntities = null ; // v 3.3.0
+	private boolean                        resultReused = false ; // v 3.3.0
+	private EntityIndependentTemplates     entityIndependentTemplates = null ; // v 3.3.0
 
 	/**
 	 * Constructor 
@@ -56,6 +67,18 @@ public class Generator {
 	 * @param logger
 	 */
 	public Generator( TelosysToolsCfg telosysToolsCfg, String bundleName, TelosysToolsLogger logger)  { // v 3.0.0
+		this(telosysToolsCfg, bundleName, logger, new GenerationCache());
+	}
+	
+	/**
+	 * Constructor with a cache shared by all the generations of the current task
+	 * @param telosysToolsCfg
+	 * @param bundleName
+	 * @param logger
+	 * @param generationCache
+	 */
+	public Generator( TelosysToolsCfg telosysToolsCfg, String bundleName, TelosysToolsLogger logger, 
+			GenerationCache generationCache)  { 
 		this.logger = logger; 
 		
 		if ( telosysToolsCfg == null ) {
@@ -67,6 +90,46 @@ public class Generator {
 			throw new IllegalArgumentException("Bundle name parameter is null");
 		}
 		this.bundleName = bundleName ; // v 3.0.0
+		
+		if ( generationCache == null ) {
+			throw new IllegalArgumentException("Generation cache parameter is null");
+		}
+		this.generationCache = generationCache ;
+	}
+	
+	/**
+	 * Enables or disables the tracing of the entities used by the templates 
+	 * @param entitiesTracing
+	 */
+	public void setEntitiesTracing(boolean entitiesTracing) { // v 3.3.0
+		this.entitiesTracing = entitiesTracing ;
+	}
+	
+	/**
+	 * Defines the entity independent templates detector shared by all the targets of the task <br>
+	 * If defined, an entity independent template is rendered only once and the result is reused for the other entities 
+	 * @param entityIndependentTemplates the detector (or null to render all the targets)
+	 */
+	public void setEntityIndependentTemplates(EntityIndependentTemplates entityIndependentTemplates) { // v 3.3.0
+		this.entityIndependentTemplates = entityIndependentTemplates ;
+	}
+	
+	/**
+	 * Returns the entities used by the last generated target (sorted class names as defined in the model) <br>
+	 * The entity of the target is always included, "*" means "all the entities" 
+	 * @return the entities (or null if the tracing is disabled or if the generation failed)
+	 */
+	public Set<String> getTracedEntities() { // v 3.3.0
+		return tracedEntities ;
+	}
+	
+	/**
+	 * Returns true if the last generated target has not been rendered 
+	 * (result of an entity independent template reused)
+	 * @return
+	 */
+	public boolean isResultReused() { // v 3.3.0
+		return resultReused ;
 	}
 	
 	private void log(String s) {
@@ -194,8 +257,33 @@ public class Generator {
 		
 		logger.info("Gen : " + target.getTemplate() + " : " +  entityName  );
 		
+		tracedEntities = null ; // v 3.3.0
+		resultReused = false ; // v 3.3.0
+		EntitiesTracker parentTracker = EntitiesTracker.getCurrent(); // v 3.3.0
+		
+		//--- Entity independent template already rendered for another entity => reuse the result (v 3.3.0)
+		boolean entityIndependent = entityIndependentTemplates != null 
+				&& parentTracker == null 
+				&& ! StrUtil.nullOrVoid( target.getEntityName() ) 
+				&& entityIndependentTemplates.isEntityIndependent(target.getTemplate()) ;
+		if ( entityIndependent ) {
+			EntityIndependentTemplates.RenderedTemplate renderedTemplate = 
+					entityIndependentTemplates.getRenderedTemplate(target.getTemplate());
+			if ( renderedTemplate != null ) {
+				logger.log("Entity independent template : result reused");
+				if ( entitiesTracing && renderedTemplate.getUsedEntities() != null ) {
+					Set<String> entities = new TreeSet<>(renderedTemplate.getUsedEntities());
+					entities.add(target.getEntityName());
+					tracedEntities = Collections.unmodifiableSet(entities);
+				}
+				saveResult(target, renderedTemplate.getResult(), generatedTargets);
+				resultReused = true ;
+				return ;
+			}
+		}
+		
 		//--- Creation of a full context for the generator
-		GeneratorContextBuilder generatorContextBuilder = new GeneratorContextBuilder(telosysToolsCfg, logger);
+		GeneratorContextBuilder generatorContextBuilder = new GeneratorContextBuilder(telosysToolsCfg, logger, generationCache);
 		GeneratorContext generatorContext = generatorContextBuilder.initFullContext(
 				model, 
 				//_databasesConfigurations, 
@@ -204,10 +292,22 @@ public class Generator {
 				target, 
 				generatedTargets);
 
+		//---------- Entities tracing (also active for an embedded generation in a traced generation) 
+		//           and runtime check for an entity independent template 
+		EntitiesTracker tracker = null ;
+		if ( entitiesTracing || parentTracker != null || entityIndependent ) {
+			tracker = new EntitiesTracker();
+			if ( ! StrUtil.nullOrVoid( target.getEntityName() ) ) {
+				tracker.add(target.getEntityName());
+			}
+		}
+		
 		//---------- ((( GENERATION ))) 
 		CancelDirectiveException cancelException = null ;
 		String result = null; // v 3.3.0
 //		InputStream is = null;
+		EntitiesTracker.setCurrent(tracker); // v 3.3.0
+		List<Closeable> enclosingResources = RenderingResources.begin(); // v 3.3.0
 		try {
 //			is = generateInMemory(target, generatorContext);
 			result = generateInMemory(target, generatorContext); // v 3.3.0
@@ -223,6 +323,23 @@ public class Generator {
 			logger.error(e.getMessage());
 			throw new GeneratorException(msg + " : " + e.getMessage(), e);
 		} // Generate the target in memory
+		finally {
+			RenderingResources.end(enclosingResources); // v 3.3.0 (files opened by the template)
+			EntitiesTracker.setCurrent(parentTracker); // v 3.3.0
+		}
+		if ( tracker != null ) {
+			if ( entitiesTracing || parentTracker != null ) {
+				tracedEntities = tracker.getEntities();
+			}
+			if ( parentTracker != null ) {
+				// embedded generation : the parent file must be regenerated to regenerate this one
+				parentTracker.addAll(tracedEntities); 
+			}
+			if ( entityIndependent && cancelException == null 
+					&& entityIndependentTemplates.checkContextObjects(target.getTemplate(), tracker.getContextObjects()) ) {
+				entityIndependentTemplates.putRenderedTemplate(target.getTemplate(), result, tracker.getEntities());
+			}
+		}
 
 		if ( cancelException != null ) {
 			//--- GENERATION CANCELED 
@@ -230,17 +347,21 @@ public class Generator {
 		}
 		else {
 			//--- GENERATION OK : Save generation result in the destiantion file
-			String outputFileName = target.getOutputFileNameInFileSystem( 
-					telosysToolsCfg.getDestinationFolderAbsolutePath() ); // v 3.0.0
-			logger.log("Saving target file : " + outputFileName );
-//			saveStreamInFile(is, outputFileName, true );
-			saveResultInFile(result, outputFileName, true); // v 3.0.0
-			logger.info("OK :  " + target.getOutputFileNameInProject() );
-			
-			//--- Add the generated target in the list if any
-			if ( generatedTargets != null ) {
-				generatedTargets.add(target);
-			}
+			saveResult(target, result, generatedTargets); 
+		}
+	}
+	
+	private void saveResult(Target target, String result, List<Target> generatedTargets) throws GeneratorException {
+		String outputFileName = target.getOutputFileNameInFileSystem( 
+				telosysToolsCfg.getDestinationFolderAbsolutePath() ); // v 3.0.0
+		logger.log("Saving target file : " + outputFileName );
+//		saveStreamInFile(is, outputFileName, true );
+		saveResultInFile(result, outputFileName, true); // v 3.0.0
+		logger.info("OK :  " + target.getOutputFileNameInProject() );
+		
+		//--- Add the generated target in the list if any
+		if ( generatedTargets != null ) {
+			generatedTargets.add(target);
 		}
 	}
 	
@@ -28,6 +28,7 @@ import org.telosys.tools.generator.context.BeanValidation;
 import org.telosys.tools.generator.context.BundleInContext;
 import org.telosys.tools.generator.context.Const;
 import org.telosys.tools.generator.context.DatabasesInContext;
+import org.telosys.tools.generator.context.DdlInContext;
 import org.telosys.tools.generator.context.EmbeddedGenerator;
 import org.telosys.tools.generator.context.EntityInContext;
 import org.telosys.tools.generator.context.EnvInContext;
@@ -44,6 +45,7 @@ import org.telosys.tools.generator.context.ProjectInContext;
 import org.telosys.tools.generator.context.Target;
 import org.telosys.tools.generator.context.Today;
 import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generator.context.tools.EntitiesTrackedList;
 import org.telosys.tools.generator.engine.GeneratorContext;
 import org.telosys.tools.generic.model.Model;
 
@@ -58,6 +60,7 @@ public class GeneratorContextBuilder {
 	private final TelosysToolsCfg     telosysToolsCfg ;
 	private final TelosysToolsLogger  logger ;
 	private final GeneratorContext    generatorContext ;
+	private final GenerationCache     generationCache ;
 	
 	private Model                     model = null ;
 	private ModelInContext            modelInContext = null ;
@@ -74,6 +77,17 @@ public class GeneratorContextBuilder {
 	 * @param logger
 	 */
 	public GeneratorContextBuilder( TelosysToolsCfg telosysToolsCfg, TelosysToolsLogger logger)  {
+		this(telosysToolsCfg, logger, new GenerationCache());
+	}
+	
+	/**
+	 * Constructor with a cache shared by all the generations of the current task <br>
+	 * @param telosysToolsCfg
+	 * @param logger
+	 * @param generationCache
+	 */
+	public GeneratorContextBuilder( TelosysToolsCfg telosysToolsCfg, TelosysToolsLogger logger, 
+			GenerationCache generationCache)  {
 		this.logger = logger; 
 		
 		if ( telosysToolsCfg == null ) {
@@ -81,6 +95,11 @@ public class GeneratorContextBuilder {
 		}
 		this.telosysToolsCfg = telosysToolsCfg;
 
+		if ( generationCache == null ) {
+			throw new IllegalArgumentException("GenerationCache parameter is null");
+		}
+		this.generationCache = generationCache ;
+		
 		generatorContext = new GeneratorContext(); 		
 	}
 	
@@ -133,13 +152,14 @@ public class GeneratorContextBuilder {
 		generatorContext.put(ContextName.TODAY,           new Today()); // Current date and time 
 		generatorContext.put(ContextName.NOW,             new NowInContext()); // Current date and time ( ver 3.3.0 )
 		generatorContext.put(ContextName.CONST,           new Const()); // Constants (static values)
-		generatorContext.put(ContextName.FN,              new FnInContext(generatorContext, env)); // Utility functions
-		generatorContext.put(ContextName.JAVA,            new Java());  // Java utility functions
-		generatorContext.put(ContextName.JPA,             new Jpa());   // JPA utility functions
-		generatorContext.put(ContextName.JDBC_FACTORY,    new JdbcFactoryInContext());  // JDBC factory ( ver 2.1.1 )
+		generatorContext.put(ContextName.FN,              new FnInContext(generatorContext, env, generationCache.getMemoCache())); // Utility functions
+		generatorContext.put(ContextName.JAVA,            new Java(generationCache.getMemoCache()));  // Java utility functions
+		generatorContext.put(ContextName.JPA,             new Jpa(generationCache.getMemoCache()));   // JPA utility functions
+		generatorContext.put(ContextName.JDBC_FACTORY,    new JdbcFactoryInContext(generationCache.getMemoCache()));  // JDBC factory ( ver 2.1.1 )
 		generatorContext.put(ContextName.BEAN_VALIDATION, new BeanValidation()); // Bean Validation utility functions
 		generatorContext.put(ContextName.H2,              new H2InContext());  // JDBC factory ( ver 2.1.1 )
 		generatorContext.put(ContextName.HTML,            new HtmlInContext());  // HTML utilities ( ver 3.0.0 )
+		generatorContext.put(ContextName.DDL,             new DdlInContext(env, generationCache.getMemoCache()));  // DDL for the model ( ver 3.3.0 )
 
 		generatorContext.put(ContextName.DATABASES,	buildDatabasesInContext(telosysToolsCfg) );
 				
@@ -152,7 +172,7 @@ public class GeneratorContextBuilder {
 
 		//--- Set "$model" object : full model with  all the entities (v 2.0.7)
 		this.model = model ;
-		this.modelInContext = new ModelInContext(model, telosysToolsCfg, env ); // v 3.3.0
+		this.modelInContext = new ModelInContext(model, telosysToolsCfg, env, generationCache ); // v 3.3.0
 		generatorContext.put(ContextName.MODEL, modelInContext); 
 		
 		//--- Set "$bundle" object ( new in v 3.3.0 ) 
@@ -214,7 +234,7 @@ public class GeneratorContextBuilder {
 	private void setSelectedEntities(List<String> selectedEntitiesNames) throws GeneratorException {
 		//--- Set "$selectedEntities" ( list of all the selected entities )
 		List<EntityInContext> selectedEntities = modelInContext.getEntities(selectedEntitiesNames); 
-		generatorContext.put(ContextName.SELECTED_ENTITIES, selectedEntities);
+		generatorContext.put(ContextName.SELECTED_ENTITIES, new EntitiesTrackedList<>(selectedEntities)); // v 3.3.0
 	}
 	
 	//-------------------------------------------------------------------------------------------------------
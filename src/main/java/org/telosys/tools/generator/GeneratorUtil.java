@@ -15,8 +15,21 @@
  */
 package org.telosys.tools.generator;
 
+import java.util.Arrays;
+
 public class GeneratorUtil {
 
+	//--- Precomputed blanks strings : BLANKS[n] is composed of n blanks 
+	private static final int      MAX_PRECOMPUTED_BLANKS = 128 ;
+	private static final String[] BLANKS = new String[MAX_PRECOMPUTED_BLANKS + 1] ;
+	static {
+		char[] chars = new char[MAX_PRECOMPUTED_BLANKS];
+		Arrays.fill(chars, ' ');
+		for ( int i = 0 ; i <= MAX_PRECOMPUTED_BLANKS ; i++ ) {
+			BLANKS[i] = new String(chars, 0, i);
+		}
+	}
+	
 	/**
 	 * Private constructor
 	 */
@@ -26,21 +39,64 @@ public class GeneratorUtil {
     /**
      * Return a string composed of iSize blanks
      * @param iSize
-     * @return the blanks string
+     * @return the blanks string (shared instance if size <= 128)
      */
 	public static String blanks(int iSize)
     {
-        String sTrailingBlanks = "";
-        if (iSize > 0) // if needs trailing blanks
-        {
-            StringBuilder sb = new StringBuilder();
-            for ( int i = 0 ; i < iSize ; i++ )
-            {
-                sb.append(' ');
-            }
-            sTrailingBlanks = sb.toString();
+        if ( iSize <= 0 ) {
+        	return BLANKS[0] ;
+        }
+        else if ( iSize <= MAX_PRECOMPUTED_BLANKS ) {
+        	return BLANKS[iSize] ;
+        }
+        else {
+        	char[] chars = new char[iSize];
+        	Arrays.fill(chars, ' ');
+        	return new String(chars);
         }
-        return sTrailingBlanks;
+    }
+    
+	//-------------------------------------------------------------
+    /**
+     * Returns the given string with trailing blanks in order to obtain the expected size <br>
+     * The string is returned as is if its length is greater or equal to the expected size
+     * @param s
+     * @param iSize expected size
+     * @return
+     */
+	public static String padRight(String s, int iSize)
+    {
+        int iDelta = iSize - s.length();
+        if ( iDelta <= 0 ) {
+        	return s ; // no trailing blanks => no new string
+        }
+        else if ( iDelta <= MAX_PRECOMPUTED_BLANKS ) {
+        	return s.concat(BLANKS[iDelta]);
+        }
+        else {
+        	char[] chars = new char[iSize];
+        	s.getChars(0, s.length(), chars, 0);
+        	Arrays.fill(chars, s.length(), iSize, ' ');
+        	return new String(chars);
+        }
+    }
+    
+	//-------------------------------------------------------------
+    /**
+     * Appends iSize blanks in the given StringBuilder (without intermediate string)
+     * @param sb
+     * @param iSize
+     * @return the given StringBuilder
+     */
+	public static StringBuilder appendBlanks(StringBuilder sb, int iSize)
+    {
+		int remaining = iSize ;
+		while ( remaining > 0 ) {
+			int n = Math.min(remaining, MAX_PRECOMPUTED_BLANKS);
+			sb.append(BLANKS[n]);
+			remaining = remaining - n ;
+		}
+		return sb ;
     }
     
 	/**
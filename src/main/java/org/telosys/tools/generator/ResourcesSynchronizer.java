@@ -0,0 +1,312 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator ;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.telosys.tools.commons.TelosysToolsLogger;
+import org.telosys.tools.commons.io.CopyHandler;
+import org.telosys.tools.commons.io.OverwriteChooser;
+import org.telosys.tools.commons.io.ResourcesCopier;
+
+/**
+ * Incremental copy of static resources (file or folder) <br>
+ * A file is copied only if the destination file doesn't exist or has a different size or date <br>
+ * The file date is kept by the copy, so an unchanged file is never copied twice <br>
+ * The folders are created even if empty <br>
+ * Without 'overwrite chooser' and 'copy handler' the folders are walked and the files are copied in parallel 
+ * (with a dedicated pool of threads, released at the end of each copy)
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class ResourcesSynchronizer {
+
+	private static final int FILES_PER_TASK = 16 ; // number of files copied by a single task
+	private static final int MAX_THREADS    = 8 ; // blocking I/O : a few threads are enough
+	
+	private final TelosysToolsLogger logger;
+
+	//----------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor
+	 * @param logger (can be null)
+	 */
+	public ResourcesSynchronizer(TelosysToolsLogger logger) {
+		super();
+		this.logger = logger ;
+	}
+	
+	//----------------------------------------------------------------------------------------------------
+	private void log(String s) {
+		if (logger != null) {
+			logger.log( this.getClass().getSimpleName() + " : " + s);
+		}
+	}
+	
+	//----------------------------------------------------------------------------------------------------
+	/**
+	 * Copies the origin (file or folder) to the destination, only the modified files are copied
+	 * @param origin
+	 * @param destination
+	 * @param overwriteChooser - OverwriteChooser implementation (or null if none)
+	 * @param copyHandler - handler for action 'before' and 'after' copy (can be null)
+	 * @return the number of files copied (or -1 if canceled)
+	 * @throws IOException
+	 */
+	public int copy(File origin, File destination, OverwriteChooser overwriteChooser, CopyHandler copyHandler ) throws IOException {
+		if ( overwriteChooser != null || copyHandler != null ) {
+			// the chooser and the handler are called for each file in the original order
+			List<Path[]> filesToCopy = getFilesToCopy(origin.toPath(), destination.toPath());
+			log(filesToCopy.size() + " file(s) to copy (new or modified)");
+			return copyWithResourcesCopier(filesToCopy, overwriteChooser, copyHandler);
+		}
+		else if ( Files.isDirectory(origin.toPath()) ) {
+			int count = new ParallelCopy(origin.toPath(), destination.toPath()).run();
+			log(count + " file(s) copied (new or modified)");
+			return count ;
+		}
+		else {
+			if ( isUpToDate(Files.readAttributes(origin.toPath(), BasicFileAttributes.class), destination.toPath()) ) {
+				return 0 ;
+			}
+			copyFile(origin.toPath(), destination.toPath());
+			return 1 ;
+		}
+	}
+	
+	//----------------------------------------------------------------------------------------------------
+	/**
+	 * Returns the list of files to be copied : { source, destination } <br>
+	 * The destination folders are created during the walk (including the empty ones)
+	 * @param origin
+	 * @param destination
+	 * @return
+	 * @throws IOException
+	 */
+	private List<Path[]> getFilesToCopy(final Path origin, final Path destination) throws IOException {
+		final List<Path[]> filesToCopy = new ArrayList<>();
+		if ( Files.isDirectory(origin) ) {
+			Files.walkFileTree(origin, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+					Files.createDirectories(destination.resolve(origin.relativize(dir).toString()));
+					return FileVisitResult.CONTINUE;
+				}
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+					Path target = destination.resolve(origin.relativize(file).toString());
+					if ( ! isUpToDate(attributes, target) ) {
+						filesToCopy.add(new Path[] { file, target } );
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		else {
+			if ( ! isUpToDate(Files.readAttributes(origin, BasicFileAttributes.class), destination) ) {
+				filesToCopy.add(new Path[] { origin, destination } );
+			}
+		}
+		return filesToCopy ;
+	}
+	
+	/**
+	 * Returns true if the destination file exists with the same size and the same date as the source file
+	 * @param sourceAttributes
+	 * @param destination
+	 * @return
+	 * @throws IOException
+	 */
+	/* package */ static boolean isUpToDate(BasicFileAttributes sourceAttributes, Path destination) throws IOException {
+		if ( ! Files.isRegularFile(destination) ) {
+			return false ;
+		}
+		BasicFileAttributes destinationAttributes = Files.readAttributes(destination, BasicFileAttributes.class);
+		return destinationAttributes.size() == sourceAttributes.size() 
+				// compared in milliseconds : the precision kept by the copy depends on the platform
+				&& destinationAttributes.lastModifiedTime().toMillis() == sourceAttributes.lastModifiedTime().toMillis() ;
+	}
+	
+	//----------------------------------------------------------------------------------------------------
+	private int copyWithResourcesCopier(List<Path[]> filesToCopy, OverwriteChooser overwriteChooser, CopyHandler copyHandler) throws IOException {
+		ResourcesCopier copier = new ResourcesCopier(overwriteChooser, copyHandler );
+		int count = 0 ;
+		for ( Path[] fileToCopy : filesToCopy ) {
+			int n = copier.copy(fileToCopy[0].toFile(), fileToCopy[1].toFile());
+			if ( n < 0 ) {
+				// Copy canceled 
+				return -1 ;
+			}
+			// keep the original date to avoid a new copy next time 
+			if ( n > 0 ) {
+				Files.setLastModifiedTime(fileToCopy[1], Files.getLastModifiedTime(fileToCopy[0]));
+			}
+			count = count + n ;
+		}
+		return count ;
+	}
+	
+	/**
+	 * Copies a single file (with its attributes, in particular the date)
+	 * @param source
+	 * @param destination
+	 * @throws IOException
+	 */
+	/* package */ static void copyFile(Path source, Path destination) throws IOException {
+		Path parent = destination.getParent();
+		if ( parent != null ) {
+			Files.createDirectories(parent);
+		}
+		Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+	}
+	
+	//----------------------------------------------------------------------------------------------------
+	/**
+	 * Parallel walk and copy of a folder with a dedicated pool of threads <br>
+	 * Each folder is a task : creates the destination folder, submits a task for each sub-folder 
+	 * and copies its modified files (by groups of FILES_PER_TASK files)
+	 */
+	private static class ParallelCopy {
+		private final Path origin ;
+		private final Path destination ;
+		private final ExecutorService executor ;
+		private final Phaser pendingTasks = new Phaser(1); // 1 = the main thread
+		private final AtomicInteger count = new AtomicInteger(0);
+		private final AtomicReference<IOException> error = new AtomicReference<>();
+		
+		ParallelCopy(Path origin, Path destination) {
+			this.origin = origin ;
+			this.destination = destination ;
+			int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() * 2)) ;
+			this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "telosys-resources-copy");
+					thread.setDaemon(true);
+					return thread ;
+				}
+			});
+		}
+		
+		int run() throws IOException {
+			try {
+				submit(new Runnable() {
+					@Override
+					public void run() {
+						copyFolder(origin);
+					}
+				});
+				pendingTasks.arriveAndAwaitAdvance(); // wait for all the tasks (including the sub-tasks)
+			} finally {
+				executor.shutdownNow();
+			}
+			if ( error.get() != null ) {
+				throw error.get();
+			}
+			return count.get();
+		}
+		
+		private void submit(final Runnable task) {
+			pendingTasks.register();
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						if ( error.get() == null ) { // stop at the first error
+							task.run();
+						}
+					} catch (RuntimeException e) {
+						error.compareAndSet(null, new IOException(e.getMessage(), e));
+					} finally {
+						pendingTasks.arriveAndDeregister();
+					}
+				}
+			});
+		}
+		
+		private void copyFolder(Path folder) {
+			try {
+				Files.createDirectories(destination.resolve(origin.relativize(folder).toString()));
+				final List<Path[]> files = new ArrayList<>();
+				try ( DirectoryStream<Path> stream = Files.newDirectoryStream(folder) ) {
+					for ( final Path path : stream ) {
+						BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+						if ( attributes.isDirectory() ) {
+							submit(new Runnable() {
+								@Override
+								public void run() {
+									copyFolder(path);
+								}
+							});
+						}
+						else {
+							Path target = destination.resolve(origin.relativize(path).toString());
+							if ( ! isUpToDate(attributes, target) ) {
+								files.add(new Path[] { path, target } );
+							}
+						}
+					}
+				}
+				//--- Copy the files (by groups)
+				for ( int from = 0 ; from < files.size() ; from = from + FILES_PER_TASK ) {
+					final List<Path[]> group = files.subList(from, Math.min(from + FILES_PER_TASK, files.size()));
+					if ( from + FILES_PER_TASK >= files.size() ) {
+						copyFiles(group); // last group : in the current task
+					}
+					else {
+						submit(new Runnable() {
+							@Override
+							public void run() {
+								copyFiles(group);
+							}
+						});
+					}
+				}
+			} catch (IOException e) {
+				error.compareAndSet(null, e);
+			}
+		}
+		
+		private void copyFiles(List<Path[]> files) {
+			for ( Path[] file : files ) {
+				try {
+					copyFile(file[0], file[1]);
+					count.incrementAndGet();
+				} catch (IOException e) {
+					error.compareAndSet(null, e);
+					return ;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,445 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.log.NullLogChute;
+import org.apache.velocity.runtime.parser.node.ASTDirective;
+import org.apache.velocity.runtime.parser.node.ASTReference;
+import org.apache.velocity.runtime.parser.node.ASTStringLiteral;
+import org.apache.velocity.runtime.parser.node.Node;
+
+/**
+ * Dependency graph of the templates of a bundle (built from the templates AST) <br>
+ * A template depends on : <br>
+ *  - the files used with '#parse' and '#include' (with a literal file name) <br>
+ *  - the files defining the macros it calls (macro libraries) <br>
+ * A template using '#parse' or '#include' with a dynamic file name (or not parsable) depends on all the files <br>
+ * The graph also keeps the root names of the references used by each template (eg "entity" for "$entity.name") <br>
+ * The file names are relative to the bundle folder with '/' as separator (eg "include/macros.vm")
+ *  
+ * @author Laurent GUERIN
+ *
+ */
+public class TemplatesDependencyGraph {
+
+	private static final String TEMPLATE_EXTENSION = ".vm" ;
+	private static final String PARSE   = "parse" ;
+	private static final String INCLUDE = "include" ;
+	private static final String MACRO   = "macro" ;
+	private static final String EVALUATE = "evaluate" ;
+	
+	/**
+	 * Names of the directives parsed as a directive call (not defined by a macro of the bundle) : 
+	 * Velocity directives and Telosys specific directives 
+	 */
+	private static final Set<String> BUILTIN_DIRECTIVES = new HashSet<>(Arrays.asList(
+			"foreach", "include", "parse", "macro", "literal", "evaluate", "break", "stop", "define", // Velocity
+			"using", "error", "cancel", "checkId", "assertTrue", "assertFalse" )); // Telosys
+	
+	private final Path bundleFolder ;
+	
+	// template -> analysis
+	private final Map<String, TemplateInfo> templates = new HashMap<>();
+	
+	/**
+	 * Analysis of a template file 
+	 */
+	private static class TemplateInfo {
+		private final Set<String> usedFiles      = new HashSet<>(); // #parse, #include
+		private final Set<String> parsedFiles    = new HashSet<>(); // #parse only (interpreted)
+		private final Set<String> definedMacros  = new HashSet<>(); 
+		private final Set<String> calledMacros   = new HashSet<>(); 
+		private boolean           dependsOnAll   = false ; // dynamic file name or parsing error
+		private final CodeInfo    topLevelCode   = new CodeInfo(); // code outside the macros
+		private final Map<String, CodeInfo> macrosCode = new HashMap<>(); // macro name -> macro body
+	}
+	
+	/**
+	 * References used by a piece of code (top level code of a template or macro body)
+	 */
+	private static class CodeInfo {
+		private final Set<String> references     = new HashSet<>(); // root names ( $foo.bar -> "foo" )
+		private final Set<String> calledMacros   = new HashSet<>(); // including the macros of the same file
+		private boolean           dynamicCode    = false ; // #evaluate or not parsable string 
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor
+	 * @param bundleFolder the bundle folder containing the templates
+	 */
+	public TemplatesDependencyGraph(File bundleFolder) {
+		super();
+		this.bundleFolder = bundleFolder.toPath().toAbsolutePath().normalize() ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Analyzes all the templates of the bundle 
+	 * @throws IOException
+	 */
+	public synchronized void build() throws IOException {
+		templates.clear();
+		final RuntimeInstance runtime = createRuntime();
+		Files.walkFileTree(bundleFolder, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+				if ( file.getFileName().toString().endsWith(TEMPLATE_EXTENSION) ) {
+					String name = toTemplateName(file);
+					templates.put(name, analyze(runtime, file, name));
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+	
+	/**
+	 * Updates the graph after a change of the given file (analyzed again if it still exists)
+	 * @param file
+	 * @throws IOException
+	 */
+	public synchronized void update(Path file) throws IOException {
+		String name = toTemplateName(file);
+		if ( Files.isRegularFile(file) && name.endsWith(TEMPLATE_EXTENSION) ) {
+			templates.put(name, analyze(createRuntime(), file, name));
+		}
+		else {
+			templates.remove(name);
+		}
+	}
+	
+	/**
+	 * Returns the name of the given file relative to the bundle folder (eg "include/macros.vm")
+	 * @param file
+	 * @return
+	 */
+	public String toTemplateName(Path file) {
+		Path path = file.toAbsolutePath().normalize();
+		String name = path.startsWith(bundleFolder) ? bundleFolder.relativize(path).toString() : path.toString() ;
+		return normalize(name);
+	}
+
+	private static String normalize(String templateName) {
+		String s = templateName.replace('\\', '/');
+		return s.startsWith("/") ? s.substring(1) : s ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	private static RuntimeInstance createRuntime() {
+		RuntimeInstance runtime = new RuntimeInstance();
+		runtime.setProperty(RuntimeConstants.RUNTIME_LOG_LOGSYSTEM_CLASS, NullLogChute.class.getName());
+		try {
+			runtime.init(); // only used for parsing (no resource loading)
+		} catch (Exception e) {
+			throw new IllegalStateException("Cannot initialize Velocity runtime", e);
+		}
+		return runtime ;
+	}
+	
+	private TemplateInfo analyze(RuntimeInstance runtime, Path file, String name) throws IOException {
+		TemplateInfo info = new TemplateInfo();
+		try ( Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8) ) {
+			visit(runtime, runtime.parse(reader, name), name, info, info.topLevelCode);
+		} catch (IOException e) {
+			throw e ;
+		} catch (Exception e) {
+			// parsing error : cannot known the dependencies 
+			info.dependsOnAll = true ;
+		}
+		// macros defined and called in the same file are not dependencies
+		info.calledMacros.removeAll(info.definedMacros);
+		return info ;
+	}
+	
+	private void visit(RuntimeInstance runtime, Node node, String name, TemplateInfo info, CodeInfo code) {
+		CodeInfo childrenCode = code ;
+		if ( node instanceof ASTReference ) {
+			code.references.add(((ASTReference) node).getRootString());
+		}
+		else if ( node instanceof ASTStringLiteral ) {
+			visitInterpolatedString(runtime, node, name, info, code);
+		}
+		else if ( node instanceof ASTDirective ) {
+			String directiveName = ((ASTDirective) node).getDirectiveName();
+			if ( PARSE.equals(directiveName) || INCLUDE.equals(directiveName) ) {
+				for ( int i = 0 ; i < node.jjtGetNumChildren() ; i++ ) {
+					String fileName = getLiteralValue(node.jjtGetChild(i));
+					if ( fileName != null ) {
+						info.usedFiles.add(normalize(fileName));
+						if ( PARSE.equals(directiveName) ) {
+							info.parsedFiles.add(normalize(fileName));
+						}
+					}
+					else {
+						info.dependsOnAll = true ;
+					}
+				}
+			}
+			else if ( MACRO.equals(directiveName) ) {
+				if ( node.jjtGetNumChildren() > 0 ) {
+					String macroName = node.jjtGetChild(0).getFirstToken().image ;
+					info.definedMacros.add(macroName);
+					// the macro body is analyzed separately (only used if the macro is called)
+					childrenCode = new CodeInfo();
+					info.macrosCode.put(macroName, childrenCode);
+				}
+			}
+			else if ( EVALUATE.equals(directiveName) ) {
+				code.dynamicCode = true ;
+			}
+			else if ( directiveName != null ) {
+				// macro call or other directive ( #foreach, #define, etc ) : only macros will match a definition
+				info.calledMacros.add(directiveName);
+				code.calledMacros.add(directiveName);
+			}
+		}
+		for ( int i = 0 ; i < node.jjtGetNumChildren() ; i++ ) {
+			visit(runtime, node.jjtGetChild(i), name, info, childrenCode);
+		}
+	}
+	
+	/**
+	 * Analyzes the references used in a string with double quotes (interpolated when rendered) 
+	 * @param runtime
+	 * @param node
+	 * @param name
+	 * @param info
+	 */
+	private void visitInterpolatedString(RuntimeInstance runtime, Node node, String name, TemplateInfo info, CodeInfo code) {
+		String image = node.getFirstToken() != null ? node.getFirstToken().image : null ;
+		if ( image != null && image.length() >= 2 && image.charAt(0) == '"' 
+				&& ( image.indexOf('$') >= 0 || image.indexOf('#') >= 0 ) ) {
+			try {
+				visit(runtime, runtime.parse(new StringReader(image.substring(1, image.length() - 1)), name), name, info, code);
+			} catch (Exception e) {
+				code.dynamicCode = true ;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the value of the given node if it's a literal string without variable (else null)
+	 * @param node
+	 * @return
+	 */
+	private static String getLiteralValue(Node node) {
+		if ( node instanceof ASTStringLiteral && node.getFirstToken() != null ) {
+			String image = node.getFirstToken().image ;
+			if ( image != null && image.length() >= 2 ) {
+				char quote = image.charAt(0);
+				String value = image.substring(1, image.length() - 1);
+				if ( quote == '\'' || ( quote == '"' && value.indexOf('$') < 0 ) ) {
+					return value ;
+				}
+			}
+		}
+		return null ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Returns the root names of all the references used when the given template is rendered 
+	 * (the template itself, the files used with '#parse' and the macros it calls, recursively) 
+	 * @param template
+	 * @return the names (or null if they cannot be determined : unknown file or macro, '#evaluate', dynamic '#parse', etc)
+	 */
+	public synchronized Set<String> getReferences(String template) {
+		Set<String> references = new TreeSet<>();
+		Set<String> calledMacros = new HashSet<>();
+		//--- Top level code of the template and of the files used with '#parse'
+		Set<String> visitedFiles = new HashSet<>();
+		LinkedList<String> filesToVisit = new LinkedList<>();
+		filesToVisit.add(normalize(template));
+		while ( ! filesToVisit.isEmpty() ) {
+			String current = filesToVisit.removeFirst();
+			if ( visitedFiles.add(current) ) {
+				TemplateInfo info = templates.get(current);
+				if ( info == null || info.dependsOnAll || info.topLevelCode.dynamicCode ) {
+					return null ;
+				}
+				references.addAll(info.topLevelCode.references);
+				calledMacros.addAll(info.topLevelCode.calledMacros);
+				filesToVisit.addAll(info.parsedFiles);
+			}
+		}
+		//--- Body of the macros called (directly or by another macro)
+		Set<String> visitedMacros = new HashSet<>();
+		LinkedList<String> macrosToVisit = new LinkedList<>(calledMacros);
+		while ( ! macrosToVisit.isEmpty() ) {
+			String macro = macrosToVisit.removeFirst();
+			if ( visitedMacros.add(macro) ) {
+				boolean defined = false ;
+				for ( TemplateInfo info : templates.values() ) {
+					CodeInfo code = info.macrosCode.get(macro);
+					if ( code != null ) {
+						if ( info.dependsOnAll || code.dynamicCode ) {
+							return null ;
+						}
+						defined = true ;
+						references.addAll(code.references);
+						macrosToVisit.addAll(code.calledMacros);
+					}
+				}
+				if ( ! defined && ! BUILTIN_DIRECTIVES.contains(macro) ) {
+					// macro not defined in the bundle (eg global macro library) : its code is unknown
+					return null ;
+				}
+			}
+		}
+		return references ;
+	}
+	
+	/**
+	 * Returns the names of all the templates analyzed
+	 * @return
+	 */
+	public synchronized Set<String> getTemplates() {
+		return new TreeSet<>(templates.keySet());
+	}
+	
+	/**
+	 * Returns the files directly used by the given template ( '#parse', '#include', macros libraries )
+	 * @param template
+	 * @return
+	 */
+	public synchronized Set<String> getDependencies(String template) {
+		return getDependencies(normalize(template), getMacrosDefinitions());
+	}
+	
+	private Set<String> getDependencies(String template, Map<String, Set<String>> macrosDefinitions) {
+		TemplateInfo info = templates.get(template);
+		if ( info == null ) {
+			return Collections.emptySet();
+		}
+		Set<String> dependencies = new TreeSet<>(info.usedFiles);
+		for ( String macro : info.calledMacros ) {
+			Set<String> files = macrosDefinitions.get(macro);
+			if ( files != null ) {
+				dependencies.addAll(files);
+			}
+		}
+		return dependencies ;
+	}
+	
+	/**
+	 * Returns the files defining each macro : macro name -> files
+	 * @return
+	 */
+	private Map<String, Set<String>> getMacrosDefinitions() {
+		Map<String, Set<String>> macrosDefinitions = new HashMap<>();
+		for ( Map.Entry<String, TemplateInfo> entry : templates.entrySet() ) {
+			for ( String macro : entry.getValue().definedMacros ) {
+				Set<String> files = macrosDefinitions.get(macro);
+				if ( files == null ) {
+					files = new HashSet<>();
+					macrosDefinitions.put(macro, files);
+				}
+				files.add(entry.getKey());
+			}
+		}
+		return macrosDefinitions ;
+	}
+	
+	/**
+	 * Returns true if the dependencies of the given template cannot be determined (it depends on all the files)
+	 * @param template
+	 * @return
+	 */
+	public synchronized boolean dependsOnAll(String template) {
+		TemplateInfo info = templates.get(normalize(template));
+		return info != null && info.dependsOnAll ;
+	}
+
+	/**
+	 * Returns true if the given file is a template or a file used by a template 
+	 * @param fileName
+	 * @return
+	 */
+	public synchronized boolean isKnown(String fileName) {
+		String name = normalize(fileName);
+		if ( templates.containsKey(name) ) {
+			return true ;
+		}
+		for ( TemplateInfo info : templates.values() ) {
+			if ( info.usedFiles.contains(name) ) {
+				return true ;
+			}
+		}
+		return false ;
+	}
+	
+	/**
+	 * Returns all the templates to be regenerated after a change of the given file : <br>
+	 * the file itself and all the templates using it directly or indirectly 
+	 * @param fileName the changed file (relative to the bundle folder)
+	 * @return
+	 */
+	public synchronized Set<String> getDependentTemplates(String fileName) {
+		//--- Reverse graph : file -> templates using it 
+		Map<String, Set<String>> macrosDefinitions = getMacrosDefinitions();
+		Map<String, Set<String>> users = new HashMap<>();
+		for ( String template : templates.keySet() ) {
+			for ( String dependency : getDependencies(template, macrosDefinitions) ) {
+				Set<String> set = users.get(dependency);
+				if ( set == null ) {
+					set = new HashSet<>();
+					users.put(dependency, set);
+				}
+				set.add(template);
+			}
+		}
+		Set<String> result = new TreeSet<>();
+		LinkedList<String> toVisit = new LinkedList<>();
+		toVisit.add(normalize(fileName));
+		while ( ! toVisit.isEmpty() ) {
+			String current = toVisit.removeFirst();
+			if ( result.add(current) ) {
+				Set<String> set = users.get(current);
+				if ( set != null ) {
+					toVisit.addAll(set);
+				}
+			}
+		}
+		//--- Templates with unknown dependencies 
+		for ( Map.Entry<String, TemplateInfo> entry : templates.entrySet() ) {
+			if ( entry.getValue().dependsOnAll ) {
+				result.add(entry.getKey());
+			}
+		}
+		return result ;
+	}
+}
@@ -28,6 +28,8 @@ import org.telosys.tools.generator.context.doc.VelocityMethod;
 import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.doc.VelocityReturnType;
 import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generator.context.tools.AttributeTypeInfoPool;
+import org.telosys.tools.generator.context.tools.StringsPool;
 import org.telosys.tools.generic.model.Attribute;
 import org.telosys.tools.generic.model.BooleanValue;
 import org.telosys.tools.generic.model.DateType;
@@ -35,7 +37,6 @@ import org.telosys.tools.generic.model.ForeignKeyPart;
 import org.telosys.tools.generic.model.types.AttributeTypeInfo;
 import org.telosys.tools.generic.model.types.LanguageType;
 import org.telosys.tools.generic.model.types.NeutralType;
-import org.telosys.tools.generic.model.types.TypeConverter;
 
 /**
  * Context class for an ATTRIBUTE ( with or without database mapping )
@@ -68,11 +69,12 @@ public class AttributeInContext {
 
     private final EntityInContext  entityInContext ; // The entity 
     
-	private final ModelInContext   modelInContext ;  
+	private ModelInContext   modelInContext ;  // can be attached after the construction (v 3.3.0)
 
 	private boolean       mustUseFullType = false ; 
 
-	private final boolean selected ;
+	//--- All the boolean flags (bit set, see the flag constants below)
+	private final int     flags ;
     
 	//--- Basic minimal attribute info ---------------------------------
 	private final String  name ;  // attribute name 
@@ -82,49 +84,35 @@ public class AttributeInContext {
 	private final String  defaultValue ; 
 
 	//--- Further info for ALL ---------------------------------------
-	private final boolean isNotNull ;
 	private final String  label ;
 	private final String  inputType ;
 
-    //--- Further info for STRING ------------------------------------
-    private final boolean isLongText ;
-    private final boolean isNotEmpty ;
-    private final boolean isNotBlank ;
-    private final String  minLength ;
-    private final String  maxLength ;
-    private final String  pattern ;
-    
-    //--- Further info for NUMBER ------------------------------------
-    private final String  minValue ;
-    private final String  maxValue ;
+    //--- Further info for STRING, NUMBER and DATE validation --------
+    private final ValidationDetails validation ; // shared void instance if no validation value
 
     //--- Further info for DATE and TIME ---------------------------------
     private final DateType dateType       ;  // By default only DATE
-    private final boolean  isDateInThePast ;
-    private final boolean  isDateInTheFuture ;
-    // private final boolean  _bDateBefore      ; // Removed in v 3.3.0
-    private final String   dateBeforeValue  ;
-    // private final boolean  _bDateAfter       ;  // Removed in v 3.3.0
-    private final String   dateAfterValue   ;
 
 	//--- Database info -------------------------------------------------
-    private final boolean isKeyElement      ;  // True if primary key
-    
     private final String  databaseName     ;  // Column name in the DB table
     private final String  databaseType      ;  // Column type in the DB table
     private final String  databaseSize   ;     // Size of this column (if Varchar ) etc..
     private final String  databaseComment ;     // Comment of this column 
     private final String  databaseDefaultValue ;   
-    private final boolean isDatabaseNotNull ;  // True if "not null" in the database
-    private final boolean isAutoIncremented  ;  // True if auto-incremented by the database
+    private final String  databaseTypeWithSize ; // precomputed 
+    
+	//--- Names (precomputed or rebuilt only if the environment version has changed)
+    private final String  getterWithGetPrefix ;
+    private final String  setter ;
+    private volatile VersionedValue getter = null ;
+    private volatile VersionedValue memoKey = null ;
+    private volatile VersionedValue inferredSqlType = null ; // SQL type for the current database 
+    private volatile SizedValue lastFormattedName = null ;
 
     private final int     jdbcTypeCode    ;  // JDBC type code for this column
     private final String  jdbcTypeName    ;  // JDBC type name 
     
 	//--- FOREIGN KEYS  -------------------------------------------------
-    private final boolean isForeignKey          ; 
-    private final boolean isForeignKeySimple    ; 
-    private final boolean isForeignKeyComposite ; 
     private final String  referencedEntityClassName ; // v 3.0.0 (NOT RELIABLE!)
     private final List<ForeignKeyPartInContext> fkParts = new LinkedList<>(); // v 3.3.0
 
@@ -133,24 +121,7 @@ public class AttributeInContext {
     private final String  booleanFalseValue ; // eg "0", ""No"",  ""false""
     
 	//--- JPA KEY Generation infos -------------------------------------------------
-    private final boolean isGeneratedValue ;  // True if GeneratedValue ( annotation "@GeneratedValue" )
-	private final String  generatedValueStrategy ; // "AUTO", "IDENTITY", "SEQUENCE", "TABLE" 
-	private final String  generatedValueGenerator ;
-	
-    private final boolean hasSequenceGenerator  ;  // True if SequenceGenerator ( annotation "@SequenceGenerator" )
-	private final String  sequenceGeneratorName     ;
-	private final String  sequenceGeneratorSequenceName   ;
-	private final int     sequenceGeneratorAllocationSize ;
-
-    private final boolean hasTableGenerator;  // True if TableGenerator ( annotation "@TableGenerator" )
-	private final String  tableGeneratorName;
-	private final String  tableGeneratorTable;
-	private final String  tableGeneratorPkColumnName;
-	private final String  tableGeneratorValueColumnName;
-	private final String  tableGeneratorPkColumnValue;
-
-	private final boolean isUsedInLinks ; 
-	private final boolean isUsedInSelectedLinks ; 
+    private final JpaGeneratorDetails jpaGenerator ; // shared void instance if no generator 
 	
 	//--- TAGS (added in v 3.3.0)
 	private final Map<String, String> tagsMap ; // All tags defined for the attribute (0..N) 
@@ -160,7 +131,119 @@ public class AttributeInContext {
     
     private final String sqlType ; // Added in v 3.3.0
 
-    private final boolean isTransient ; // Added in v 3.3.0
+	//--- Flags (bits in 'flags')
+	private static final int SELECTED                = 1 ;
+	private static final int NOT_NULL                = 1 << 1 ;
+	private static final int LONG_TEXT               = 1 << 2 ;
+	private static final int NOT_EMPTY               = 1 << 3 ;
+	private static final int NOT_BLANK               = 1 << 4 ;
+	private static final int DATE_IN_THE_PAST        = 1 << 5 ;
+	private static final int DATE_IN_THE_FUTURE      = 1 << 6 ;
+	private static final int KEY_ELEMENT             = 1 << 7 ;
+	private static final int DATABASE_NOT_NULL       = 1 << 8 ;
+	private static final int AUTO_INCREMENTED        = 1 << 9 ;
+	private static final int FOREIGN_KEY             = 1 << 10 ;
+	private static final int FOREIGN_KEY_SIMPLE      = 1 << 11 ;
+	private static final int FOREIGN_KEY_COMPOSITE   = 1 << 12 ;
+	private static final int GENERATED_VALUE         = 1 << 13 ;
+	private static final int SEQUENCE_GENERATOR      = 1 << 14 ;
+	private static final int TABLE_GENERATOR         = 1 << 15 ;
+	private static final int USED_IN_LINKS           = 1 << 16 ;
+	private static final int USED_IN_SELECTED_LINKS  = 1 << 17 ;
+	private static final int TRANSIENT               = 1 << 18 ; // v 3.3.0
+	
+	/**
+	 * Validation values (rarely defined) 
+	 */
+	private static final class ValidationDetails {
+		private final String minLength ;
+		private final String maxLength ;
+		private final String pattern ;
+		private final String minValue ;
+		private final String maxValue ;
+		private final String dateBeforeValue ;
+		private final String dateAfterValue ;
+		
+		private ValidationDetails(String minLength, String maxLength, String pattern, 
+				String minValue, String maxValue, String dateBeforeValue, String dateAfterValue) {
+			this.minLength = minLength ;
+			this.maxLength = maxLength ;
+			this.pattern = pattern ;
+			this.minValue = minValue ;
+			this.maxValue = maxValue ;
+			this.dateBeforeValue = dateBeforeValue ;
+			this.dateAfterValue = dateAfterValue ;
+		}
+		
+		private boolean isVoid() {
+			return minLength.isEmpty() && maxLength.isEmpty() && pattern.isEmpty() 
+					&& minValue.isEmpty() && maxValue.isEmpty() 
+					&& dateBeforeValue.isEmpty() && dateAfterValue.isEmpty() ;
+		}
+	}
+	private static final ValidationDetails NO_VALIDATION = new ValidationDetails(
+			VOID_STRING, VOID_STRING, VOID_STRING, VOID_STRING, VOID_STRING, VOID_STRING, VOID_STRING);
+	
+	/**
+	 * JPA key generation values (only for generated values)
+	 */
+	private static final class JpaGeneratorDetails {
+		private final String  generatedValueStrategy ; // "AUTO", "IDENTITY", "SEQUENCE", "TABLE" 
+		private final String  generatedValueGenerator ;
+		
+		private final String  sequenceGeneratorName ;
+		private final String  sequenceGeneratorSequenceName ;
+		private final int     sequenceGeneratorAllocationSize ;
+
+		private final String  tableGeneratorName ;
+		private final String  tableGeneratorTable ;
+		private final String  tableGeneratorPkColumnName ;
+		private final String  tableGeneratorValueColumnName ;
+		private final String  tableGeneratorPkColumnValue ;
+		
+		private JpaGeneratorDetails(String generatedValueStrategy, String generatedValueGenerator, 
+				String sequenceGeneratorName, String sequenceGeneratorSequenceName, int sequenceGeneratorAllocationSize,
+				String tableGeneratorName, String tableGeneratorTable, String tableGeneratorPkColumnName, 
+				String tableGeneratorValueColumnName, String tableGeneratorPkColumnValue) {
+			this.generatedValueStrategy = generatedValueStrategy ;
+			this.generatedValueGenerator = generatedValueGenerator ;
+			this.sequenceGeneratorName = sequenceGeneratorName ;
+			this.sequenceGeneratorSequenceName = sequenceGeneratorSequenceName ;
+			this.sequenceGeneratorAllocationSize = sequenceGeneratorAllocationSize ;
+			this.tableGeneratorName = tableGeneratorName ;
+			this.tableGeneratorTable = tableGeneratorTable ;
+			this.tableGeneratorPkColumnName = tableGeneratorPkColumnName ;
+			this.tableGeneratorValueColumnName = tableGeneratorValueColumnName ;
+			this.tableGeneratorPkColumnValue = tableGeneratorPkColumnValue ;
+		}
+	}
+	private static final JpaGeneratorDetails NO_JPA_GENERATOR = new JpaGeneratorDetails(
+			VOID_STRING, VOID_STRING, VOID_STRING, VOID_STRING, -1, 
+			VOID_STRING, VOID_STRING, VOID_STRING, VOID_STRING, VOID_STRING);
+	
+	/**
+	 * Value depending on the environment 
+	 */
+	private static final class VersionedValue {
+		private final int    envVersion ;
+		private final String value ;
+		private VersionedValue(int envVersion, String value) {
+			this.envVersion = envVersion ;
+			this.value = value ;
+		}
+	}
+	
+	/**
+	 * Value formatted for a given size
+	 */
+	private static final class SizedValue {
+		private final int    size ;
+		private final String value ;
+		private SizedValue(int size, String value) {
+			this.size = size ;
+			this.value = value ;
+		}
+	}
 	
 	//-----------------------------------------------------------------------------------------------
 	/**
@@ -174,139 +257,186 @@ public class AttributeInContext {
 			final Attribute attribute, 
 			final ModelInContext modelInContext, 
 			final EnvInContext env) 
+	{
+		this(entity, attribute, modelInContext, 
+				modelInContext != null ? modelInContext.getStringsPool() : null, env);
+	}
+	
+	/**
+	 * Constructor with the strings pool of the model (v 3.3.0) <br>
+	 * The model can be null and attached later (see attachModel) 
+	 * @param entity
+	 * @param attribute
+	 * @param modelInContext the model (or null if not yet built)
+	 * @param stringsPool the canonical strings of the model (or null if none)
+	 * @param env
+	 */
+	/* package */ AttributeInContext(final EntityInContext entity, 
+			final Attribute attribute, 
+			final ModelInContext modelInContext, 
+			final StringsPool stringsPool, 
+			final EnvInContext env) 
 	{
 		this.envInContext = env ; 
 		this.modelInContext = modelInContext ; 
 		this.entityInContext = entity ;
 		//--------------------------------------------------
-		this.selected        = attribute.isSelected(); 
+		int f = 0 ;
+		if ( attribute.isSelected() ) f |= SELECTED ; 
 		//--------------------------------------------------
 		
 		this.name   = attribute.getName(); 		
-		this.neutralType     = attribute.getNeutralType() ; 
-		this.attributeTypeInfo = new AttributeTypeInfo(attribute) ; 
+		this.neutralType     = intern( stringsPool, attribute.getNeutralType() ) ; 
+		this.attributeTypeInfo = AttributeTypeInfoPool.get(attribute) ; // shared instance 
 		this.initialValue    = StrUtil.notNull( attribute.getInitialValue() ); 
 		this.defaultValue    = StrUtil.notNull( attribute.getDefaultValue() );
 		
 		//--- Further info for ALL
-        this.isNotNull   = attribute.isNotNull();
+        if ( attribute.isNotNull() ) f |= NOT_NULL ;
         this.label     = StrUtil.notNull( attribute.getLabel() ) ;
-        this.inputType = StrUtil.notNull( attribute.getInputType() );
+        this.inputType = intern( stringsPool, StrUtil.notNull( attribute.getInputType() ) );
         
 		//--- Further info for STRING 
-	    this.isLongText  = attribute.isLongText() ;
-	    this.isNotEmpty  = attribute.isNotEmpty();
-	    this.isNotBlank  = attribute.isNotBlank();
-	    this.maxLength = Util.integerToString(attribute.getMaxLength(), VOID_STRING);
-	    this.minLength = Util.integerToString(attribute.getMinLength(), VOID_STRING);
-	    this.pattern   = StrUtil.notNull( attribute.getPattern() );
-	    
-		//--- Further info for NUMBER 
-		this.minValue = Util.bigDecimalToString(attribute.getMinValue(), VOID_STRING ) ;
-	    this.maxValue = Util.bigDecimalToString(attribute.getMaxValue(), VOID_STRING ) ;
+	    if ( attribute.isLongText() ) f |= LONG_TEXT ;
+	    if ( attribute.isNotEmpty() ) f |= NOT_EMPTY ;
+	    if ( attribute.isNotBlank() ) f |= NOT_BLANK ;
 	    
 		//--- Further info for DATE/TIME 
 	    this.dateType = ( attribute.getDateType() != null ?  attribute.getDateType() : DateType.UNDEFINED );
-	    this.isDateInThePast   = attribute.isDatePast();
-	    this.isDateInTheFuture = attribute.isDateFuture();
-	    // this._bDateBefore = attribute.isDateBefore();  // Removed in v 3.3.0
-	    this.dateBeforeValue = StrUtil.notNull( attribute.getDateBeforeValue() );
-	    // this._bDateAfter  = attribute.isDateAfter();  // Removed in v 3.3.0
-	    this.dateAfterValue  = StrUtil.notNull( attribute.getDateAfterValue() );
+	    if ( attribute.isDatePast() ) f |= DATE_IN_THE_PAST ;
+	    if ( attribute.isDateFuture() ) f |= DATE_IN_THE_FUTURE ;
+	    
+		//--- Validation values for STRING, NUMBER and DATE/TIME 
+	    ValidationDetails validationDetails = new ValidationDetails(
+	    		Util.integerToString(attribute.getMinLength(), VOID_STRING),
+	    		Util.integerToString(attribute.getMaxLength(), VOID_STRING),
+	    		StrUtil.notNull( attribute.getPattern() ),
+	    		Util.bigDecimalToString(attribute.getMinValue(), VOID_STRING ),
+	    		Util.bigDecimalToString(attribute.getMaxValue(), VOID_STRING ),
+	    		StrUtil.notNull( attribute.getDateBeforeValue() ),
+	    		StrUtil.notNull( attribute.getDateAfterValue() ) );
+	    this.validation = validationDetails.isVoid() ? NO_VALIDATION : validationDetails ;
         
 		//--- Database info
 		this.databaseName     = StrUtil.notNull( attribute.getDatabaseName() ) ;
-        this.databaseType     = StrUtil.notNull( attribute.getDatabaseType() ) ;
+        this.databaseType     = intern( stringsPool, StrUtil.notNull( attribute.getDatabaseType() ) ) ;
         this.jdbcTypeCode     = attribute.getJdbcTypeCode() != null ? attribute.getJdbcTypeCode() : 0 ;
-        this.jdbcTypeName     = StrUtil.notNull( attribute.getJdbcTypeName() );
-        this.isKeyElement     = attribute.isKeyElement();
+        this.jdbcTypeName     = intern( stringsPool, StrUtil.notNull( attribute.getJdbcTypeName() ) );
+        if ( attribute.isKeyElement() ) f |= KEY_ELEMENT ;
         // TODO
         this.sqlType = "" ; // v 3.3.0 
         
 		//--- Foreign Keys / references
-        this.isForeignKey          = attribute.isFK() ;
-        this.isForeignKeySimple    = attribute.isFKSimple() ;
-        this.isForeignKeyComposite = attribute.isFKComposite() ;
-        this.referencedEntityClassName = attribute.getReferencedEntityClassName() ;
+        if ( attribute.isFK() ) f |= FOREIGN_KEY ;
+        if ( attribute.isFKSimple() ) f |= FOREIGN_KEY_SIMPLE ;
+        if ( attribute.isFKComposite() ) f |= FOREIGN_KEY_COMPOSITE ;
+        this.referencedEntityClassName = intern( stringsPool, attribute.getReferencedEntityClassName() ) ;
         // Build "Foreign Key Parts" if any ( v 3.3.0 )
         for ( ForeignKeyPart fkPart : attribute.getFKParts() ) {
         	this.fkParts.add(new ForeignKeyPartInContext(fkPart)); // v 3.3.0
         }
 
-        this.isAutoIncremented  = attribute.isAutoIncremented();
-        this.databaseSize     = StrUtil.notNull( attribute.getDatabaseSize() ) ; 
+        if ( attribute.isAutoIncremented() ) f |= AUTO_INCREMENTED ;
+        this.databaseSize     = intern( stringsPool, StrUtil.notNull( attribute.getDatabaseSize() ) ) ; 
         this.databaseComment  = StrUtil.notNull( attribute.getDatabaseComment() ) ; 
         this.databaseDefaultValue = StrUtil.notNull( attribute.getDatabaseDefaultValue() ) ; 
-        this.isDatabaseNotNull  = attribute.isDatabaseNotNull();
+        if ( attribute.isDatabaseNotNull() ) f |= DATABASE_NOT_NULL ;
         
 		//--- Further info for BOOLEAN 
-        this.booleanTrueValue   = Util.trim(attribute.getBooleanTrueValue(), VOID_STRING) ; 
-        this.booleanFalseValue  = Util.trim(attribute.getBooleanFalseValue(), VOID_STRING) ;
+        this.booleanTrueValue   = intern( stringsPool, Util.trim(attribute.getBooleanTrueValue(), VOID_STRING) ) ; 
+        this.booleanFalseValue  = intern( stringsPool, Util.trim(attribute.getBooleanFalseValue(), VOID_STRING) ) ;
 		
         
 		//--- Further info for JPA         
+        String generatedValueStrategy  = VOID_STRING ;
+        String generatedValueGenerator = VOID_STRING ;
         if ( attribute.isAutoIncremented() ) {
-        	this.isGeneratedValue = true ;
-        	this.generatedValueStrategy  = VOID_STRING ; // "AUTO" is the default strategy 
-        	this.generatedValueGenerator = VOID_STRING ;
+        	f |= GENERATED_VALUE ;
+        	// "AUTO" is the default strategy (void strategy and generator)
         } 
-        else {
-        	if (attribute.isGeneratedValue() ) {
-        		this.isGeneratedValue = true ;
-        		this.generatedValueStrategy  = StrUtil.notNull( attribute.getGeneratedValueStrategy() );
-        		this.generatedValueGenerator = StrUtil.notNull( attribute.getGeneratedValueGenerator() ); 
-			}
-			else {
-				this.isGeneratedValue = false;
-				this.generatedValueStrategy  = VOID_STRING;
-				this.generatedValueGenerator = VOID_STRING;
-			}
+        else if (attribute.isGeneratedValue() ) {
+        	f |= GENERATED_VALUE ;
+        	generatedValueStrategy  = StrUtil.notNull( attribute.getGeneratedValueStrategy() );
+        	generatedValueGenerator = StrUtil.notNull( attribute.getGeneratedValueGenerator() ); 
         }
 			        
+        String tableGeneratorName = VOID_STRING ;
+        String tableGeneratorTable = VOID_STRING ;
+        String tableGeneratorPkColumnName = VOID_STRING ;
+        String tableGeneratorValueColumnName = VOID_STRING ;
+        String tableGeneratorPkColumnValue = VOID_STRING ;
 		if ( attribute.hasTableGenerator() ) {
-			this.hasTableGenerator = true ;
-			this.tableGeneratorName = StrUtil.notNull(attribute.getTableGeneratorName());
-			this.tableGeneratorTable = StrUtil.notNull(attribute.getTableGeneratorTable());
-			this.tableGeneratorPkColumnName = StrUtil.notNull(attribute.getTableGeneratorPkColumnName()); 
-			this.tableGeneratorValueColumnName = StrUtil.notNull(attribute.getTableGeneratorValueColumnName());
-			this.tableGeneratorPkColumnValue = StrUtil.notNull(attribute.getTableGeneratorPkColumnValue());
-		}
-		else {
-			this.hasTableGenerator = false ;
-			this.tableGeneratorName = VOID_STRING ;
-			this.tableGeneratorTable = VOID_STRING ;
-			this.tableGeneratorPkColumnName = VOID_STRING ;
-			this.tableGeneratorValueColumnName = VOID_STRING;
-			this.tableGeneratorPkColumnValue = VOID_STRING;
+			f |= TABLE_GENERATOR ;
+			tableGeneratorName = StrUtil.notNull(attribute.getTableGeneratorName());
+			tableGeneratorTable = StrUtil.notNull(attribute.getTableGeneratorTable());
+			tableGeneratorPkColumnName = StrUtil.notNull(attribute.getTableGeneratorPkColumnName()); 
+			tableGeneratorValueColumnName = StrUtil.notNull(attribute.getTableGeneratorValueColumnName());
+			tableGeneratorPkColumnValue = StrUtil.notNull(attribute.getTableGeneratorPkColumnValue());
 		}
 
+        String sequenceGeneratorName = VOID_STRING ;
+        String sequenceGeneratorSequenceName = VOID_STRING ;
+        int    sequenceGeneratorAllocationSize = -1 ;
 		if (attribute.hasSequenceGenerator() ) {
-			this.hasSequenceGenerator = true;
-			this.sequenceGeneratorName = attribute.getSequenceGeneratorName();
-			this.sequenceGeneratorSequenceName = attribute.getSequenceGeneratorSequenceName();
-			this.sequenceGeneratorAllocationSize = Util.intValue(attribute.getSequenceGeneratorAllocationSize(), 0);
-		}
-		else {
-			this.hasSequenceGenerator = false;
-			this.sequenceGeneratorName = VOID_STRING;
-			this.sequenceGeneratorSequenceName = VOID_STRING;
-			this.sequenceGeneratorAllocationSize = -1;
+			f |= SEQUENCE_GENERATOR ;
+			sequenceGeneratorName = attribute.getSequenceGeneratorName();
+			sequenceGeneratorSequenceName = attribute.getSequenceGeneratorSequenceName();
+			sequenceGeneratorAllocationSize = Util.intValue(attribute.getSequenceGeneratorAllocationSize(), 0);
 		}
 		
-		this.isUsedInLinks         = attribute.isUsedInLinks(); 
-		this.isUsedInSelectedLinks = attribute.isUsedInSelectedLinks();
+        if ( attribute.isAutoIncremented() || attribute.isGeneratedValue() 
+        		|| attribute.hasTableGenerator() || attribute.hasSequenceGenerator() ) {
+        	this.jpaGenerator = new JpaGeneratorDetails(generatedValueStrategy, generatedValueGenerator, 
+        			sequenceGeneratorName, sequenceGeneratorSequenceName, sequenceGeneratorAllocationSize, 
+        			tableGeneratorName, tableGeneratorTable, tableGeneratorPkColumnName, 
+        			tableGeneratorValueColumnName, tableGeneratorPkColumnValue);
+        }
+        else {
+        	this.jpaGenerator = NO_JPA_GENERATOR ; // nothing to store
+        }
+		
+		if ( attribute.isUsedInLinks() ) f |= USED_IN_LINKS ; 
+		if ( attribute.isUsedInSelectedLinks() ) f |= USED_IN_SELECTED_LINKS ;
 		
 		this.tagsMap = attribute.getTagsMap();
 		
 		this.insertable = attribute.getInsertable(); // v 3.3.0
 		this.updatable  = attribute.getUpdatable();  // v 3.3.0
 
-		this.isTransient  = attribute.isTransient();  // v 3.3.0
+		if ( attribute.isTransient() ) f |= TRANSIENT ;  // v 3.3.0
+		
+		this.flags = f ;
+		
+		//--- Precomputed values (do not depend on the environment)
+		this.databaseTypeWithSize = intern( stringsPool, buildDatabaseTypeWithSize() );
+		this.getterWithGetPrefix = Util.buildGetter(name); 
+		this.setter = Util.buildSetter(name);
+	}
+	
+	/**
+	 * Returns the canonical instance of the given string if there's a strings pool
+	 * @param stringsPool
+	 * @param s
+	 * @return
+	 */
+	private static String intern(StringsPool stringsPool, String s) {
+		return stringsPool != null ? stringsPool.intern(s) : s ;
+	}
+	
+	/**
+	 * Attaches the model (v 3.3.0)
+	 * @param modelInContext
+	 */
+	/* package */ void attachModel(ModelInContext modelInContext) {
+		this.modelInContext = modelInContext ;
+	}
+	
+	private boolean hasFlag(int flag) {
+		return ( flags & flag ) != 0 ;
 	}
 
 	protected final LanguageType getLanguageType() {
-		TypeConverter typeConverter = envInContext.getTypeConverter();
-		LanguageType languageType = typeConverter.getType(this.attributeTypeInfo);
+		LanguageType languageType = envInContext.getLanguageType(this.attributeTypeInfo);
 		if ( languageType != null ) {
 			return languageType ;
 		}
@@ -350,7 +480,13 @@ public class AttributeInContext {
 			}
 	)
 	public String formattedName(int iSize) {
-        return format(this.getName(), iSize);
+		SizedValue formattedName = this.lastFormattedName ;
+		if ( formattedName == null || formattedName.size != iSize ) {
+			// the name never changes => keep the last result (usually the same size for all the calls)
+			formattedName = new SizedValue(iSize, format(this.getName(), iSize));
+			this.lastFormattedName = formattedName ;
+		}
+        return formattedName.value ;
     }
 
 	//-------------------------------------------------------------------------------------
@@ -422,12 +558,7 @@ public class AttributeInContext {
     }	
     
 	private String format(String s, int iSize) {
-        String sTrailingBlanks = "";
-        int iDelta = iSize - s.length();
-        if (iDelta > 0) { // if trailing blanks needed
-            sTrailingBlanks = GeneratorUtil.blanks(iDelta);
-        }
-        return s + sTrailingBlanks;
+        return GeneratorUtil.padRight(s, iSize);
     }	
 
 	//-------------------------------------------------------------------------------------
@@ -510,9 +641,34 @@ public class AttributeInContext {
 					}
 	)
 	public String getGetter() {
-		return Util.buildGetter(name, this.isBooleanType() && this.isPrimitiveType() ); // v 3.3.0
+		int envVersion = envInContext.getVersion();
+		VersionedValue currentGetter = this.getter ;
+		if ( currentGetter == null || currentGetter.envVersion != envVersion ) {
+			// the getter depends on the current language (primitive type or not) 
+			currentGetter = new VersionedValue(envVersion, 
+					Util.buildGetter(name, this.isBooleanType() && this.isPrimitiveType() ) ); // v 3.3.0
+			this.getter = currentGetter ;
+		}
+		return currentGetter.value ;
 	}
 
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Returns a key identifying this attribute with the current environment settings <br>
+	 * (the attribute is rebuilt for each target, this key is the same for all the targets)
+	 * @return
+	 */
+	/* package */ String getMemoKey() {
+		int envVersion = envInContext.getVersion();
+		VersionedValue currentKey = this.memoKey ;
+		if ( currentKey == null || currentKey.envVersion != envVersion ) {
+			String entityKey = ( entityInContext != null ? entityInContext.getMemoKey() : envInContext.getSignature() );
+			currentKey = new VersionedValue(envVersion, entityKey + "." + name);
+			this.memoKey = currentKey ;
+		}
+		return currentKey.value ;
+	}
+	
 	//-------------------------------------------------------------------------------------
 	@VelocityMethod(
 		text={	
@@ -521,7 +677,7 @@ public class AttributeInContext {
 					}
 	)
 	public String getGetterWithGetPrefix() {
-		return Util.buildGetter(name); 
+		return getterWithGetPrefix ; 
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -532,7 +688,7 @@ public class AttributeInContext {
 				}
 	)
 	public String getSetter() {
-		return Util.buildSetter(name);
+		return setter ;
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -589,6 +745,9 @@ public class AttributeInContext {
 		since="2.0.7"
 	)
     public String getDatabaseTypeWithSize() {
+		return databaseTypeWithSize ;
+    }
+    private String buildDatabaseTypeWithSize() {
 		if ( StrUtil.nullOrVoid(databaseType)) {
 			// No database type
 			return "";
@@ -656,7 +815,7 @@ public class AttributeInContext {
 			}
 	)
     public boolean hasDatabaseDefaultValue() {
-    	if ( isAutoIncremented ) return false ; // No default value for auto-incremented fields
+    	if ( hasFlag(AUTO_INCREMENTED) ) return false ; // No default value for auto-incremented fields
 		return ! StrUtil.nullOrVoid(databaseDefaultValue);
     }
     
@@ -677,7 +836,7 @@ public class AttributeInContext {
 		}
 	)
     public boolean isDatabaseNotNull() {
-        return isDatabaseNotNull;
+        return hasFlag(DATABASE_NOT_NULL);
     }
     
 	//----------------------------------------------------------------------
@@ -714,7 +873,7 @@ public class AttributeInContext {
     public String getJdbcRecommendedJavaType()
     {
     	JdbcTypes types = JdbcTypesManager.getJdbcTypes();
-    	return types.getJavaTypeForCode(jdbcTypeCode, isDatabaseNotNull );
+    	return types.getJavaTypeForCode(jdbcTypeCode, hasFlag(DATABASE_NOT_NULL) );
     }
 
 	//----------------------------------------------------------------------
@@ -728,7 +887,7 @@ public class AttributeInContext {
 		}
 	)
     public boolean isKeyElement() {
-        return isKeyElement;
+        return hasFlag(KEY_ELEMENT);
     }
 
 	//----------------------------------------------------------------------
@@ -738,7 +897,7 @@ public class AttributeInContext {
 	since="3.0.0"
 	)
     public boolean isFK() { 
-        return isForeignKey ;
+        return hasFlag(FOREIGN_KEY) ;
     }
 
 	//----------------------------------------------------------------------
@@ -748,7 +907,7 @@ public class AttributeInContext {
 	since="3.0.0"
 	)
     public boolean isFKSimple() { 
-        return isForeignKeySimple ;
+        return hasFlag(FOREIGN_KEY_SIMPLE) ;
     }
 
 	//----------------------------------------------------------------------
@@ -758,15 +917,15 @@ public class AttributeInContext {
 	since="3.0.0"
 	)
     public boolean isFKComposite() { 
-        return isForeignKeyComposite ;
+        return hasFlag(FOREIGN_KEY_COMPOSITE) ;
     }
 
 	//----------------------------------------------------------------------
 	public boolean isUsedInLinks() {
-		return isUsedInLinks ;
+		return hasFlag(USED_IN_LINKS) ;
 	}
 	public boolean isUsedInSelectedLinks() {
-		return isUsedInSelectedLinks ;
+		return hasFlag(USED_IN_SELECTED_LINKS) ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -800,7 +959,7 @@ public class AttributeInContext {
 		}
 	)
     public boolean isAutoIncremented() {
-        return isAutoIncremented;
+        return hasFlag(AUTO_INCREMENTED);
     }
 
 	//----------------------------------------------------------------------
@@ -814,7 +973,7 @@ public class AttributeInContext {
 		}
 	)
     public boolean isNotNull() {
-        return isNotNull;
+        return hasFlag(NOT_NULL);
     }
 
 	//----------------------------------------------------------------------
@@ -871,7 +1030,7 @@ public class AttributeInContext {
 				}
 		)
     public String getMaxLength() {
-    	return voidIfNull(maxLength) ;
+    	return voidIfNull(validation.maxLength) ;
     }
     /**
      * Returns the "minimum" length if any, else returns "" 
@@ -883,7 +1042,7 @@ public class AttributeInContext {
 				}
 		)
     public String getMinLength() {
-    	return voidIfNull(minLength) ;
+    	return voidIfNull(validation.minLength) ;
     }
     
     //-------------------------------------------------------------------------------------------
@@ -897,7 +1056,7 @@ public class AttributeInContext {
 				}
 		)
     public String getPattern() {
-    	return voidIfNull(pattern) ;
+    	return voidIfNull(validation.pattern) ;
     }
     
     //-------------------------------------------------------------------------------------------
@@ -911,7 +1070,7 @@ public class AttributeInContext {
 				}
 		)
     public String getMinValue() {
-    	return voidIfNull(minValue) ;
+    	return voidIfNull(validation.minValue) ;
     }
     
     //-------------------------------------------------------------------------------------------
@@ -925,7 +1084,7 @@ public class AttributeInContext {
 				}
 		)
     public String getMaxValue() {
-    	return voidIfNull(maxValue) ;
+    	return voidIfNull(validation.maxValue) ;
     }
     
 	//-------------------------------------------------------------------------------------
@@ -935,7 +1094,7 @@ public class AttributeInContext {
 			}
 	)
 	public boolean hasDatePastValidation() {
-		return isDateInThePast;
+		return hasFlag(DATE_IN_THE_PAST);
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -945,7 +1104,7 @@ public class AttributeInContext {
 			}
 	)
 	public boolean hasDateFutureValidation() {
-		return isDateInTheFuture;
+		return hasFlag(DATE_IN_THE_FUTURE);
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -955,7 +1114,7 @@ public class AttributeInContext {
 			}
 	)
 	public boolean hasDateBeforeValidation() {
-		return ! StrUtil.nullOrVoid(dateBeforeValue); // v 3.3.0
+		return ! StrUtil.nullOrVoid(validation.dateBeforeValue); // v 3.3.0
 	}
 	
 	@VelocityMethod(
@@ -964,7 +1123,7 @@ public class AttributeInContext {
 			}
 	)
 	public String getDateBeforeValue() {
-		return dateBeforeValue;
+		return validation.dateBeforeValue;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -974,7 +1133,7 @@ public class AttributeInContext {
 			}
 	)
 	public boolean hasDateAfterValidation() {
-		return ! StrUtil.nullOrVoid(dateAfterValue); // v 3.3.0
+		return ! StrUtil.nullOrVoid(validation.dateAfterValue); // v 3.3.0
 	}
 	
 	@VelocityMethod(
@@ -983,7 +1142,7 @@ public class AttributeInContext {
 			}
 	)
 	public String getDateAfterValue() {
-		return dateAfterValue;
+		return validation.dateAfterValue;
 	}
 
 	//-----------------------------------------------------------------------------
@@ -1000,7 +1159,7 @@ public class AttributeInContext {
 		}
 	)
     public boolean isLongText() {
-        return isLongText;
+        return hasFlag(LONG_TEXT);
     }
 
 	@VelocityMethod(
@@ -1009,7 +1168,7 @@ public class AttributeInContext {
 		}
 	)
     public boolean isNotEmpty() {
-        return isNotEmpty;
+        return hasFlag(NOT_EMPTY);
     }
     
 	@VelocityMethod(
@@ -1018,7 +1177,7 @@ public class AttributeInContext {
 		}
 	)
     public boolean isNotBlank() {
-        return isNotBlank;
+        return hasFlag(NOT_BLANK);
     }
     
 	//-------------------------------------------------------------------------------------
@@ -1057,7 +1216,7 @@ public class AttributeInContext {
 			}
 	)
 	public boolean isSelected() {
-		return selected;
+		return hasFlag(SELECTED);
 	}
 
 	//------------------------------------------------------------------------------------------
@@ -1256,7 +1415,7 @@ public class AttributeInContext {
 		}
 	)
 	public boolean isGeneratedValue() {
-		return isGeneratedValue;
+		return hasFlag(GENERATED_VALUE);
 	}
 
 	/**
@@ -1272,7 +1431,7 @@ public class AttributeInContext {
 			}
 	)
 	public String getGeneratedValueStrategy() {
-		return generatedValueStrategy;
+		return jpaGenerator.generatedValueStrategy;
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -1288,7 +1447,7 @@ public class AttributeInContext {
 			}
 	)
 	public String getGeneratedValueGenerator() {
-		return generatedValueGenerator;
+		return jpaGenerator.generatedValueGenerator;
 	}
 
 	//-----------------------------------------------------------------------------------------
@@ -1305,7 +1464,7 @@ public class AttributeInContext {
 			}
 	)
 	public boolean hasSequenceGenerator() {
-		return hasSequenceGenerator;
+		return hasFlag(SEQUENCE_GENERATOR);
 	}
 
 	//-----------------------------------------------------------------------------------------
@@ -1320,7 +1479,7 @@ public class AttributeInContext {
 			}
 	)
 	public String getSequenceGeneratorName() {
-		return sequenceGeneratorName;
+		return jpaGenerator.sequenceGeneratorName;
 	}
 
 	//-----------------------------------------------------------------------------------------
@@ -1335,7 +1494,7 @@ public class AttributeInContext {
 			}
 	)
 	public String getSequenceGeneratorSequenceName() {
-		return sequenceGeneratorSequenceName;
+		return jpaGenerator.sequenceGeneratorSequenceName;
 	}
 
 	//-----------------------------------------------------------------------------------------
@@ -1350,7 +1509,7 @@ public class AttributeInContext {
 			}
 	)
 	public int getSequenceGeneratorAllocationSize() {
-		return sequenceGeneratorAllocationSize;
+		return jpaGenerator.sequenceGeneratorAllocationSize;
 	}
 
 	//-----------------------------------------------------------------------------------------
@@ -1363,7 +1522,7 @@ public class AttributeInContext {
 			}
 	)
 	public boolean hasTableGenerator() {
-		return hasTableGenerator;
+		return hasFlag(TABLE_GENERATOR);
 	}
 
 	//-----------------------------------------------------------------------------------------
@@ -1374,7 +1533,7 @@ public class AttributeInContext {
 			}
 	)
 	public String getTableGeneratorName() {
-		return tableGeneratorName;
+		return jpaGenerator.tableGeneratorName;
 	}
 
 	//-----------------------------------------------------------------------------------------
@@ -1385,7 +1544,7 @@ public class AttributeInContext {
 			}
 	)
 	public String getTableGeneratorTable() {
-		return tableGeneratorTable;
+		return jpaGenerator.tableGeneratorTable;
 	}
 
 	//-----------------------------------------------------------------------------------------
@@ -1396,7 +1555,7 @@ public class AttributeInContext {
 			}
 	)
 	public String getTableGeneratorPkColumnName() {
-		return tableGeneratorPkColumnName;
+		return jpaGenerator.tableGeneratorPkColumnName;
 	}
 
 	//-----------------------------------------------------------------------------------------
@@ -1407,7 +1566,7 @@ public class AttributeInContext {
 			}
 	)
 	public String getTableGeneratorValueColumnName() {
-		return tableGeneratorValueColumnName;
+		return jpaGenerator.tableGeneratorValueColumnName;
 	}
 
 	//-----------------------------------------------------------------------------------------
@@ -1419,7 +1578,7 @@ public class AttributeInContext {
 		}
 	)
 	public String getTableGeneratorPkColumnValue() {
-		return tableGeneratorPkColumnValue;
+		return jpaGenerator.tableGeneratorPkColumnValue;
 	}
 	
 	//------------------------------------------------------------------------------------------
@@ -1583,7 +1742,17 @@ public class AttributeInContext {
     public String getSqlType() {
 		if ( StrUtil.nullOrVoid(this.sqlType) ) {
 			// not explicitly defined => try to infer SQL type
-	        return SqlTypeProvider.getSqlType(this, this.envInContext);
+			if ( ! SqlTypeProvider.usesPredefinedTypes(this.envInContext) ) {
+				// specific types mapping (can be changed at any time) => no cache
+		        return SqlTypeProvider.getSqlType(this, this.envInContext);
+			}
+			int envVersion = envInContext.getVersion();
+			VersionedValue current = this.inferredSqlType ;
+			if ( current == null || current.envVersion != envVersion ) {
+				current = new VersionedValue(envVersion, SqlTypeProvider.getSqlType(this, this.envInContext));
+				this.inferredSqlType = current ;
+			}
+			return current.value ;
 		}
 		else {
 			// explicitly defined => return it
@@ -1599,7 +1768,7 @@ public class AttributeInContext {
 	since="3.3.0"
 	)
 	public boolean isTransient() {
-		return this.isTransient  ; // v 3.3.0
+		return hasFlag(TRANSIENT)  ; // v 3.3.0
 	}
 
 }
\ No newline at end of file
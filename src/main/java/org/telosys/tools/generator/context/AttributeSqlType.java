@@ -15,6 +15,7 @@
  */
 package org.telosys.tools.generator.context;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -30,18 +31,16 @@ import org.telosys.tools.generic.model.types.NeutralType;
 //-------------------------------------------------------------------------------------
 public class AttributeSqlType {
 	
-	private final Map<String,String> defaultTypes ;
-	private final Map<String,String> oracleTypes ;
-	private final Map<String,String> postgresqlTypes;
+	// immutable types mappings shared by all the instances
+	private static final Map<String,String> defaultTypes    = Collections.unmodifiableMap(initDefaultTypes()) ;
+	private static final Map<String,String> oracleTypes     = Collections.unmodifiableMap(initOracleTypes()) ;
+	private static final Map<String,String> postgresqlTypes = Collections.unmodifiableMap(initPostgresqlTypes()) ;
 	
 	private final AttributeInContext attribute ;
 	
 	public AttributeSqlType(AttributeInContext attribute) {
 		super();
 		this.attribute = attribute;
-		this.defaultTypes = initDefaultTypes();
-		this.oracleTypes  = initOracleTypes();
-		this.postgresqlTypes  = initPostgresqlTypes();
 	}
 	
 	private static Map<String, String> initDefaultTypes() {
@@ -148,12 +147,12 @@ public class AttributeSqlType {
 	
 	public Map<String,String> getTypesMap(String database) {
 		if ( "ORACLE".equalsIgnoreCase(database) ) {
-			return this.oracleTypes;
+			return oracleTypes;
 		}
 		if ( "POSTGRESQL".equalsIgnoreCase(database) ) {
-			return this.postgresqlTypes;
+			return postgresqlTypes;
 		}
-		return this.defaultTypes; 
+		return defaultTypes; 
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,328 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.telosys.tools.generator.context.doc.VelocityMethod;
+import org.telosys.tools.generator.context.doc.VelocityObject;
+import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generator.context.tools.MemoCache;
+
+/**
+ * DDL statements for all the entities of the model ( $ddl.functionName(...) ) <br>
+ * The SQL types depend on the current database defined in '$env.database' <br>
+ * ( 'H2' uses the same types as '$h2', the other databases use the types provided by SqlTypeProvider )
+ * 
+ * @author Laurent Guerin
+ *
+ */
+//-------------------------------------------------------------------------------------
+@VelocityObject(
+		contextName=ContextName.DDL,
+		text = { 
+				"Object providing the DDL statements for all the entities of the model",
+				"The SQL types depend on the current database ( $env.database ) ",
+				"The tables are created in the order of the foreign keys dependencies",
+				""
+		},
+		since = "3.3.0"
+ )
+//-------------------------------------------------------------------------------------
+public class DdlInContext {
+
+	private static final String H2 = "H2" ;
+	private static final String NEWLINE = "\n" ;
+	private static final String INDENT = "  " ;
+	
+	private final EnvInContext env ;
+	private final MemoCache    memoCache ; // columns definitions already built (shared by all the targets of a task)
+	
+	//-------------------------------------------------------------------------------------
+	// CONSTRUCTORS
+	//-------------------------------------------------------------------------------------
+	public DdlInContext(EnvInContext env) {
+		this(env, new MemoCache());
+	}
+	
+	/**
+	 * Constructor
+	 * @param env the current environment (for the database)
+	 * @param memoCache the cache used to keep the columns definitions of each entity
+	 */
+	public DdlInContext(EnvInContext env, MemoCache memoCache) {
+		super();
+		this.env = env ;
+		this.memoCache = memoCache ;
+	}
+	
+	//-------------------------------------------------------------------------------------
+	@VelocityMethod(text={	
+			"Returns the 'CREATE TABLE' DDL statement for the given entity",
+			"with the SQL types of the current database"
+			},
+			parameters = { 
+				"entity : the entity "
+			},
+			example = {
+				"$ddl.createTable($entity) " },
+			since = "3.3.0"
+			)
+	public String createTable(final EntityInContext entity) {
+		StringBuilder sb = new StringBuilder(256);
+		appendCreateTable(sb, entity);
+		return sb.toString();
+	}
+
+	//-------------------------------------------------------------------------------------
+	@VelocityMethod(text={	
+			"Returns the 'CREATE TABLE' DDL statements for all the entities of the given model",
+			"The referenced tables are created before the tables referencing them "
+			},
+			parameters = { 
+				"model : the model "
+			},
+			example = {
+				"$ddl.createTables($model) " },
+			since = "3.3.0"
+			)
+	public String createTables(final ModelInContext model) {
+		return buildScript(model, true, false);
+	}
+
+	//-------------------------------------------------------------------------------------
+	@VelocityMethod(text={	
+			"Returns the 'ALTER TABLE' DDL statements adding the foreign keys",
+			"for all the entities of the given model"
+			},
+			parameters = { 
+				"model : the model "
+			},
+			example = {
+				"$ddl.alterTables($model) " },
+			since = "3.3.0"
+			)
+	public String alterTables(final ModelInContext model) {
+		return buildScript(model, false, true);
+	}
+
+	//-------------------------------------------------------------------------------------
+	@VelocityMethod(text={	
+			"Returns the full DDL script for the given model ",
+			"all the 'CREATE TABLE' statements followed by all the 'ALTER TABLE' statements"
+			},
+			parameters = { 
+				"model : the model "
+			},
+			example = {
+				"$ddl.script($model) " },
+			since = "3.3.0"
+			)
+	public String script(final ModelInContext model) {
+		return buildScript(model, true, true);
+	}
+
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Builds the DDL script in a single pass on the entities sorted by dependencies
+	 * @param model
+	 * @param create
+	 * @param alter
+	 * @return
+	 */
+	private String buildScript(final ModelInContext model, boolean create, boolean alter) {
+		List<EntityInContext> entities = sortByDependencies(model.getAllEntites());
+		StringBuilder createStatements = new StringBuilder(create ? entities.size() * 256 : 16);
+		StringBuilder alterStatements  = new StringBuilder(alter ? entities.size() * 128 : 16);
+		for ( EntityInContext entity : entities ) {
+			if ( create ) {
+				appendCreateTable(createStatements, entity);
+				createStatements.append(NEWLINE);
+			}
+			if ( alter ) {
+				for ( ForeignKeyInContext fk : entity.getDatabaseForeignKeys() ) {
+					appendAlterTable(alterStatements, fk);
+				}
+			}
+		}
+		return createStatements.append(alterStatements).toString();
+	}
+	
+	private void appendCreateTable(StringBuilder sb, final EntityInContext entity) {
+		sb.append("CREATE TABLE ").append(entity.getDatabaseTable()).append(" (").append(NEWLINE);
+		List<String> definitions = getTableDefinition(entity);
+		int last = definitions.size() - 1 ;
+		for ( int i = 0 ; i <= last ; i++ ) {
+			sb.append(INDENT).append(definitions.get(i));
+			if ( i < last ) {
+				sb.append(",");
+			}
+			sb.append(NEWLINE);
+		}
+		sb.append(");").append(NEWLINE);
+	}
+
+	private void appendAlterTable(StringBuilder sb, final ForeignKeyInContext fk) {
+		// ALTER TABLE t ADD CONSTRAINT fk FOREIGN KEY(c1,c2) REFERENCES t2(c1,c2);
+		StringBuilder columns = new StringBuilder();
+		StringBuilder referencedColumns = new StringBuilder();
+		for ( ForeignKeyColumnInContext fkColumn : fk.getColumns() ) {
+			if ( columns.length() > 0 ) {
+				columns.append(",");
+				referencedColumns.append(",");
+			}
+			columns.append(fkColumn.getColumnName());
+			referencedColumns.append(fkColumn.getReferencedColumnName());
+		}
+		sb.append("ALTER TABLE ").append(fk.getTableName())
+			.append(" ADD CONSTRAINT ").append(fk.getName())
+			.append(" FOREIGN KEY(").append(columns).append(")")
+			.append(" REFERENCES ").append(fk.getReferencedTableName())
+			.append("(").append(referencedColumns).append(");").append(NEWLINE);
+	}
+	
+	//-------------------------------------------------------------------------------------
+	// COLUMNS DEFINITIONS
+	//-------------------------------------------------------------------------------------
+	private String getDatabase() {
+		String database = env.getDatabase();
+		return database != null ? database.toUpperCase() : "" ;
+	}
+	
+	/**
+	 * Returns the columns and primary key definitions for the given entity <br>
+	 * (kept in the memo cache for the current database)
+	 * @param entity
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	private List<String> getTableDefinition(final EntityInContext entity) {
+		String database = getDatabase();
+		if ( ! H2.equals(database) && ! SqlTypeProvider.usesPredefinedTypes(env) ) {
+			// specific types mapping (can be changed at any time) => no cache
+			return buildTableDefinition(entity);
+		}
+		List<Object> key = MemoCache.key("ddl.tableDefinition", entity.getMemoKey(), database);
+		List<String> definitions = (List<String>) memoCache.get(key);
+		if ( definitions == null ) {
+			if ( H2.equals(database) ) {
+				definitions = H2InContext.buildTableDefinition(entity);
+			}
+			else {
+				definitions = buildTableDefinition(entity);
+			}
+			definitions = Collections.unmodifiableList(new ArrayList<>(definitions));
+			memoCache.put(key, definitions);
+		}
+		return definitions ;
+	}
+	
+	private List<String> buildTableDefinition(final EntityInContext entity) {
+		List<String> lines = new ArrayList<>(entity.getAttributesCount() + 1);
+		//--- Primary Key columns first 
+		for ( AttributeInContext attribute : entity.getKeyAttributes() ) {
+			lines.add( buildColumnDefinition(attribute) );
+		}
+		//--- Other columns 
+		for ( AttributeInContext attribute : entity.getNonKeyAttributes() ) {
+			lines.add( buildColumnDefinition(attribute) );
+		}
+		//--- Primary Key declaration 
+		if ( entity.hasPrimaryKey() ) {
+			lines.add( H2InContext.buildPrimaryKeyDefinition(entity) );
+		}
+		return lines ;
+	}
+	
+	private String buildColumnDefinition(final AttributeInContext attribute) {
+		StringBuilder sb = new StringBuilder();
+		sb.append( attribute.getDatabaseName() ) ;
+		sb.append( " ") ;
+		sb.append( attribute.getSqlType() ) ; // SQL type for the current database 
+		if ( attribute.isNotNull() ) {
+			sb.append( " NOT NULL") ;
+		}
+		return sb.toString();
+	}
+	
+	//-------------------------------------------------------------------------------------
+	// FOREIGN KEYS DEPENDENCIES
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Returns the given entities sorted by foreign keys dependencies <br>
+	 * (each referenced table before the tables referencing it, the original order is kept if possible) <br>
+	 * Iterative topological sort (Kahn's algorithm) : no recursion whatever the length of the FK chains <br>
+	 * In case of cycle the first remaining entity is taken (the 'ALTER TABLE' statements define the FK)
+	 * @param entities
+	 * @return
+	 */
+	/* package */ static List<EntityInContext> sortByDependencies(List<EntityInContext> entities) {
+		int n = entities.size();
+		Map<String, Integer> indexByTable = new HashMap<>(n * 2);
+		for ( int i = 0 ; i < n ; i++ ) {
+			indexByTable.put(entities.get(i).getDatabaseTable(), i);
+		}
+		//--- Number of referenced entities for each entity and reverse links (referenced -> referencing)
+		int[] remainingDependencies = new int[n];
+		List<List<Integer>> referencingEntities = new ArrayList<>(n);
+		for ( int i = 0 ; i < n ; i++ ) {
+			referencingEntities.add(new ArrayList<Integer>());
+		}
+		for ( int i = 0 ; i < n ; i++ ) {
+			Set<Integer> referenced = new HashSet<>();
+			for ( ForeignKeyInContext fk : entities.get(i).getDatabaseForeignKeys() ) {
+				Integer r = indexByTable.get(fk.getReferencedTableName());
+				if ( r != null && r != i && referenced.add(r) ) {
+					referencingEntities.get(r).add(i);
+					remainingDependencies[i]++ ;
+				}
+			}
+		}
+		//--- Entities without dependency first, in the original order
+		TreeSet<Integer> ready = new TreeSet<>();
+		TreeSet<Integer> remaining = new TreeSet<>();
+		for ( int i = 0 ; i < n ; i++ ) {
+			remaining.add(i);
+			if ( remainingDependencies[i] == 0 ) {
+				ready.add(i);
+			}
+		}
+		List<EntityInContext> sorted = new ArrayList<>(n);
+		while ( ! remaining.isEmpty() ) {
+			// no entity ready => cycle : the first remaining entity is taken
+			Integer i = ready.isEmpty() ? remaining.first() : ready.first() ;
+			ready.remove(i);
+			remaining.remove(i);
+			sorted.add(entities.get(i));
+			for ( Integer referencing : referencingEntities.get(i) ) {
+				if ( remaining.contains(referencing) ) {
+					remainingDependencies[referencing]-- ;
+					if ( remainingDependencies[referencing] == 0 ) {
+						ready.add(referencing);
+					}
+				}
+			}
+		}
+		return sorted ;
+	}
+}
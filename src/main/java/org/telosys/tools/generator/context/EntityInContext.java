@@ -17,6 +17,7 @@ package org.telosys.tools.generator.context;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.telosys.tools.commons.StrUtil;
 import org.telosys.tools.generator.GeneratorException;
@@ -26,6 +27,7 @@ import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.doc.VelocityReturnType;
 import org.telosys.tools.generator.context.names.ContextName;
 import org.telosys.tools.generator.context.tools.AmbiguousTypesDetector;
+import org.telosys.tools.generator.context.tools.StringsPool;
 import org.telosys.tools.generic.model.Attribute;
 import org.telosys.tools.generic.model.Entity;
 import org.telosys.tools.generic.model.ForeignKey;
@@ -81,10 +83,27 @@ public class EntityInContext
 	
 	private final List<LinkInContext> links ; // The links for this class ( ALL LINKS )
 	
-	private final ModelInContext modelInContext ;  // v 3.0.0
+	private ModelInContext modelInContext ;  // v 3.0.0 (can be attached after the construction : v 3.3.0)
 	
 	private final EnvInContext   env ; // ver 2.1.0
 	
+	//--- Names depending on the environment (rebuilt if the environment version has changed)
+	private volatile EntityNames names = null ;
+	
+	private static final class EntityNames {
+		private final int    envVersion ;
+		private final String name ;
+		private final String fullName ;
+		private final String memoKey ;
+		
+		private EntityNames(int envVersion, String name, String fullName, String memoKey) {
+			this.envVersion = envVersion ;
+			this.name = name ;
+			this.fullName = fullName ;
+			this.memoKey = memoKey ;
+		}
+	}
+	
 	//-----------------------------------------------------------------------------------------------
 	/**
 	 * Constructor based on Repository Entity
@@ -98,33 +117,51 @@ public class EntityInContext
 							final ModelInContext modelInContext, // v 3.0.0
 							final EnvInContext env ) 
 	{
-		this.className = entity.getClassName();  // v 3.0.0
-		
-		this.packageName = StrUtil.notNull(entityPackage);
-		
+		this(entity, entityPackage, modelInContext, 
+				modelInContext != null ? modelInContext.getStringsPool() : null, env);
+	}
+	
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Constructor with the strings pool of the model (v 3.3.0) <br>
+	 * The model can be null and attached later (see attachModel) 
+	 * @param entity
+	 * @param entityPackage
+	 * @param modelInContext the model (or null if not yet built)
+	 * @param stringsPool the canonical strings of the model (or null if none)
+	 * @param env
+	 */
+	/* package */ EntityInContext( final Entity entity, final String entityPackage, 
+							final ModelInContext modelInContext, final StringsPool stringsPool, 
+							final EnvInContext env ) 
+	{
 		this.modelInContext = modelInContext ; // v 3.0.0
 		this.env = env ;
 		
-		this.databaseTable   = StrUtil.notNull(entity.getDatabaseTable());
-		this.databaseCatalog = StrUtil.notNull(entity.getDatabaseCatalog()); // v 3.0.0
+		this.className = intern(stringsPool, entity.getClassName());  // v 3.0.0
+		
+		this.packageName = intern(stringsPool, StrUtil.notNull(entityPackage));
 		
-		this.databaseSchema  = StrUtil.notNull(entity.getDatabaseSchema()); // v 3.0.0
+		this.databaseTable   = intern(stringsPool, StrUtil.notNull(entity.getDatabaseTable()));
+		this.databaseCatalog = intern(stringsPool, StrUtil.notNull(entity.getDatabaseCatalog())); // v 3.0.0
 		
-		this.databaseType    = StrUtil.notNull(entity.getDatabaseType()); // ver 2.0.7
+		this.databaseSchema  = intern(stringsPool, StrUtil.notNull(entity.getDatabaseSchema())); // v 3.0.0
+		
+		this.databaseType    = intern(stringsPool, StrUtil.notNull(entity.getDatabaseType())); // ver 2.0.7
 
 		this.databaseComment = StrUtil.notNull(entity.getDatabaseComment()); // v 3.1.0
 		
 		//--- Initialize all the ATTRIBUTES for the current entity
 		this.attributes = new LinkedList<>();
 		for ( Attribute attribute : entity.getAttributes() ) { // v 3.0.0
-			AttributeInContext attributeInContext = new AttributeInContext(this, attribute, this.modelInContext, this.env);
+			AttributeInContext attributeInContext = new AttributeInContext(this, attribute, this.modelInContext, stringsPool, this.env);
 			this.attributes.add(attributeInContext);
 		}
 
 		//--- Initialize all the LINKS for the current entity
 		this.links = new LinkedList<>();
 		for ( Link link : entity.getLinks() ) { // v 3.0.0
-			LinkInContext linkInContext = new LinkInContext(this, link, this.modelInContext, this.env ); // v 3.0.0
+			LinkInContext linkInContext = new LinkInContext(this, link, this.modelInContext, stringsPool, this.env ); // v 3.0.0
 			this.links.add(linkInContext);
 		}
 		
@@ -143,6 +180,32 @@ public class EntityInContext
 		//--- Post processing : import resolution
 		endOfAttributesDefinition();
 	}
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Returns the canonical instance of the given string if there's a strings pool
+	 * @param stringsPool
+	 * @param s
+	 * @return
+	 */
+	private static String intern(StringsPool stringsPool, String s) {
+		return stringsPool != null ? stringsPool.intern(s) : s ;
+	}
+	
+	/**
+	 * Attaches the model to the entity and to its attributes and links (v 3.3.0) <br>
+	 * Called by the model when all its entities are built 
+	 * @param modelInContext
+	 */
+	/* package */ void attachModel(ModelInContext modelInContext) {
+		this.modelInContext = modelInContext ;
+		for ( AttributeInContext attribute : attributes ) {
+			attribute.attachModel(modelInContext);
+		}
+		for ( LinkInContext link : links ) {
+			link.attachModel(modelInContext);
+		}
+	}
+	
 	//-----------------------------------------------------------------------------------------------
 	/**
 	 * This method closes the definition of the class (when all the attributes have been added) <br>
@@ -155,7 +218,7 @@ public class EntityInContext
 		if ( attributes == null ) return ;
 		//--- Duplicated short types detection
 		AmbiguousTypesDetector duplicatedTypesDetector = new AmbiguousTypesDetector(attributes);
-		List<String> ambiguousTypes = duplicatedTypesDetector.getAmbiguousTypes();
+		Set<String> ambiguousTypes = duplicatedTypesDetector.getAmbiguousTypesSet();
 		for ( AttributeInContext attribute : attributes ) {
 			//--- Is this attribute's type ambiguous ?
 			if ( ambiguousTypes.contains( attribute.getFullType() ) ) {
@@ -177,6 +240,39 @@ public class EntityInContext
 	)
 	public String getName()
 	{
+		return getNames().name ;
+	}
+	
+	private EntityNames getNames() {
+		int envVersion = ( env != null ? env.getVersion() : 0 ) ;
+		EntityNames currentNames = this.names ;
+		if ( currentNames == null || currentNames.envVersion != envVersion ) {
+			String name = buildName();
+			String memoKey = className + "/" + ( env != null ? env.getSignature() : "" ) ;
+			currentNames = new EntityNames(envVersion, name, packageName + "." + name, memoKey);
+			this.names = currentNames ;
+		}
+		return currentNames ;
+	}
+	
+	/**
+	 * Returns the class name as defined in the model (without prefix and suffix) 
+	 * @return
+	 */
+	/* package */ String getModelClassName() {
+		return className ;
+	}
+	
+	/**
+	 * Returns a key identifying this entity with the current environment settings <br>
+	 * (the entity is rebuilt for each target, this key is the same for all the targets)
+	 * @return
+	 */
+	/* package */ String getMemoKey() {
+		return getNames().memoKey ;
+	}
+	
+	private String buildName() {
 		if ( env != null ) {
 			StringBuilder sb = new StringBuilder();
 			sb.append( env.getEntityClassNamePrefix() ) ; // Never null ( "" if not set )
@@ -214,7 +310,7 @@ public class EntityInContext
 	)
 	public String getFullName()
     {
-		return packageName + "." + getName();
+		return getNames().fullName ;
     }
 	
 	/* (non-Javadoc)
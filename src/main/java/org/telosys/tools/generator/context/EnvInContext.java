@@ -17,11 +17,14 @@ package org.telosys.tools.generator.context;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.telosys.tools.generator.GeneratorException;
 import org.telosys.tools.generator.context.doc.VelocityMethod;
 import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generic.model.types.AttributeTypeInfo;
+import org.telosys.tools.generic.model.types.LanguageType;
 import org.telosys.tools.generic.model.types.LiteralValuesProvider;
 import org.telosys.tools.generic.model.types.LiteralValuesProviderForCPlusPlus;
 import org.telosys.tools.generic.model.types.LiteralValuesProviderForCSharp;
@@ -75,6 +78,13 @@ public class EnvInContext {
 	private Map<String,String> databaseTypesMapping = new LinkedHashMap<>() ; // v 3.3.0
 	private String database = "default" ; // v 3.3.0
 	
+	// Incremented each time a setting used to build the derived names is changed (prefix, suffix, language, etc)
+	private volatile int version = 0 ; 
+	
+	// Type converter and language types for the current language and collection type (reset when changed)
+	private volatile TypeConverter typeConverter = null ; 
+	private final Map<AttributeTypeInfo, LanguageType> languageTypes = new ConcurrentHashMap<>();
+	
 	//-------------------------------------------------------------------------------------
 	// CONSTRUCTOR
 	//-------------------------------------------------------------------------------------
@@ -98,6 +108,7 @@ public class EnvInContext {
 			)
 	public void setEntityClassNamePrefix( String prefix ) {
 		this.entityClassNamePrefix = prefix ;
+		this.version++ ;
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -131,6 +142,7 @@ public class EnvInContext {
 			)
 	public void setEntityClassNameSuffix( String suffix ) {
 		this.entityClassNameSuffix = suffix ;
+		this.version++ ;
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -168,6 +180,7 @@ public class EnvInContext {
 	public void setLanguage( String language ) throws GeneratorException {
 		checkLanguageValidity(language);
 		this.language = language ;
+		resetTypes();
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -224,12 +237,75 @@ public class EnvInContext {
 	 * @since ver 3.0.0
 	 */
 	public TypeConverter getTypeConverter() { // keep 'public' for debug in '.vm' files
-		TypeConverter typeConverter = createTypeConverterForCurrentLanguage();
+		// always a new instance : the caller can change it without side effect
+		return createConfiguredTypeConverter();
+	}
+	
+	/**
+	 * Returns the TypeConverter shared by all the objects using this environment <br>
+	 * The shared instance must not be modified (read-only usage)
+	 * @return
+	 * @since ver 3.3.0
+	 */
+	/* package */ TypeConverter getSharedTypeConverter() {
+		TypeConverter converter = this.typeConverter ;
+		if ( converter == null ) {
+			converter = createConfiguredTypeConverter();
+			this.typeConverter = converter ;
+		}
+		return converter;
+	}
+	
+	private TypeConverter createConfiguredTypeConverter() {
+		TypeConverter converter = createTypeConverterForCurrentLanguage();
 		// set specific collection type if any 
 		if ( specificCollectionType != null ) {
-			typeConverter.setSpecificCollectionType(specificCollectionType);
+			converter.setSpecificCollectionType(specificCollectionType);
 		}
-		return typeConverter;
+		return converter;
+	}
+	
+	/**
+	 * Returns the LanguageType for the given type info in the current language <br>
+	 * The result is cached (the type info is supposed to be a shared instance from AttributeTypeInfoPool)
+	 * @param attributeTypeInfo
+	 * @return the language type or null if none
+	 * @since ver 3.3.0
+	 */
+	protected LanguageType getLanguageType(AttributeTypeInfo attributeTypeInfo) {
+		LanguageType languageType = languageTypes.get(attributeTypeInfo);
+		if ( languageType == null ) {
+			languageType = getSharedTypeConverter().getType(attributeTypeInfo);
+			if ( languageType != null ) {
+				languageTypes.put(attributeTypeInfo, languageType);
+			}
+		}
+		return languageType ;
+	}
+	
+	private void resetTypes() {
+		this.typeConverter = null ;
+		this.languageTypes.clear();
+		this.version++ ;
+	}
+	
+	/**
+	 * Returns a string identifying the current settings used to build the names and types <br>
+	 * (can be used in a cache key, the settings are not supposed to contain '|')
+	 * @return
+	 */
+	protected String getSignature() {
+		return language + "|" + specificCollectionType + "|" + entityClassNamePrefix + "|" + entityClassNameSuffix ;
+	}
+	
+	/**
+	 * Returns the current version of the environment settings <br>
+	 * The version changes each time a setting used to build names or types is changed <br>
+	 * so it can be used to invalidate the values derived from these settings
+	 * @return
+	 */
+	protected int getVersion() {
+		return this.version ;
 	}
 	
 	private TypeConverter createTypeConverterForCurrentLanguage()  {
@@ -325,6 +401,7 @@ public class EnvInContext {
 			)
 	public void setCollectionType(String specificCollectionType) {
 		this.specificCollectionType = specificCollectionType;
+		resetTypes();
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -354,6 +431,7 @@ public class EnvInContext {
 	//-------------------------------------------------------------------------------------
 	public void setDatabase(String db) {
 		this.database = db;
+		this.version++ ; // the SQL types depend on the database
 	}
 	public String getDatabase() {
 		return this.database;
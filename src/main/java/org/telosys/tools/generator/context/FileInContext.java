@@ -15,18 +15,24 @@
  */
 package org.telosys.tools.generator.context;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
-import org.telosys.tools.commons.StrUtil;
 import org.telosys.tools.generator.context.doc.VelocityMethod;
 import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.exceptions.GeneratorFileException;
 import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generator.context.tools.CopyOnWriteView;
+import org.telosys.tools.generator.context.tools.CsvFile;
+import org.telosys.tools.generator.context.tools.MemoCache;
+import org.telosys.tools.generator.context.tools.RenderingResources;
 
 //-------------------------------------------------------------------------------------
 @VelocityObject(
@@ -54,14 +60,44 @@ import org.telosys.tools.generator.context.names.ContextName;
 //-------------------------------------------------------------------------------------
 public class FileInContext {
 
+	private static final long MAX_CACHED_FILE_SIZE = 8 * 1024 * 1024L ; // bigger files are never kept in memory
+	
 	private final File file ;
+	private final MemoCache memoCache ; // files content (shared by all the targets of a task)
 	
 	/**
 	 * Constructor
 	 * @param file
 	 */
 	public FileInContext(File file) {
+		this(file, new MemoCache());
+	}
+
+	/**
+	 * Constructor
+	 * @param file
+	 * @param memoCache the cache used to keep the lines of the files already loaded
+	 */
+	public FileInContext(File file, MemoCache memoCache) {
 		this.file = file ;
+		this.memoCache = memoCache ;
+	}
+	
+	/**
+	 * Content loaded from a file (lines or values) with the file state when the content has been loaded
+	 */
+	private static final class FileContent {
+		private final long   lastModified ;
+		private final long   length ;
+		private final Object content ; // never modified
+		private FileContent(long lastModified, long length, Object content) {
+			this.lastModified = lastModified ;
+			this.length = length ;
+			this.content = content ;
+		}
+		private boolean isValidFor(File file) {
+			return lastModified == file.lastModified() && length == file.length() ;
+		}
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -236,7 +272,7 @@ public class FileInContext {
 		since = "3.3.0"
 		)
 	public List<String> loadLines() {
-		return readAllLines();
+		return new ArrayList<>(readAllLines()); // copy (the list can be modified in the template)
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -253,15 +289,51 @@ public class FileInContext {
 		)
 	public List<String> loadLines(int numberOfLinesToIgnore) {
 		List<String> allLines = readAllLines();
-		List<String> lines = new LinkedList<>();
-		int n = 0 ;
-		for ( String s : allLines ) {
-			n++;
-			if ( n > numberOfLinesToIgnore ) {
-				lines.add(s);
-			}
+		if ( numberOfLinesToIgnore >= allLines.size() ) {
+			return new ArrayList<>();
 		}
-		return lines;
+		return new ArrayList<>(allLines.subList(Math.max(numberOfLinesToIgnore, 0), allLines.size()));
+	}
+	
+	//-------------------------------------------------------------------------------------
+	@VelocityMethod(text={
+		"Returns an iterator reading the lines of the file one by one ",
+		"The file is never fully loaded in memory (useful for very large files)",
+		"The file is closed at the end of the file or at the end of the template rendering"
+		},
+		example = {
+				"#foreach ( $line in $file.readLines() )",
+				" > $line",
+				"#end"		
+		},
+		since = "3.3.0"
+		)
+	public Iterator<String> readLines() {
+		return readLines(0);
+	}
+	
+	//-------------------------------------------------------------------------------------
+	@VelocityMethod(text={
+		"Same as readLines() but ignore the first N lines"
+		},
+		parameters = { "n : number of lines to ignore (at the beginning of the file)" },			
+		example = {
+				"#foreach ( $line in $file.readLines(1) )",
+				" > $line",
+				"#end"		
+		},
+		since = "3.3.0"
+		)
+	public Iterator<String> readLines(int numberOfLinesToIgnore) {
+		checkFile("readLines");
+		BufferedReader reader = openReader("readLines");
+		// closed at the end of the rendering if not read until the end of the file
+		RenderingResources.register(reader); 
+		LinesIterator iterator = new LinesIterator(reader);
+		for ( int i = 0 ; i < numberOfLinesToIgnore && iterator.hasNext() ; i++ ) {
+			iterator.next();
+		}
+		return iterator ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -277,7 +349,7 @@ public class FileInContext {
 		since = "3.3.0"
 		)
 	public String loadContent() {
-		return linesToString(loadLines());
+		return linesToString(readAllLines());
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -293,13 +365,18 @@ public class FileInContext {
 		since = "3.3.0"
 		)
 	public String loadContent(int numberOfLinesToIgnore) {
-		return linesToString(loadLines(numberOfLinesToIgnore));
+		List<String> allLines = readAllLines();
+		if ( numberOfLinesToIgnore >= allLines.size() ) {
+			return "" ;
+		}
+		return linesToString(allLines.subList(Math.max(numberOfLinesToIgnore, 0), allLines.size()));
 	}
 	
 	//-------------------------------------------------------------------------------------
 	@VelocityMethod(text={
 		"Loads values (split lines) from the file ",
 		"Values are the result after splitting each line according a given separator",
+		"A value can be enclosed in double quotes (to contain the separator or a line break)",
 		"Returns a list of values for each line (list of lists)"
 		},
 		parameters = { 
@@ -315,8 +392,7 @@ public class FileInContext {
 		since = "3.3.0"
 		)
 	public List<List<String>> loadValues(String separator) {
-		List<String> lines = loadLines();
-		return splitLines(lines, separator);
+		return loadCsvFile(separator, 0);
 	}
 	
 	/**
@@ -340,16 +416,14 @@ public class FileInContext {
 		since = "3.3.0"
 		)
 	public List<List<String>> loadValues(String separator, int numberOfLinesToIgnore) {
-		List<String> lines = loadLines(numberOfLinesToIgnore);
-		return splitLines(lines, separator);
+		return loadCsvFile(separator, numberOfLinesToIgnore);
 	}
 	
 	//----------------------------------------------------------------------------------------
 	// private methods
 	//----------------------------------------------------------------------------------------
 	
-	private List<String> readAllLines() {
-		final String functionName = "loadLines"; // called only by loadLines(..)
+	private void checkFile(String functionName) {
 		if ( ! file.exists() ) {
 			String msg = "Read file error (file not found) : " + file.getName();
 			throw new GeneratorFileException(functionName, msg);
@@ -358,6 +432,33 @@ public class FileInContext {
 			String msg = "Read file error (not a file) : " + file.getName();
 			throw new GeneratorFileException(functionName, msg);
 		}
+	}
+	
+	/**
+	 * Returns all the lines of the file (unmodifiable list) <br>
+	 * The lines are kept in the memo cache as long as the file is not modified (same date and size)
+	 * @return
+	 */
+	private List<String> readAllLines() {
+		final String functionName = "loadLines"; // called only by loadLines(..)
+		checkFile(functionName);
+		if ( file.length() > MAX_CACHED_FILE_SIZE ) {
+			return readFile(functionName);
+		}
+		List<Object> key = MemoCache.key("file.lines", file.getAbsolutePath());
+		FileContent fileContent = (FileContent) memoCache.get(key);
+		if ( fileContent == null || ! fileContent.isValidFor(file) ) {
+			long lastModified = file.lastModified();
+			long length = file.length();
+			fileContent = new FileContent(lastModified, length, Collections.unmodifiableList(readFile(functionName)));
+			memoCache.put(key, fileContent);
+		}
+		@SuppressWarnings("unchecked")
+		List<String> lines = (List<String>) fileContent.content ;
+		return lines ;
+	}
+	
+	private List<String> readFile(String functionName) {
 		try {
 			// Read all lines from a file.  
 			// Bytes from the file are decoded into characters using the UTF-8 charset.
@@ -368,8 +469,65 @@ public class FileInContext {
 		}
 	}
 	
+	private BufferedReader openReader(String functionName) {
+		try {
+			// Bytes from the file are decoded into characters using the UTF-8 charset.
+			return Files.newBufferedReader(file.toPath());
+		} catch (IOException e) {
+			String msg = "Read file error (IOException) : " + e.getMessage() + " : " + file.getName();
+			throw new GeneratorFileException(functionName, msg);
+		}
+	}
+	
+	/**
+	 * Iterator reading the lines one by one <br>
+	 * (the reader is closed at the end of the file or at the end of the rendering)
+	 */
+	private final class LinesIterator implements Iterator<String> {
+		private BufferedReader reader ;
+		private String nextLine ;
+		private LinesIterator(BufferedReader reader) {
+			this.reader = reader ;
+			this.nextLine = readNextLine();
+		}
+		private String readNextLine() {
+			if ( reader == null ) {
+				return null ;
+			}
+			try {
+				String line = reader.readLine();
+				if ( line == null ) {
+					// end of file
+					reader.close();
+					reader = null ;
+				}
+				return line ;
+			} catch (IOException e) {
+				String msg = "Read file error (IOException) : " + e.getMessage() + " : " + file.getName();
+				throw new GeneratorFileException("readLines", msg);
+			}
+		}
+		@Override
+		public boolean hasNext() {
+			return nextLine != null ;
+		}
+		@Override
+		public String next() {
+			if ( nextLine == null ) {
+				throw new NoSuchElementException();
+			}
+			String line = nextLine ;
+			nextLine = readNextLine();
+			return line ;
+		}
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+	
 	private String linesToString(List<String> lines) {
-		StringBuilder sb = new StringBuilder();
+		StringBuilder sb = new StringBuilder((int) Math.min(file.length() + lines.size(), Integer.MAX_VALUE - 8));
 		for ( String s : lines ) {
 			sb.append(s);
 			sb.append("\n");
@@ -377,21 +535,46 @@ public class FileInContext {
 		return sb.toString();
 	}
 	
-	private List<List<String>> splitLines(List<String> lines, String separator) {
+	/**
+	 * Returns the CSV values of the file (a new view that can be modified by the template) <br>
+	 * The parsed file is kept in the memo cache as long as the file is not modified (same date and size) <br>
+	 * Each row is split only when it is used, the rows are copied only if the view is modified 
+	 * @param separator
+	 * @param numberOfLinesToIgnore
+	 * @return
+	 */
+	private List<List<String>> loadCsvFile(String separator, int numberOfLinesToIgnore) {
 		final String functionName = "loadValues"; // called only by loadValues(..)
-		char sepChar = 0;
-		if ( separator != null && separator.length() > 0 ) {
-			sepChar = separator.charAt(0);
-			List<List<String>> linesOfValues = new LinkedList<>();
-			for ( String line : lines ) {
-				String[] parts = StrUtil.split(line, sepChar);
-				linesOfValues.add(Arrays.asList(parts));
-			}
-			return linesOfValues;
-		}
-		else {
+		if ( separator == null || separator.length() == 0 ) {
 			throw new GeneratorFileException(functionName, "Invalid separator '" + separator + "'");
 		}
+		checkFile(functionName);
+		char sepChar = separator.charAt(0);
+		if ( file.length() > MAX_CACHED_FILE_SIZE ) {
+			return new CopyOnWriteView<>(readCsvFile(functionName, sepChar, numberOfLinesToIgnore));
+		}
+		List<Object> key = MemoCache.key("file.values", file.getAbsolutePath(), sepChar, numberOfLinesToIgnore);
+		FileContent fileContent = (FileContent) memoCache.get(key);
+		if ( fileContent == null || ! fileContent.isValidFor(file) ) {
+			long lastModified = file.lastModified();
+			long length = file.length();
+			fileContent = new FileContent(lastModified, length, readCsvFile(functionName, sepChar, numberOfLinesToIgnore));
+			memoCache.put(key, fileContent);
+		}
+		@SuppressWarnings("unchecked")
+		List<List<String>> values = (List<List<String>>) fileContent.content ;
+		return new CopyOnWriteView<>(values) ; // each row is split when used (a new list for each view)
+	}
+	
+	private CsvFile readCsvFile(String functionName, char sepChar, int numberOfLinesToIgnore) {
+		try {
+			return new CsvFile(file, sepChar, numberOfLinesToIgnore);
+		} catch (IOException e) {
+			String msg = "Read file error (IOException) : " + e.getMessage() + " : " + file.getName();
+			throw new GeneratorFileException(functionName, msg);
+		} catch (IllegalArgumentException e) {
+			throw new GeneratorFileException(functionName, e.getMessage());
+		}
 	}
 	
 }
@@ -21,6 +21,7 @@ import org.telosys.tools.commons.FileUtil;
 import org.telosys.tools.commons.StrUtil;
 import org.telosys.tools.generator.context.exceptions.GeneratorFunctionException;
 import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generator.context.tools.MemoCache;
 import org.telosys.tools.generator.engine.GeneratorContext;
 
 /**
@@ -33,6 +34,7 @@ public class FnFileUtil {
 	
 	private final String functionName;
 	private final GeneratorContext generatorContext ;
+	private final MemoCache memoCache ;
 	
 	/**
 	 * Constructor
@@ -40,9 +42,20 @@ public class FnFileUtil {
 	 * @param generatorContext
 	 */
 	public FnFileUtil(String functionName, GeneratorContext generatorContext) {
+		this(functionName, generatorContext, new MemoCache());
+	}
+	
+	/**
+	 * Constructor
+	 * @param functionName  the "$fn" function name
+	 * @param generatorContext
+	 * @param memoCache the cache used to keep the files content
+	 */
+	public FnFileUtil(String functionName, GeneratorContext generatorContext, MemoCache memoCache) {
 		super();
 		this.functionName = functionName ;
 		this.generatorContext = generatorContext ;
+		this.memoCache = memoCache ;
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -50,21 +63,21 @@ public class FnFileUtil {
 	//-------------------------------------------------------------------------------------
 	public FileInContext file (String filePath) {
 		File file = getFileFromPath(filePath) ;
-		return new FileInContext(file);
+		return new FileInContext(file, memoCache);
 	}
 	
 	public FileInContext fileFromBundle(String filePath) {
 		String dir = getBundleLocationFullPath();
 		String fullPath = FileUtil.buildFilePath(dir, filePath);
 		File file = new File(fullPath) ;
-		return new FileInContext(file);
+		return new FileInContext(file, memoCache);
 	}
 
 	public FileInContext fileFromModel(String filePath) {
 		String dir = getModelLocationFullPath();
 		String fullPath = FileUtil.buildFilePath(dir, filePath);
 		File file = new File(fullPath) ;
-		return new FileInContext(file);
+		return new FileInContext(file, memoCache);
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -31,6 +31,8 @@ import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.doc.VelocityReturnType;
 import org.telosys.tools.generator.context.exceptions.GeneratorFunctionException;
 import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generator.context.tools.EntitiesTracker;
+import org.telosys.tools.generator.context.tools.MemoCache;
 import org.telosys.tools.generator.engine.GeneratorContext;
 
 /**
@@ -53,6 +55,7 @@ public class FnInContext {
 
 	private final GeneratorContext generatorContext ;
 	private final EnvInContext     env ;
+	private final MemoCache        memoCache ; // values already built (shared by all the targets of a task)
 	
 	/**
 	 * Constructor
@@ -60,9 +63,20 @@ public class FnInContext {
 	 * @param env
 	 */
 	public FnInContext(GeneratorContext generatorContext, EnvInContext env ) {
+		this(generatorContext, env, new MemoCache());
+	}
+	
+	/**
+	 * Constructor
+	 * @param generatorContext
+	 * @param env
+	 * @param memoCache the cache used to keep the values built by 'buildValues'
+	 */
+	public FnInContext(GeneratorContext generatorContext, EnvInContext env, MemoCache memoCache ) {
 		super();
 		this.generatorContext = generatorContext;
 		this.env = env ;
+		this.memoCache = memoCache ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -512,6 +526,7 @@ public class FnInContext {
 			since = "2.1.0"
 			)
 	public boolean isDefined(String objectName) {
+		EntitiesTracker.touchContextObject(objectName); // v 3.3.0
 		Object o = generatorContext.get(objectName);
 		return ( o != null );
 	}
@@ -530,6 +545,7 @@ public class FnInContext {
 			)
 	@VelocityReturnType("Any kind of object ")
 	public Object get(String objectName, Object defaultValue) {
+		EntitiesTracker.touchContextObject(objectName); // v 3.3.0
 		Object o = generatorContext.get(objectName);
 		return ( o != null ? o : defaultValue );
 	}
@@ -604,7 +620,18 @@ public class FnInContext {
 			since = "2.1.1"
 			)
 	public ValuesInContext buildValues(final List<AttributeInContext> attributes, final int step) {
-		return new ValuesInContext( attributes, step, env ) ;
+		// the values are never modified => the same instance can be shared by all the targets
+		List<String> attributesKey = new ArrayList<>(attributes.size());
+		for ( AttributeInContext attribute : attributes ) {
+			attributesKey.add(attribute.getMemoKey());
+		}
+		List<Object> key = MemoCache.key("fn.buildValues", attributesKey, step, env.getLanguage());
+		ValuesInContext values = (ValuesInContext) memoCache.get(key);
+		if ( values == null ) {
+			values = new ValuesInContext( attributes, step, env ) ;
+			memoCache.put(key, values);
+		}
+		return values ;
 	}	
 	
 	/*** ORIGINAL METHOD DEFINED IN SPECIFIC CLASS
@@ -893,7 +920,7 @@ public class FnInContext {
 		since = "3.3.0"
 		)
 	public FileInContext file (String filePath) {
-		FnFileUtil f = new FnFileUtil("file", generatorContext);
+		FnFileUtil f = new FnFileUtil("file", generatorContext, memoCache);
 		return f.file(filePath);
 	}
 	
@@ -910,7 +937,7 @@ public class FnInContext {
 		since = "3.3.0"
 		)
 	public FileInContext fileFromBundle(String filePath) {
-		FnFileUtil f = new FnFileUtil("fileFromBundle", generatorContext);
+		FnFileUtil f = new FnFileUtil("fileFromBundle", generatorContext, memoCache);
 		return f.fileFromBundle(filePath);
 	}
 
@@ -927,7 +954,7 @@ public class FnInContext {
 		since = "3.3.0"
 		)
 	public FileInContext fileFromModel(String filePath) {
-		FnFileUtil f = new FnFileUtil("fileFromModel", generatorContext);
+		FnFileUtil f = new FnFileUtil("fileFromModel", generatorContext, memoCache);
 		return f.fileFromModel(filePath);
 	}
 
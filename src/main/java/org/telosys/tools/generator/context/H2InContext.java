@@ -76,9 +76,18 @@ public class H2InContext {
 			since = "2.1.1"
 			)
 	public List<String> ddlCreateTable(final EntityInContext entity) {
-		List<String> lines1 = buildTableDefinition (entity);
+		return buildCreateTableLines(entity.getDatabaseTable(), buildTableDefinition(entity));
+	}	
+
+	/**
+	 * Returns the lines of a 'CREATE TABLE' statement for the given table definition
+	 * @param tableName
+	 * @param lines1 the columns and constraints definitions 
+	 * @return
+	 */
+	/* package */ static List<String> buildCreateTableLines(String tableName, List<String> lines1) {
 		List<String> lines2 = new LinkedList<>();
-		lines2.add( "CREATE TABLE " + entity.getDatabaseTable() + " (") ;
+		lines2.add( "CREATE TABLE " + tableName + " (") ;
 		
 		int c = 0 ;
 		int last = lines1.size() ;
@@ -95,7 +104,7 @@ public class H2InContext {
 		return lines2 ;
 	}	
 
-	private List<String> buildTableDefinition (final EntityInContext entity) {
+	/* package */ static List<String> buildTableDefinition (final EntityInContext entity) {
 		List<String> lines = new LinkedList<>();
 		//--- Primary Key columns first 
 		for ( AttributeInContext attribute : entity.getKeyAttributes() ) {
@@ -112,7 +121,7 @@ public class H2InContext {
 		return lines ;
 	}	
 
-	private String buildPrimaryKeyDefinition (final EntityInContext entity ) {
+	/* package */ static String buildPrimaryKeyDefinition (final EntityInContext entity ) {
 		// PRIMARY KEY(code)
 		StringBuilder sb = new StringBuilder();
 		sb.append("PRIMARY KEY(");
@@ -128,7 +137,7 @@ public class H2InContext {
 		return sb.toString();
 	}
 
-	private String buildColumnDefinition (final AttributeInContext attribute ) {
+	private static String buildColumnDefinition (final AttributeInContext attribute ) {
 		StringBuilder sb = new StringBuilder();
 		sb.append( attribute.getDatabaseName() ) ;
 		sb.append( " ") ;
@@ -163,7 +172,7 @@ public class H2InContext {
 		mappingNeutralTypeToH2Type.put(NeutralType.TIMESTAMP, "TIMESTAMP");
 	}
 	
-	private String getColumnType (final AttributeInContext attribute ) {
+	private static String getColumnType (final AttributeInContext attribute ) {
 		
 		if ( attribute.isAutoIncremented() ) {
 			//--- Particular case : Auto-incremented column
@@ -15,6 +15,7 @@
  */
 package org.telosys.tools.generator.context;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -23,6 +24,7 @@ import org.telosys.tools.generator.context.doc.VelocityMethod;
 import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.names.ContextName;
 import org.telosys.tools.generator.context.tools.LinesBuilder;
+import org.telosys.tools.generator.context.tools.MemoCache;
 
 //-------------------------------------------------------------------------------------
 @VelocityObject(
@@ -38,6 +40,65 @@ public class Java {
 
 	private static final List<String> VOID_STRINGS_LIST = new LinkedList<>();
 
+	private static final String TABS = "tabs" ; // indentation with tabulations (in cache keys, never equal to a number of spaces)
+	
+	private final MemoCache memoCache ; // results already computed (shared by all the targets of a task)
+	
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Constructor
+	 */
+	public Java() {
+		this(new MemoCache());
+	}
+	
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Constructor with the memo cache of the current generation task
+	 * @param memoCache
+	 */
+	public Java(MemoCache memoCache) {
+		super();
+		this.memoCache = memoCache ;
+	}
+	
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Returns a key for the given list of attributes (a list of the attributes keys)
+	 * @param attributes
+	 * @return
+	 */
+	private List<String> attributesKey(List<AttributeInContext> attributes) {
+		if ( attributes == null ) {
+			return null ;
+		}
+		List<String> keys = new ArrayList<>(attributes.size());
+		for ( AttributeInContext attribute : attributes ) {
+			keys.add(attribute.getMemoKey());
+		}
+		return keys ;
+	}
+	
+	private String getMemoString(List<Object> key) {
+		return (String) memoCache.get(key);
+	}
+	
+	/**
+	 * Returns a lines builder for the given indentation 
+	 * @param indentation TABS or the number of spaces (Integer)
+	 * @return
+	 */
+	private static LinesBuilder newLinesBuilder(Object indentation) {
+		return indentation == TABS ? new LinesBuilder() : new LinesBuilder((Integer) indentation) ;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<String> getMemoList(List<Object> key) {
+		List<String> list = (List<String>) memoCache.get(key);
+		// return a copy (the list can be modified in the template)
+		return list != null ? new LinkedList<>(list) : null ;
+	}
+	
 	//-------------------------------------------------------------------------------------
 	@VelocityMethod(
 		text={	
@@ -53,7 +114,7 @@ public class Java {
 			)
 	public String equalsMethod( String className, List<AttributeInContext> fieldsList ) {
 		
-		return equalsMethod( className , fieldsList, new LinesBuilder() ); 
+		return memoEqualsMethod( className , fieldsList, TABS ); 
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -72,7 +133,19 @@ public class Java {
 			)
 	public String equalsMethod( String className, List<AttributeInContext> fieldsList, int indentSpaces ) {
 		
-		return equalsMethod( className , fieldsList, new LinesBuilder(indentSpaces) ); 
+		return memoEqualsMethod( className , fieldsList, Integer.valueOf(indentSpaces) ); 
+	}
+	
+	//-------------------------------------------------------------------------------------
+	private String memoEqualsMethod( String className, List<AttributeInContext> fieldsList, Object indentation ) {
+		
+		List<Object> key = MemoCache.key("java.equalsMethod", className, attributesKey(fieldsList), indentation);
+		String result = getMemoString(key);
+		if ( result == null ) {
+			result = equalsMethod( className , fieldsList, newLinesBuilder(indentation) ); 
+			memoCache.put(key, result);
+		}
+		return result ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -148,7 +221,7 @@ public class Java {
 			since = "2.0.7"
 				)
 	public String hashCodeMethod( String className, List<AttributeInContext> fieldsList ) {
-		return hashCodeMethod(fieldsList, new LinesBuilder() ); 
+		return memoHashCodeMethod(fieldsList, TABS ); 
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -166,7 +239,19 @@ public class Java {
 			since = "2.0.7"
 				)
 	public String hashCodeMethod( String className, List<AttributeInContext> fieldsList, int indentSpaces ) {
-		return hashCodeMethod(fieldsList, new LinesBuilder(indentSpaces) ); 
+		// className not used in 'hashCode'
+		return memoHashCodeMethod(fieldsList, Integer.valueOf(indentSpaces) ); 
+	}
+	
+	//-------------------------------------------------------------------------------------
+	private String memoHashCodeMethod( List<AttributeInContext> fieldsList, Object indentation ) {
+		List<Object> key = MemoCache.key("java.hashCodeMethod", attributesKey(fieldsList), indentation);
+		String result = getMemoString(key);
+		if ( result == null ) {
+			result = hashCodeMethod(fieldsList, newLinesBuilder(indentation) ); 
+			memoCache.put(key, result);
+		}
+		return result ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -251,12 +336,18 @@ public class Java {
 				)
 	public List<String> imports( List<AttributeInContext> attributesList ) {
 		if ( attributesList != null ) {
-			JavaImportsList imports = new JavaImportsList();
-			for ( AttributeInContext attribute : attributesList ) {
-				// register the type to be imported if necessary
-				imports.declareType( attribute.getFullType() ); 
+			List<Object> key = MemoCache.key("java.importsForAttributes", attributesKey(attributesList));
+			List<String> result = getMemoList(key);
+			if ( result == null ) {
+				JavaImportsList imports = new JavaImportsList();
+				for ( AttributeInContext attribute : attributesList ) {
+					// register the type to be imported if necessary
+					imports.declareType( attribute.getFullType() ); 
+				}
+				result = imports.getFinalImportsList();
+				memoCache.put(key, new LinkedList<>(result));
 			}
-			return imports.getFinalImportsList();			
+			return result ;
 		}
 		return VOID_STRINGS_LIST ;
 	}
@@ -278,40 +369,50 @@ public class Java {
 				)
 	public List<String> imports( EntityInContext entity ) throws GeneratorException {
 		if ( entity != null ) {
-			JavaImportsList imports = new JavaImportsList();
-			//--- All the attributes
-			for ( AttributeInContext attribute : entity.getAttributes() ) {
-				// register the type to be imported if necessary
-				imports.declareType( attribute.getFullType() ); 
+			List<Object> key = MemoCache.key("java.importsForEntity", entity.getMemoKey());
+			List<String> result = getMemoList(key);
+			if ( result == null ) {
+				result = buildImports(entity);
+				memoCache.put(key, new LinkedList<>(result));
 			}
-			//--- All the links 
-			for ( LinkInContext link : entity.getLinks() ) {
-				if ( link.isCardinalityOneToMany() || link.isCardinalityManyToMany() ) {
-					// collection types used in your JPA 
-					// "java.util.List", "java.util.Set", "java.util.Collection" 
+			return result ;
+		}
+		return VOID_STRINGS_LIST ;
+	}
+	
+	private List<String> buildImports( EntityInContext entity ) throws GeneratorException {
+		JavaImportsList imports = new JavaImportsList();
+		//--- All the attributes
+		for ( AttributeInContext attribute : entity.getAttributes() ) {
+			// register the type to be imported if necessary
+			imports.declareType( attribute.getFullType() ); 
+		}
+		//--- All the links 
+		for ( LinkInContext link : entity.getLinks() ) {
+			if ( link.isCardinalityOneToMany() || link.isCardinalityManyToMany() ) {
+				// collection types used in your JPA 
+				// "java.util.List", "java.util.Set", "java.util.Collection" 
 //					imports.declareType( link.getFieldFullType() ); 
-					// NEW in v 3.3.0
-					String type = link.getFieldType();
-					if ( type.contains("Set<") && type.contains(">") ) {
-						imports.declareType("java.util.Set");
-					} 
-					else if ( type.contains("Collection<") && type.contains(">") ) {
-						imports.declareType("java.util.Collection");
-					} 
-					else {
-						// by default "List" 
-						imports.declareType("java.util.List");
-					}
-				}
+				// NEW in v 3.3.0
+				String type = link.getFieldType();
+				if ( type.contains("Set<") && type.contains(">") ) {
+					imports.declareType("java.util.Set");
+				} 
+				else if ( type.contains("Collection<") && type.contains(">") ) {
+					imports.declareType("java.util.Collection");
+				} 
 				else {
-					// ManyToOne or OneToOne => bean ( "Book", "Person", ... )
-					// Supposed to be in the same package
+					// by default "List" 
+					imports.declareType("java.util.List");
 				}
 			}
-			//--- Resulting list of imports
-			return imports.getFinalImportsList();
+			else {
+				// ManyToOne or OneToOne => bean ( "Book", "Person", ... )
+				// Supposed to be in the same package
+			}
 		}
-		return VOID_STRINGS_LIST ;
+		//--- Resulting list of imports
+		return imports.getFinalImportsList();
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -349,6 +450,16 @@ public class Java {
 		since = "2.1.0"
 			)
 	public String toStringMethod( List<AttributeInContext> attributes, int indentSpaces ) {
+		List<Object> key = MemoCache.key("java.toStringMethod", attributesKey(attributes), indentSpaces);
+		String result = getMemoString(key);
+		if ( result == null ) {
+			result = buildToStringMethod(attributes, indentSpaces);
+			memoCache.put(key, result);
+		}
+		return result ;
+	}
+	
+	private String buildToStringMethod( List<AttributeInContext> attributes, int indentSpaces ) {
 
 		LinesBuilder lb = new LinesBuilder(indentSpaces) ;
 		int indent = 1 ;
@@ -385,7 +496,7 @@ public class Java {
 			)
 	public String toStringMethod( EntityInContext entity, List<AttributeInContext> nonKeyAttributes, String embeddedIdName ) {
 			
-		return toStringMethod( entity , nonKeyAttributes, embeddedIdName, new LinesBuilder() ); 
+		return memoToStringMethod( entity , nonKeyAttributes, embeddedIdName, TABS ); 
 	}
 		
 	//-------------------------------------------------------------------------------------
@@ -408,7 +519,21 @@ public class Java {
 	public String toStringMethod( EntityInContext entity, List<AttributeInContext> nonKeyAttributes, 
 			String embeddedIdName, int indentSpaces )  {
 		
-		return toStringMethod( entity , nonKeyAttributes, embeddedIdName, new LinesBuilder(indentSpaces) ); 
+		return memoToStringMethod( entity , nonKeyAttributes, embeddedIdName, Integer.valueOf(indentSpaces) ); 
+	}
+	
+	//-------------------------------------------------------------------------------------
+	private String memoToStringMethod( EntityInContext entity, List<AttributeInContext> nonKeyAttributes, 
+			String embeddedIdName, Object indentation )  {
+		
+		List<Object> key = MemoCache.key("java.toStringMethodForEntity", entity.getMemoKey(), 
+				attributesKey(nonKeyAttributes), embeddedIdName, indentation);
+		String result = getMemoString(key);
+		if ( result == null ) {
+			result = toStringMethod( entity , nonKeyAttributes, embeddedIdName, newLinesBuilder(indentation) ); 
+			memoCache.put(key, result);
+		}
+		return result ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -15,8 +15,13 @@
  */
 package org.telosys.tools.generator.context;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.telosys.tools.commons.JavaTypeUtil;
 
@@ -29,7 +34,7 @@ import org.telosys.tools.commons.JavaTypeUtil;
  */
 public class JavaImportsList {
 
-	private final LinkedList<String> imports = new LinkedList<>() ; // List of Java "full types" to import ( eg : "java.math.BigDecimal" )
+	private final Set<String> imports = new HashSet<>() ; // Java "full types" to import ( eg : "java.math.BigDecimal" )
 	
 	/**
 	 * Constructor
@@ -43,7 +48,7 @@ public class JavaImportsList {
 	 * @param fullTypeName 
 	 */
 	public void declareType(String fullTypeName ) {
-		if ( JavaTypeUtil.needsImport(fullTypeName) && ( ! imports.contains(fullTypeName) ) ) {
+		if ( ! imports.contains(fullTypeName) && JavaTypeUtil.needsImport(fullTypeName) ) {
 			imports.add(fullTypeName);
 		}
 	}
@@ -68,8 +73,9 @@ public class JavaImportsList {
 	 */
 	public List<String> getFinalImportsList() {
 		removeCollidedTypes();
-		java.util.Collections.sort(imports);
-		return imports ;		
+		List<String> list = new ArrayList<>(imports);
+		Collections.sort(list);
+		return list ;		
 	}
 
 	private static final Class<?>[] COLLECTIONS = {
@@ -97,14 +103,22 @@ public class JavaImportsList {
 			java.util.TreeMap.class
 			};
 	
+	// Collections : simple name --> canonical name ( eg "List" --> "java.util.List" )
+	private static final Map<String,String> COLLECTIONS_NAMES = new HashMap<>();
+	static {
+		for ( Class<?> clazz : COLLECTIONS ) {
+			COLLECTIONS_NAMES.put(clazz.getSimpleName(), clazz.getCanonicalName());
+		}
+	}
+	
 	private void declareLinkType(String inputType) {
 		String type = inputType.trim();
-		if ( type.contains("<") && type.endsWith(">") ) {
-			for ( Class<?> clazz : COLLECTIONS ) {
-				// "Collection<Type>", "List<Type>", "Set<Type>"
-				if ( type.startsWith(clazz.getSimpleName()) ) {
-					declareType(clazz.getCanonicalName());
-				} 
+		int i = type.indexOf('<');
+		if ( i > 0 && type.endsWith(">") ) {
+			// "Collection<Type>", "List<Type>", "Set<Type>"
+			String collectionType = COLLECTIONS_NAMES.get(type.substring(0, i).trim());
+			if ( collectionType != null ) {
+				declareType(collectionType);
 			}
 		}
 	}
@@ -15,9 +15,14 @@
  */
 package org.telosys.tools.generator.context;
 
+import java.util.List;
+
 import org.telosys.tools.generator.context.doc.VelocityMethod;
 import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generator.context.tools.JdbcRequests;
+import org.telosys.tools.generator.context.tools.JdbcSqlRequests;
+import org.telosys.tools.generator.context.tools.MemoCache;
 
 //-------------------------------------------------------------------------------------
 @VelocityObject(
@@ -32,12 +37,23 @@ import org.telosys.tools.generator.context.names.ContextName;
 public class JdbcFactoryInContext {
 	
 	private boolean useSchema = false ;
+	
+	private final MemoCache memoCache ; // JDBC SQL requests already created (shared by all the targets of a task)
 
 	//-------------------------------------------------------------------------------------
-	// CONSTRUCTOR
+	// CONSTRUCTORS
 	//-------------------------------------------------------------------------------------
 	public JdbcFactoryInContext() {
+		this(new MemoCache());
+	}
+	
+	/**
+	 * Constructor
+	 * @param memoCache the cache used to keep the JDBC SQL requests for each entity
+	 */
+	public JdbcFactoryInContext(MemoCache memoCache) {
 		super();
+		this.memoCache = memoCache ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -79,7 +95,14 @@ public class JdbcFactoryInContext {
 		if ( entity == null ) {
 			throw new IllegalArgumentException("$jdbcFactory.getInstance($entity) : $entity is null");
 		}
-		return new JdbcInContext(entity, this.useSchema); 
+		// only the SQL requests are kept (the attributes are those of the current target)
+		List<Object> key = MemoCache.key("jdbc.sql", entity.getMemoKey(), this.useSchema);
+		JdbcSqlRequests sqlRequests = (JdbcSqlRequests) memoCache.get(key);
+		JdbcRequests requests = new JdbcRequests(entity, this.useSchema, sqlRequests);
+		if ( sqlRequests == null ) {
+			memoCache.put(key, requests.getSqlRequests());
+		}
+		return new JdbcInContext(requests); 
     }
 	
 	//-------------------------------------------------------------------------------------
@@ -41,8 +41,16 @@ public class JdbcInContext {
 	// CONSTRUCTOR
 	//-------------------------------------------------------------------------------------
 	public JdbcInContext(EntityInContext entity, boolean useSchema) {
+		this(new JdbcRequests(entity, useSchema ));
+	}
+	
+	/**
+	 * Constructor with existing requests (built with the SQL requests shared by all the targets of a task)
+	 * @param requests
+	 */
+	protected JdbcInContext(JdbcRequests requests) {
 		super();
-		this.requests = new JdbcRequests(entity, useSchema );
+		this.requests = requests ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -15,6 +15,8 @@
  */
 package org.telosys.tools.generator.context;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -26,6 +28,7 @@ import org.telosys.tools.generator.context.doc.VelocityReturnType;
 import org.telosys.tools.generator.context.names.ContextName;
 import org.telosys.tools.generator.context.tools.AnnotationsBuilder;
 import org.telosys.tools.generator.context.tools.AnnotationsForJPA;
+import org.telosys.tools.generator.context.tools.MemoCache;
 import org.telosys.tools.generic.model.BooleanValue;
 import org.telosys.tools.generic.model.FetchType;
 
@@ -52,12 +55,52 @@ public class Jpa {
 	private BooleanValue joinColumnInsertable = BooleanValue.UNDEFINED; // v 3.3.0
 	private BooleanValue joinColumnUpdatable  = BooleanValue.UNDEFINED; // v 3.3.0
 	
+	private static final List<String> JPA_IMPORTS = Collections.singletonList("javax.persistence.*");
+	
+	private final MemoCache memoCache ; // annotations already built (shared by all the targets of a task)
+	private String settingsKey = null ; // snapshot of the current settings (reset by each setter)
 	
 	//-------------------------------------------------------------------------------------
-	// CONSTRUCTOR
+	// CONSTRUCTORS
 	//-------------------------------------------------------------------------------------
 	public Jpa() {
+		this(new MemoCache());
+	}
+	
+	/**
+	 * Constructor
+	 * @param memoCache the cache used to keep the annotations already built
+	 */
+	public Jpa(MemoCache memoCache) {
 		super();
+		this.memoCache = memoCache ;
+	}
+	
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Returns a key representing the current settings (used as a part of the memo keys) <br>
+	 * the key is rebuilt after any change in the settings
+	 * @return
+	 */
+	private String getSettingsKey() {
+		if ( settingsKey == null ) {
+			settingsKey = genTargetEntity + "|" + collectionType 
+				+ "|" + linkManyToOneFetchType + "|" + linkOneToOneFetchType 
+				+ "|" + linkOneToManyFetchType + "|" + linkManyToManyFetchType 
+				+ "|" + joinColumnInsertable + "|" + joinColumnUpdatable ;
+		}
+		return settingsKey ;
+	}
+	
+	private List<String> attributesKey(List<AttributeInContext> attributes) {
+		if ( attributes == null ) {
+			return null ;
+		}
+		List<String> keys = new ArrayList<>(attributes.size());
+		for ( AttributeInContext attribute : attributes ) {
+			keys.add(attribute.getMemoKey());
+		}
+		return keys ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -66,6 +109,7 @@ public class Jpa {
 	}
 	public void setGenTargetEntity(boolean v) {
 		this.genTargetEntity = v;
+		this.settingsKey = null ;
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -74,6 +118,7 @@ public class Jpa {
 	}
 	public void setCollectionType(String v) {
 		this.collectionType = v;
+		this.settingsKey = null ;
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -82,6 +127,7 @@ public class Jpa {
 	}
 	public void setManyToOneFetchType(String s) {
 		this.linkManyToOneFetchType = getFetchType(s);
+		this.settingsKey = null ;
 	}
 
 	public FetchType getOneToOneFetchType() {
@@ -89,6 +135,7 @@ public class Jpa {
 	}
 	public void setOneToOneFetchType(String s) {
 		this.linkOneToOneFetchType = getFetchType(s);
+		this.settingsKey = null ;
 	}
 
 	public FetchType getOneToManyFetchType() {
@@ -96,6 +143,7 @@ public class Jpa {
 	}
 	public void setOneToManyFetchType(String s) {
 		this.linkOneToManyFetchType = getFetchType(s);
+		this.settingsKey = null ;
 	}
 
 	public FetchType getManyToManyFetchType() {
@@ -103,6 +151,7 @@ public class Jpa {
 	}
 	public void setManyToManyFetchType(String s) {
 		this.linkManyToManyFetchType = getFetchType(s);
+		this.settingsKey = null ;
 	}
 
 	private FetchType getFetchType(String s) {
@@ -125,9 +174,11 @@ public class Jpa {
 	}
 	public void setJoinColumnInsertable(String s) {
 		this.joinColumnInsertable = getBooleanValue(s);
+		this.settingsKey = null ;
 	}
 	public void setJoinColumnInsertable(boolean b) {
 		this.joinColumnInsertable = getBooleanValue(b);
+		this.settingsKey = null ;
 	}
 
 	public String getJoinColumnUpdatable() {
@@ -135,9 +186,11 @@ public class Jpa {
 	}
 	public void setJoinColumnUpdatable(String s) {
 		this.joinColumnUpdatable = getBooleanValue(s);
+		this.settingsKey = null ;
 	}
 	public void setJoinColumnUpdatable(boolean b) {
 		this.joinColumnUpdatable = getBooleanValue(b);
+		this.settingsKey = null ;
 	}
 
 	private BooleanValue getBooleanValue(String s) {
@@ -182,9 +235,8 @@ public class Jpa {
 	)
 	@VelocityReturnType("List of 'String'")
 	public List<String> imports(EntityInContext entity) {
-		List<String> list = new LinkedList<>();
-		list.add("javax.persistence.*");
-		return list;
+		// same imports for all the entities 
+		return new LinkedList<>(JPA_IMPORTS); // copy (the list can be modified in the template)
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -205,6 +257,17 @@ public class Jpa {
 		since = "2.0.7"
 	)
 	public String entityAnnotations(int iLeftMargin, EntityInContext entity)
+    {
+		List<Object> key = MemoCache.key("jpa.entityAnnotations", entity.getMemoKey(), iLeftMargin);
+		String result = (String) memoCache.get(key);
+		if ( result == null ) {
+			result = buildEntityAnnotations(iLeftMargin, entity);
+			memoCache.put(key, result);
+		}
+		return result ;
+    }
+	
+	private String buildEntityAnnotations(int iLeftMargin, EntityInContext entity)
     {
 		AnnotationsBuilder b = new AnnotationsBuilder(iLeftMargin);
 		
@@ -294,10 +357,17 @@ public class Jpa {
 //			}
 //		}
 //		return annotations.getAnnotations();
-		AnnotationsBuilder annotations = new AnnotationsBuilder(marginSize);
-		processLinkCardinalityAnnotation(annotations, entityLink) ;
-		processLinkJoinAnnotation(annotations, entityLink, alreadyMappedFields );
-		return annotations.getAnnotations();
+		List<Object> key = MemoCache.key("jpa.linkAnnotations", entityLink.getMemoKey(), marginSize, 
+				getSettingsKey(), attributesKey(alreadyMappedFields));
+		String result = (String) memoCache.get(key);
+		if ( result == null ) {
+			AnnotationsBuilder annotations = new AnnotationsBuilder(marginSize);
+			processLinkCardinalityAnnotation(annotations, entityLink) ;
+			processLinkJoinAnnotation(annotations, entityLink, alreadyMappedFields );
+			result = annotations.getAnnotations();
+			memoCache.put(key, result);
+		}
+		return result ;
 	}
 	//-------------------------------------------------------------------------------------
 	@VelocityMethod(
@@ -315,10 +385,7 @@ public class Jpa {
 			)
 	public String linkAnnotations( int leftMargin, LinkInContext link )
 				throws GeneratorException {
-		AnnotationsBuilder annotations = new AnnotationsBuilder(leftMargin);
-		processLinkCardinalityAnnotation(annotations, link) ;
-		processLinkJoinAnnotation(annotations, link, null );
-		return annotations.getAnnotations();
+		return linkAnnotations(leftMargin, link, null);
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -335,9 +402,16 @@ public class Jpa {
 			)
 	public String linkCardinalityAnnotation(int leftMargin, LinkInContext entityLink )
 			throws GeneratorException {
-		AnnotationsBuilder annotations = new AnnotationsBuilder(leftMargin);
-		processLinkCardinalityAnnotation(annotations, entityLink) ;
-		return annotations.getAnnotations();
+		List<Object> key = MemoCache.key("jpa.linkCardinalityAnnotation", entityLink.getMemoKey(), leftMargin, 
+				getSettingsKey());
+		String result = (String) memoCache.get(key);
+		if ( result == null ) {
+			AnnotationsBuilder annotations = new AnnotationsBuilder(leftMargin);
+			processLinkCardinalityAnnotation(annotations, entityLink) ;
+			result = annotations.getAnnotations();
+			memoCache.put(key, result);
+		}
+		return result ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -356,9 +430,16 @@ public class Jpa {
 		since = "3.3.0"
 			)
 	public String linkJoinAnnotation(int leftMargin, LinkInContext link, List<AttributeInContext> alreadyMappedFields ) {
-		AnnotationsBuilder annotations = new AnnotationsBuilder(leftMargin);
-		processLinkJoinAnnotation(annotations, link, alreadyMappedFields );
-		return annotations.getAnnotations();
+		List<Object> key = MemoCache.key("jpa.linkJoinAnnotation", link.getMemoKey(), leftMargin, 
+				getSettingsKey(), attributesKey(alreadyMappedFields));
+		String result = (String) memoCache.get(key);
+		if ( result == null ) {
+			AnnotationsBuilder annotations = new AnnotationsBuilder(leftMargin);
+			processLinkJoinAnnotation(annotations, link, alreadyMappedFields );
+			result = annotations.getAnnotations();
+			memoCache.put(key, result);
+		}
+		return result ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -373,9 +454,7 @@ public class Jpa {
 		since = "3.3.0"
 			)
 	public String linkJoinAnnotation(int leftMargin, LinkInContext entityLink ) {
-		AnnotationsBuilder annotations = new AnnotationsBuilder(leftMargin);
-		processLinkJoinAnnotation(annotations, entityLink, null );
-		return annotations.getAnnotations();
+		return linkJoinAnnotation(leftMargin, entityLink, null);
 	}
 	
 	//----------------------------------------------------------------
@@ -968,8 +1047,14 @@ public class Jpa {
 	)
 	public String fieldAnnotations(int iLeftMargin, AttributeInContext attribute )
     {
-		AnnotationsForJPA annotationsJPA = new AnnotationsForJPA(attribute);
-		return annotationsJPA.getJpaAnnotations(iLeftMargin, AnnotationsForJPA.EMBEDDED_ID_FALSE );
+		List<Object> key = MemoCache.key("jpa.fieldAnnotations", attribute.getMemoKey(), iLeftMargin);
+		String result = (String) memoCache.get(key);
+		if ( result == null ) {
+			AnnotationsForJPA annotationsJPA = new AnnotationsForJPA(attribute);
+			result = annotationsJPA.getJpaAnnotations(iLeftMargin, AnnotationsForJPA.EMBEDDED_ID_FALSE );
+			memoCache.put(key, result);
+		}
+		return result ;
     }
 
 	//-------------------------------------------------------------------------------------------------------------
@@ -988,8 +1073,14 @@ public class Jpa {
 		)
 	public String embeddedIdAnnotations(int iLeftMargin, AttributeInContext attribute )
     {
-		AnnotationsForJPA annotationsJPA = new AnnotationsForJPA(attribute);
-		return annotationsJPA.getJpaAnnotations(iLeftMargin, AnnotationsForJPA.EMBEDDED_ID_TRUE );
+		List<Object> key = MemoCache.key("jpa.embeddedIdAnnotations", attribute.getMemoKey(), iLeftMargin);
+		String result = (String) memoCache.get(key);
+		if ( result == null ) {
+			AnnotationsForJPA annotationsJPA = new AnnotationsForJPA(attribute);
+			result = annotationsJPA.getJpaAnnotations(iLeftMargin, AnnotationsForJPA.EMBEDDED_ID_TRUE );
+			memoCache.put(key, result);
+		}
+		return result ;
     }
 	//-------------------------------------------------------------------------------------------------------------
 	
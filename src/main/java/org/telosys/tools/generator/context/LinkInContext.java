@@ -24,6 +24,7 @@ import org.telosys.tools.generator.context.doc.VelocityMethod;
 import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.doc.VelocityReturnType;
 import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generator.context.tools.StringsPool;
 import org.telosys.tools.generic.model.BooleanValue;
 import org.telosys.tools.generic.model.Cardinality;
 import org.telosys.tools.generic.model.CascadeOptions;
@@ -60,7 +61,7 @@ public class LinkInContext {
 	
     private final EntityInContext  _entity ; // the entity to which the link belongs
 
-	private final ModelInContext   _modelInContext ;  // v 3.0.0 (replaces EntitiesManager)
+	private ModelInContext   _modelInContext ;  // v 3.0.0 (replaces EntitiesManager) (can be attached after the construction : v 3.3.0)
 	private final EnvInContext     _envInContext ; // ver 3.3.0
 
 	private final List<JoinColumnInContext> _joinColumns ; 
@@ -96,6 +97,22 @@ public class LinkInContext {
 	 */
 	public LinkInContext(EntityInContext entity, Link link, 
 			ModelInContext modelInContext, EnvInContext envInContext ) 
+	{
+		this(entity, link, modelInContext, 
+				modelInContext != null ? modelInContext.getStringsPool() : null, envInContext);
+	}
+	
+	/**
+	 * Constructor with the strings pool of the model (v 3.3.0) <br>
+	 * The model can be null and attached later (see attachModel) 
+	 * @param entity
+	 * @param link
+	 * @param modelInContext the model (or null if not yet built)
+	 * @param stringsPool the canonical strings of the model (or null if none)
+	 * @param envInContext
+	 */
+	/* package */ LinkInContext(EntityInContext entity, Link link, 
+			ModelInContext modelInContext, StringsPool stringsPool, EnvInContext envInContext ) 
 	{
 		this._entity = entity ;
 		this._modelInContext = modelInContext ; // v 3.0.0
@@ -121,9 +138,9 @@ public class LinkInContext {
 		_id = link.getId() ;
 		_fieldName = link.getFieldName() ;
 		// _fieldType = link.getFieldType(); // removed in v 3.3.0
-		_targetTableName = link.getTargetTableName();
+		_targetTableName = intern( stringsPool, link.getTargetTableName() );
 		_selected = link.isSelected();
-		_mappedBy = link.getMappedBy();
+		_mappedBy = intern( stringsPool, link.getMappedBy() );
 		_owningSide = link.isOwningSide();
 		
 		_cardinality = link.getCardinality();
@@ -137,6 +154,24 @@ public class LinkInContext {
 		this.isEmbedded  = link.isEmbedded(); // v 3.3.0
 	}
 	
+	/**
+	 * Returns the canonical instance of the given string if there's a strings pool
+	 * @param stringsPool
+	 * @param s
+	 * @return
+	 */
+	private static String intern(StringsPool stringsPool, String s) {
+		return stringsPool != null ? stringsPool.intern(s) : s ;
+	}
+	
+	/**
+	 * Attaches the model (v 3.3.0)
+	 * @param modelInContext
+	 */
+	/* package */ void attachModel(ModelInContext modelInContext) {
+		this._modelInContext = modelInContext ;
+	}
+	
 	/**
 	 * Returns the collection type <br>
 	 * depending on the current language and the specific collection type if any
@@ -146,7 +181,7 @@ public class LinkInContext {
 	private String buildCollectionType(String className) {
 		// Before v 3.3.0 always return "List<" + className + ">" ; 
 		// get collection type from current target language (added in v 3.3.0 )
-		TypeConverter typeConverter = _envInContext.getTypeConverter();
+		TypeConverter typeConverter = _envInContext.getSharedTypeConverter(); // v 3.3.0 (read-only usage)
 		// get collection type for the current language 
 		String collectionType = typeConverter.getCollectionType(className);
 		if ( collectionType != null ) {
@@ -169,7 +204,18 @@ public class LinkInContext {
 	public EntityInContext getEntity() {
 		return _entity;
 	}
-	
+
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Returns a key identifying this link with the current environment settings <br>
+	 * (the link is rebuilt for each target, this key is the same for all the targets)
+	 * @return
+	 */
+	/* package */ String getMemoKey() {
+		String entityKey = ( _entity != null ? _entity.getMemoKey() : _envInContext.getSignature() );
+		return entityKey + "->" + _fieldName ;
+	}
+
 	//-------------------------------------------------------------------------------------
 	@VelocityMethod(
 		text={	
@@ -182,14 +228,7 @@ public class LinkInContext {
 	)
 	public String formattedFieldType(int iSize) throws GeneratorException
     {
-		String currentType = getFieldType();
-		String sTrailingBlanks = "";
-        int iDelta = iSize - currentType.length();
-        if (iDelta > 0) // if needs trailing blanks
-        {
-            sTrailingBlanks = GeneratorUtil.blanks(iDelta);
-        }
-        return currentType + sTrailingBlanks;
+		return GeneratorUtil.padRight(getFieldType(), iSize);
     }
 
 	//-------------------------------------------------------------------------------------
@@ -202,14 +241,7 @@ public class LinkInContext {
 			}
 	)
 	public String formattedFieldName(int iSize) {
-        String s = this.getFieldName();
-        String sTrailingBlanks = "";
-        int iDelta = iSize - s.length();
-        if (iDelta > 0) // if needs trailing blanks
-        {
-            sTrailingBlanks = GeneratorUtil.blanks(iDelta);
-        }
-        return s + sTrailingBlanks;
+        return GeneratorUtil.padRight(this.getFieldName(), iSize);
     }
 
 	//-------------------------------------------------------------------------------------
@@ -15,16 +15,22 @@
  */
 package org.telosys.tools.generator.context;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.telosys.tools.commons.cfg.TelosysToolsCfg;
+import org.telosys.tools.generator.GenerationCache;
 import org.telosys.tools.generator.GeneratorException;
 import org.telosys.tools.generator.context.doc.VelocityMethod;
 import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generator.context.tools.EntitiesTracker;
+import org.telosys.tools.generator.context.tools.StringsPool;
 import org.telosys.tools.generic.model.Entity;
 import org.telosys.tools.generic.model.Model;
 import org.telosys.tools.generic.model.ModelType;
@@ -44,6 +50,12 @@ import org.telosys.tools.generic.model.ModelType;
 //-------------------------------------------------------------------------------------
 public class ModelInContext
 {
+	/**
+	 * Under this number of entities the model is built sequentially <br>
+	 * (also used as the split size for the parallel build)
+	 */
+	private static final int PARALLEL_BUILD_THRESHOLD = 64 ;
+	
 	private final String    modelName ;
 	private final String    modelFolderName ;
 	private final String    modelVersion ;
@@ -58,6 +70,8 @@ public class ModelInContext
 	private final Map<String,EntityInContext> entitiesByTableName ;
 	private final Map<String,EntityInContext> entitiesByClassName ;
 	
+	private final StringsPool stringsPool ; // canonical strings shared by all the entities 
+	
 	//-------------------------------------------------------------------------------------
 	/**
 	 * Constructor
@@ -67,8 +81,23 @@ public class ModelInContext
 	 */
 	// public ModelInContext( Model model, String entitiesPackage, EnvInContext env ) {
 	public ModelInContext( Model model, TelosysToolsCfg telosysToolsCfg, EnvInContext env ) { // v 3.3.0
+		this(model, telosysToolsCfg, env, new GenerationCache());
+	}
+	
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Constructor with the cache of the current generation task
+	 * @param model
+	 * @param telosysToolsCfg
+	 * @param env
+	 * @param generationCache
+	 */
+	public ModelInContext( Model model, TelosysToolsCfg telosysToolsCfg, EnvInContext env, 
+			GenerationCache generationCache ) {
 		super();
 		if ( model == null ) throw new IllegalArgumentException("Model is null");
+		if ( generationCache == null ) throw new IllegalArgumentException("Generation cache is null");
+		this.stringsPool = generationCache.getStringsPool();
 		
 		this.modelName = model.getName();  // MANDATORY
 		this.modelFolderName = model.getFolderName();  // MANDATORY
@@ -85,13 +114,12 @@ public class ModelInContext
 		
 		//--- All the entities (the original model order is kept)
 		this.allEntities = new LinkedList<>(); // v 3.0.0
-		for ( Entity entity : model.getEntities() ) { // v 3.0.0
-			//_allEntities.add( new EntityInContext(entity, entitiesPackage, this, env) );// v 3.0.0
-			this.allEntities.add( 
-					new EntityInContext(entity, 
-							telosysToolsCfg.getEntityPackage(),  // v 3.3.0
-							this, env) );
+		EntityInContext[] entities = buildEntities(model.getEntities(), intern(telosysToolsCfg.getEntityPackage()), env);
+		for ( EntityInContext entity : entities ) {
+			// attached only when all the entities are built (the model is never used by the building threads)
+			entity.attachModel(this);
 		}
+		this.allEntities.addAll(Arrays.asList(entities));
 		
 		//--- Entities by TABLE NAME
 		this.entitiesByTableName = new HashMap<>();
@@ -121,6 +149,94 @@ public class ModelInContext
 		}
 	}
 	
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Returns the canonical instance of the given string (shared by all the entities)
+	 * @param s
+	 * @return
+	 */
+	protected String intern(String s) {
+		return stringsPool.intern(s);
+	}
+	
+	/**
+	 * Returns the canonical strings shared by all the entities 
+	 * @return
+	 */
+	/* package */ StringsPool getStringsPool() {
+		return stringsPool ;
+	}
+	
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Builds the EntityInContext for each entity of the model <br>
+	 * For large models the entities are built in parallel (fork/join) <br>
+	 * Each entity is stored at its original index so the model order is always kept <br>
+	 * The entities are built without the model (attached by the constructor when they are all built)
+	 * @param modelEntities
+	 * @param entitiesPackage
+	 * @param env
+	 * @return
+	 */
+	private EntityInContext[] buildEntities(List<Entity> modelEntities, String entitiesPackage, EnvInContext env) {
+		Entity[] source = modelEntities.toArray(new Entity[modelEntities.size()]);
+		EntityInContext[] result = new EntityInContext[source.length];
+		BuildEntitiesAction action = new BuildEntitiesAction(source, result, 0, source.length, entitiesPackage, stringsPool, env);
+		if ( source.length <= PARALLEL_BUILD_THRESHOLD ) {
+			action.buildSequentially(); 
+		}
+		else {
+			ForkJoinPool.commonPool().invoke(action);
+		}
+		return result ;
+	}
+	
+	/**
+	 * Fork/join action building a range of entities <br>
+	 * Each task writes only in its own range of the result array <br>
+	 * Only the dependencies are given to the action (the model under construction is never shared) 
+	 */
+	private static class BuildEntitiesAction extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Entity[]          source ;
+		private final EntityInContext[] result ;
+		private final int               from ; // inclusive
+		private final int               to ; // exclusive
+		private final String            entitiesPackage ;
+		private final StringsPool       stringsPool ;
+		private final EnvInContext      env ;
+		
+		BuildEntitiesAction(Entity[] source, EntityInContext[] result, int from, int to, 
+				String entitiesPackage, StringsPool stringsPool, EnvInContext env) {
+			super();
+			this.source = source ;
+			this.result = result ;
+			this.from = from ;
+			this.to = to ;
+			this.entitiesPackage = entitiesPackage ;
+			this.stringsPool = stringsPool ;
+			this.env = env ;
+		}
+		
+		@Override
+		protected void compute() {
+			if ( ( to - from ) <= PARALLEL_BUILD_THRESHOLD ) {
+				buildSequentially();
+			}
+			else {
+				int middle = ( from + to ) >>> 1 ;
+				invokeAll(new BuildEntitiesAction(source, result, from, middle, entitiesPackage, stringsPool, env),
+						  new BuildEntitiesAction(source, result, middle, to, entitiesPackage, stringsPool, env) );
+			}
+		}
+		
+		protected void buildSequentially() {
+			for ( int i = from ; i < to ; i++ ) {
+				result[i] = new EntityInContext(source[i], entitiesPackage, null, stringsPool, env);
+			}
+		}
+	}
+	
 	//-------------------------------------------------------------------------------------
 	@VelocityMethod(
 		text={	
@@ -208,6 +324,7 @@ public class ModelInContext
 	)
     public int getNumberOfEntities()
     {
+		EntitiesTracker.touchAll(); // v 3.3.0
         return allEntities.size() ;
     }
 
@@ -219,6 +336,7 @@ public class ModelInContext
 	)
     public List<EntityInContext> getAllEntites()
     {
+		EntitiesTracker.touchAll(); // v 3.3.0
 		return allEntities ;
     }
 	
@@ -236,7 +354,7 @@ public class ModelInContext
 			for ( String entityName : entitiesNames ) {
 				EntityInContext entity = entitiesByClassName.get(entityName);
 				if ( entity != null ) {
-					selectedEntities.add(entity);
+					selectedEntities.add(touch(entity));
 				}
 				else {
 					throw new GeneratorException("Unknown entity '" + entityName + "'");
@@ -246,6 +364,18 @@ public class ModelInContext
 		return selectedEntities ;
 	}
 
+	/**
+	 * Registers the given entity in the current entities tracker (if any)
+	 * @param entity the entity (or null)
+	 * @return the given entity
+	 */
+	private EntityInContext touch(EntityInContext entity) {
+		if ( entity != null ) {
+			EntitiesTracker.touch(entity.getModelClassName()); // v 3.3.0
+		}
+		return entity ;
+	}
+	
 	//-------------------------------------------------------------------------------------
 	@VelocityMethod(
 		text={	
@@ -258,7 +388,7 @@ public class ModelInContext
 	)
     public EntityInContext getEntityByTableName( String name )
     {
-		return entitiesByTableName.get(name);
+		return touch(entitiesByTableName.get(name));
     }
 
 	//-------------------------------------------------------------------------------------
@@ -273,7 +403,11 @@ public class ModelInContext
 	)
     public EntityInContext getEntityByClassName( String entityClassName )
     {
-		return entitiesByClassName.get(entityClassName);
+		EntityInContext entity = touch(entitiesByClassName.get(entityClassName));
+		if ( entity == null ) {
+			EntitiesTracker.touch(entityClassName); // v 3.3.0 (not found : the entity can be created later)
+		}
+		return entity ;
     }
 
 	//-------------------------------------------------------------------------------------
@@ -288,7 +422,11 @@ public class ModelInContext
 	)
     public boolean hasEntityWithTableName( String name )
     {
-		return ( entitiesByTableName.get(name) != null ) ;
+		EntityInContext entity = touch(entitiesByTableName.get(name));
+		if ( entity == null ) {
+			EntitiesTracker.touchAll(); // v 3.3.0 (any new entity can have this table name)
+		}
+		return ( entity != null ) ;
     }
 
 	//-------------------------------------------------------------------------------------
@@ -303,7 +441,11 @@ public class ModelInContext
 	)
     public boolean hasEntityWithClassName( String name )
     {
-		return ( entitiesByClassName.get(name) != null ) ;
+		EntityInContext entity = touch(entitiesByClassName.get(name));
+		if ( entity == null ) {
+			EntitiesTracker.touch(name); // v 3.3.0 (not found : the entity can be created later)
+		}
+		return ( entity != null ) ;
     }
 
 	//-------------------------------------------------------------------------------------
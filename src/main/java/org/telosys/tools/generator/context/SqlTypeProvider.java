@@ -15,6 +15,7 @@
  */
 package org.telosys.tools.generator.context;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,55 +36,111 @@ public class SqlTypeProvider {
 	private static final String POSTGRESQL = "POSTGRESQL";
 	private static final String MYSQL      = "MYSQL";
 	
-	private static final Map<String,Map<String,String>> maps = new HashMap<>(); 
-	{
-		maps.put(ANSI,       typesANSI());
-		maps.put(ORACLE,     typesORACLE() );
-		maps.put(POSTGRESQL, typesPOSTGRESQL() );
-		maps.put(MYSQL,      typesMYSQL() );
+	private static final String SIZE_VAR   = "%";
+	
+	// one immutable table for each database, built once (neutral type -> SQL type pattern)
+	private static final Map<String,Map<String,SqlTypePattern>> maps ; 
+	static {
+		Map<String,Map<String,SqlTypePattern>> m = new HashMap<>();
+		m.put(ANSI,       compile(typesANSI()) );
+		m.put(ORACLE,     compile(typesORACLE()) );
+		m.put(POSTGRESQL, compile(typesPOSTGRESQL()) );
+		m.put(MYSQL,      compile(typesMYSQL()) );
+		maps = Collections.unmodifiableMap(m);
 	}
 
+	/**
+	 * Private constructor
+	 */
+	private SqlTypeProvider() {
+	}
+	
+	/**
+	 * SQL type with the '%' size variable already located 
+	 */
+	private static final class SqlTypePattern {
+		private final String   sqlType ;
+		private final String[] parts ; // parts around each '%' (a single part if no size)
+		private SqlTypePattern(String sqlType) {
+			this.sqlType = sqlType ;
+			this.parts = sqlType.split(SIZE_VAR, -1);
+		}
+		private String apply(String size) {
+			if ( parts.length == 1 ) {
+				return sqlType ;
+			}
+			StringBuilder sb = new StringBuilder(sqlType.length() + 8);
+			for ( int i = 0 ; i < parts.length ; i++ ) {
+				if ( i > 0 ) {
+					sb.append(size);
+				}
+				sb.append(parts[i]);
+			}
+			return sb.toString();
+		}
+	}
+	
+	private static Map<String,SqlTypePattern> compile(Map<String,String> types) {
+		Map<String,SqlTypePattern> map = new HashMap<>();
+		for ( Map.Entry<String,String> e : types.entrySet() ) {
+			map.put(e.getKey(), new SqlTypePattern(e.getValue()));
+		}
+		return Collections.unmodifiableMap(map);
+	}
+	
+	/**
+	 * Returns TRUE if the SQL type is inferred from the predefined types of the current database <br>
+	 * (FALSE if a specific types mapping is defined in the environment)
+	 * @param env
+	 * @return
+	 */
+	public static final boolean usesPredefinedTypes(EnvInContext env) {
+		Map<String,String> map = env.getDatabaseTypesMapping();
+		return map == null || map.isEmpty() ;
+	}
+	
 	public static final String getSqlType(AttributeInContext attribute, EnvInContext env) {
-
-		attribute.getDatabaseTypeWithSize();
-		
-		Map<String,String> mapping = getTypesMapping(env);
-		if ( mapping != null ) {
-			String sqlType = mapping.get(attribute.getNeutralType());
+		if ( usesPredefinedTypes(env) ) {
+			// Predefined types for the current database 
+			SqlTypePattern pattern = getPredefinedTypes(env.getDatabase()).get(attribute.getNeutralType());
+			if ( pattern != null ) {
+				return pattern.apply(getSize(attribute));
+			}
+			return "ERROR_NO_SQL_TYPE";
+		}
+		else {
+			// Specific database types mapping (can be changed in the template)
+			String sqlType = env.getDatabaseTypesMapping().get(attribute.getNeutralType());
 			if ( sqlType != null ) {
 				return applySize(sqlType, attribute);
 			}
 			return "ERROR_NO_SQL_TYPE";
 		}
-		return "ERROR_NO_SQL_TYPE_MAPPING";
 	}
 	
-	private static final Map<String,String> getTypesMapping(EnvInContext env) {
-		Map<String,String> map ;
-		// Specific database types mapping 
-		map = env.getDatabaseTypesMapping();
-		if ( map != null && map.size() != 0 ) {
-			return map;
-		}
+	private static final Map<String,SqlTypePattern> getPredefinedTypes(String database) {
 		// Mapping for current database 
-		map = maps.get(env.getDatabase());
-		if ( map != null && map.size() != 0 ) {
+		Map<String,SqlTypePattern> map = ( database != null ? maps.get(database.toUpperCase()) : null ) ;
+		if ( map != null ) {
 			return map;
 		}
 		// Use default mapping
 		return maps.get(ANSI);
 	}
 	
+	private static final String getSize(AttributeInContext attribute) {
+		if ( ! StrUtil.nullOrVoid(attribute.getDatabaseSize()) ) {
+			return attribute.getDatabaseSize().trim();
+		} 
+		else if ( ! StrUtil.nullOrVoid(attribute.getMaxLength()) ) {
+			return attribute.getMaxLength().trim();
+		}
+		return "" ;
+	}
+	
 	private static final String applySize(String sqlType, AttributeInContext attribute) {
-		if ( sqlType.contains("%") ) {
-			String v = "" ;
-			if ( ! StrUtil.nullOrVoid(attribute.getDatabaseSize()) ) {
-				v = attribute.getDatabaseSize().trim();
-			} 
-			else if ( ! StrUtil.nullOrVoid(attribute.getMaxLength()) ) {
-				v = attribute.getMaxLength().trim();
-			}
-			return StrUtil.replaceVar(sqlType, "%", v);
+		if ( sqlType.contains(SIZE_VAR) ) {
+			return StrUtil.replaceVar(sqlType, SIZE_VAR, getSize(attribute));
 		}
 		else {
 			return sqlType;
@@ -15,6 +15,7 @@
  */
 package org.telosys.tools.generator.context;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -145,7 +146,7 @@ public class ValuesInContext {
 		since = "3.0.0"
 	)
 	public String getAllValues() {
-		StringBuilder sb = new StringBuilder();
+		StringBuilder sb = new StringBuilder(attributeNames.size() * 16);
 		int n = 0 ;
 		for ( String name : attributeNames ) {
 			if ( n > 0 ) {
@@ -191,7 +192,7 @@ public class ValuesInContext {
 	
 	//----------------------------------------------------------------------------------------
 	private String buildURI(List<String> names) {
-		StringBuilder sb = new StringBuilder();
+		StringBuilder sb = new StringBuilder(names.size() * 16);
 		for ( String name : names ) {
 			sb.append("/");
 			sb.append(getBasicValue(name));
@@ -352,16 +353,16 @@ public class ValuesInContext {
 	}
 
 	private List<String> buildNames(List<AttributeInContext> attributes) {
-		List<String> names = new LinkedList<>() ;
+		List<String> names = new ArrayList<>(attributes.size()) ;
 		for ( AttributeInContext attrib : attributes ) {
 			names.add(attrib.getName());
 		}
 		return names;
 	}
 	private String buildJSON(List<String> names, String separator1, String separator2) {
-		StringBuilder sb = new StringBuilder();
+		StringBuilder sb = new StringBuilder(estimateJSONSize(names, separator1, separator2));
 		int n = 0 ;
-		sb.append("{");
+		sb.append('{');
 		for ( String name : names ) {
 			if ( n > 0 ) {
 				sb.append(", ");
@@ -369,34 +370,37 @@ public class ValuesInContext {
 			if ( separator1 != null ) {
 				sb.append(separator1);
 			}
-			sb.append("\"" + name + "\"" );
-			sb.append(":");
-			sb.append(getJSONValue(name));
+			sb.append('"').append(name).append('"');
+			sb.append(':');
+			appendJSONValue(sb, name);
 			n++ ;
 		}
 		if ( separator2 != null ) {
 			sb.append(separator2);
 		}
-		sb.append("}");
+		sb.append('}');
 		return sb.toString();
 	}
-	private String getJSONValue(String attributeName) {
+	private int estimateJSONSize(List<String> names, String separator1, String separator2) {
+		int separatorsSize = ( separator1 != null ? separator1.length() : 0 ) + 2 ;
+		int size = 2 + ( separator2 != null ? separator2.length() : 0 ) ;
+		for ( String name : names ) {
+			size = size + name.length() + separatorsSize + 16 ; // 16 : average size for quotes and value
+		}
+		return size ;
+	}
+	private void appendJSONValue(StringBuilder sb, String attributeName) {
 		LiteralValue literalValue = values.get(attributeName) ;
-		if ( literalValue != null ) {
-			Object value = literalValue.getBasicValue();
-			if ( value != null ) {
-				if ( value instanceof String ) {
-					return "\"" + value.toString() + "\"";
-				}
-				else if ( value instanceof java.util.Date ) {
-					return "null" ;
-				}
-				else {
-					return value.toString() ;
-				}
-			}
+		Object value = ( literalValue != null ? literalValue.getBasicValue() : null ) ;
+		if ( value instanceof String ) {
+			sb.append('"').append((String)value).append('"');
+		}
+		else if ( value == null || value instanceof java.util.Date ) {
+			sb.append("null");
+		}
+		else {
+			sb.append(value.toString());
 		}
-		return "null" ;
 	}
 
 	//----------------------------------------------------------------------------------------
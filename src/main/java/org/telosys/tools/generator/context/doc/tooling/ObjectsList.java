@@ -20,6 +20,7 @@ import org.telosys.tools.generator.context.BeanValidation;
 import org.telosys.tools.generator.context.Const;
 import org.telosys.tools.generator.context.DatabaseInContext;
 import org.telosys.tools.generator.context.DatabasesInContext;
+import org.telosys.tools.generator.context.DdlInContext;
 import org.telosys.tools.generator.context.EmbeddedGenerator;
 import org.telosys.tools.generator.context.EntityInContext;
 import org.telosys.tools.generator.context.EnvInContext;
@@ -84,7 +85,8 @@ public class ObjectsList {
 		HtmlInContext.class, // v 3.0.0
 		ValuesInContext.class, // v 3.0.0
 
-		NowInContext.class // v 3.3.0
+		NowInContext.class, // v 3.3.0
+		DdlInContext.class // v 3.3.0
 	};
 
 	public static final Class<?>[] getObjectsClasses() {
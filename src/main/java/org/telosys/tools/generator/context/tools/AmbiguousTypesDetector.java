@@ -15,15 +15,20 @@
  */
 package org.telosys.tools.generator.context.tools;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.telosys.tools.commons.JavaTypeUtil;
 import org.telosys.tools.generator.context.AttributeInContext;
 
 public class AmbiguousTypesDetector {
 
-	private final List<String>  fullTypes ;
+	private final Set<String>          fullTypes = new LinkedHashSet<>() ; // registration order
+	private final Map<String, Integer> shortNamesCount = new HashMap<>() ; // short name --> number of full types 
 
 	//-----------------------------------------------------------------------------------------------
 	/**
@@ -33,7 +38,6 @@ public class AmbiguousTypesDetector {
 	 */
 	public AmbiguousTypesDetector(List<AttributeInContext> attributes) {
 		super();
-		this.fullTypes = new LinkedList<>();
 		for ( AttributeInContext attribute : attributes ) {
 			if ( ! attribute.isPrimitiveType() ) {
 				registerType( attribute.getFullType() ); // "java.math.BigDecimal", "java.util.Date", ...
@@ -47,23 +51,38 @@ public class AmbiguousTypesDetector {
 	 */
 	public AmbiguousTypesDetector() {
 		super();
-		fullTypes = new LinkedList<>();
 	}
 	
 	//-----------------------------------------------------------------------------------------------
 	/**
 	 * Register the given full type <br>
-	 * Store it in the list if not yet present
+	 * Store it if not yet present and count its short name
 	 * @param fullType
 	 */
 	public void registerType(String fullType)
 	{
-		// Store it only if not yet present in the list
-		if ( ! fullTypes.contains(fullType) ) {
-			fullTypes.add(fullType);
+		// Store it only if not yet present 
+		if ( fullTypes.add(fullType) ) {
+			String shortName = shortName(fullType);
+			if ( shortName != null ) {
+				Integer count = shortNamesCount.get(shortName);
+				shortNamesCount.put(shortName, count != null ? count + 1 : 1 );
+			}
 		}
 	}
 	
+	/**
+	 * Returns the short name of the given full type or null if the type has no package
+	 * @param fullType
+	 * @return
+	 */
+	private String shortName(String fullType) {
+		if ( fullType.indexOf('.') < 0 ) {
+			return null ; // no package => cannot be ambiguous 
+		}
+		return JavaTypeUtil.shortType(fullType); // v 3.3.0
+	}
+	
 	//-----------------------------------------------------------------------------------------------
 	/**
 	 * Returns a list containing all the registered types 
@@ -71,31 +90,23 @@ public class AmbiguousTypesDetector {
 	 */
 	public List<String> getAllTypes()
 	{
-		LinkedList<String> list = new LinkedList<>() ;
-		for ( String fullType : fullTypes ) {
-			list.add(fullType);
-		}
-		return list ;
+		return new LinkedList<>(fullTypes) ;
 	}
 	
 	//-----------------------------------------------------------------------------------------------
 	/**
-	 * Returns a list with all the ambiguous types registered <br>
+	 * Returns a set with all the ambiguous types registered <br>
 	 * e.g.  "java.util.Date" and "java.sql.Date" ( same short name "Date" )
-	 * @return list of types (never null)
+	 * @return set of types (never null)
 	 */
-	public List<String> getAmbiguousTypes()
+	public Set<String> getAmbiguousTypesSet()
 	{
-		LinkedList<String> ambiguousTypes = new LinkedList<>() ;
-
+		Set<String> ambiguousTypes = new LinkedHashSet<>() ;
 		for ( String fullType : fullTypes ) {
-			//String shortName = JavaClassUtil.shortName(fullType);
-			String shortName = JavaTypeUtil.shortType(fullType); // v 3.3.0
-			
-			// if more than one occurrence of this short name in the list 
+			// if more than one occurrence of this short name 
 			// ( eg  2 occurrences : "java.util.Date" and "java.sql.Date" for the "Date" short name )
-			if ( shortNameCount(shortName) > 1 ) {
-				// Each type is unique in the original list : no risk of duplication
+			String shortName = shortName(fullType);
+			if ( shortName != null && shortNamesCount.get(shortName) > 1 ) {
 				ambiguousTypes.add(fullType);
 			}
 		}
@@ -104,20 +115,12 @@ public class AmbiguousTypesDetector {
 	
 	//-----------------------------------------------------------------------------------------------
 	/**
-	 * Count the number of occurrences of the given short name in the list of types
-	 * @param shortName
-	 * @return
+	 * Returns a list with all the ambiguous types registered <br>
+	 * e.g.  "java.util.Date" and "java.sql.Date" ( same short name "Date" )
+	 * @return list of types (never null)
 	 */
-	private int shortNameCount(String shortName)
+	public List<String> getAmbiguousTypes()
 	{
-		int count = 0 ;
-		String end = "." + shortName ;
-		for ( String s : fullTypes ) {
-			if ( s.endsWith(end))
-			{
-				count++ ;
-			}
-		}
-		return count ;
+		return new LinkedList<>(getAmbiguousTypesSet()) ;
 	}
 }
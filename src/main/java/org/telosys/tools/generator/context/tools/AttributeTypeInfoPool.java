@@ -0,0 +1,85 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.context.tools;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.telosys.tools.generic.model.Attribute;
+import org.telosys.tools.generic.model.types.AttributeTypeInfo;
+
+/**
+ * Interning table for AttributeTypeInfo <br>
+ * A model usually contains only a few dozen distinct combinations of neutral type and type flags, <br>
+ * so all the attributes with the same combination share the same (immutable) instance. <br>
+ * The shared instances can then be used as identity keys to cache the language types.
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public final class AttributeTypeInfoPool {
+
+	private static final int NOT_NULL  = 1 ;
+	private static final int PRIMITIVE = 2 ;
+	private static final int OBJECT    = 4 ;
+	private static final int UNSIGNED  = 8 ;
+	
+	private static final ConcurrentMap<String, AttributeTypeInfo> pool = new ConcurrentHashMap<>();
+	
+	/**
+	 * Private constructor
+	 */
+	private AttributeTypeInfoPool() {
+	}
+	
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Returns the canonical AttributeTypeInfo for the given attribute
+	 * @param attribute
+	 * @return
+	 */
+	public static AttributeTypeInfo get(Attribute attribute) {
+		String key = buildKey(attribute);
+		AttributeTypeInfo typeInfo = pool.get(key);
+		if ( typeInfo == null ) {
+			AttributeTypeInfo newTypeInfo = new AttributeTypeInfo(attribute);
+			typeInfo = pool.putIfAbsent(key, newTypeInfo);
+			if ( typeInfo == null ) {
+				typeInfo = newTypeInfo ;
+			}
+		}
+		return typeInfo ;
+	}
+
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Returns the number of distinct type info currently in the pool
+	 * @return
+	 */
+	public static int size() {
+		return pool.size();
+	}
+	
+	//-----------------------------------------------------------------------------------------------
+	private static String buildKey(Attribute attribute) {
+		int flags = 0 ;
+		if ( attribute.isNotNull() ) flags |= NOT_NULL ;
+		if ( attribute.isPrimitiveTypeExpected() ) flags |= PRIMITIVE ;
+		if ( attribute.isObjectTypeExpected() ) flags |= OBJECT ;
+		if ( attribute.isUnsignedTypeExpected() ) flags |= UNSIGNED ;
+		return attribute.getNeutralType() + ":" + flags ;
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.context.tools;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Modifiable view of a shared list (eg a CSV file kept in the memo cache) <br>
+ * Each element is read from the shared list only when it is used (and kept by the view), 
+ * the shared list is copied only at the first modification of the view (the shared list is never modified)
+ * 
+ * @author Laurent GUERIN
+ *
+ * @param <T>
+ */
+public class CopyOnWriteView<T> extends AbstractList<T> {
+
+	private final List<T> source ; // shared list (never modified)
+	private Object[] elements ; // elements already read from the shared list (null if not yet read)
+	private List<T> copy = null ; // copy of the shared list (after the first modification)
+
+	/**
+	 * Constructor
+	 * @param source the shared list 
+	 */
+	public CopyOnWriteView(List<T> source) {
+		super();
+		this.source = source ;
+		this.elements = new Object[source.size()];
+	}
+
+	/**
+	 * Returns true if the shared list has been copied (the view has been modified)
+	 * @return
+	 */
+	public boolean isCopied() {
+		return copy != null ;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public T get(int index) {
+		if ( copy != null ) {
+			return copy.get(index);
+		}
+		if ( index < 0 || index >= elements.length ) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + elements.length);
+		}
+		if ( elements[index] == null ) {
+			elements[index] = source.get(index);
+		}
+		return (T) elements[index] ;
+	}
+
+	@Override
+	public int size() {
+		return copy != null ? copy.size() : elements.length ;
+	}
+
+	@Override
+	public T set(int index, T element) {
+		return getCopy().set(index, element);
+	}
+
+	@Override
+	public void add(int index, T element) {
+		getCopy().add(index, element);
+		modCount++ ;
+	}
+
+	@Override
+	public T remove(int index) {
+		T element = getCopy().remove(index);
+		modCount++ ;
+		return element ;
+	}
+	
+	private List<T> getCopy() {
+		if ( copy == null ) {
+			List<T> list = new ArrayList<>(elements.length + 1);
+			for ( int i = 0 ; i < elements.length ; i++ ) {
+				list.add(get(i));
+			}
+			copy = list ;
+			elements = null ;
+		}
+		return copy ;
+	}
+}
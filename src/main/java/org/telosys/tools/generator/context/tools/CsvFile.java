@@ -0,0 +1,194 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.context.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CSV file loaded in memory (raw bytes, no mapping : the file is never locked and can be modified) <br>
+ * The file is scanned once to locate the rows, each row is split into values only when it is used <br>
+ * A value can be enclosed in double quotes (to contain separators, line breaks or "" for a double quote) <br>
+ * The file is supposed to be encoded in UTF-8 (the separator must be an ASCII character)
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class CsvFile extends AbstractList<List<String>> {
+
+	private static final byte QUOTE = '"' ;
+	private static final byte CR    = '\r' ;
+	private static final byte LF    = '\n' ;
+	
+	private final ByteBuffer buffer ; // read-only, only used with absolute 'get' (thread-safe)
+	private final byte       separator ;
+	private final int[]      rowsStart ;
+	private final int[]      rowsEnd ; // exclusive (without end of line)
+	private final int        firstRow ;
+	private final int        size ;
+
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Constructor
+	 * @param file the CSV file 
+	 * @param separator the values separator (ASCII character)
+	 * @param numberOfRowsToIgnore number of rows to ignore at the beginning of the file
+	 * @throws IOException
+	 */
+	public CsvFile(File file, char separator, int numberOfRowsToIgnore) throws IOException {
+		super();
+		if ( separator > 127 || separator == QUOTE || separator == CR || separator == LF ) {
+			throw new IllegalArgumentException("Invalid CSV separator '" + separator + "'");
+		}
+		this.separator = (byte) separator ;
+		this.buffer = read(file);
+		
+		//--- Single pass to locate the rows 
+		int capacity = 256 ;
+		int[] starts = new int[capacity];
+		int[] ends   = new int[capacity];
+		int count = 0 ;
+		int limit = buffer.limit();
+		int start = 0 ;
+		boolean inQuotes = false ;
+		boolean valueStart = true ;
+		int i = 0 ;
+		while ( i < limit ) {
+			byte b = buffer.get(i);
+			if ( inQuotes ) {
+				if ( b == QUOTE ) {
+					if ( i + 1 < limit && buffer.get(i + 1) == QUOTE ) {
+						i++ ; // escaped quote ("")
+					}
+					else {
+						inQuotes = false ;
+					}
+				}
+				i++ ;
+				continue ;
+			}
+			if ( b == CR || b == LF ) {
+				//--- end of row
+				if ( count == capacity ) {
+					capacity = capacity * 2 ;
+					starts = Arrays.copyOf(starts, capacity);
+					ends   = Arrays.copyOf(ends, capacity);
+				}
+				starts[count] = start ;
+				ends[count] = i ;
+				count++ ;
+				if ( b == CR && i + 1 < limit && buffer.get(i + 1) == LF ) {
+					i++ ; // CR LF
+				}
+				start = i + 1 ;
+				valueStart = true ;
+			}
+			else {
+				if ( b == QUOTE && valueStart ) {
+					inQuotes = true ;
+				}
+				valueStart = ( b == this.separator ) ;
+			}
+			i++ ;
+		}
+		if ( start < limit ) {
+			//--- last row without end of line
+			if ( count == capacity ) {
+				starts = Arrays.copyOf(starts, capacity + 1);
+				ends   = Arrays.copyOf(ends, capacity + 1);
+			}
+			starts[count] = start ;
+			ends[count] = limit ;
+			count++ ;
+		}
+		this.rowsStart = starts ;
+		this.rowsEnd   = ends ;
+		this.firstRow  = Math.min(Math.max(numberOfRowsToIgnore, 0), count) ;
+		this.size      = count - this.firstRow ;
+	}
+	
+	private static ByteBuffer read(File file) throws IOException {
+		// bytes copied in the heap : no file mapping kept after the call 
+		// (a mapping locks the file on Windows and a truncated file crashes the JVM)
+		return ByteBuffer.wrap(Files.readAllBytes(file.toPath())).asReadOnlyBuffer();
+	}
+	
+	//-----------------------------------------------------------------------------------------------
+	@Override
+	public int size() {
+		return size ;
+	}
+
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Returns the values of the given row (the row is split at each call)
+	 */
+	@Override
+	public List<String> get(int index) {
+		if ( index < 0 || index >= size ) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		int row = firstRow + index ;
+		return splitRow(rowsStart[row], rowsEnd[row]);
+	}
+	
+	private List<String> splitRow(int start, int end) {
+		List<String> values = new ArrayList<>();
+		byte[] bytes = new byte[end - start]; // value bytes (never longer than the row)
+		int n = 0 ;
+		boolean inQuotes = false ;
+		boolean valueStart = true ;
+		for ( int i = start ; i < end ; i++ ) {
+			byte b = buffer.get(i);
+			if ( inQuotes ) {
+				if ( b == QUOTE ) {
+					if ( i + 1 < end && buffer.get(i + 1) == QUOTE ) {
+						bytes[n++] = QUOTE ; // escaped quote ("")
+						i++ ;
+					}
+					else {
+						inQuotes = false ;
+					}
+				}
+				else {
+					bytes[n++] = b ;
+				}
+			}
+			else if ( b == separator ) {
+				values.add(new String(bytes, 0, n, StandardCharsets.UTF_8));
+				n = 0 ;
+				valueStart = true ;
+				continue ;
+			}
+			else if ( b == QUOTE && valueStart ) {
+				inQuotes = true ;
+			}
+			else {
+				bytes[n++] = b ;
+			}
+			valueStart = false ;
+		}
+		values.add(new String(bytes, 0, n, StandardCharsets.UTF_8));
+		return values ;
+	}
+}
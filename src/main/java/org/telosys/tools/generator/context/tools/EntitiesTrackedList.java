@@ -0,0 +1,54 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.context.tools;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Read-only list of entities registering "all the entities" in the current tracker 
+ * as soon as the template reads the list (size, iteration, get) <br>
+ * Used for the lists put directly in the context (eg "$selectedEntities")
+ * 
+ * @author Laurent GUERIN
+ *
+ * @param <T>
+ */
+public class EntitiesTrackedList<T> extends AbstractList<T> {
+
+	private final List<T> list ;
+	
+	/**
+	 * Constructor
+	 * @param list the original list 
+	 */
+	public EntitiesTrackedList(List<T> list) {
+		super();
+		this.list = list ;
+	}
+
+	@Override
+	public T get(int index) {
+		EntitiesTracker.touchAll();
+		return list.get(index);
+	}
+
+	@Override
+	public int size() {
+		EntitiesTracker.touchAll();
+		return list.size();
+	}
+}
@@ -0,0 +1,176 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.context.tools;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Tracker of the entities used during the rendering of a template <br>
+ * The tracker is attached to the current thread during the rendering, 
+ * the context objects register each entity they return to the template <br>
+ * "*" means "all the entities" (eg the template iterates over all the entities of the model) <br>
+ * The tracker also keeps the names of the context objects read by name during the rendering (eg "$fn.get('entity', '')") <br>
+ * A scope can be opened to know the entities used while computing a value (eg a value kept in the MemoCache)
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class EntitiesTracker {
+
+	/**
+	 * Name used when all the entities are used 
+	 */
+	public static final String ALL_ENTITIES = "*" ;
+	
+	private static final ThreadLocal<EntitiesTracker> CURRENT = new ThreadLocal<>();
+	
+	private final Set<String> entities = new TreeSet<>();
+	
+	private final Set<String> contextObjects = new TreeSet<>(); // v 3.3.0
+	
+	private final Map<Object, Set<String>> scopes = new HashMap<>(); // v 3.3.0 : scope key -> entities used in the scope 
+	
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Attaches the given tracker to the current thread 
+	 * @param tracker the tracker (or null to detach the current tracker)
+	 */
+	public static void setCurrent(EntitiesTracker tracker) {
+		if ( tracker != null ) {
+			CURRENT.set(tracker);
+		}
+		else {
+			CURRENT.remove();
+		}
+	}
+	
+	/**
+	 * Returns the tracker attached to the current thread 
+	 * @return the tracker (or null if none)
+	 */
+	public static EntitiesTracker getCurrent() {
+		return CURRENT.get();
+	}
+	
+	/**
+	 * Registers the given entity in the current tracker (if any)
+	 * @param entityClassName
+	 */
+	public static void touch(String entityClassName) {
+		EntitiesTracker tracker = CURRENT.get();
+		if ( tracker != null && entityClassName != null ) {
+			tracker.add(entityClassName);
+		}
+	}
+	
+	/**
+	 * Registers all the entities in the current tracker (if any)
+	 */
+	public static void touchAll() {
+		touch(ALL_ENTITIES);
+	}
+	
+	/**
+	 * Registers the given context object name in the current tracker (if any) <br>
+	 * To be called when a context object is read with its name (not visible in the template AST) 
+	 * @param objectName
+	 */
+	public static void touchContextObject(String objectName) {
+		EntitiesTracker tracker = CURRENT.get();
+		if ( tracker != null && objectName != null ) {
+			tracker.addContextObject(objectName);
+		}
+	}
+	
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Registers the given entity 
+	 * @param entityClassName
+	 */
+	public synchronized void add(String entityClassName) {
+		entities.add(entityClassName);
+		for ( Set<String> scope : scopes.values() ) {
+			scope.add(entityClassName);
+		}
+	}
+
+	/**
+	 * Registers the given entities
+	 * @param entitiesClassNames
+	 */
+	public synchronized void addAll(Collection<String> entitiesClassNames) {
+		entities.addAll(entitiesClassNames);
+		for ( Set<String> scope : scopes.values() ) {
+			scope.addAll(entitiesClassNames);
+		}
+	}
+	
+	/**
+	 * Returns the entities used (sorted) 
+	 * @return
+	 */
+	public synchronized Set<String> getEntities() {
+		return Collections.unmodifiableSet(new TreeSet<>(entities));
+	}
+	
+	/**
+	 * Returns true if all the entities are used 
+	 * @return
+	 */
+	public synchronized boolean usesAllEntities() {
+		return entities.contains(ALL_ENTITIES);
+	}
+
+	/**
+	 * Opens a scope : the entities registered from now are also kept in this scope (until it is closed) <br>
+	 * The scopes can be nested (each one with its own key)
+	 * @param scopeKey
+	 */
+	public synchronized void openScope(Object scopeKey) {
+		scopes.put(scopeKey, new TreeSet<String>());
+	}
+	
+	/**
+	 * Closes the given scope 
+	 * @param scopeKey
+	 * @return the entities registered since the scope was opened (sorted) or null if the scope is not open 
+	 */
+	public synchronized Set<String> closeScope(Object scopeKey) {
+		Set<String> scope = scopes.remove(scopeKey);
+		return scope != null ? Collections.unmodifiableSet(scope) : null ;
+	}
+
+	/**
+	 * Registers the given context object name
+	 * @param objectName
+	 */
+	public synchronized void addContextObject(String objectName) {
+		contextObjects.add(objectName);
+	}
+	
+	/**
+	 * Returns the names of the context objects read by name (sorted) 
+	 * @return
+	 */
+	public synchronized Set<String> getContextObjects() {
+		return Collections.unmodifiableSet(new TreeSet<>(contextObjects));
+	}
+}
@@ -15,6 +15,7 @@
  */
 package org.telosys.tools.generator.context.tools;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -22,7 +23,10 @@ import org.telosys.tools.generator.context.AttributeInContext;
 import org.telosys.tools.generator.context.EntityInContext;
 
 /**
- * Each instance contains the JDBC SQL requests for a given entity with its mapping
+ * Each instance contains the JDBC SQL requests for a given entity with its mapping <br>
+ * The attributes are those of the entity of the current target, 
+ * the SQL requests (only strings) can be shared by all the targets of a task <br>
+ * The attributes lists and the SQL requests are built only when used for the first time 
  * 
  * @author Laurent GUERIN
  *
@@ -30,20 +34,14 @@ import org.telosys.tools.generator.context.EntityInContext;
 public class JdbcRequests {
 	
     private final EntityInContext          entity;
-    private final List<AttributeInContext> attributesForPrimaryKey ;
-    private final List<AttributeInContext> attributesForSelect ;
-    private final List<AttributeInContext> attributesForInsert ;
-    private final List<AttributeInContext> attributesForUpdate ;
+    //--- built on first use (the instance is used by a single target)
+    private List<AttributeInContext> attributesForPrimaryKey = null ;
+    private List<AttributeInContext> attributesForSelect = null ;
+    private List<AttributeInContext> attributesForInsert = null ;
+    private List<AttributeInContext> attributesForUpdate = null ;
     		
     //--- SQL
-    private final String table  ;
-    private final String sqlSelect ;
-    private final String sqlSelectWherePK ;
-    private final String sqlSelectCount ;
-    private final String sqlSelectCountWherePK ;
-    private final String sqlInsert ;
-    private final String sqlUpdate ;
-    private final String sqlDelete ;
+    private JdbcSqlRequests sqlRequests ; 
 
 	/**
 	 * Constructor
@@ -51,82 +49,119 @@ public class JdbcRequests {
 	 * @param useSchema
 	 */
 	public JdbcRequests(EntityInContext entity, boolean useSchema) {
+		this(entity, useSchema, null);
+	}
+	
+	/**
+	 * Constructor with SQL requests already built for the same entity (v 3.3.0)
+	 * @param entity
+	 * @param useSchema
+	 * @param sqlRequests the SQL requests (or null to build them when used)
+	 */
+	public JdbcRequests(EntityInContext entity, boolean useSchema, JdbcSqlRequests sqlRequests) {
 		super();
 		this.entity = entity ;
-		
-		this.table = entity.getDatabaseTable();
-		this.attributesForPrimaryKey = buildAttributesForPrimaryKey();
-		this.attributesForSelect = buildAttributesForSelect();
-		this.attributesForInsert = buildAttributesForInsert();
-		this.attributesForUpdate = buildAttributesForUpdate();
-				
-        //--- Build the Select requests
-		this.sqlSelect             = buildSqlSelect();
-		this.sqlSelectWherePK      = buildSqlSelectWherePK();
-		this.sqlSelectCount        = buildSqlSelectCount();
-		this.sqlSelectCountWherePK = buildSqlSelectCountWherePK();
-        //--- Build the Insert/Update/Delete requests
-		this.sqlInsert = buildSqlInsert();
-		this.sqlUpdate = buildSqlUpdate();
-		this.sqlDelete = buildSqlDelete();
+		this.sqlRequests = sqlRequests ;
+	}
+	
+	/**
+	 * Returns the SQL requests (can be kept for the other targets) <br>
+	 * Only the columns names are collected here, each SQL request is built when used 
+	 * @return
+	 */
+	public JdbcSqlRequests getSqlRequests() {
+		if ( sqlRequests == null ) {
+			sqlRequests = new JdbcSqlRequests(entity.getDatabaseTable(), 
+					columnsNames(getAttributesForPrimaryKey()), columnsNames(getAttributesForSelect()), 
+					columnsNames(getAttributesForInsert()), columnsNames(getAttributesForUpdate()) );
+		}
+		return sqlRequests;
 	}
 	
+	/**
+	 * Returns true if the attributes lists have been built 
+	 * @return
+	 */
+	/* package */ boolean hasAttributesLists() {
+		return attributesForPrimaryKey != null || attributesForSelect != null 
+				|| attributesForInsert != null || attributesForUpdate != null ;
+	}
 	
     public List<AttributeInContext> getAttributesForPrimaryKey() {
+    	if ( attributesForPrimaryKey == null ) {
+    		attributesForPrimaryKey = buildAttributesForPrimaryKey();
+    	}
 		return attributesForPrimaryKey;
 	}
 
 
 	public List<AttributeInContext> getAttributesForSelect() {
+    	if ( attributesForSelect == null ) {
+    		attributesForSelect = buildAttributesForSelect();
+    	}
 		return attributesForSelect;
 	}
 
 
 	public List<AttributeInContext> getAttributesForInsert() {
+    	if ( attributesForInsert == null ) {
+    		attributesForInsert = buildAttributesForInsert();
+    	}
 		return attributesForInsert;
 	}
 
 
 	public List<AttributeInContext> getAttributesForUpdate() {
+    	if ( attributesForUpdate == null ) {
+    		attributesForUpdate = buildAttributesForUpdate();
+    	}
 		return attributesForUpdate;
 	}
 
 
 	public String getTable() {
-		return table;
+		return getSqlRequests().getTable();
 	}
 
 
 	public String getSqlSelect() {
-		return sqlSelect;
+		return getSqlRequests().getSqlSelect();
 	}
 
 	public String getSqlSelectWherePK() {
-		return sqlSelectWherePK;
+		return getSqlRequests().getSqlSelectWherePK();
 	}
 
 	public String getSqlSelectCount() {
-		return sqlSelectCount ;
+		return getSqlRequests().getSqlSelectCount();
 	}
 
 	public String getSqlSelectCountWherePK() {
-		return sqlSelectCountWherePK ;
+		return getSqlRequests().getSqlSelectCountWherePK();
 	}
 
 	public String getSqlInsert() {
-		return sqlInsert;
+		return getSqlRequests().getSqlInsert();
 	}
 
 
 	public String getSqlUpdate() {
-		return sqlUpdate;
+		return getSqlRequests().getSqlUpdate();
 	}
 
 
 	public String getSqlDelete() {
-		return sqlDelete;
+		return getSqlRequests().getSqlDelete();
 	}
 
+	
+	private List<String> columnsNames(List<AttributeInContext> attributes) {
+        List<String> list = new ArrayList<>(attributes.size());
+        for ( AttributeInContext attribute : attributes ) {
+        	list.add(attribute.getDatabaseName());
+        }
+        return list ;
+	}
 
 	private List<AttributeInContext> buildAttributesForPrimaryKey() {
         List<AttributeInContext> list = new LinkedList<>();
@@ -167,159 +202,4 @@ public class JdbcRequests {
         }
         return list ;
     }
-    
-    
-    private String buildColumnsList(List<AttributeInContext> attributes, boolean bPrefix) 
-    {
-        StringBuilder sb = new StringBuilder();
-        int n = 0 ;
-        for ( AttributeInContext attribute : attributes ) {
-            if (n > 0) {
-                sb.append(", ");
-            }
-            if (bPrefix) {
-                sb.append(this.table + ".");
-            }
-            sb.append( attribute.getDatabaseName() );
-            n++;
-        }
-        return sb.toString();
-    }
-    
-    /**
-     * Build the where criteria ( for KEY columns only) <br>
-     * ie : "tab.col1 = ? and tab.col2 = ?"
-     * 
-     * @return
-     */
-    private String whereCriteria(List<AttributeInContext> attributes, boolean bPrefix)
-    {
-    	StringBuilder sb = new StringBuilder(200);
-        int n = 0 ;
-        for ( AttributeInContext attribute : attributes ) {
-            if (n > 0) {
-                sb.append(" and ");
-            }
-            if (bPrefix) {
-                sb.append(this.table + ".");
-            }
-            sb.append( attribute.getDatabaseName() + " = ?" );
-            n++;
-        }
-        return sb.toString();
-    }
-
-    private String buildQuestionMarsks(List<AttributeInContext> attributes) 
-    {
-    	if ( attributes.isEmpty() ) {
-    		return "" ;
-    	}
-    	else {
-            StringBuilder sb = new StringBuilder();
-            for ( int c = 0 ; c < attributes.size() ; c++ )  {
-                if (c > 0) {
-                    sb.append(", ");
-                }
-                sb.append("?");
-            }
-            return sb.toString();
-    	}
-    }
-    
-    /**
-     * Build the set column value clause (for DATA columns only) ie : "tab.col1 = ?, tab.col2 = ?"
-     * 
-     * @return
-     */
-    private String buildSetValuesForUpdate(List<AttributeInContext> attributes, boolean bPrefix)
-    {
-    	StringBuilder sb = new StringBuilder(200);
-        //--- Data Columns
-        int n = 0 ;
-        for ( AttributeInContext attribute : attributes ) {
-            if (n > 0) {
-                sb.append(", ");
-            }
-            if (bPrefix) {
-                sb.append(this.table + ".");
-            }
-            sb.append( attribute.getDatabaseName() + " = ?" );
-            n++;
-        }
-        return sb.toString();
-    }
-
-    //------------------------------------------------------------------------------------
-    // SELECT 
-    //------------------------------------------------------------------------------------
-    /**
-     * Build the SQL SELECT request without WHERE CLAUSE
-     * @return
-     */
-    private String buildSqlSelect() {
-        return "select " + buildColumnsList(this.attributesForSelect, false) 
-        		+ " from " + this.table ;
-    }
-
-    /**
-     * Build the SQL SELECT request with WHERE CLAUSE for PRIMARY KEY
-     * @return
-     */
-    private String buildSqlSelectWherePK() {
-        return "select " + buildColumnsList(this.attributesForSelect, false) 
-        		+ " from " + this.table 
-        		+ " where " + whereCriteria(this.attributesForPrimaryKey, false);
-    }
-
-    /**
-     * Build the SQL COUNT request without WHERE CLAUSE
-     * @return
-     */
-    private String buildSqlSelectCount() {
-        return "select count(*) from " + this.table ;
-    }
-
-    /**
-     * Build the SQL COUNT request with WHERE CLAUSE for PRIMARY KEY
-     * @return
-     */
-    private String buildSqlSelectCountWherePK() {
-        return "select count(*) from " + this.table 
-        		+ " where " + whereCriteria(this.attributesForPrimaryKey, false);
-    }
-
-    //------------------------------------------------------------------------------------
-    // INSERT / UPDATE / DELETE 
-    //------------------------------------------------------------------------------------
-    /**
-     * Build the SQL INSERT request
-     * @return
-     */
-    private String buildSqlInsert() {
-        return "insert into " + this.table 
-        		+ " ( " + buildColumnsList(this.attributesForInsert, false)  + " )"
-        		+ " values ( " + buildQuestionMarsks(this.attributesForInsert) + " )";
-    }
-
-    /**
-     * Build the SQL UPDATE request
-     * @return
-     */
-    private String buildSqlUpdate()
-    {
-        return "update " + this.table 
-        		+ " set " + buildSetValuesForUpdate(this.attributesForUpdate, false) 
-        		+ " where " + whereCriteria(this.attributesForPrimaryKey, false);
-    }
-
-    /**
-     * Build the SQL DELETE request
-     * @return
-     */
-    private String buildSqlDelete()
-    {
-        return "delete from " + this.table 
-        		+ " where " + whereCriteria(this.attributesForPrimaryKey, false);
-    }
-
 }
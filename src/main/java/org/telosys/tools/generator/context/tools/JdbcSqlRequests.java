@@ -0,0 +1,302 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.context.tools;
+
+import java.util.List;
+
+/**
+ * JDBC SQL requests for a given entity (immutable, only strings) <br>
+ * Can be kept in the memo cache and shared by all the targets of a task 
+ * (unlike the attributes that are rebuilt for each target) <br>
+ * Each request is built only when it is used for the first time (from the columns names)
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class JdbcSqlRequests {
+	
+    private final String table  ;
+    private final List<String> columnsForPrimaryKey ;
+    private final List<String> columnsForSelect ;
+    private final List<String> columnsForInsert ;
+    private final List<String> columnsForUpdate ;
+    
+    //--- SQL requests built on first use (immutable strings : can be built twice by concurrent threads without issue)
+    private volatile String sqlSelect ;
+    private volatile String sqlSelectWherePK ;
+    private volatile String sqlSelectCount ;
+    private volatile String sqlSelectCountWherePK ;
+    private volatile String sqlInsert ;
+    private volatile String sqlUpdate ;
+    private volatile String sqlDelete ;
+
+	/**
+	 * Constructor
+	 * @param table
+	 * @param columnsForPrimaryKey
+	 * @param columnsForSelect
+	 * @param columnsForInsert
+	 * @param columnsForUpdate
+	 */
+	public JdbcSqlRequests(String table, 
+			List<String> columnsForPrimaryKey, 
+			List<String> columnsForSelect, 
+			List<String> columnsForInsert, 
+			List<String> columnsForUpdate) {
+		super();
+		this.table = table ;
+		this.columnsForPrimaryKey = columnsForPrimaryKey ;
+		this.columnsForSelect = columnsForSelect ;
+		this.columnsForInsert = columnsForInsert ;
+		this.columnsForUpdate = columnsForUpdate ;
+	}
+	
+	public String getTable() {
+		return table;
+	}
+
+	public String getSqlSelect() {
+		String sql = sqlSelect ;
+		if ( sql == null ) {
+			sql = buildSqlSelect();
+			sqlSelect = sql ;
+		}
+		return sql ;
+	}
+
+	public String getSqlSelectWherePK() {
+		String sql = sqlSelectWherePK ;
+		if ( sql == null ) {
+			sql = buildSqlSelectWherePK();
+			sqlSelectWherePK = sql ;
+		}
+		return sql ;
+	}
+
+	public String getSqlSelectCount() {
+		String sql = sqlSelectCount ;
+		if ( sql == null ) {
+			sql = buildSqlSelectCount();
+			sqlSelectCount = sql ;
+		}
+		return sql ;
+	}
+
+	public String getSqlSelectCountWherePK() {
+		String sql = sqlSelectCountWherePK ;
+		if ( sql == null ) {
+			sql = buildSqlSelectCountWherePK();
+			sqlSelectCountWherePK = sql ;
+		}
+		return sql ;
+	}
+
+	public String getSqlInsert() {
+		String sql = sqlInsert ;
+		if ( sql == null ) {
+			sql = buildSqlInsert();
+			sqlInsert = sql ;
+		}
+		return sql ;
+	}
+
+	public String getSqlUpdate() {
+		String sql = sqlUpdate ;
+		if ( sql == null ) {
+			sql = buildSqlUpdate();
+			sqlUpdate = sql ;
+		}
+		return sql ;
+	}
+
+	public String getSqlDelete() {
+		String sql = sqlDelete ;
+		if ( sql == null ) {
+			sql = buildSqlDelete();
+			sqlDelete = sql ;
+		}
+		return sql ;
+	}
+	
+	/**
+	 * Returns the number of SQL requests already built 
+	 * @return
+	 */
+	/* package */ int getBuiltRequestsCount() {
+		int n = 0 ;
+		for ( String sql : new String[] { sqlSelect, sqlSelectWherePK, sqlSelectCount, sqlSelectCountWherePK, 
+				sqlInsert, sqlUpdate, sqlDelete } ) {
+			if ( sql != null ) {
+				n++ ;
+			}
+		}
+		return n ;
+	}
+
+    private String buildColumnsList(List<String> columns, boolean bPrefix) 
+    {
+        StringBuilder sb = new StringBuilder();
+        int n = 0 ;
+        for ( String column : columns ) {
+            if (n > 0) {
+                sb.append(", ");
+            }
+            if (bPrefix) {
+                sb.append(this.table + ".");
+            }
+            sb.append( column );
+            n++;
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Build the where criteria ( for KEY columns only) <br>
+     * ie : "tab.col1 = ? and tab.col2 = ?"
+     * 
+     * @return
+     */
+    private String whereCriteria(List<String> columns, boolean bPrefix)
+    {
+    	StringBuilder sb = new StringBuilder(200);
+        int n = 0 ;
+        for ( String column : columns ) {
+            if (n > 0) {
+                sb.append(" and ");
+            }
+            if (bPrefix) {
+                sb.append(this.table + ".");
+            }
+            sb.append( column + " = ?" );
+            n++;
+        }
+        return sb.toString();
+    }
+
+    private String buildQuestionMarsks(List<String> columns) 
+    {
+    	if ( columns.isEmpty() ) {
+    		return "" ;
+    	}
+    	else {
+            StringBuilder sb = new StringBuilder();
+            for ( int c = 0 ; c < columns.size() ; c++ )  {
+                if (c > 0) {
+                    sb.append(", ");
+                }
+                sb.append("?");
+            }
+            return sb.toString();
+    	}
+    }
+    
+    /**
+     * Build the set column value clause (for DATA columns only) ie : "tab.col1 = ?, tab.col2 = ?"
+     * 
+     * @return
+     */
+    private String buildSetValuesForUpdate(List<String> columns, boolean bPrefix)
+    {
+    	StringBuilder sb = new StringBuilder(200);
+        //--- Data Columns
+        int n = 0 ;
+        for ( String column : columns ) {
+            if (n > 0) {
+                sb.append(", ");
+            }
+            if (bPrefix) {
+                sb.append(this.table + ".");
+            }
+            sb.append( column + " = ?" );
+            n++;
+        }
+        return sb.toString();
+    }
+
+    //------------------------------------------------------------------------------------
+    // SELECT 
+    //------------------------------------------------------------------------------------
+    /**
+     * Build the SQL SELECT request without WHERE CLAUSE
+     * @return
+     */
+    private String buildSqlSelect() {
+        return "select " + buildColumnsList(columnsForSelect, false) 
+        		+ " from " + this.table ;
+    }
+
+    /**
+     * Build the SQL SELECT request with WHERE CLAUSE for PRIMARY KEY
+     * @return
+     */
+    private String buildSqlSelectWherePK() {
+        return "select " + buildColumnsList(columnsForSelect, false) 
+        		+ " from " + this.table 
+        		+ " where " + whereCriteria(columnsForPrimaryKey, false);
+    }
+
+    /**
+     * Build the SQL COUNT request without WHERE CLAUSE
+     * @return
+     */
+    private String buildSqlSelectCount() {
+        return "select count(*) from " + this.table ;
+    }
+
+    /**
+     * Build the SQL COUNT request with WHERE CLAUSE for PRIMARY KEY
+     * @return
+     */
+    private String buildSqlSelectCountWherePK() {
+        return "select count(*) from " + this.table 
+        		+ " where " + whereCriteria(columnsForPrimaryKey, false);
+    }
+
+    //------------------------------------------------------------------------------------
+    // INSERT / UPDATE / DELETE 
+    //------------------------------------------------------------------------------------
+    /**
+     * Build the SQL INSERT request
+     * @return
+     */
+    private String buildSqlInsert() {
+        return "insert into " + this.table 
+        		+ " ( " + buildColumnsList(columnsForInsert, false)  + " )"
+        		+ " values ( " + buildQuestionMarsks(columnsForInsert) + " )";
+    }
+
+    /**
+     * Build the SQL UPDATE request
+     * @return
+     */
+    private String buildSqlUpdate()
+    {
+        return "update " + this.table 
+        		+ " set " + buildSetValuesForUpdate(columnsForUpdate, false) 
+        		+ " where " + whereCriteria(columnsForPrimaryKey, false);
+    }
+
+    /**
+     * Build the SQL DELETE request
+     * @return
+     */
+    private String buildSqlDelete()
+    {
+        return "delete from " + this.table 
+        		+ " where " + whereCriteria(columnsForPrimaryKey, false);
+    }
+
+}
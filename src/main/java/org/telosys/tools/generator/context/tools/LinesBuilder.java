@@ -15,6 +15,8 @@
  */
 package org.telosys.tools.generator.context.tools;
 
+import org.telosys.tools.generator.GeneratorUtil;
+
 public class LinesBuilder {
 	
 	private static final int TYPE_TABS   = 1 ;
@@ -47,9 +49,17 @@ public class LinesBuilder {
 	}
 
 	public void append(int indentationLevel, String line) {
-		sb.append( getIndentation(indentationLevel) );
+		// indentation appended directly (no intermediate string)
+		if ( TYPE_SPACES == type ) {
+			GeneratorUtil.appendBlanks(sb, indentationLevel * indentationSize );
+		}
+		else {
+			for ( int level = 0 ; level < indentationLevel ; level++ ) {
+				sb.append('\t');
+			}
+		}
 		sb.append( line );
-		sb.append( "\n" );
+		sb.append( '\n' );
 	}
 
 	@Override
@@ -67,13 +77,7 @@ public class LinesBuilder {
 	}
 
 	private String getIndentationWithSpaces(int indentLevel) {
-		StringBuilder spaces = new StringBuilder();
-		for ( int level = 0 ; level < indentLevel ; level++ ) {
-			for ( int n = 0 ; n < indentationSize ; n++ ) {
-				spaces.append(" ");
-			}
-		}
-		return spaces.toString();
+		return GeneratorUtil.blanks(indentLevel * indentationSize);
 	}
 
 	private String getIndentationWithTabulations(int indentLevel) {
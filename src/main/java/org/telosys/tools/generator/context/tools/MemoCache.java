@@ -0,0 +1,120 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.context.tools;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Memo cache for the results of the context functions ( $java, $jpa, etc ) <br>
+ * The key is a list of values (compared by content) typically : object name + method name + arguments <br>
+ * The keys must not contain context objects (they are rebuilt for each target) 
+ * but only values identifying them (entity name, attribute name, environment settings, etc) <br>
+ * If an entities tracker is active, the entities used to compute a value are kept with the value 
+ * and registered again each time the value is reused <br>
+ * Expected usage : 'get' (the computation of the value starts if not found) then 'put' with the computed value 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class MemoCache {
+
+	private final ConcurrentMap<List<Object>, Object> values = new ConcurrentHashMap<>();
+	
+	// entities used to compute each value (only for the values computed with an active tracker)
+	private final ConcurrentMap<List<Object>, Set<String>> entities = new ConcurrentHashMap<>();
+	
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Builds a key with the given parts 
+	 * @param parts
+	 * @return
+	 */
+	public static List<Object> key(Object... parts) {
+		return Arrays.asList(parts);
+	}
+	
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Returns the value stored for the given key <br>
+	 * If there's no value the entities used from now to compute it are tracked (until 'put' is called for the same key)
+	 * @param key
+	 * @return the value or null if none
+	 */
+	public Object get(List<Object> key) {
+		Object value = values.get(key);
+		EntitiesTracker tracker = EntitiesTracker.getCurrent();
+		if ( tracker != null ) {
+			if ( value == null ) {
+				tracker.openScope(key);
+			}
+			else {
+				Set<String> usedEntities = entities.get(key);
+				if ( usedEntities != null ) {
+					tracker.addAll(usedEntities);
+				}
+				else {
+					// computed without tracking : cannot know the entities used  
+					tracker.add(EntitiesTracker.ALL_ENTITIES);
+				}
+			}
+		}
+		return value ;
+	}
+	
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Stores the given value for the given key (a null value is not stored)
+	 * @param key
+	 * @param value
+	 */
+	public void put(List<Object> key, Object value) {
+		EntitiesTracker tracker = EntitiesTracker.getCurrent();
+		// only the entities used since the value was not found (not those used before by the template)
+		Set<String> usedEntities = tracker != null ? tracker.closeScope(key) : null ;
+		if ( value != null ) {
+			if ( usedEntities != null ) {
+				entities.put(key, usedEntities);
+			}
+			else {
+				// computed without tracking : the entities used are unknown  
+				entities.remove(key);
+			}
+			values.put(key, value);
+		}
+	}
+	
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Returns the number of values in the cache
+	 * @return
+	 */
+	public int size() {
+		return values.size();
+	}
+	
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Removes all the values 
+	 */
+	public void clear() {
+		values.clear();
+		entities.clear();
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.context.tools;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Resources opened during the rendering of a template (eg readers used by "$file.readLines()") <br>
+ * The resources are registered for the current thread and closed at the end of the rendering, 
+ * even if the template doesn't read them until the end ( '#break', error, etc ) 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class RenderingResources {
+
+	private static final ThreadLocal<List<Closeable>> CURRENT = new ThreadLocal<>();
+	
+	private RenderingResources() {
+	}
+	
+	/**
+	 * Starts a new rendering for the current thread 
+	 * @return the resources of the enclosing rendering (to be given to 'end') 
+	 */
+	public static List<Closeable> begin() {
+		List<Closeable> previous = CURRENT.get();
+		CURRENT.set(new LinkedList<Closeable>());
+		return previous ;
+	}
+	
+	/**
+	 * Ends the current rendering : closes all the resources registered since 'begin' 
+	 * @param previous the value returned by 'begin'
+	 */
+	public static void end(List<Closeable> previous) {
+		List<Closeable> resources = CURRENT.get();
+		if ( previous != null ) {
+			CURRENT.set(previous);
+		}
+		else {
+			CURRENT.remove();
+		}
+		if ( resources != null ) {
+			for ( Closeable resource : resources ) {
+				try {
+					resource.close();
+				} catch (IOException e) {
+					// nothing to do : the resource is no longer used
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Registers a resource to be closed at the end of the current rendering 
+	 * @param resource
+	 * @return true if registered, false if no rendering in progress for the current thread
+	 */
+	public static boolean register(Closeable resource) {
+		List<Closeable> resources = CURRENT.get();
+		if ( resources != null ) {
+			resources.add(resource);
+			return true ;
+		}
+		return false ;
+	}
+}
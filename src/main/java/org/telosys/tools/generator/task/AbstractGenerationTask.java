@@ -15,6 +15,8 @@
  */
 package org.telosys.tools.generator.task;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.LinkedList;
 import java.util.List;
@@ -27,10 +29,11 @@ import org.telosys.tools.commons.io.CopyHandler;
 import org.telosys.tools.commons.io.OverwriteChooser;
 import org.telosys.tools.commons.variables.Variable;
 import org.telosys.tools.generator.BundleResourcesManager;
+import org.telosys.tools.generator.EntityIndependentTemplates;
+import org.telosys.tools.generator.GenerationCache;
 import org.telosys.tools.generator.Generator;
 import org.telosys.tools.generator.GeneratorException;
 import org.telosys.tools.generator.context.Target;
-import org.telosys.tools.generic.model.Entity;
 import org.telosys.tools.generic.model.Model;
 
 
@@ -54,8 +57,21 @@ public abstract class AbstractGenerationTask
 	private final String                  bundleName ;
 	private final TelosysToolsLogger      logger ;
 	private final GenerationTaskResult    genTaskResult  ;
+	private final GenerationCache         generationCache ; // shared by all the targets of the task
 	
 	private Target                currentTarget = null ;
+	private GenerationPlan        generationPlan = null ; // v 3.3.0
+	private int                   shardIndex = 0 ; // v 3.3.0
+	private int                   shardCount = 1 ; // v 3.3.0 ( 1 = no sharding )
+	private GenerationSharding    generationSharding = null ; // v 3.3.0
+	private EntityCostEstimator   entityCostEstimator = new ModelEntityCostEstimator(); // v 3.3.0
+	private File                  manifestFile = null ; // v 3.3.0
+	private File                  statsFile = null ; // v 3.3.0
+	private GenerationStats       generationStats = null ; // v 3.3.0
+	private boolean               entitiesTracing = false ; // v 3.3.0
+	private boolean               entityIndependentTemplatesOnce = true ; // v 3.3.0
+	private EntityIndependentTemplates entityIndependentTemplates = null ; // v 3.3.0 (one per run)
+	private final GenerationManifest generationManifest = new GenerationManifest(); // v 3.3.0
 
 	//--------------------------------------------------------------------------------------------------
 	/**
@@ -78,6 +94,33 @@ public abstract class AbstractGenerationTask
 			TelosysToolsCfg           telosysToolsCfg, // v 3.0.0
 			TelosysToolsLogger        logger
 			) throws TelosysToolsException
+	{
+		this(model, selectedEntities, bundleName, selectedTargets, resourcesTargets, telosysToolsCfg, logger, null);
+	}
+	
+	/**
+	 * Constructor
+	 * @param model
+	 * @param selectedEntities list of entities names to be used for code generation
+	 * @param bundleName
+	 * @param selectedTargets templates targets to be used for code generation
+	 * @param resourcesTargets resources targets to be copied (or null if none)
+	 * @param telosysToolsCfg
+	 * @param logger
+	 * @param generationCache cache to be used by the task (or null to use a new cache)
+	 * @throws TelosysToolsException
+	 * @since 3.3.0
+	 */
+	protected AbstractGenerationTask(
+			Model                     model,
+			List<String>              selectedEntities, 
+			String                    bundleName, // v 3.0.0
+			List<TargetDefinition>    selectedTargets,
+			List<TargetDefinition>    resourcesTargets,
+			TelosysToolsCfg           telosysToolsCfg, // v 3.0.0
+			TelosysToolsLogger        logger,
+			GenerationCache           generationCache
+			) throws TelosysToolsException
 	{
 		super();
 		
@@ -99,6 +142,7 @@ public abstract class AbstractGenerationTask
 		
 		this.logger.log(this, "Task created");
 		this.genTaskResult = new GenerationTaskResult();
+		this.generationCache = generationCache != null ? generationCache : new GenerationCache();
 	}
 	
 	//--------------------------------------------------------------------------------------------------
@@ -146,7 +190,7 @@ public abstract class AbstractGenerationTask
 		copyResourcesIfAny(overwriteChooser, copyHandler);
 		
 		//--- 2) Launch the generation (if cancelled : 'InterruptedException' is thrown )
-		generateSelectedTargets(taskMonitor, getAllProjectVariables());
+		generateSelectedTargets(taskMonitor);
 	}
 	
 	//--------------------------------------------------------------------------------------------------
@@ -182,64 +226,183 @@ public abstract class AbstractGenerationTask
 		}
 	}
 	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Defines the estimator used to evaluate the cost of each entity (for sharding)
+	 * @param entityCostEstimator
+	 */
+	public void setEntityCostEstimator(EntityCostEstimator entityCostEstimator) {
+		this.entityCostEstimator = entityCostEstimator ;
+		this.generationPlan = null ;
+	}
+	
+	/**
+	 * Restricts the generation to a shard of the targets (to share the generation between several processes) <br>
+	 * All the targets of an entity are in the same shard, the 'once' targets are in the first shard (index 0) 
+	 * @param shardIndex the current shard (from 0 to shardCount-1)
+	 * @param shardCount the number of shards
+	 */
+	public void setSharding(int shardIndex, int shardCount) {
+		// check the values (throws IllegalArgumentException if invalid)
+		new GenerationSharding(shardIndex, shardCount, null);
+		this.shardIndex = shardIndex ;
+		this.shardCount = shardCount ;
+		this.generationPlan = null ;
+	}
+	
+	/**
+	 * Defines the file where to write the manifest at the end of the generation (or null if none) <br>
+	 * With sharding, each shard writes its own manifest (see GenerationManifest#getShardFile and GenerationManifest#mergeShards)
+	 * @param manifestFile
+	 */
+	public void setManifestFile(File manifestFile) {
+		this.manifestFile = manifestFile ;
+	}
+	
+	/**
+	 * Enables or disables the tracing of the entities used by each generated file <br>
+	 * The used entities are stored in the manifest (see GenerationManifest#getAffectedEntries)
+	 * @param entitiesTracing
+	 */
+	public void setEntitiesTracing(boolean entitiesTracing) {
+		this.entitiesTracing = entitiesTracing ;
+	}
+	
+	/**
+	 * Enables or disables the single rendering of the entity independent templates (enabled by default) <br>
+	 * An entity independent template is a template used for each entity but not using the entity  
+	 * ( no "$entity", "$target" or "$generator" ), it is rendered for the first entity 
+	 * and the result is written in the files of the other entities 
+	 * @param entityIndependentTemplatesOnce
+	 */
+	public void setEntityIndependentTemplatesOnce(boolean entityIndependentTemplatesOnce) {
+		this.entityIndependentTemplatesOnce = entityIndependentTemplatesOnce ;
+	}
+	
+	/**
+	 * Returns the manifest of the files generated by the task
+	 * @return
+	 */
+	public GenerationManifest getGenerationManifest() {
+		return generationManifest ;
+	}
+	
+	/**
+	 * Defines the file used to store the duration of each target (or null if none) <br>
+	 * If defined, the targets are generated in 'longest job first' order (estimated with the previous durations) 
+	 * and the new durations are saved at the end of the generation <br>
+	 * With sharding, the shards are balanced with the durations of the main stats file (same snapshot for all the shards) 
+	 * and each shard saves its durations in its own file (see GenerationStats#getShardFile and GenerationStats#mergeShards) 
+	 * @param statsFile
+	 */
+	public void setStatsFile(File statsFile) {
+		this.statsFile = statsFile ;
+		this.generationStats = null ;
+		this.generationPlan = null ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Returns the generation plan : all the targets to be generated by the task (built on first call) <br>
+	 * The plan can be sorted or filtered before running the task
+	 * @return
+	 */
+	public GenerationPlan getGenerationPlan() {
+		if ( generationPlan == null ) {
+			generationPlan = new GenerationPlan(model, selectedEntities, selectedTargets, 
+					getAllProjectVariables(), telosysToolsCfg.getDestinationFolderAbsolutePath() ); // v 3.3.0
+			LongestJobFirstScheduler scheduler = null ;
+			if ( statsFile != null ) {
+				scheduler = new LongestJobFirstScheduler(getGenerationStats(), entityCostEstimator);
+				scheduler.init(generationPlan); // complete plan : same estimations in all the shards 
+			}
+			if ( shardCount > 1 ) {
+				// balanced with the measured durations if any : the stats snapshot is the same for all the shards 
+				generationSharding = scheduler != null 
+						? GenerationSharding.withItemCostEstimator(shardIndex, shardCount, scheduler) 
+						: new GenerationSharding(shardIndex, shardCount, entityCostEstimator);
+				int n = generationSharding.apply(generationPlan);
+				log("shard " + generationSharding + " : " + generationPlan.size() + " target(s) kept, " + n + " target(s) for other shards");
+			}
+			if ( scheduler != null ) {
+				scheduler.schedule(generationPlan);
+			}
+		}
+		return generationPlan ;
+	}
+	
+	/**
+	 * Returns the statistics loaded from the stats file (empty if the file cannot be loaded) <br>
+	 * A shard uses only the main file (snapshot not modified by the shards), 
+	 * a generation without sharding also uses the files written by the previous shards 
+	 * @return
+	 */
+	private GenerationStats getGenerationStats() {
+		if ( generationStats == null ) {
+			try {
+				generationStats = shardCount > 1 ? GenerationStats.load(statsFile) : GenerationStats.loadWithShards(statsFile);
+			} catch (IOException e) {
+				logger.error("Cannot load stats file '" + statsFile + "' : " + e.getMessage());
+				generationStats = new GenerationStats();
+			}
+		}
+		return generationStats ;
+	}
+	
 	//--------------------------------------------------------------------------------------------------
 	/**
 	 * Generates all the "selected targets" ( once or for each entity depending on the target's type ) 
 	 * @param progressMonitor
-	 * @param variables
 	 * @return true to continue, false to interrupt the task
 	 * @throws InterruptedException
 	 */
-	private void generateSelectedTargets( ITaskMonitor progressMonitor, Variable[] variables ) throws InterruptedException
+	private void generateSelectedTargets( ITaskMonitor progressMonitor ) throws InterruptedException
 	{
-		//--- Separate targets in 2 list : "ONCE" and "ENTITY"
-		List<TargetDefinition> onceTargets   = new LinkedList<>() ; 
-		List<TargetDefinition> entityTargets = new LinkedList<>() ; 
-		for ( TargetDefinition targetDefinition : selectedTargets ) {
-			if ( targetDefinition.isOnce() ) {
-				onceTargets.add(targetDefinition); 
-			}
-			else {
-				entityTargets.add(targetDefinition);
-			}
-		}
+		//--- All the targets expanded and checked before generation (v 3.3.0)
+		GenerationPlan plan = getGenerationPlan();
 		
 		//--- Number of generations expected
-		int totalWorkTasks = ( selectedEntities.size() * entityTargets.size() ) + onceTargets.size() ;
-
-		progressMonitor.beginTask("Generation in progress", totalWorkTasks ); 
-				
-		//--- For each entity
-		for ( String entityName : selectedEntities ) {
-			
-			logger.info("----- Generation for entity " + entityName );
-			Entity entity = model.getEntityByClassName(entityName);
-			if ( entity != null ) {
-				//--- For each "entity target" 
-				for ( TargetDefinition targetDefinition : entityTargets ) {
-					
-					//--- Get a specialized target for the current entity
-					Target target = new Target( targetDefinition, entity, variables ); // v 3.0.0
-					
-					generateTarget(progressMonitor, target, selectedEntities); // throws InterruptedException if error + 'cancel'
-				}
-				//--- One TARGET done 
-			}
-			else {
-				String msg = "Generation error : entity '" + entityName + "' not found in the repository";
-				ErrorReport errorReport = new ErrorReport(msg);
-				logger.error("Entity '" + entityName + "' not found in the repository") ;
-				manageError(errorReport); // throws InterruptedException if 'canceled'
-			}
-			//--- One ENTITY done
-		} // end of "For each entity"
+		progressMonitor.beginTask("Generation in progress", plan.size() ); 
 		
-		//--- Finally, generate the "ONCE" targets ( NEW in version 2.0.3 / Feb 2013 )
-		logger.info("----- Generation without entity" );
-		for ( TargetDefinition targetDefinition : onceTargets ) {
-			//--- Target without current entity
-			Target target = new Target( targetDefinition, variables ); // v 3.0.0
-			generateTarget(progressMonitor, target, selectedEntities);  // throws InterruptedException if error + 'cancel'
+		//--- Entities not found 
+		for ( String entityName : plan.getUnknownEntities() ) {
+			String msg = "Generation error : entity '" + entityName + "' not found in the repository";
+			ErrorReport errorReport = new ErrorReport(msg);
+			logger.error("Entity '" + entityName + "' not found in the repository") ;
+			manageError(errorReport); // throws InterruptedException if 'canceled'
+		}
+		//--- Duplicated targets (ignored)
+		for ( GenerationPlanItem item : plan.getDuplicates() ) {
+			logger.info("Duplicated target ignored : template '" + item.getTemplate() 
+				+ "' entity '" + item.getEntityName() + "' file '" + item.getOutputFile() + "'" );
+		}
+		//--- Conflicting targets (overwritten by the last one, as in the original generation)
+		for ( GenerationPlanItem item : plan.getConflicts() ) {
+			GenerationPlanItem conflictingItem = plan.getConflictingItem(item);
+			logger.info("Conflict : file '" + item.getOutputFile() + "' generated by template '" + item.getTemplate() 
+				+ "' (entity '" + item.getEntityName() + "') is overwritten by template '" 
+				+ ( conflictingItem != null ? conflictingItem.getTemplate() : "?" ) 
+				+ "' (entity '" + ( conflictingItem != null ? conflictingItem.getEntityName() : "?" ) + "')" );
+		}
+		
+		//--- Entity independent templates detected during this generation (v 3.3.0)
+		entityIndependentTemplates = null ;
+		if ( entityIndependentTemplatesOnce ) {
+			entityIndependentTemplates = new EntityIndependentTemplates(
+					new File(telosysToolsCfg.getTemplatesFolderAbsolutePath(bundleName)) ) ;
+		}
+		
+		//--- Generate each target of the plan 
+		String currentEntityName = null ;
+		for ( GenerationPlanItem item : plan.getItems() ) {
+			if ( ! item.getEntityName().equals(currentEntityName) ) {
+				currentEntityName = item.getEntityName() ;
+				logger.info( item.isOnce() ? "----- Generation without entity" : "----- Generation for entity " + currentEntityName );
+			}
+			generateTarget(progressMonitor, item.getTarget(), selectedEntities); // throws InterruptedException if error + 'cancel'
+		}
+		if ( entityIndependentTemplates != null && entityIndependentTemplates.getRenderedTemplatesCount() > 0 ) {
+			logger.info("Entity independent templates rendered once : " + entityIndependentTemplates.getRenderedTemplatesCount() );
 		}
 		
 		//--- Notifies that the work is done; that is, either the main task is completed or the user canceled it.
@@ -249,6 +412,53 @@ public abstract class AbstractGenerationTask
 			throw new InterruptedException("The generation task was cancelled");
 		}
 		
+		writeManifestIfAny(); // v 3.3.0
+		saveStatsIfAny(); // v 3.3.0
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Saves the durations of the generation if a stats file is defined <br>
+	 * A shard saves only its own durations in its own file (merged with the others on the next load)
+	 */
+	private void saveStatsIfAny() {
+		if ( statsFile != null ) {
+			File file = shardCount > 1 ? GenerationStats.getShardFile(statsFile, shardIndex, shardCount) : statsFile ;
+			try {
+				if ( shardCount > 1 ) {
+					getGenerationStats().getRecordedDurations().save(file);
+				}
+				else {
+					getGenerationStats().save(file);
+					GenerationStats.deleteShardFiles(statsFile); // merged in the main file 
+				}
+			} catch (IOException e) {
+				// not blocking : the stats are only used to schedule the next generation
+				logger.error("Cannot save stats file '" + file + "' : " + e.getMessage());
+			}
+		}
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Writes the manifest of the generated files if a manifest file is defined
+	 * @throws InterruptedException
+	 */
+	private void writeManifestIfAny() throws InterruptedException {
+		if ( manifestFile != null ) {
+			if ( generationSharding != null ) {
+				generationManifest.setShard(generationSharding.toString());
+			}
+			// one file per shard : the shards can run at the same time 
+			File file = shardCount > 1 ? GenerationManifest.getShardFile(manifestFile, shardIndex, shardCount) : manifestFile ;
+			try {
+				generationManifest.write(file);
+				logger.info("Manifest written : " + file + " (" + generationManifest.size() + " file(s))");
+			} catch (IOException e) {
+				manageError(new ErrorReport(e, null, null)); // throws InterruptedException if 'canceled'
+			}
+		}
+		
 	}
 	//--------------------------------------------------------------------------------------------------
 	/**
@@ -271,9 +481,16 @@ public abstract class AbstractGenerationTask
 		//--- Possible multiple generated targets for one main target (with embedded generator)
 		LinkedList<Target> generatedTargets = new LinkedList<>();
 		
-		Generator generator = new Generator( telosysToolsCfg, bundleName, logger); // v 3.0.0
+		Generator generator = new Generator( telosysToolsCfg, bundleName, logger, generationCache); // v 3.0.0
+		generator.setEntitiesTracing(entitiesTracing); // v 3.3.0
+		generator.setEntityIndependentTemplates(entityIndependentTemplates); // v 3.3.0
 		try {
+			long start = System.nanoTime();
 			generator.generateTarget(target, model, selectedEntitiesNames, generatedTargets);
+			if ( statsFile != null && ! generator.isResultReused() ) { // a reused result is not a rendering duration
+				getGenerationStats().recordDuration(GenerationPlanItem.buildKey(target.getTemplate(), target.getEntityName()), 
+						( System.nanoTime() - start ) / 1000 ); // v 3.3.0
+			}
 		} catch (GeneratorException e) {
 			genTaskResult.addGenerationError(target);
 			ErrorReport errorReport = buildErrorReportForGeneratorException(e);
@@ -288,6 +505,9 @@ public abstract class AbstractGenerationTask
 			
 			//--- One more file : increment result count
 			genTaskResult.incrementNumberOfFilesGenerated();
+			generationManifest.add(new GenerationManifestEntry(generatedTarget.getTemplate(), 
+					generatedTarget.getEntityName(), generator.getTracedEntities(), 
+					GenerationPlan.normalize(generatedFileAbsolutePath)) ); // v 3.3.0
 
 			logger.log(this, "Call afterFileGeneration(" + generatedFileAbsolutePath + ")...");
 			afterFileGeneration(generatedTarget, generatedFileAbsolutePath); // Abstract method
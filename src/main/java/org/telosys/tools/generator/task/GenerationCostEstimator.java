@@ -0,0 +1,33 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+/**
+ * Estimation of the cost of the generation of an item of a generation plan (used to balance or schedule the generation)
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public interface GenerationCostEstimator {
+
+	/**
+	 * Returns the estimated cost of the generation of the given item <br>
+	 * The value has no unit, it is only used to compare the items  
+	 * @param item
+	 * @return a positive value 
+	 */
+	long estimateCost(GenerationPlanItem item) ;
+}
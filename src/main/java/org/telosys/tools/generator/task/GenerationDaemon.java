@@ -0,0 +1,580 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.telosys.tools.commons.TelosysToolsLogger;
+import org.telosys.tools.commons.bundles.TargetDefinition;
+import org.telosys.tools.commons.cfg.TelosysToolsCfg;
+import org.telosys.tools.generator.GenerationCache;
+import org.telosys.tools.generator.context.Target;
+import org.telosys.tools.generic.model.Entity;
+import org.telosys.tools.generic.model.Model;
+
+/**
+ * Long-lived generation process listening on a loopback port <br>
+ * The project configuration, the models (with their generation cache) and the bundles targets 
+ * are kept between the requests (reloaded only if their version changes) <br>
+ * <br>
+ * Each request must start with the token written by the daemon in the 'token file' (readable only by its owner) <br>
+ * Text protocol (UTF-8), one request line ( token TAB request ) and one response line per connection : <br>
+ *  PING  <br>
+ *  GENERATE TAB model TAB bundle [ TAB entity1,entity2,... ]  (all the entities if none) <br>
+ *  INVALIDATE  (drops all the loaded elements) <br>
+ *  STOP <br>
+ * Response : "OK ..." or "ERROR message" <br>
+ * Each connection is handled by its own thread, but the requests are executed one at a time 
+ * (except PING, answered even during a generation)
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public class GenerationDaemon {
+
+	public static final String PING       = "PING" ;
+	public static final String GENERATE   = "GENERATE" ;
+	public static final String INVALIDATE = "INVALIDATE" ;
+	public static final String STOP       = "STOP" ;
+	
+	public static final String OK         = "OK" ;
+	public static final String ERROR      = "ERROR" ;
+	
+	private static final char  SEPARATOR  = '\t' ;
+	private static final int   READ_TIMEOUT = 30000 ; // ms 
+	private static final int   TOKEN_BYTES  = 32 ;
+	
+	private final GenerationDaemonContext context ;
+	private final TelosysToolsLogger      logger ;
+	
+	//--- Elements kept between the requests
+	private TelosysToolsCfg                        telosysToolsCfg = null ;
+	private final Map<String, LoadedModel>         models  = new HashMap<>();
+	private final Map<String, LoadedBundle>        bundles = new HashMap<>();
+	private final Map<String, GenerationManifest>  manifests = new HashMap<>(); // v 3.3.0 (key : model + bundle)
+	
+	private ServerSocket    serverSocket = null ;
+	private Thread          serverThread = null ;
+	private ExecutorService connectionsExecutor = null ;
+	private volatile boolean running = false ;
+	private volatile String  token = null ;
+	private File            tokenFile = null ;
+	
+	/**
+	 * Model with its generation cache 
+	 */
+	private static class LoadedModel {
+		private final long            version ;
+		private final Model           model ;
+		private final GenerationCache generationCache ;
+		private LoadedModel(long version, Model model) {
+			this.version = version ;
+			this.model = model ;
+			this.generationCache = new GenerationCache();
+		}
+	}
+	
+	/**
+	 * Bundle targets 
+	 */
+	private static class LoadedBundle {
+		private final long                   version ;
+		private final List<TargetDefinition> templatesTargets ;
+		private final List<TargetDefinition> resourcesTargets ;
+		private LoadedBundle(long version, List<TargetDefinition> templatesTargets, List<TargetDefinition> resourcesTargets) {
+			this.version = version ;
+			this.templatesTargets = templatesTargets ;
+			this.resourcesTargets = resourcesTargets ;
+		}
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor
+	 * @param context the project environment
+	 * @param logger
+	 */
+	public GenerationDaemon(GenerationDaemonContext context, TelosysToolsLogger logger) {
+		super();
+		this.context = context ;
+		this.logger = logger ;
+	}
+	
+	private void log(String msg) {
+		logger.log(this, msg);
+	}
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Starts the daemon (listening on the loopback interface only) <br>
+	 * A new random token is written in the given file (readable only by the current user) 
+	 * and must be sent with each request (see GenerationDaemonClient)
+	 * @param port the port (or 0 to use a free port)
+	 * @param tokenFile the file where to write the token (deleted when the daemon stops)
+	 * @return the port used 
+	 * @throws IOException
+	 */
+	public synchronized int start(int port, File tokenFile) throws IOException {
+		if ( running ) {
+			throw new IllegalStateException("Generation daemon already started");
+		}
+		token = newToken();
+		writeTokenFile(tokenFile, token);
+		this.tokenFile = tokenFile ;
+		serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		connectionsExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "telosys-generation-daemon-connection");
+				thread.setDaemon(true);
+				return thread ;
+			}
+		});
+		running = true ;
+		serverThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				acceptConnections();
+			}
+		}, "telosys-generation-daemon");
+		serverThread.setDaemon(true);
+		serverThread.start();
+		log("started on port " + serverSocket.getLocalPort());
+		return serverSocket.getLocalPort();
+	}
+	
+	/**
+	 * Returns the port used by the daemon (or -1 if not started)
+	 * @return
+	 */
+	public synchronized int getPort() {
+		return serverSocket != null ? serverSocket.getLocalPort() : -1 ;
+	}
+
+	public boolean isRunning() {
+		return running ;
+	}
+	
+	/**
+	 * Stops the daemon 
+	 */
+	public synchronized void stop() {
+		running = false ;
+		token = null ;
+		if ( connectionsExecutor != null ) {
+			connectionsExecutor.shutdown(); // the current connections are finished
+			connectionsExecutor = null ;
+		}
+		if ( tokenFile != null ) {
+			try {
+				Files.deleteIfExists(tokenFile.toPath());
+			} catch (IOException e) {
+				logger.error("Generation daemon : cannot delete token file '" + tokenFile + "' : " + e.getMessage());
+			}
+			tokenFile = null ;
+		}
+		// closed at the end : 'join' returns when the server socket is closed 
+		if ( serverSocket != null ) {
+			try {
+				serverSocket.close();
+			} catch (IOException e) {
+				// nothing to do
+			}
+			serverSocket = null ;
+		}
+		log("stopped");
+	}
+	
+	/**
+	 * Waits for the end of the daemon 
+	 * @throws InterruptedException
+	 */
+	public void join() throws InterruptedException {
+		Thread thread = serverThread ;
+		if ( thread != null ) {
+			thread.join();
+		}
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Returns a new random token (hexadecimal)
+	 * @return
+	 */
+	private static String newToken() {
+		byte[] bytes = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(bytes);
+		StringBuilder sb = new StringBuilder();
+		for ( byte b : bytes ) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Writes the token in the given file, readable only by the owner  
+	 * (the file is created with the owner permissions before writing the token, then renamed)
+	 * @param file
+	 * @param token
+	 * @throws IOException
+	 */
+	private static void writeTokenFile(File file, String token) throws IOException {
+		Path path = file.toPath().toAbsolutePath();
+		Files.createDirectories(path.getParent());
+		Path tmp ;
+		if ( Files.getFileStore(path.getParent()).supportsFileAttributeView("posix") ) {
+			tmp = Files.createTempFile(path.getParent(), path.getFileName() + ".", ".tmp", 
+					PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")) );
+		}
+		else if ( Files.getFileStore(path.getParent()).supportsFileAttributeView("acl") ) {
+			// Windows : only one ACL entry for the owner 
+			tmp = Files.createTempFile(path.getParent(), path.getFileName() + ".", ".tmp");
+			AclFileAttributeView view = Files.getFileAttributeView(tmp, AclFileAttributeView.class);
+			view.setAcl(Collections.singletonList(AclEntry.newBuilder().setType(AclEntryType.ALLOW)
+					.setPrincipal(view.getOwner()).setPermissions(EnumSet.allOf(AclEntryPermission.class)).build()));
+		}
+		else {
+			throw new IOException("Cannot restrict the permissions of token file '" + file + "'");
+		}
+		try {
+			Files.write(tmp, token.getBytes(StandardCharsets.UTF_8));
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+	
+	/**
+	 * Reads the token written by a daemon in the given file 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static String readToken(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+	}
+	
+	private boolean isValidToken(String requestToken) {
+		String expectedToken = token ;
+		// constant time comparison 
+		return expectedToken != null && MessageDigest.isEqual(expectedToken.getBytes(StandardCharsets.UTF_8), 
+				requestToken.getBytes(StandardCharsets.UTF_8)) ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	private void acceptConnections() {
+		while ( running ) {
+			ServerSocket server = serverSocket ;
+			ExecutorService executor = connectionsExecutor ;
+			if ( server == null || executor == null ) {
+				break ;
+			}
+			try {
+				final Socket socket = server.accept() ;
+				// each connection in its own thread : a slow client doesn't block the other ones
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						handleConnection(socket);
+					}
+				});
+			} catch (SocketException e) {
+				// server socket closed by 'stop'
+				if ( running ) {
+					logger.error("Generation daemon : " + e.getMessage());
+				}
+			} catch (IOException e) {
+				logger.error("Generation daemon : " + e.getMessage());
+			} catch (RuntimeException e) {
+				// executor shut down by 'stop'
+				if ( running ) {
+					logger.error("Generation daemon : " + e.getMessage());
+				}
+			}
+		}
+	}
+	
+	private void handleConnection(Socket socket) {
+		try ( Socket s = socket ) {
+			s.setSoTimeout(READ_TIMEOUT);
+			processConnection(s);
+		} catch (IOException e) {
+			logger.error("Generation daemon : " + e.getMessage());
+		}
+	}
+	
+	private void processConnection(Socket socket) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+		String line = reader.readLine();
+		if ( line == null ) {
+			return ;
+		}
+		int i = line.indexOf(SEPARATOR);
+		if ( i < 0 || ! isValidToken(line.substring(0, i)) ) {
+			logger.error("Generation daemon : request rejected (invalid token)");
+			writer.write(ERROR + " invalid token");
+			writer.newLine();
+			writer.flush();
+			return ;
+		}
+		String request = line.substring(i + 1);
+		writer.write(execute(request)); // one request at a time (except PING)
+		writer.newLine();
+		writer.flush();
+		if ( STOP.equals(request.trim()) ) {
+			stop();
+		}
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Executes the given request (without token : for a call in the daemon process)
+	 * @param request the request line 
+	 * @return the response line 
+	 */
+	public String execute(String request) {
+		log("request : " + request);
+		if ( PING.equals(split(request.trim(), SEPARATOR).get(0)) ) {
+			return OK ; // without waiting for the current generation 
+		}
+		return executeRequest(request);
+	}
+	
+	private synchronized String executeRequest(String request) {
+		List<String> parts = split(request.trim(), SEPARATOR);
+		String command = parts.get(0);
+		try {
+			if ( STOP.equals(command) ) {
+				return OK ;
+			}
+			else if ( INVALIDATE.equals(command) ) {
+				invalidate();
+				return OK ;
+			}
+			else if ( GENERATE.equals(command) && parts.size() >= 3 ) {
+				List<String> entities = parts.size() > 3 ? split(parts.get(3), ',') : new LinkedList<String>() ;
+				return generate(parts.get(1), parts.get(2), entities, null);
+			}
+			else {
+				return ERROR + " invalid request '" + request + "'" ;
+			}
+		} catch (Exception e) {
+			logger.error("Generation daemon : " + e.getMessage());
+			return ERROR + " " + e.getClass().getSimpleName() + " : " + oneLine(e.getMessage()) ;
+		}
+	}
+	
+	/**
+	 * Drops all the elements kept by the daemon
+	 */
+	public synchronized void invalidate() {
+		telosysToolsCfg = null ;
+		models.clear();
+		bundles.clear();
+		manifests.clear();
+	}
+	
+	/**
+	 * Returns the manifest of all the files generated by the daemon for the given model and bundle <br>
+	 * Each entry contains the entities used to generate the file 
+	 * @param modelName
+	 * @param bundleName
+	 * @return the manifest (or null if nothing generated yet)
+	 */
+	public synchronized GenerationManifest getManifest(String modelName, String bundleName) {
+		return manifests.get(manifestKey(modelName, bundleName));
+	}
+	
+	/**
+	 * Returns the generation cache kept with the given model 
+	 * @param modelName
+	 * @return the cache (or null if the model is not loaded)
+	 */
+	/* package */ synchronized GenerationCache getGenerationCache(String modelName) {
+		LoadedModel loadedModel = models.get(modelName);
+		return loadedModel != null ? loadedModel.generationCache : null ;
+	}
+	
+	private static String manifestKey(String modelName, String bundleName) {
+		return modelName + SEPARATOR + bundleName ;
+	}
+	
+	/**
+	 * Launches a generation with the elements kept by the daemon 
+	 * @param modelName
+	 * @param bundleName
+	 * @param entities the entities names (all the entities of the model if empty)
+	 * @param filter filter used to select the targets to be generated (or null for all)
+	 * @return the response line ( "OK files=..." )
+	 * @throws Exception
+	 */
+	public synchronized String generate(String modelName, String bundleName, List<String> entities, 
+			GenerationPlanFilter filter) throws Exception {
+		long start = System.currentTimeMillis();
+		LoadedModel loadedModel = getModel(modelName);
+		LoadedBundle loadedBundle = getBundle(bundleName);
+		List<String> selectedEntities = new ArrayList<>(entities) ;
+		if ( selectedEntities.isEmpty() ) {
+			for ( Entity entity : loadedModel.model.getEntities() ) {
+				selectedEntities.add(entity.getClassName());
+			}
+		}
+		DaemonGenerationTask task = new DaemonGenerationTask(loadedModel.model, selectedEntities, bundleName, 
+				loadedBundle.templatesTargets, loadedBundle.resourcesTargets, getTelosysToolsCfg(), logger, 
+				loadedModel.generationCache);
+		task.setEntitiesTracing(true); // v 3.3.0
+		if ( filter != null ) {
+			task.getGenerationPlan().retain(filter);
+		}
+		task.run();
+		//--- Keep the entities used by each generated file 
+		GenerationManifest manifest = manifests.get(manifestKey(modelName, bundleName));
+		if ( manifest == null ) {
+			manifest = new GenerationManifest();
+			manifests.put(manifestKey(modelName, bundleName), manifest);
+		}
+		manifest.update(task.getGenerationManifest());
+		GenerationTaskResult result = task.getResult();
+		StringBuilder sb = new StringBuilder(OK);
+		sb.append(" files=").append(result.getNumberOfFilesGenerated());
+		sb.append(" resources=").append(result.getNumberOfResourcesCopied());
+		sb.append(" errors=").append(result.getErrors().size());
+		sb.append(" millis=").append(System.currentTimeMillis() - start);
+		for ( ErrorReport errorReport : result.getErrors() ) {
+			sb.append(SEPARATOR).append(oneLine(errorReport.getErrorMessage()));
+		}
+		return sb.toString();
+	}
+	
+	private TelosysToolsCfg getTelosysToolsCfg() throws Exception {
+		if ( telosysToolsCfg == null ) {
+			telosysToolsCfg = context.loadTelosysToolsCfg();
+		}
+		return telosysToolsCfg ;
+	}
+	
+	private LoadedModel getModel(String modelName) throws Exception {
+		long version = context.getModelVersion(modelName);
+		LoadedModel loadedModel = models.get(modelName);
+		if ( loadedModel == null || loadedModel.version != version ) {
+			log("loading model '" + modelName + "'");
+			// new model => new cache (the cached values depend on the model)
+			loadedModel = new LoadedModel(version, context.loadModel(modelName));
+			models.put(modelName, loadedModel);
+		}
+		return loadedModel ;
+	}
+	
+	private LoadedBundle getBundle(String bundleName) throws Exception {
+		long version = context.getBundleVersion(bundleName);
+		LoadedBundle loadedBundle = bundles.get(bundleName);
+		if ( loadedBundle == null || loadedBundle.version != version ) {
+			log("loading bundle '" + bundleName + "'");
+			loadedBundle = new LoadedBundle(version, context.loadTemplatesTargets(bundleName), 
+					context.loadResourcesTargets(bundleName));
+			bundles.put(bundleName, loadedBundle);
+		}
+		return loadedBundle ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	private static List<String> split(String s, char separator) {
+		List<String> list = new ArrayList<>();
+		int start = 0 ;
+		int i ;
+		while ( ( i = s.indexOf(separator, start) ) >= 0 ) {
+			addIfNotEmpty(list, s.substring(start, i));
+			start = i + 1 ;
+		}
+		addIfNotEmpty(list, s.substring(start));
+		if ( list.isEmpty() ) {
+			list.add("");
+		}
+		return list ;
+	}
+	private static void addIfNotEmpty(List<String> list, String s) {
+		String value = s.trim();
+		if ( value.length() > 0 ) {
+			list.add(value);
+		}
+	}
+	private static String oneLine(String s) {
+		return s != null ? s.replace('\r', ' ').replace('\n', ' ').replace(SEPARATOR, ' ') : "" ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Generation task without user interaction (the errors are kept in the result)
+	 */
+	private static class DaemonGenerationTask extends AbstractGenerationTask {
+		
+		DaemonGenerationTask(Model model, List<String> selectedEntities, String bundleName,
+				List<TargetDefinition> selectedTargets, List<TargetDefinition> resourcesTargets,
+				TelosysToolsCfg telosysToolsCfg, TelosysToolsLogger logger, GenerationCache generationCache) throws Exception {
+			super(model, selectedEntities, bundleName, selectedTargets, resourcesTargets, telosysToolsCfg, logger, generationCache);
+		}
+
+		@Override
+		protected void afterFileGeneration(Target target, String fullFileName) {
+			// nothing to do
+		}
+
+		@Override
+		protected boolean onError(ErrorReport errorReport) {
+			return true ; // continue (the error is kept in the result)
+		}
+		
+		void run() {
+			try {
+				runTask(new DefaultTaskMonitor(), null, null);
+			} catch (InterruptedException e) {
+				// never canceled : 'onError' always returns true 
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
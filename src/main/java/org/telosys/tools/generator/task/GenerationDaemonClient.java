@@ -0,0 +1,115 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Client for the generation daemon (see GenerationDaemon) 
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public class GenerationDaemonClient {
+
+	private final int    port ;
+	private final String token ;
+	
+	/**
+	 * Constructor
+	 * @param port the daemon port (on the loopback interface)
+	 * @param token the token written by the daemon in its token file (see GenerationDaemon#readToken)
+	 */
+	public GenerationDaemonClient(int port, String token) {
+		super();
+		this.port = port ;
+		this.token = token ;
+	}
+
+	/**
+	 * Sends the given request to the daemon (with the token)
+	 * @param request the request line
+	 * @return the response line
+	 * @throws IOException
+	 */
+	public String send(String request) throws IOException {
+		try ( Socket socket = new Socket(InetAddress.getLoopbackAddress(), port) ) {
+			BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+			writer.write(token);
+			writer.write('\t');
+			writer.write(request);
+			writer.newLine();
+			writer.flush();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			String response = reader.readLine();
+			if ( response == null ) {
+				throw new IOException("No response from generation daemon (port " + port + ")");
+			}
+			return response ;
+		}
+	}
+	
+	/**
+	 * Returns true if the daemon responds 
+	 * @return
+	 */
+	public boolean ping() {
+		try {
+			return GenerationDaemon.OK.equals(send(GenerationDaemon.PING));
+		} catch (IOException e) {
+			return false ;
+		}
+	}
+	
+	/**
+	 * Requests a generation 
+	 * @param modelName
+	 * @param bundleName
+	 * @param entities the entities names (or null/empty for all the entities of the model)
+	 * @return the response line ( "OK files=..." or "ERROR ..." )
+	 * @throws IOException
+	 */
+	public String generate(String modelName, String bundleName, List<String> entities) throws IOException {
+		StringBuilder sb = new StringBuilder(GenerationDaemon.GENERATE);
+		sb.append('\t').append(modelName).append('\t').append(bundleName);
+		if ( entities != null && ! entities.isEmpty() ) {
+			sb.append('\t');
+			for ( int i = 0 ; i < entities.size() ; i++ ) {
+				if ( i > 0 ) {
+					sb.append(',');
+				}
+				sb.append(entities.get(i));
+			}
+		}
+		return send(sb.toString());
+	}
+	
+	/**
+	 * Stops the daemon 
+	 * @throws IOException
+	 */
+	public void stop() throws IOException {
+		send(GenerationDaemon.STOP);
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+import java.util.List;
+
+import org.telosys.tools.commons.bundles.TargetDefinition;
+import org.telosys.tools.commons.cfg.TelosysToolsCfg;
+import org.telosys.tools.generic.model.Model;
+
+/**
+ * Project environment used by the generation daemon (implemented by the CLI or the IDE) <br>
+ * The daemon keeps the loaded elements as long as their version doesn't change
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public interface GenerationDaemonContext {
+
+	/**
+	 * Loads the project configuration 
+	 * @return
+	 * @throws Exception
+	 */
+	TelosysToolsCfg loadTelosysToolsCfg() throws Exception ;
+	
+	/**
+	 * Returns the current version of the given model (typically the last modification date of its files) 
+	 * @param modelName
+	 * @return
+	 */
+	long getModelVersion(String modelName) ;
+	
+	/**
+	 * Loads the given model 
+	 * @param modelName
+	 * @return
+	 * @throws Exception
+	 */
+	Model loadModel(String modelName) throws Exception ;
+
+	/**
+	 * Returns the current version of the given bundle (typically the last modification date of its targets file) 
+	 * @param bundleName
+	 * @return
+	 */
+	long getBundleVersion(String bundleName) ;
+	
+	/**
+	 * Loads the templates targets of the given bundle
+	 * @param bundleName
+	 * @return
+	 * @throws Exception
+	 */
+	List<TargetDefinition> loadTemplatesTargets(String bundleName) throws Exception ;
+
+	/**
+	 * Loads the resources targets of the given bundle
+	 * @param bundleName
+	 * @return the resources targets (or null if none)
+	 * @throws Exception
+	 */
+	List<TargetDefinition> loadResourcesTargets(String bundleName) throws Exception ;
+}
@@ -0,0 +1,324 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Generation manifest : the list of the files generated by a task (or by a shard of a task) <br>
+ * The manifest is stored in a text file (UTF-8), one line per generated file : <br>
+ *   template TAB entity TAB used-entities TAB file <br>
+ * The used entities are separated by ',' ("*" for all the entities, "?" if unknown, empty if none) <br>
+ * The lines starting with '#' are comments <br>
+ * The manifests without the used entities column (header without "# columns") can still be read <br>
+ * The partial manifests written by the shards ( 'file.shard-i-of-n' ) can be merged in a single manifest
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public class GenerationManifest {
+
+	private static final String HEADER     = "# Telosys generation manifest" ;
+	private static final String SHARD      = "# shard " ;
+	private static final String COLUMNS    = "# columns : template, entity, used entities, file" ; // v 3.3.0
+	private static final char   SEPARATOR  = '\t' ;
+	private static final String ENTITIES_SEPARATOR = "," ; // v 3.3.0
+	private static final String UNKNOWN_ENTITIES   = "?" ; // v 3.3.0
+	private static final String SHARD_SUFFIX       = ".shard-" ; // v 3.3.0
+	
+	// output file -> entry (sorted by file to produce the same file whatever the generation order)
+	private final Map<String, GenerationManifestEntry> entries = new TreeMap<>();
+	private final List<GenerationManifestEntry> conflicts = new LinkedList<>();
+	private String shard = null ;
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor for an empty manifest
+	 */
+	public GenerationManifest() {
+		super();
+	}
+	
+	/**
+	 * Set the shard that produced this manifest (informative, written in the file)
+	 * @param shard
+	 */
+	public void setShard(String shard) {
+		this.shard = shard;
+	}
+
+	public String getShard() {
+		return shard;
+	}
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Adds an entry in the manifest <br>
+	 * If the file is already in the manifest with another template the entry is kept as a conflict
+	 * @param entry
+	 * @return true if added 
+	 */
+	public synchronized boolean add(GenerationManifestEntry entry) {
+		GenerationManifestEntry existingEntry = entries.get(entry.getOutputFile());
+		if ( existingEntry == null ) {
+			entries.put(entry.getOutputFile(), entry);
+			return true ;
+		}
+		else {
+			if ( ! existingEntry.getTemplate().equals(entry.getTemplate()) ) {
+				conflicts.add(entry);
+			}
+			return false ;
+		}
+	}
+	
+	/**
+	 * Updates this manifest with the entries of the given manifest (replaces the entries for the same files) 
+	 * @param manifest
+	 */
+	public void update(GenerationManifest manifest) { // v 3.3.0
+		List<GenerationManifestEntry> newEntries = manifest.getEntries();
+		synchronized (this) {
+			for ( GenerationManifestEntry entry : newEntries ) {
+				entries.put(entry.getOutputFile(), entry);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the entry for the given output file 
+	 * @param outputFile
+	 * @return the entry (or null if none)
+	 */
+	public synchronized GenerationManifestEntry getEntry(String outputFile) {
+		return entries.get(outputFile);
+	}
+
+	/**
+	 * Returns all the entries (sorted by output file)
+	 * @return
+	 */
+	public synchronized List<GenerationManifestEntry> getEntries() {
+		return new ArrayList<>(entries.values());
+	}
+
+	/**
+	 * Returns the entries not added because the same file is generated by another template
+	 * @return
+	 */
+	public synchronized List<GenerationManifestEntry> getConflicts() {
+		return Collections.unmodifiableList(new ArrayList<>(conflicts));
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the entries depending on at least one of the given entities 
+	 * @param changedEntities the entities class names
+	 * @return
+	 */
+	public synchronized List<GenerationManifestEntry> getAffectedEntries(Collection<String> changedEntities) { // v 3.3.0
+		List<GenerationManifestEntry> list = new LinkedList<>();
+		for ( GenerationManifestEntry entry : entries.values() ) {
+			if ( entry.dependsOn(changedEntities) ) {
+				list.add(entry);
+			}
+		}
+		return list ;
+	}
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Writes the manifest in the given file <br>
+	 * The file is written in a temporary file and then renamed (a reader never sees an incomplete manifest)
+	 * @param file
+	 * @throws IOException
+	 */
+	public synchronized void write(File file) throws IOException {
+		Path path = file.toPath().toAbsolutePath();
+		if ( path.getParent() != null ) {
+			Files.createDirectories(path.getParent());
+		}
+		// unique name : several processes (shards) can write at the same time 
+		Path tmp = Files.createTempFile(path.getParent(), path.getFileName() + ".", ".tmp");
+		try {
+			writeEntries(tmp);
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+	
+	private void writeEntries(Path tmp) throws IOException {
+		try ( BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8) ) {
+			writer.write(HEADER);
+			writer.newLine();
+			writer.write(COLUMNS);
+			writer.newLine();
+			if ( shard != null ) {
+				writer.write(SHARD + shard);
+				writer.newLine();
+			}
+			for ( GenerationManifestEntry entry : entries.values() ) {
+				writer.write(entry.getTemplate());
+				writer.write(SEPARATOR);
+				writer.write(entry.getEntityName());
+				writer.write(SEPARATOR);
+				writer.write(formatEntities(entry.getUsedEntities()));
+				writer.write(SEPARATOR);
+				writer.write(entry.getOutputFile());
+				writer.newLine();
+			}
+		}
+	}
+	
+	/**
+	 * Reads a manifest from the given file 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static GenerationManifest read(File file) throws IOException {
+		GenerationManifest manifest = new GenerationManifest();
+		try ( BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8) ) {
+			String line ;
+			int lineNumber = 0 ;
+			boolean withEntities = false ;
+			while ( ( line = reader.readLine() ) != null ) {
+				lineNumber++ ;
+				if ( line.startsWith(SHARD) ) {
+					manifest.setShard(line.substring(SHARD.length()));
+				}
+				else if ( line.equals(COLUMNS) ) {
+					withEntities = true ;
+				}
+				else if ( line.length() > 0 && line.charAt(0) != '#' ) {
+					manifest.add(parseLine(line, withEntities, file, lineNumber));
+				}
+			}
+		}
+		return manifest ;
+	}
+	
+	private static GenerationManifestEntry parseLine(String line, boolean withEntities, File file, int lineNumber) throws IOException {
+		int i1 = line.indexOf(SEPARATOR);
+		int i2 = i1 >= 0 ? line.indexOf(SEPARATOR, i1 + 1) : -1 ;
+		int i3 = withEntities && i2 >= 0 ? line.indexOf(SEPARATOR, i2 + 1) : i2 ;
+		if ( i3 < 0 ) {
+			throw new IOException("Invalid manifest line " + lineNumber + " in file '" + file + "'");
+		}
+		// the file is the last element (can contain a TAB)
+		Collection<String> usedEntities = withEntities ? parseEntities(line.substring(i2 + 1, i3)) : null ;
+		return new GenerationManifestEntry(line.substring(0, i1), line.substring(i1 + 1, i2), usedEntities, line.substring(i3 + 1));
+	}
+	
+	private static String formatEntities(Collection<String> entities) {
+		if ( entities == null ) {
+			return UNKNOWN_ENTITIES ;
+		}
+		StringBuilder sb = new StringBuilder();
+		for ( String entity : entities ) {
+			if ( sb.length() > 0 ) {
+				sb.append(ENTITIES_SEPARATOR);
+			}
+			sb.append(entity);
+		}
+		return sb.toString();
+	}
+	
+	private static Collection<String> parseEntities(String s) {
+		if ( UNKNOWN_ENTITIES.equals(s) ) {
+			return null ;
+		}
+		List<String> list = new ArrayList<>();
+		for ( String entity : s.split(ENTITIES_SEPARATOR) ) {
+			if ( entity.length() > 0 ) {
+				list.add(entity);
+			}
+		}
+		return list ;
+	}
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Merges the given partial manifests (typically one per shard) in a single manifest 
+	 * @param files the partial manifests files 
+	 * @return
+	 * @throws IOException
+	 */
+	public static GenerationManifest merge(Collection<File> files) throws IOException {
+		GenerationManifest manifest = new GenerationManifest();
+		for ( File file : files ) {
+			for ( GenerationManifestEntry entry : read(file).getEntries() ) {
+				manifest.add(entry);
+			}
+		}
+		return manifest ;
+	}
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Returns the file used by the given shard to write its manifest 
+	 * @param file the main manifest file
+	 * @param shardIndex the shard (from 0 to shardCount-1)
+	 * @param shardCount the number of shards
+	 * @return
+	 */
+	public static File getShardFile(File file, int shardIndex, int shardCount) { // v 3.3.0
+		return new File(file.getAbsoluteFile().getParentFile(), 
+				file.getName() + SHARD_SUFFIX + ( shardIndex + 1 ) + "-of-" + shardCount );
+	}
+
+	/**
+	 * Merges the manifests written by the shards in the main manifest file (and deletes them) <br>
+	 * To be called when all the shards of a generation are finished 
+	 * @param file the main manifest file
+	 * @param shardCount the number of shards
+	 * @return the merged manifest 
+	 * @throws IOException
+	 */
+	public static GenerationManifest mergeShards(File file, int shardCount) throws IOException { // v 3.3.0
+		List<File> files = new ArrayList<>();
+		for ( int i = 0 ; i < shardCount ; i++ ) {
+			File shardFile = getShardFile(file, i, shardCount);
+			if ( shardFile.exists() ) {
+				files.add(shardFile);
+			}
+		}
+		GenerationManifest manifest = merge(files);
+		manifest.write(file);
+		for ( File shardFile : files ) {
+			Files.deleteIfExists(shardFile.toPath());
+		}
+		return manifest ;
+	}
+}
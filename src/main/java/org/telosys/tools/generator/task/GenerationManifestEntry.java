@@ -0,0 +1,108 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.telosys.tools.generator.context.tools.EntitiesTracker;
+
+/**
+ * Manifest entry : one file generated by a template (for an entity or without entity)
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public class GenerationManifestEntry {
+
+	private final String template ;
+	private final String entityName ; // empty string if none
+	private final String outputFile ;
+	private final Set<String> usedEntities ; // v 3.3.0 (null if unknown)
+	
+	/**
+	 * Constructor (entities used by the template unknown)
+	 * @param template
+	 * @param entityName entity name (or null if none)
+	 * @param outputFile
+	 */
+	public GenerationManifestEntry(String template, String entityName, String outputFile) {
+		this(template, entityName, null, outputFile);
+	}
+	
+	/**
+	 * Constructor
+	 * @param template
+	 * @param entityName entity name (or null if none)
+	 * @param usedEntities entities used to generate the file, "*" for all (or null if unknown)
+	 * @param outputFile
+	 */
+	public GenerationManifestEntry(String template, String entityName, Collection<String> usedEntities, String outputFile) {
+		super();
+		this.template = template;
+		this.entityName = entityName != null ? entityName : "" ;
+		this.usedEntities = usedEntities != null ? Collections.unmodifiableSet(new TreeSet<>(usedEntities)) : null ;
+		this.outputFile = outputFile;
+	}
+
+	public String getTemplate() {
+		return template;
+	}
+
+	public String getEntityName() {
+		return entityName;
+	}
+
+	public String getOutputFile() {
+		return outputFile;
+	}
+
+	/**
+	 * Returns the entities used to generate the file ("*" for all the entities)
+	 * @return the entities (or null if unknown)
+	 */
+	public Set<String> getUsedEntities() {
+		return usedEntities;
+	}
+	
+	/**
+	 * Returns true if the file depends on at least one of the given entities <br>
+	 * If the used entities are unknown only the entity of the entry is considered 
+	 * @param entities
+	 * @return
+	 */
+	public boolean dependsOn(Collection<String> entities) {
+		if ( usedEntities == null ) {
+			return entities.contains(entityName) ;
+		}
+		if ( usedEntities.contains(EntitiesTracker.ALL_ENTITIES) ) {
+			return true ;
+		}
+		for ( String entity : entities ) {
+			if ( usedEntities.contains(entity) ) {
+				return true ;
+			}
+		}
+		return false ;
+	}
+
+	@Override
+	public String toString() {
+		return template + " : " + entityName + " --> " + outputFile ;
+	}
+}
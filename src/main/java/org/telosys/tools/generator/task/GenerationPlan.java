@@ -0,0 +1,220 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.telosys.tools.commons.bundles.TargetDefinition;
+import org.telosys.tools.commons.variables.Variable;
+import org.telosys.tools.generator.context.Target;
+import org.telosys.tools.generic.model.Entity;
+import org.telosys.tools.generic.model.Model;
+
+/**
+ * Generation plan : all the targets to be generated, expanded up front before any rendering <br>
+ * Each "entity target" is expanded for each selected entity, each "once" target is expanded once <br>
+ * The output file of each target is resolved in the file system in order to detect : <br>
+ *  - duplicates : the same template for the same entity generating the same file more than once (the duplicates are removed) <br>
+ *  - conflicts : another template or another entity generating the same file 
+ *  (as in the original generation the last one wins : it replaces the previous one) <br>
+ * The plan can be sorted or filtered before the generation 
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public class GenerationPlan {
+
+	private final List<GenerationPlanItem> items ;
+	private final List<GenerationPlanItem> duplicates = new LinkedList<>();
+	private final List<GenerationPlanItem> conflicts  = new LinkedList<>();
+	private final List<String>             unknownEntities = new LinkedList<>();
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor : builds the plan (same order as the original generation : entity by entity, then 'once' targets)
+	 * @param model
+	 * @param selectedEntities list of entities names
+	 * @param selectedTargets templates targets 
+	 * @param variables project variables
+	 * @param destinationFolder destination folder absolute path 
+	 */
+	public GenerationPlan(Model model, List<String> selectedEntities, List<TargetDefinition> selectedTargets, 
+			Variable[] variables, String destinationFolder) {
+		super();
+		//--- Separate targets in 2 list : "ONCE" and "ENTITY"
+		List<TargetDefinition> onceTargets   = new LinkedList<>() ; 
+		List<TargetDefinition> entityTargets = new LinkedList<>() ; 
+		for ( TargetDefinition targetDefinition : selectedTargets ) {
+			if ( targetDefinition.isOnce() ) {
+				onceTargets.add(targetDefinition); 
+			}
+			else {
+				entityTargets.add(targetDefinition);
+			}
+		}
+		this.items = new ArrayList<>( ( selectedEntities.size() * entityTargets.size() ) + onceTargets.size() );
+		
+		// output file -> index of the item generating this file 
+		Map<String, Integer> itemsByOutputFile = new HashMap<>();
+		
+		//--- For each entity
+		for ( String entityName : selectedEntities ) {
+			Entity entity = model.getEntityByClassName(entityName);
+			if ( entity != null ) {
+				for ( TargetDefinition targetDefinition : entityTargets ) {
+					Target target = new Target( targetDefinition, entity, variables );
+					addItem(itemsByOutputFile, target, entity, destinationFolder);
+				}
+			}
+			else {
+				unknownEntities.add(entityName);
+			}
+		}
+		//--- Finally the "ONCE" targets
+		for ( TargetDefinition targetDefinition : onceTargets ) {
+			Target target = new Target( targetDefinition, variables );
+			addItem(itemsByOutputFile, target, null, destinationFolder);
+		}
+	}
+	
+	private void addItem(Map<String, Integer> itemsByOutputFile, Target target, Entity entity, String destinationFolder) {
+		String outputFile = normalize(target.getOutputFileNameInFileSystem(destinationFolder)) ;
+		GenerationPlanItem item = new GenerationPlanItem(target, entity, outputFile);
+		Integer existingIndex = itemsByOutputFile.get(outputFile);
+		if ( existingIndex == null ) {
+			itemsByOutputFile.put(outputFile, items.size());
+			items.add(item);
+		}
+		else {
+			GenerationPlanItem existingItem = items.get(existingIndex);
+			if ( existingItem.getKey().equals(item.getKey()) ) {
+				// same template and same entity => same file content : useless generation
+				duplicates.add(item);
+			}
+			else {
+				// another template or another entity => the file is overwritten : the last one wins 
+				items.set(existingIndex, item);
+				conflicts.add(existingItem);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the normalized absolute path for the given file path
+	 * @param filePath
+	 * @return
+	 */
+	/* package */ static String normalize(String filePath) {
+		return new File(filePath).getAbsoluteFile().toPath().normalize().toString();
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Returns the items to be generated (in the generation order)
+	 * @return
+	 */
+	public List<GenerationPlanItem> getItems() {
+		return Collections.unmodifiableList(items);
+	}
+	
+	/**
+	 * Returns the number of items to be generated
+	 * @return
+	 */
+	public int size() {
+		return items.size();
+	}
+
+	/**
+	 * Returns the items removed because the same template already generates the same file
+	 * @return
+	 */
+	public List<GenerationPlanItem> getDuplicates() {
+		return Collections.unmodifiableList(duplicates);
+	}
+
+	/**
+	 * Returns the items removed because the same file is generated after them (by another template or for another entity)
+	 * @return
+	 */
+	public List<GenerationPlanItem> getConflicts() {
+		return Collections.unmodifiableList(conflicts);
+	}
+	
+	/**
+	 * Returns true if the plan contains at least one conflict
+	 * @return
+	 */
+	public boolean hasConflicts() {
+		return ! conflicts.isEmpty() ;
+	}
+
+	/**
+	 * Returns the item generating the same file as the given conflicting item (the item replacing it) 
+	 * @param conflict
+	 * @return the item (or null if not found)
+	 */
+	public GenerationPlanItem getConflictingItem(GenerationPlanItem conflict) {
+		for ( GenerationPlanItem item : items ) {
+			if ( item.getOutputFile().equals(conflict.getOutputFile()) ) {
+				return item ;
+			}
+		}
+		return null ;
+	}
+	
+	/**
+	 * Returns the names of the selected entities not found in the model
+	 * @return
+	 */
+	public List<String> getUnknownEntities() {
+		return Collections.unmodifiableList(unknownEntities);
+	}
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Sorts the items to be generated 
+	 * @param comparator
+	 */
+	public void sort(Comparator<GenerationPlanItem> comparator) {
+		Collections.sort(items, comparator);
+	}
+	
+	/**
+	 * Keeps only the items accepted by the given filter 
+	 * @param filter
+	 * @return the number of items removed
+	 */
+	public int retain(GenerationPlanFilter filter) {
+		List<GenerationPlanItem> retained = new ArrayList<>(items.size());
+		for ( GenerationPlanItem item : items ) {
+			if ( filter.accept(item) ) {
+				retained.add(item);
+			}
+		}
+		int n = items.size() - retained.size() ;
+		items.clear();
+		items.addAll(retained);
+		return n ;
+	}
+}
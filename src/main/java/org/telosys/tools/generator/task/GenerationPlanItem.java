@@ -0,0 +1,119 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+import org.telosys.tools.generator.context.Target;
+import org.telosys.tools.generic.model.Entity;
+
+/**
+ * One item of a generation plan : a target resolved for an entity (or without entity for a 'once' target) 
+ * with its output file in the file system
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public class GenerationPlanItem {
+
+	private final Target  target ;
+	private final Entity  entity ; // null for a 'once' target
+	private final String  outputFile ;
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor
+	 * @param target
+	 * @param entity the entity (or null if none)
+	 * @param outputFile the output file absolute path
+	 */
+	protected GenerationPlanItem(Target target, Entity entity, String outputFile) {
+		super();
+		this.target = target;
+		this.entity = entity;
+		this.outputFile = outputFile;
+	}
+
+	/**
+	 * Returns the target to be generated
+	 * @return
+	 */
+	public Target getTarget() {
+		return target;
+	}
+
+	/**
+	 * Returns the entity for which the target is generated (or null for a 'once' target)
+	 * @return
+	 */
+	public Entity getEntity() {
+		return entity;
+	}
+
+	/**
+	 * Returns the name of the entity (or an empty string for a 'once' target)
+	 * @return
+	 */
+	public String getEntityName() {
+		return entity != null ? entity.getClassName() : "" ;
+	}
+
+	/**
+	 * Returns true if the target is generated once (without entity)
+	 * @return
+	 */
+	public boolean isOnce() {
+		return entity == null ;
+	}
+
+	/**
+	 * Returns the template used to generate the target
+	 * @return
+	 */
+	public String getTemplate() {
+		return target.getTemplate();
+	}
+
+	/**
+	 * Returns the output file absolute path (normalized)
+	 * @return
+	 */
+	public String getOutputFile() {
+		return outputFile;
+	}
+
+	/**
+	 * Returns a key identifying the item in the plan : 'template' + 'entity'
+	 * @return
+	 */
+	public String getKey() {
+		return buildKey(getTemplate(), getEntityName());
+	}
+
+	/**
+	 * Builds the key identifying an item : 'template' + 'entity'
+	 * @param template
+	 * @param entityName entity name (or null/empty if none)
+	 * @return
+	 */
+	public static String buildKey(String template, String entityName) {
+		return template + "|" + ( entityName != null ? entityName : "" ) ;
+	}
+
+	@Override
+	public String toString() {
+		return "GenerationPlanItem [template=" + getTemplate() + ", entity=" + getEntityName() 
+				+ ", outputFile=" + outputFile + "]";
+	}
+}
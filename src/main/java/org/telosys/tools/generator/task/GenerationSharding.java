@@ -0,0 +1,197 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic sharding of a generation plan (used to split a generation over several processes) <br>
+ * Each process builds the same plan and keeps only the items of its own shard : <br>
+ *  - all the targets of an entity are in the same shard <br>
+ *  - the entities are assigned by estimated cost (the most expensive first, to the least loaded shard) <br>
+ *  - the entities with the same cost are ordered by the hash of their name (String hash code is stable) <br>
+ *  - the 'once' targets are pinned to the first shard <br>
+ * No coordination is required, but all the shards must use the same model, entities, targets and cost estimator 
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public class GenerationSharding implements GenerationPlanFilter {
+
+	/**
+	 * Shard in charge of the 'once' targets 
+	 */
+	public static final int ONCE_TARGETS_SHARD = 0 ;
+	
+	private final int shardIndex ;
+	private final int shardCount ;
+	private final GenerationCostEstimator costEstimator ;
+	
+	private Map<String, Integer> entitiesShards = null ; // entity name -> shard index
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor
+	 * @param shardIndex the current shard (from 0 to shardCount-1)
+	 * @param shardCount the number of shards
+	 * @param costEstimator the estimator used to balance the shards (or null to use only the hash)
+	 */
+	public GenerationSharding(int shardIndex, int shardCount, final EntityCostEstimator costEstimator) {
+		this(costEstimator == null ? null : new GenerationCostEstimator() {
+			@Override
+			public long estimateCost(GenerationPlanItem item) {
+				return item.isOnce() ? 1 : costEstimator.estimateCost(item.getEntity());
+			}
+		}, shardIndex, shardCount);
+	}
+	
+	/**
+	 * Creates a sharding balanced with a cost estimated for each item (template + entity) <br>
+	 * The estimator must return the same costs in all the shards 
+	 * @param shardIndex the current shard (from 0 to shardCount-1)
+	 * @param shardCount the number of shards
+	 * @param costEstimator the estimator used to balance the shards (or null to use only the hash)
+	 * @return
+	 * @since 3.3.0
+	 */
+	public static GenerationSharding withItemCostEstimator(int shardIndex, int shardCount, GenerationCostEstimator costEstimator) {
+		return new GenerationSharding(costEstimator, shardIndex, shardCount);
+	}
+	
+	private GenerationSharding(GenerationCostEstimator costEstimator, int shardIndex, int shardCount) {
+		super();
+		if ( shardCount < 1 ) {
+			throw new IllegalArgumentException("Invalid shard count " + shardCount);
+		}
+		if ( shardIndex < 0 || shardIndex >= shardCount ) {
+			throw new IllegalArgumentException("Invalid shard index " + shardIndex + " (shard count " + shardCount + ")");
+		}
+		this.shardIndex = shardIndex ;
+		this.shardCount = shardCount ;
+		this.costEstimator = costEstimator ;
+	}
+
+	public int getShardIndex() {
+		return shardIndex;
+	}
+
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Returns the shard for the given entity name using only its hash 
+	 * @param entityName
+	 * @param shardCount
+	 * @return
+	 */
+	public static int shardByHash(String entityName, int shardCount) {
+		// String.hashCode() is defined by the Java specification => same result on all the JVM
+		return Math.floorMod(entityName.hashCode(), shardCount);
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Computes the shard of each entity of the given plan (the plan must be complete : not yet sharded)
+	 * @param plan
+	 * @return entity name -> shard index
+	 */
+	public Map<String, Integer> assignShards(GenerationPlan plan) {
+		//--- Cost of each entity for all its targets 
+		final Map<String, Long> entitiesCosts = new LinkedHashMap<>();
+		for ( GenerationPlanItem item : plan.getItems() ) {
+			if ( ! item.isOnce() ) {
+				String entityName = item.getEntityName() ;
+				Long cost = entitiesCosts.get(entityName);
+				long itemCost = costEstimator != null ? Math.max(1, costEstimator.estimateCost(item)) : 1 ;
+				entitiesCosts.put(entityName, cost != null ? cost + itemCost : itemCost );
+			}
+		}
+		Map<String, Integer> shards = new HashMap<>();
+		if ( costEstimator == null ) {
+			for ( String entityName : entitiesCosts.keySet() ) {
+				shards.put(entityName, shardByHash(entityName, shardCount));
+			}
+			return shards ;
+		}
+		//--- Most expensive first (same order in all the shards)
+		List<String> entitiesNames = new ArrayList<>(entitiesCosts.keySet());
+		Collections.sort(entitiesNames, new Comparator<String>() {
+			@Override
+			public int compare(String name1, String name2) {
+				int c = Long.compare(entitiesCosts.get(name2), entitiesCosts.get(name1));
+				if ( c == 0 ) {
+					c = Integer.compare(name1.hashCode(), name2.hashCode());
+				}
+				return c != 0 ? c : name1.compareTo(name2) ;
+			}
+		});
+		//--- Each entity in the least loaded shard 
+		long[] loads = new long[shardCount];
+		// the 'once' targets are counted in their shard 
+		for ( GenerationPlanItem item : plan.getItems() ) {
+			if ( item.isOnce() ) {
+				loads[ONCE_TARGETS_SHARD] += Math.max(1, costEstimator.estimateCost(item)) ;
+			}
+		}
+		for ( String entityName : entitiesNames ) {
+			int shard = 0 ;
+			for ( int i = 1 ; i < shardCount ; i++ ) {
+				if ( loads[i] < loads[shard] ) {
+					shard = i ;
+				}
+			}
+			loads[shard] += entitiesCosts.get(entityName) ;
+			shards.put(entityName, shard);
+		}
+		return shards ;
+	}
+	
+	/**
+	 * Applies the sharding to the given plan : keeps only the items of the current shard
+	 * @param plan the complete plan 
+	 * @return the number of items removed
+	 */
+	public int apply(GenerationPlan plan) {
+		entitiesShards = assignShards(plan);
+		return plan.retain(this);
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	@Override
+	public boolean accept(GenerationPlanItem item) {
+		if ( item.isOnce() ) {
+			return shardIndex == ONCE_TARGETS_SHARD ;
+		}
+		Integer shard = entitiesShards != null ? entitiesShards.get(item.getEntityName()) : null ;
+		if ( shard == null ) {
+			shard = shardByHash(item.getEntityName(), shardCount);
+		}
+		return shard == shardIndex ;
+	}
+
+	@Override
+	public String toString() {
+		return ( shardIndex + 1 ) + "/" + shardCount ;
+	}
+}
@@ -0,0 +1,243 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Generation statistics : duration of the generation of each item (template + entity) in the previous runs <br>
+ * The statistics are stored in a local text file (UTF-8), one line per item : <br>
+ *   duration (microseconds) TAB template|entity <br>
+ * A new duration is averaged with the previous one to reduce the noise of a single run <br>
+ * Each shard of a sharded generation writes its own file ( 'file.shard-i-of-n' ) with only the durations 
+ * measured by this shard : the main file is never written by the shards, so it is the same snapshot for all 
+ * the shards of a run. The shards files are merged in the main file by 'mergeShards' 
+ * (or by the next generation without sharding)
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public class GenerationStats {
+
+	private static final String HEADER    = "# Telosys generation statistics" ;
+	private static final char   SEPARATOR = '\t' ;
+	private static final String SHARD_SUFFIX = ".shard-" ;
+	
+	private final ConcurrentMap<String, Long> durations = new ConcurrentHashMap<>(); // item key -> microseconds
+	private final Set<String> recordedItems = ConcurrentHashMap.newKeySet(); // items measured in the current run
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor for empty statistics 
+	 */
+	public GenerationStats() {
+		super();
+	}
+	
+	/**
+	 * Returns the duration of the given item in the previous runs  
+	 * @param itemKey the item key (see GenerationPlanItem)
+	 * @return the duration in microseconds (or null if unknown)
+	 */
+	public Long getDuration(String itemKey) {
+		return durations.get(itemKey);
+	}
+
+	/**
+	 * Records the duration of the given item (averaged with the previous duration if any)
+	 * @param itemKey the item key (see GenerationPlanItem)
+	 * @param micros the duration in microseconds
+	 */
+	public void recordDuration(String itemKey, long micros) {
+		long duration = Math.max(1, micros);
+		recordedItems.add(itemKey);
+		Long previous = durations.putIfAbsent(itemKey, duration);
+		while ( previous != null && ! durations.replace(itemKey, previous, ( previous + duration ) / 2 ) ) {
+			previous = durations.get(itemKey);
+		}
+	}
+	
+	public int size() {
+		return durations.size();
+	}
+	
+	/**
+	 * Returns new statistics containing only the durations recorded in the current run
+	 * @return
+	 */
+	public GenerationStats getRecordedDurations() {
+		GenerationStats stats = new GenerationStats();
+		for ( String itemKey : recordedItems ) {
+			Long duration = durations.get(itemKey);
+			if ( duration != null ) {
+				stats.durations.put(itemKey, duration);
+			}
+		}
+		return stats ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Returns the file used by the given shard to save its statistics 
+	 * @param file the main statistics file
+	 * @param shardIndex the shard (from 0 to shardCount-1)
+	 * @param shardCount the number of shards
+	 * @return
+	 */
+	public static File getShardFile(File file, int shardIndex, int shardCount) {
+		return new File(file.getAbsoluteFile().getParentFile(), 
+				file.getName() + SHARD_SUFFIX + ( shardIndex + 1 ) + "-of-" + shardCount );
+	}
+	
+	/**
+	 * Loads the statistics from the given file and from all the files written by the shards <br>
+	 * The files are merged from the oldest to the most recent (the most recent duration wins)
+	 * @param file the main statistics file
+	 * @return the statistics (empty if no file)
+	 * @throws IOException
+	 */
+	public static GenerationStats loadWithShards(File file) throws IOException {
+		List<File> files = getShardFiles(file);
+		if ( file.exists() ) {
+			files.add(file);
+		}
+		Collections.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File file1, File file2) {
+				int c = Long.compare(file1.lastModified(), file2.lastModified());
+				return c != 0 ? c : file1.getName().compareTo(file2.getName()) ;
+			}
+		});
+		GenerationStats stats = new GenerationStats();
+		for ( File f : files ) {
+			stats.durations.putAll(load(f).durations);
+		}
+		return stats ;
+	}
+	
+	/**
+	 * Merges the files written by the shards in the main file and deletes them <br>
+	 * To be called when all the shards of a generation are finished (the main file is the snapshot used by the next shards)
+	 * @param file the main statistics file
+	 * @return the merged statistics 
+	 * @throws IOException
+	 */
+	public static GenerationStats mergeShards(File file) throws IOException {
+		GenerationStats stats = loadWithShards(file);
+		stats.save(file);
+		deleteShardFiles(file);
+		return stats ;
+	}
+	
+	/**
+	 * Deletes the files written by the shards for the given main file
+	 * @param file the main statistics file
+	 * @throws IOException
+	 */
+	public static void deleteShardFiles(File file) throws IOException {
+		for ( File shardFile : getShardFiles(file) ) {
+			Files.deleteIfExists(shardFile.toPath());
+		}
+	}
+	
+	private static List<File> getShardFiles(File file) {
+		List<File> files = new ArrayList<>();
+		final String shardPrefix = file.getName() + SHARD_SUFFIX ;
+		File[] folderFiles = file.getAbsoluteFile().getParentFile().listFiles();
+		if ( folderFiles != null ) {
+			for ( File folderFile : folderFiles ) {
+				if ( folderFile.isFile() && folderFile.getName().startsWith(shardPrefix) ) {
+					files.add(folderFile);
+				}
+			}
+		}
+		return files ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Loads the statistics from the given file 
+	 * @param file
+	 * @return the statistics (empty if the file doesn't exist)
+	 * @throws IOException
+	 */
+	public static GenerationStats load(File file) throws IOException {
+		GenerationStats stats = new GenerationStats();
+		if ( file.exists() ) {
+			try ( BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8) ) {
+				String line ;
+				while ( ( line = reader.readLine() ) != null ) {
+					int i = line.indexOf(SEPARATOR);
+					if ( i > 0 && line.charAt(0) != '#' ) {
+						try {
+							stats.durations.put(line.substring(i + 1), Long.parseLong(line.substring(0, i)));
+						} catch (NumberFormatException e) {
+							// invalid line : ignored (only used for estimations)
+						}
+					}
+				}
+			}
+		}
+		return stats ;
+	}
+	
+	/**
+	 * Saves the statistics in the given file (written in a unique temporary file and then renamed)
+	 * @param file
+	 * @throws IOException
+	 */
+	public void save(File file) throws IOException {
+		Path path = file.toPath().toAbsolutePath();
+		Files.createDirectories(path.getParent());
+		// unique name : several processes can save at the same time 
+		Path tmp = Files.createTempFile(path.getParent(), path.getFileName() + ".", ".tmp");
+		try {
+			write(tmp);
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+	
+	private void write(Path tmp) throws IOException {
+		try ( BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8) ) {
+			writer.write(HEADER);
+			writer.newLine();
+			for ( Map.Entry<String, Long> entry : new TreeMap<>(durations).entrySet() ) {
+				writer.write(Long.toString(entry.getValue()));
+				writer.write(SEPARATOR);
+				writer.write(entry.getKey());
+				writer.newLine();
+			}
+		}
+	}
+}
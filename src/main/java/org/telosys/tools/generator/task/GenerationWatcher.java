@@ -0,0 +1,358 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.telosys.tools.commons.TelosysToolsLogger;
+import org.telosys.tools.generator.TemplatesDependencyGraph;
+
+/**
+ * Watch mode : regenerates the targets affected by the changes in the model folder or in the templates folder <br>
+ *  - a template file changed : only the targets using this template are generated <br>
+ *  - a file used by templates ( #parse, #include, macros ) changed : only the targets using these templates are generated <br>
+ *  - an entity file changed : only the targets of this entity and the 'once' targets are generated <br>
+ *  - any other change : all the targets are generated <br>
+ * The events are grouped (debounce) and the generation uses the warm elements of a generation daemon 
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public class GenerationWatcher {
+
+	public static final long DEFAULT_DEBOUNCE_DELAY = 300 ; // ms 
+	
+	private static final String TEMPLATE_EXTENSION = ".vm" ;
+	private static final String ENTITY_EXTENSION   = ".entity" ;
+	
+	private final GenerationDaemon   daemon ;
+	private final String             modelName ;
+	private final String             bundleName ;
+	private final Path               modelFolder ;
+	private final Path               templatesFolder ;
+	private final TelosysToolsLogger logger ;
+	private long debounceDelay = DEFAULT_DEBOUNCE_DELAY ;
+	
+	private WatchService             watchService = null ;
+	private final Map<WatchKey, Path> watchedFolders = new ConcurrentHashMap<>();
+	private Thread                   watchThread = null ;
+	private volatile boolean         running = false ;
+	private volatile String          lastResult = null ;
+	private TemplatesDependencyGraph templatesDependencyGraph = null ; // v 3.3.0
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor
+	 * @param daemon the daemon used for the generation (keeps the model and the caches)
+	 * @param modelName
+	 * @param bundleName
+	 * @param modelFolder folder containing the model files
+	 * @param templatesFolder folder containing the bundle templates
+	 * @param logger
+	 */
+	public GenerationWatcher(GenerationDaemon daemon, String modelName, String bundleName, 
+			Path modelFolder, Path templatesFolder, TelosysToolsLogger logger) {
+		super();
+		this.daemon = daemon ;
+		this.modelName = modelName ;
+		this.bundleName = bundleName ;
+		this.modelFolder = modelFolder.toAbsolutePath().normalize() ;
+		this.templatesFolder = templatesFolder.toAbsolutePath().normalize() ;
+		this.logger = logger ;
+	}
+	
+	/**
+	 * Set the delay without event before starting the generation 
+	 * @param debounceDelay in milliseconds
+	 */
+	public void setDebounceDelay(long debounceDelay) {
+		this.debounceDelay = debounceDelay ;
+	}
+
+	/**
+	 * Set the dependency graph of the templates (built at start if not set)
+	 * @param templatesDependencyGraph
+	 */
+	public synchronized void setTemplatesDependencyGraph(TemplatesDependencyGraph templatesDependencyGraph) {
+		this.templatesDependencyGraph = templatesDependencyGraph ;
+	}
+
+	/**
+	 * Returns the response of the last generation (or null if none)
+	 * @return
+	 */
+	public String getLastResult() {
+		return lastResult ;
+	}
+	
+	public boolean isRunning() {
+		return running ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Starts watching the model folder and the templates folder
+	 * @throws IOException
+	 */
+	public synchronized void start() throws IOException {
+		if ( running ) {
+			throw new IllegalStateException("Generation watcher already started");
+		}
+		if ( templatesDependencyGraph == null ) {
+			templatesDependencyGraph = new TemplatesDependencyGraph(templatesFolder.toFile());
+			templatesDependencyGraph.build();
+		}
+		watchService = FileSystems.getDefault().newWatchService();
+		registerAll(modelFolder);
+		registerAll(templatesFolder);
+		running = true ;
+		watchThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watch();
+			}
+		}, "telosys-generation-watcher");
+		watchThread.setDaemon(true);
+		watchThread.start();
+		logger.info("Watching '" + modelFolder + "' and '" + templatesFolder + "'");
+	}
+	
+	/**
+	 * Stops watching 
+	 */
+	public synchronized void stop() {
+		running = false ;
+		if ( watchService != null ) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				// nothing to do
+			}
+			watchService = null ;
+		}
+		watchedFolders.clear();
+	}
+
+	private void registerAll(Path root) throws IOException {
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+				watchedFolders.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	private void watch() {
+		Set<Path> changes = new LinkedHashSet<>();
+		boolean overflow = false ;
+		long lastEventTime = 0 ;
+		while ( running ) {
+			WatchKey key ;
+			try {
+				key = watchService.poll(debounceDelay, TimeUnit.MILLISECONDS);
+			} catch (Exception e) { 
+				// InterruptedException or ClosedWatchServiceException (stopped)
+				break ;
+			}
+			if ( key != null ) {
+				overflow = collectEvents(key, changes) || overflow ;
+				lastEventTime = System.currentTimeMillis();
+			}
+			else if ( ( ! changes.isEmpty() || overflow ) && System.currentTimeMillis() - lastEventTime >= debounceDelay ) {
+				// no event during the delay => generation 
+				processChanges(overflow ? null : changes);
+				changes = new LinkedHashSet<>();
+				overflow = false ;
+			}
+		}
+	}
+	
+	private boolean collectEvents(WatchKey key, Set<Path> changes) {
+		boolean overflow = false ;
+		Path folder = watchedFolders.get(key);
+		for ( WatchEvent<?> event : key.pollEvents() ) {
+			if ( event.kind() == OVERFLOW || folder == null ) {
+				overflow = true ;
+			}
+			else {
+				Path path = folder.resolve((Path) event.context());
+				if ( event.kind() == ENTRY_CREATE && Files.isDirectory(path) ) {
+					try {
+						registerAll(path);
+					} catch (IOException e) {
+						logger.error("Cannot watch folder '" + path + "' : " + e.getMessage());
+					}
+				}
+				if ( ! isIgnored(path.getFileName().toString()) ) {
+					changes.add(path);
+				}
+			}
+		}
+		if ( ! key.reset() ) {
+			watchedFolders.remove(key);
+		}
+		return overflow ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Builds the filter selecting the targets affected by the given changes <br>
+	 * For a changed entity the files are selected with the entities they used during 
+	 * their previous generation by the daemon (if known) 
+	 * @param changes the changed files (or null if unknown)
+	 * @return the filter (or null if all the targets must be generated)
+	 */
+	public synchronized GenerationPlanFilter buildFilter(Collection<Path> changes) {
+		if ( changes == null ) {
+			return null ;
+		}
+		final Set<String> templates = new HashSet<>();
+		final Set<String> entities = new HashSet<>();
+		List<Path> templatesFiles = new LinkedList<>();
+		for ( Path change : changes ) {
+			Path path = change.toAbsolutePath().normalize();
+			String fileName = path.getFileName() != null ? path.getFileName().toString() : "" ;
+			if ( path.startsWith(templatesFolder) && ! isIgnored(fileName) ) {
+				templatesFiles.add(path);
+			}
+			else if ( path.startsWith(modelFolder) && fileName.endsWith(ENTITY_EXTENSION) ) {
+				entities.add(fileName.substring(0, fileName.length() - ENTITY_EXTENSION.length()));
+			}
+			else if ( ! isIgnored(fileName) ) {
+				// other file ( model file, etc ) => everything
+				return null ;
+			}
+		}
+		if ( ! addAffectedTemplates(templatesFiles, templates) ) {
+			return null ;
+		}
+		// entities used by the files already generated (if any) 
+		final GenerationManifest manifest = daemon.getManifest(modelName, bundleName); 
+		return new GenerationPlanFilter() {
+			@Override
+			public boolean accept(GenerationPlanItem item) {
+				if ( templates.contains(normalizeTemplate(item.getTemplate())) ) {
+					return true ;
+				}
+				if ( entities.isEmpty() ) {
+					return false ;
+				}
+				GenerationManifestEntry entry = manifest != null ? manifest.getEntry(item.getOutputFile()) : null ;
+				if ( entry != null && entry.getUsedEntities() != null ) {
+					// entities traced during the previous generation of the file
+					return entry.dependsOn(entities) ;
+				}
+				if ( item.isOnce() ) {
+					return true ;
+				}
+				return entities.contains(item.getEntityName()) ;
+			}
+		};
+	}
+	
+	/**
+	 * Adds the templates affected by the given changed files 
+	 * @param templatesFiles the changed files in the templates folder
+	 * @param templates the templates to be generated 
+	 * @return false if the affected templates are unknown (all the templates must be generated)
+	 */
+	private boolean addAffectedTemplates(List<Path> templatesFiles, Set<String> templates) {
+		if ( templatesDependencyGraph == null ) {
+			// no dependency graph : only the changed templates
+			for ( Path path : templatesFiles ) {
+				if ( ! path.getFileName().toString().endsWith(TEMPLATE_EXTENSION) ) {
+					return false ;
+				}
+				templates.add(normalizeTemplate(templatesFolder.relativize(path).toString()));
+			}
+			return true ;
+		}
+		//--- 1) update the graph with all the changes
+		for ( Path path : templatesFiles ) {
+			try {
+				templatesDependencyGraph.update(path);
+			} catch (IOException e) {
+				logger.error("Cannot analyze template '" + path + "' : " + e.getMessage());
+				return false ;
+			}
+		}
+		//--- 2) the changed files and the templates using them 
+		for ( Path path : templatesFiles ) {
+			if ( Files.isDirectory(path) ) {
+				continue ; // the files of a new folder have their own events 
+			}
+			String name = templatesDependencyGraph.toTemplateName(path);
+			if ( ! name.endsWith(TEMPLATE_EXTENSION) && ! templatesDependencyGraph.isKnown(name) ) {
+				// not a template and not used by a template ( targets file, etc ) 
+				return false ;
+			}
+			templates.addAll(templatesDependencyGraph.getDependentTemplates(name));
+		}
+		return true ;
+	}
+	
+	private static String normalizeTemplate(String template) {
+		String s = template.replace('\\', '/');
+		return s.startsWith("/") ? s.substring(1) : s ;
+	}
+	
+	private static boolean isIgnored(String fileName) {
+		// editors temporary files 
+		return fileName.startsWith(".") || fileName.endsWith("~") || fileName.endsWith(".swp") || fileName.endsWith(".tmp") ;
+	}
+	
+	/**
+	 * Generates the targets affected by the given changes 
+	 * @param changes the changed files (or null to generate all the targets)
+	 * @return the generation result (response line)
+	 */
+	public String processChanges(Collection<Path> changes) {
+		logger.info("Changes detected : " + ( changes != null ? changes.size() + " file(s)" : "unknown" ) );
+		try {
+			lastResult = daemon.generate(modelName, bundleName, new LinkedList<String>(), buildFilter(changes));
+		} catch (Exception e) {
+			logger.error("Generation error : " + e.getMessage());
+			lastResult = GenerationDaemon.ERROR + " " + e.getMessage() ;
+		}
+		logger.info(lastResult);
+		return lastResult ;
+	}
+}
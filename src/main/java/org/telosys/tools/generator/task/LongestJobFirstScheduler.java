@@ -0,0 +1,130 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Longest-job-first scheduling of a generation plan <br>
+ * The cost of each item is estimated with : <br>
+ *  1) the duration of the same item (template + entity) in the previous runs <br>
+ *  2) else the entity cost (from the model) converted with the average duration per cost unit 
+ *     for the same template (or for all the templates) in the previous runs <br>
+ *  3) else the entity cost (from the model) <br>
+ * The most expensive items are generated first, so the biggest jobs never end a parallel generation
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public class LongestJobFirstScheduler implements GenerationCostEstimator {
+
+	private final GenerationStats     stats ;
+	private final EntityCostEstimator entityCostEstimator ;
+	
+	// average duration per entity cost unit (computed from the statistics) 
+	private final Map<String, Double> templatesRatios = new HashMap<>(); 
+	private double globalRatio = 1.0 ; 
+	private long   onceCost = 1 ;
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor
+	 * @param stats statistics of the previous runs (can be empty)
+	 * @param entityCostEstimator estimator used if no statistics 
+	 */
+	public LongestJobFirstScheduler(GenerationStats stats, EntityCostEstimator entityCostEstimator) {
+		super();
+		this.stats = stats ;
+		this.entityCostEstimator = entityCostEstimator ;
+	}
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Computes the average durations per cost unit for the items of the given plan 
+	 * @param plan
+	 */
+	public void init(GenerationPlan plan) {
+		Map<String, long[]> templatesTotals = new HashMap<>(); // template -> { sum of durations, sum of costs }
+		long totalDuration = 0 ;
+		long totalCost = 0 ;
+		long totalOnceDuration = 0 ;
+		int  onceCount = 0 ;
+		for ( GenerationPlanItem item : plan.getItems() ) {
+			Long duration = stats.getDuration(item.getKey());
+			if ( duration != null ) {
+				if ( item.isOnce() ) {
+					totalOnceDuration += duration ;
+					onceCount++ ;
+				}
+				else {
+					long cost = entityCostEstimator.estimateCost(item.getEntity()) ;
+					long[] totals = templatesTotals.get(item.getTemplate());
+					if ( totals == null ) {
+						totals = new long[2];
+						templatesTotals.put(item.getTemplate(), totals);
+					}
+					totals[0] += duration ;
+					totals[1] += cost ;
+					totalDuration += duration ;
+					totalCost += cost ;
+				}
+			}
+		}
+		templatesRatios.clear();
+		for ( Map.Entry<String, long[]> entry : templatesTotals.entrySet() ) {
+			templatesRatios.put(entry.getKey(), (double) entry.getValue()[0] / entry.getValue()[1] );
+		}
+		globalRatio = totalCost > 0 ? (double) totalDuration / totalCost : 1.0 ;
+		onceCost = onceCount > 0 ? totalOnceDuration / onceCount : Math.max(1, Math.round(globalRatio)) ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	@Override
+	public long estimateCost(GenerationPlanItem item) {
+		Long duration = stats.getDuration(item.getKey());
+		if ( duration != null ) {
+			return Math.max(1, duration) ;
+		}
+		if ( item.isOnce() ) {
+			return onceCost ;
+		}
+		Double ratio = templatesRatios.get(item.getTemplate());
+		double r = ratio != null ? ratio : globalRatio ;
+		return Math.max(1, Math.round(r * entityCostEstimator.estimateCost(item.getEntity())));
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Sorts the items of the given plan : the most expensive first (same order for the items with the same cost)
+	 * @param plan
+	 */
+	public void schedule(GenerationPlan plan) {
+		init(plan);
+		final Map<GenerationPlanItem, Long> costs = new HashMap<>();
+		for ( GenerationPlanItem item : plan.getItems() ) {
+			costs.put(item, estimateCost(item));
+		}
+		plan.sort(Collections.reverseOrder(new Comparator<GenerationPlanItem>() {
+			@Override
+			public int compare(GenerationPlanItem item1, GenerationPlanItem item2) {
+				return Long.compare(costs.get(item1), costs.get(item2));
+			}
+		}));
+	}
+}
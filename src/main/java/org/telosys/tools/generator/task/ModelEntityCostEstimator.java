@@ -0,0 +1,45 @@
+/**
+ *  Copyright (C) 2008-2017  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.task;
+
+import org.telosys.tools.generic.model.Entity;
+
+/**
+ * Entity cost estimated from the model : number of attributes, links and foreign keys
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public class ModelEntityCostEstimator implements EntityCostEstimator {
+
+	private static final int LINK_WEIGHT        = 2 ; // a link is used with its target entity
+	private static final int FOREIGN_KEY_WEIGHT = 1 ;
+	
+	@Override
+	public long estimateCost(Entity entity) {
+		long cost = 1 ; // the entity itself
+		if ( entity.getAttributes() != null ) {
+			cost = cost + entity.getAttributes().size() ;
+		}
+		if ( entity.getLinks() != null ) {
+			cost = cost + ( (long) LINK_WEIGHT * entity.getLinks().size() ) ;
+		}
+		if ( entity.getDatabaseForeignKeys() != null ) {
+			cost = cost + ( (long) FOREIGN_KEY_WEIGHT * entity.getDatabaseForeignKeys().size() ) ;
+		}
+		return cost ;
+	}
+}
@@ -0,0 +1,117 @@
+package junit.env.telosys.tools.generator;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.telosys.tools.commons.bundles.TargetDefinition;
+import org.telosys.tools.commons.variables.Variable;
+import org.telosys.tools.generator.task.GenerationPlan;
+import org.telosys.tools.generic.model.Entity;
+import org.telosys.tools.generic.model.Model;
+
+import junit.env.telosys.tools.generator.fakemodel.FakeAttribute;
+import junit.env.telosys.tools.generator.fakemodel.FakeEntity;
+import junit.env.telosys.tools.generator.fakemodel.FakeModel;
+
+/**
+ * Fake models and generation plans shared by the generation tasks tests
+ */
+public class TestsPlan {
+
+	public final static String MODEL_NAME  = "mymodel" ;
+	public final static String DESTINATION = "/tmp/dest" ;
+
+	/**
+	 * Builds a fake entity with the given number of attributes (the first one is the key)
+	 * @param name the entity class name (the table name is the upper case name)
+	 * @param attributes
+	 * @return
+	 */
+	public static FakeEntity buildEntity(String name, int attributes) {
+		FakeEntity entity = new FakeEntity(name, name.toUpperCase());
+		for ( int a = 0 ; a < attributes ; a++ ) {
+			entity.storeAttribute(new FakeAttribute("attr" + a, "string", a == 0));
+		}
+		return entity ;
+	}
+
+	/**
+	 * Builds a fake model with the given entities (without attribute)
+	 * @param names
+	 * @return
+	 */
+	public static FakeModel buildModel(String... names) {
+		FakeModel model = new FakeModel(MODEL_NAME);
+		for ( String name : names ) {
+			model.addEntity(buildEntity(name, 0));
+		}
+		return model ;
+	}
+
+	/**
+	 * Builds a fake model with the given entities
+	 * @param entities
+	 * @return
+	 */
+	public static FakeModel buildModel(FakeEntity... entities) {
+		FakeModel model = new FakeModel(MODEL_NAME);
+		for ( FakeEntity entity : entities ) {
+			model.addEntity(entity);
+		}
+		return model ;
+	}
+
+	public static List<String> entities(String... names) {
+		List<String> list = new LinkedList<>();
+		for ( String name : names ) {
+			list.add(name);
+		}
+		return list ;
+	}
+
+	/**
+	 * Returns the targets 'Bean' (bean.vm) and 'Dao' (dao.vm) generated for each entity
+	 * @return
+	 */
+	public static List<TargetDefinition> entityTargets() {
+		List<TargetDefinition> targets = new LinkedList<>();
+		targets.add(new TargetDefinition("Bean",   "${BEANNAME}.java", "src/bean", "bean.vm", "*"));
+		targets.add(new TargetDefinition("Dao",    "${BEANNAME}Dao.java", "src/dao", "dao.vm", "*"));
+		return targets ;
+	}
+
+	/**
+	 * Returns the entity targets and the 'once' target 'Readme' (readme.vm)
+	 * @return
+	 */
+	public static List<TargetDefinition> targets() {
+		List<TargetDefinition> targets = entityTargets();
+		targets.add(new TargetDefinition("Readme", "README.txt", "doc", "readme.vm", "1"));
+		return targets ;
+	}
+
+	/**
+	 * Builds the plan of the given targets for the given entities
+	 * @param model
+	 * @param entities
+	 * @param targets
+	 * @return
+	 */
+	public static GenerationPlan buildPlan(Model model, List<String> entities, List<TargetDefinition> targets) {
+		return new GenerationPlan(model, entities, targets, new Variable[0], DESTINATION);
+	}
+
+	/**
+	 * Builds the plan of the given targets for all the entities of the model
+	 * @param model
+	 * @param targets
+	 * @return
+	 */
+	public static GenerationPlan buildPlan(Model model, List<TargetDefinition> targets) {
+		List<String> entities = new LinkedList<>();
+		for ( Entity entity : model.getEntities() ) {
+			entities.add(entity.getClassName());
+		}
+		return buildPlan(model, entities, targets);
+	}
+}
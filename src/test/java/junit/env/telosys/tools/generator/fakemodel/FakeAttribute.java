@@ -108,6 +108,8 @@ public class FakeAttribute implements Attribute {
 
 	private boolean isTransient = false; // v 3.3.0
 
+	private String referencedEntityClassName = null; // v 3.3.0
+
 	/**
 	 * Constructor
 	 * @param name
@@ -647,7 +649,11 @@ public class FakeAttribute implements Attribute {
 
 	@Override
 	public String getReferencedEntityClassName() {
-		return null;
+		return referencedEntityClassName;
+	}
+
+	public void setReferencedEntityClassName(String referencedEntityClassName) { // v 3.3.0
+		this.referencedEntityClassName = referencedEntityClassName;
 	}
 
 	@Override
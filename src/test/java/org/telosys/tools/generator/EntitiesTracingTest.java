@@ -0,0 +1,128 @@
+package org.telosys.tools.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.telosys.tools.commons.bundles.TargetDefinition;
+import org.telosys.tools.commons.cfg.TelosysToolsCfg;
+import org.telosys.tools.commons.variables.Variable;
+import org.telosys.tools.generator.context.Target;
+import org.telosys.tools.generator.context.tools.EntitiesTracker;
+import org.telosys.tools.generator.task.TelosysProject;
+import org.telosys.tools.generic.model.Model;
+
+import junit.env.telosys.tools.generator.LoggerProvider;
+import junit.env.telosys.tools.generator.TestsProject;
+import junit.env.telosys.tools.generator.fakemodel.FakeAttribute;
+import junit.env.telosys.tools.generator.fakemodel.FakeEntity;
+import junit.env.telosys.tools.generator.fakemodel.FakeModel;
+
+public class EntitiesTracingTest {
+
+	private TelosysProject initProject() throws Exception {
+		return TestsProject.initProjectEnv("myproject", TestsProject.BUNDLE_NAME) ;
+	}
+
+	private FakeModel buildFakeModel() {
+		FakeModel model = new FakeModel("mymodel");
+		FakeEntity author = new FakeEntity("Author", "AUTHOR");
+		author.storeAttribute(new FakeAttribute("id", "int", true));
+		model.addEntity(author);
+		FakeEntity book = new FakeEntity("Book", "BOOK");
+		book.storeAttribute(new FakeAttribute("id", "int", true));
+		FakeAttribute authorId = new FakeAttribute("authorId", "int", false);
+		authorId.setReferencedEntityClassName("Author");
+		book.storeAttribute(authorId);
+		model.addEntity(book);
+		FakeEntity publisher = new FakeEntity("Publisher", "PUBLISHER");
+		publisher.storeAttribute(new FakeAttribute("id", "int", true));
+		model.addEntity(publisher);
+		return model ;
+	}
+
+	/**
+	 * Renders the given template content for the given entity with the tracing enabled
+	 * @return the traced entities
+	 */
+	private Set<String> render(TelosysProject telosysProject, Model model, String entityName,
+			String templateName, String templateContent) throws Exception {
+		TelosysToolsCfg telosysToolsCfg = telosysProject.loadTelosysToolsCfg();
+		File templateFile = new File(telosysToolsCfg.getTemplatesFolderAbsolutePath(TestsProject.BUNDLE_NAME), templateName);
+		Files.write(templateFile.toPath(), templateContent.getBytes(StandardCharsets.UTF_8));
+
+		TargetDefinition targetDefinition = new TargetDefinition("Tracing", templateName + ".txt", "tracing", templateName, "*");
+		Target target = new Target(targetDefinition, model.getEntityByClassName(entityName), new Variable[0]);
+		List<String> selectedEntities = new LinkedList<>();
+		selectedEntities.add("Author");
+		selectedEntities.add(entityName);
+
+		Generator generator = new Generator(telosysToolsCfg, TestsProject.BUNDLE_NAME, LoggerProvider.getLogger());
+		generator.setEntitiesTracing(true);
+		generator.generateTarget(target, model, selectedEntities, null);
+		return generator.getTracedEntities();
+	}
+
+	private Set<String> set(String... names) {
+		return new HashSet<>(Arrays.asList(names));
+	}
+
+	@Test
+	public void testEntityOnly() throws Exception {
+		Set<String> entities = render(initProject(), buildFakeModel(), "Book", "tracing_entity.vm",
+				"$entity.name \n");
+		assertEquals(set("Book"), entities);
+		assertNull(EntitiesTracker.getCurrent()); // detached after the rendering
+	}
+
+	@Test
+	public void testLinkTargetEntity() throws Exception {
+		TelosysProject telosysProject = initProject();
+		Model model = telosysProject.loadModelFromDbRep(TestsProject.REPO_FILENAME);
+		Set<String> entities = render(telosysProject, model, "Book", "tracing_link.vm",
+				"#foreach( $link in $entity.links )#if( $link.fieldName == 'author' )$link.targetEntity.name#end#end\n");
+		assertTrue(entities.contains("Book"));
+		assertTrue(entities.contains("Author"));
+		assertFalse(entities.contains("Publisher")); // link not used
+		assertFalse(entities.contains(EntitiesTracker.ALL_ENTITIES));
+	}
+
+	@Test
+	public void testAttributeReferencedEntity() throws Exception {
+		Set<String> entities = render(initProject(), buildFakeModel(), "Book", "tracing_attribute.vm",
+				"#foreach( $attribute in $entity.attributes )#if( $attribute.name == 'authorId' )$attribute.referencedEntity.name#end#end\n");
+		assertEquals(set("Author", "Book"), entities);
+	}
+
+	@Test
+	public void testModelGetEntityByClassName() throws Exception {
+		Set<String> entities = render(initProject(), buildFakeModel(), "Book", "tracing_model.vm",
+				"$model.getEntityByClassName('Publisher').name \n");
+		assertEquals(set("Book", "Publisher"), entities);
+	}
+
+	@Test
+	public void testModelAllEntities() throws Exception {
+		Set<String> entities = render(initProject(), buildFakeModel(), "Book", "tracing_all.vm",
+				"#foreach( $e in $model.allEntites )$e.name #end\n");
+		assertTrue(entities.contains(EntitiesTracker.ALL_ENTITIES));
+	}
+
+	@Test
+	public void testSelectedEntities() throws Exception {
+		Set<String> entities = render(initProject(), buildFakeModel(), "Book", "tracing_selected.vm",
+				"#foreach( $e in $selectedEntities )$e.name #end\n");
+		assertTrue(entities.contains(EntitiesTracker.ALL_ENTITIES));
+	}
+}
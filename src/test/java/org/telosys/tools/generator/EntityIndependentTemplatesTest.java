@@ -0,0 +1,130 @@
+package org.telosys.tools.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.telosys.tools.commons.bundles.TargetDefinition;
+import org.telosys.tools.commons.cfg.TelosysToolsCfg;
+import org.telosys.tools.commons.variables.Variable;
+import org.telosys.tools.generator.context.Target;
+import org.telosys.tools.generic.model.Model;
+
+import junit.env.telosys.tools.generator.LoggerProvider;
+import junit.env.telosys.tools.generator.TestsProject;
+import junit.env.telosys.tools.generator.fakemodel.FakeAttribute;
+import junit.env.telosys.tools.generator.fakemodel.FakeEntity;
+import junit.env.telosys.tools.generator.fakemodel.FakeModel;
+
+public class EntityIndependentTemplatesTest {
+
+	private void createFile(Path dir, String name, String content) throws IOException {
+		Path file = dir.resolve(name);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Path createBundle() throws IOException {
+		Path bundle = Files.createTempDirectory("bundle");
+		createFile(bundle, "bean.vm",           "public class ${entity.name} {\n}\n");
+		createFile(bundle, "static.vm",         "#parse('include/header.vm')\n#footer()\nProject $project.name\n");
+		createFile(bundle, "include/header.vm", "// Generated $now.date \n");
+		createFile(bundle, "lib/library.vm",    "#macro(footer)// end#end\n#macro(classname)$entity.name#end\n");
+		createFile(bundle, "macro.vm",          "class #classname()\n");
+		createFile(bundle, "string.vm",         "#set($file = \"${target.file}\")\n$file\n");
+		createFile(bundle, "evaluate.vm",       "#evaluate('$entity')\n");
+		createFile(bundle, "dynamic.vm",        "#parse(\"include/${name}.vm\")\n");
+		createFile(bundle, "fn.vm",             "$fn.get('entity', '')\n");
+		createFile(bundle, "unknown_macro.vm",  "#undefined()\nText\n");
+		createFile(bundle, "directives.vm",     "#foreach($i in [1..2])$i#end\n#if($i > 1)#break#end\n#define($d)D#end\n");
+		return bundle ;
+	}
+
+	@Test
+	public void testStaticAnalysis() throws IOException {
+		EntityIndependentTemplates templates = new EntityIndependentTemplates(createBundle().toFile());
+		assertFalse(templates.isEntityIndependent("bean.vm"));
+		assertTrue(templates.isEntityIndependent("static.vm"));
+		assertTrue(templates.isEntityIndependent("/static.vm"));
+		assertFalse(templates.isEntityIndependent("macro.vm"));   // $entity in the macro
+		assertFalse(templates.isEntityIndependent("string.vm"));  // $target in an interpolated string
+		assertFalse(templates.isEntityIndependent("evaluate.vm")); // unknown code
+		assertFalse(templates.isEntityIndependent("dynamic.vm")); // unknown file
+		assertFalse(templates.isEntityIndependent("unknown.vm"));
+		assertTrue(templates.isEntityIndependent("fn.vm"));       // not visible in the AST
+		assertFalse(templates.isEntityIndependent("unknown_macro.vm")); // unknown code
+		assertTrue(templates.isEntityIndependent("directives.vm"));
+	}
+
+	@Test
+	public void testReferences() throws IOException {
+		TemplatesDependencyGraph graph = new TemplatesDependencyGraph(createBundle().toFile());
+		graph.build();
+		// only the macros called are used ( 'classname' is not called )
+		assertEquals(new HashSet<>(Arrays.asList("now", "project")), graph.getReferences("static.vm"));
+		assertEquals(new HashSet<>(Arrays.asList("entity")), graph.getReferences("macro.vm"));
+		assertEquals(new HashSet<>(Arrays.asList("file", "target")), graph.getReferences("string.vm"));
+		assertNull(graph.getReferences("evaluate.vm"));
+		assertNull(graph.getReferences("dynamic.vm"));
+		assertNull(graph.getReferences("unknown_macro.vm")); // macro not defined in the bundle
+		assertEquals(new HashSet<>(Arrays.asList("d", "i")), graph.getReferences("directives.vm"));
+	}
+
+	@Test
+	public void testRuntimeCheck() throws IOException {
+		EntityIndependentTemplates templates = new EntityIndependentTemplates(createBundle().toFile());
+
+		// first rendering without entity dependent object
+		assertTrue(templates.isEntityIndependent("static.vm"));
+		assertTrue(templates.checkContextObjects("static.vm", new HashSet<>(Arrays.asList("myvar"))));
+		templates.putRenderedTemplate("static.vm", "result", null);
+		assertNotNull(templates.getRenderedTemplate("static.vm"));
+		assertEquals("result", templates.getRenderedTemplate("static.vm").getResult());
+
+		// first rendering reading $entity by name
+		assertTrue(templates.isEntityIndependent("fn.vm"));
+		assertFalse(templates.checkContextObjects("fn.vm", new HashSet<>(Arrays.asList("entity"))));
+		assertFalse(templates.isEntityIndependent("fn.vm"));
+		assertNull(templates.getRenderedTemplate("fn.vm"));
+
+		assertEquals(1, templates.getRenderedTemplatesCount());
+	}
+
+	private boolean generate(TelosysToolsCfg telosysToolsCfg, EntityIndependentTemplates templates, 
+			Model model, String entityName) throws Exception {
+		TargetDefinition targetDefinition = new TargetDefinition("Static", "${BEANNAME}.txt", "static", "reused.vm", "*");
+		Target target = new Target(targetDefinition, model.getEntityByClassName(entityName), new Variable[0]);
+		Generator generator = new Generator(telosysToolsCfg, TestsProject.BUNDLE_NAME, LoggerProvider.getLogger());
+		generator.setEntityIndependentTemplates(templates);
+		generator.generateTarget(target, model, Arrays.asList(entityName), null);
+		return generator.isResultReused();
+	}
+
+	@Test
+	public void testGeneratorResultReused() throws Exception {
+		TelosysToolsCfg telosysToolsCfg = TestsProject.initProjectEnv("myproject", TestsProject.BUNDLE_NAME).loadTelosysToolsCfg();
+		File bundleFolder = new File(telosysToolsCfg.getTemplatesFolderAbsolutePath(TestsProject.BUNDLE_NAME));
+		createFile(bundleFolder.toPath(), "reused.vm", "Static content\n");
+		FakeModel model = new FakeModel("mymodel");
+		for ( String name : Arrays.asList("Author", "Book") ) {
+			FakeEntity entity = new FakeEntity(name, name.toUpperCase());
+			entity.storeAttribute(new FakeAttribute("id", "int", true));
+			model.addEntity(entity);
+		}
+		EntityIndependentTemplates templates = new EntityIndependentTemplates(bundleFolder);
+		assertFalse(generate(telosysToolsCfg, templates, model, "Author")); // rendered 
+		assertTrue(generate(telosysToolsCfg, templates, model, "Book"));    // result reused (no rendering duration)
+		assertEquals(1, templates.getRenderedTemplatesCount());
+	}
+}
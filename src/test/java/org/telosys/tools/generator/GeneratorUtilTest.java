@@ -0,0 +1,40 @@
+package org.telosys.tools.generator;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class GeneratorUtilTest {
+
+	@Test
+	public void testBlanks() {
+		assertEquals("", GeneratorUtil.blanks(-1));
+		assertEquals("", GeneratorUtil.blanks(0));
+		assertEquals("   ", GeneratorUtil.blanks(3));
+		assertSame(GeneratorUtil.blanks(12), GeneratorUtil.blanks(12));
+		assertEquals(200, GeneratorUtil.blanks(200).length());
+		assertEquals("", GeneratorUtil.blanks(200).trim());
+	}
+
+	@Test
+	public void testPadRight() {
+		assertEquals("abc", GeneratorUtil.padRight("abc", 0));
+		assertEquals("abc", GeneratorUtil.padRight("abc", 2));
+		assertEquals("abc", GeneratorUtil.padRight("abc", 3));
+		assertEquals("abc  ", GeneratorUtil.padRight("abc", 5));
+		String s = GeneratorUtil.padRight("abc", 300);
+		assertEquals(300, s.length());
+		assertEquals("abc", s.trim());
+	}
+
+	@Test
+	public void testAppendBlanks() {
+		StringBuilder sb = new StringBuilder("a");
+		GeneratorUtil.appendBlanks(sb, 2).append("b");
+		assertEquals("a  b", sb.toString());
+		sb = new StringBuilder();
+		GeneratorUtil.appendBlanks(sb, 260);
+		assertEquals(260, sb.length());
+	}
+}
@@ -0,0 +1,74 @@
+package org.telosys.tools.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResourcesSynchronizerTest {
+
+	private Path createFile(Path dir, String name, String content) throws IOException {
+		Path file = dir.resolve(name);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file ;
+	}
+
+	@Test
+	public void testCopyFolder() throws IOException {
+		Path origin = Files.createTempDirectory("res-origin");
+		Path destination = Files.createTempDirectory("res-dest").resolve("static");
+		for ( int i = 0 ; i < 40 ; i++ ) {
+			createFile(origin, "dir" + (i % 3) + "/file" + i + ".txt", "content " + i);
+		}
+		ResourcesSynchronizer synchronizer = new ResourcesSynchronizer(null);
+		File originFile = origin.toFile();
+		File destinationFile = destination.toFile();
+
+		// first copy : all the files 
+		assertEquals(40, synchronizer.copy(originFile, destinationFile, null, null));
+		assertTrue(Files.isRegularFile(destination.resolve("dir1/file1.txt")));
+		assertEquals("content 1", new String(Files.readAllBytes(destination.resolve("dir1/file1.txt")), StandardCharsets.UTF_8));
+
+		// nothing changed : no copy
+		assertEquals(0, synchronizer.copy(originFile, destinationFile, null, null));
+
+		// one file modified (size) and one file with a new date
+		createFile(origin, "dir1/file4.txt", "modified content");
+		Path file5 = origin.resolve("dir2/file5.txt");
+		Files.setLastModifiedTime(file5, FileTime.fromMillis(Files.getLastModifiedTime(file5).toMillis() + 10000));
+		assertEquals(2, synchronizer.copy(originFile, destinationFile, null, null));
+		assertEquals("modified content", new String(Files.readAllBytes(destination.resolve("dir1/file4.txt")), StandardCharsets.UTF_8));
+		assertEquals(0, synchronizer.copy(originFile, destinationFile, null, null));
+	}
+
+	@Test
+	public void testCopySingleFile() throws IOException {
+		Path origin = createFile(Files.createTempDirectory("res-origin"), "single.txt", "abc");
+		Path destination = Files.createTempDirectory("res-dest").resolve("sub/single.txt");
+		ResourcesSynchronizer synchronizer = new ResourcesSynchronizer(null);
+		assertEquals(1, synchronizer.copy(origin.toFile(), destination.toFile(), null, null));
+		assertEquals(0, synchronizer.copy(origin.toFile(), destination.toFile(), null, null));
+	}
+
+	@Test
+	public void testCopyEmptyFolders() throws IOException {
+		Path origin = Files.createTempDirectory("res-origin");
+		Files.createDirectories(origin.resolve("empty1"));
+		Files.createDirectories(origin.resolve("dir/empty2"));
+		createFile(origin, "dir/file.txt", "abc");
+		Path destination = Files.createTempDirectory("res-dest").resolve("static");
+		ResourcesSynchronizer synchronizer = new ResourcesSynchronizer(null);
+		assertEquals(1, synchronizer.copy(origin.toFile(), destination.toFile(), null, null));
+		assertTrue(Files.isDirectory(destination.resolve("empty1")));
+		assertTrue(Files.isDirectory(destination.resolve("dir/empty2")));
+		assertTrue(Files.isRegularFile(destination.resolve("dir/file.txt")));
+	}
+}
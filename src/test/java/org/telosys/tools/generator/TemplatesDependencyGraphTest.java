@@ -0,0 +1,85 @@
+package org.telosys.tools.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class TemplatesDependencyGraphTest {
+
+	private Path createFile(Path dir, String name, String content) throws IOException {
+		Path file = dir.resolve(name);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file ;
+	}
+	
+	private Set<String> set(String... values) {
+		return new HashSet<>(Arrays.asList(values));
+	}
+	
+	private Path createBundle() throws IOException {
+		Path bundle = Files.createTempDirectory("bundle");
+		createFile(bundle, "main.vm",           "#parse(\"include/macros.vm\")\n#header()\nHello\n");
+		createFile(bundle, "include/macros.vm", "#macro(header)Header#end\n");
+		createFile(bundle, "other.vm",          "#footer()\n");
+		createFile(bundle, "lib/library.vm",    "#macro(footer)Footer#end\n");
+		createFile(bundle, "inc.vm",            "#include('static/header.txt')\n");
+		createFile(bundle, "none.vm",           "#set($a = 1)\n#foreach($i in [1..2])$i#end\n");
+		return bundle ;
+	}
+	
+	@Test
+	public void testGraph() throws IOException {
+		Path bundle = createBundle();
+		TemplatesDependencyGraph graph = new TemplatesDependencyGraph(bundle.toFile());
+		graph.build();
+		assertEquals(6, graph.getTemplates().size());
+		
+		assertEquals(set("include/macros.vm"), graph.getDependencies("main.vm"));
+		assertEquals(set("lib/library.vm"), graph.getDependencies("other.vm"));
+		assertEquals(set("static/header.txt"), graph.getDependencies("/inc.vm"));
+		assertEquals(set(), graph.getDependencies("none.vm"));
+		
+		assertEquals(set("include/macros.vm", "main.vm"), graph.getDependentTemplates("include/macros.vm"));
+		assertEquals(set("lib/library.vm", "other.vm"), graph.getDependentTemplates("lib/library.vm"));
+		assertEquals(set("static/header.txt", "inc.vm"), graph.getDependentTemplates("static/header.txt"));
+		assertEquals(set("none.vm"), graph.getDependentTemplates("none.vm"));
+		
+		assertTrue(graph.isKnown("static/header.txt"));
+		assertFalse(graph.isKnown("static/other.txt"));
+	}
+
+	@Test
+	public void testDynamicAndUpdate() throws IOException {
+		Path bundle = createBundle();
+		TemplatesDependencyGraph graph = new TemplatesDependencyGraph(bundle.toFile());
+		graph.build();
+		
+		// dynamic file name => depends on all the files 
+		Path dyn = createFile(bundle, "dyn.vm", "#parse(\"include/${name}.vm\")\n");
+		graph.update(dyn);
+		assertTrue(graph.dependsOnAll("dyn.vm"));
+		assertEquals(set("lib/library.vm", "other.vm", "dyn.vm"), graph.getDependentTemplates("lib/library.vm"));
+		
+		// template modified 
+		createFile(bundle, "dyn.vm", "#parse('include/macros.vm')\n");
+		graph.update(dyn);
+		assertFalse(graph.dependsOnAll("dyn.vm"));
+		assertEquals(set("include/macros.vm", "main.vm", "dyn.vm"), graph.getDependentTemplates("include/macros.vm"));
+		
+		// template deleted
+		Files.delete(dyn);
+		graph.update(dyn);
+		assertEquals(set("include/macros.vm", "main.vm"), graph.getDependentTemplates("include/macros.vm"));
+	}
+}
@@ -0,0 +1,153 @@
+package org.telosys.tools.generator.context;
+
+import org.junit.Test;
+import org.telosys.tools.generic.model.types.NeutralType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import junit.env.telosys.tools.generator.fakemodel.FakeAttribute;
+
+public class AttributeInContextTest {
+
+	private AttributeInContext buildAttribute(FakeAttribute attribute) {
+		return new AttributeInContext(null, attribute, null, new EnvInContext());
+	}
+	
+	/**
+	 * Attribute with a JPA sequence generator and a JPA table generator
+	 */
+	private static class GeneratedAttribute extends FakeAttribute {
+		public GeneratedAttribute() {
+			super("id", NeutralType.LONG, true);
+		}
+		@Override
+		public boolean isGeneratedValue() { return true; }
+		@Override
+		public String getGeneratedValueStrategy() { return "SEQUENCE"; }
+		@Override
+		public String getGeneratedValueGenerator() { return "MY_GEN"; }
+		@Override
+		public boolean hasSequenceGenerator() { return true; }
+		@Override
+		public String getSequenceGeneratorName() { return "MY_GEN"; }
+		@Override
+		public String getSequenceGeneratorSequenceName() { return "MY_SEQ"; }
+		@Override
+		public Integer getSequenceGeneratorAllocationSize() { return 5; }
+		@Override
+		public boolean hasTableGenerator() { return true; }
+		@Override
+		public String getTableGeneratorName() { return "TAB_GEN"; }
+		@Override
+		public String getTableGeneratorTable() { return "GEN_TABLE"; }
+		@Override
+		public String getTableGeneratorPkColumnName() { return "PK_COL"; }
+		@Override
+		public String getTableGeneratorValueColumnName() { return "VAL_COL"; }
+		@Override
+		public String getTableGeneratorPkColumnValue() { return "PK_VAL"; }
+	}
+	
+	@Test
+	public void testFlags() {
+		FakeAttribute a = new FakeAttribute("code", NeutralType.STRING, true);
+		a.setSelected(true);
+		a.setNotNull(true);
+		a.setNotEmpty(true);
+		a.setNotBlank(true);
+		a.setLongText(true);
+		a.setDatePast(true);
+		a.setDateFuture(true);
+		a.setFKSimple(true);
+		a.setAutoIncremented(true);
+		a.setDatabaseNotNull(true);
+		a.setTransient(true);
+		AttributeInContext attribute = buildAttribute(a);
+		assertTrue(attribute.isSelected());
+		assertTrue(attribute.isNotNull());
+		assertTrue(attribute.isNotEmpty());
+		assertTrue(attribute.isNotBlank());
+		assertTrue(attribute.isLongText());
+		assertTrue(attribute.hasDatePastValidation());
+		assertTrue(attribute.hasDateFutureValidation());
+		assertTrue(attribute.isKeyElement());
+		assertTrue(attribute.isFK());
+		assertTrue(attribute.isFKSimple());
+		assertFalse(attribute.isFKComposite());
+		assertTrue(attribute.isAutoIncremented());
+		assertTrue(attribute.isGeneratedValue());
+		assertTrue(attribute.isDatabaseNotNull());
+		assertTrue(attribute.isTransient());
+		assertFalse(attribute.hasSequenceGenerator());
+		assertFalse(attribute.hasTableGenerator());
+		assertFalse(attribute.isUsedInLinks());
+		assertFalse(attribute.isUsedInSelectedLinks());
+		
+		AttributeInContext attribute2 = buildAttribute(new FakeAttribute("name", NeutralType.STRING, false));
+		assertFalse(attribute2.isSelected());
+		assertFalse(attribute2.isNotNull());
+		assertFalse(attribute2.isNotEmpty());
+		assertFalse(attribute2.isNotBlank());
+		assertFalse(attribute2.isLongText());
+		assertFalse(attribute2.hasDatePastValidation());
+		assertFalse(attribute2.hasDateFutureValidation());
+		assertFalse(attribute2.isKeyElement());
+		assertFalse(attribute2.isFK());
+		assertFalse(attribute2.isAutoIncremented());
+		assertFalse(attribute2.isGeneratedValue());
+		assertFalse(attribute2.isDatabaseNotNull());
+		assertFalse(attribute2.isTransient());
+	}
+
+	@Test
+	public void testJpaGenerator() {
+		AttributeInContext attribute = buildAttribute(new GeneratedAttribute());
+		assertTrue(attribute.isGeneratedValue());
+		assertEquals("SEQUENCE", attribute.getGeneratedValueStrategy());
+		assertEquals("MY_GEN", attribute.getGeneratedValueGenerator());
+		assertTrue(attribute.hasSequenceGenerator());
+		assertEquals("MY_GEN", attribute.getSequenceGeneratorName());
+		assertEquals("MY_SEQ", attribute.getSequenceGeneratorSequenceName());
+		assertEquals(5, attribute.getSequenceGeneratorAllocationSize());
+		assertTrue(attribute.hasTableGenerator());
+		assertEquals("TAB_GEN", attribute.getTableGeneratorName());
+		assertEquals("GEN_TABLE", attribute.getTableGeneratorTable());
+		assertEquals("PK_COL", attribute.getTableGeneratorPkColumnName());
+		assertEquals("VAL_COL", attribute.getTableGeneratorValueColumnName());
+		assertEquals("PK_VAL", attribute.getTableGeneratorPkColumnValue());
+	}
+
+	@Test
+	public void testDefaultSharedInstances() {
+		// auto-incremented : generated value with the default strategy 
+		FakeAttribute a = new FakeAttribute("id", NeutralType.INTEGER, true);
+		a.setAutoIncremented(true);
+		AttributeInContext autoIncremented = buildAttribute(a);
+		assertTrue(autoIncremented.isGeneratedValue());
+		assertEquals("", autoIncremented.getGeneratedValueStrategy());
+		assertEquals(-1, autoIncremented.getSequenceGeneratorAllocationSize());
+		
+		// no generator and no validation : shared void instances (not modified by the other attributes)
+		buildAttribute(new GeneratedAttribute());
+		for ( String name : new String[] { "a", "b" } ) {
+			AttributeInContext attribute = buildAttribute(new FakeAttribute(name, NeutralType.STRING, false));
+			assertFalse(attribute.isGeneratedValue());
+			assertEquals("", attribute.getGeneratedValueStrategy());
+			assertEquals("", attribute.getGeneratedValueGenerator());
+			assertEquals("", attribute.getSequenceGeneratorName());
+			assertEquals("", attribute.getSequenceGeneratorSequenceName());
+			assertEquals(-1, attribute.getSequenceGeneratorAllocationSize());
+			assertEquals("", attribute.getTableGeneratorName());
+			assertEquals("", attribute.getTableGeneratorTable());
+			assertEquals("", attribute.getTableGeneratorPkColumnName());
+			assertEquals("", attribute.getTableGeneratorValueColumnName());
+			assertEquals("", attribute.getTableGeneratorPkColumnValue());
+			assertEquals("", attribute.getMinLength());
+			assertEquals("", attribute.getPattern());
+			assertEquals("", attribute.getMinValue());
+			assertEquals("", attribute.getDateBeforeValue());
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package org.telosys.tools.generator.context;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import junit.env.telosys.tools.generator.fakemodel.FakeAttribute;
+import junit.env.telosys.tools.generator.fakemodel.FakeEntity;
+import junit.env.telosys.tools.generator.fakemodel.FakeForeignKey;
+
+import static org.junit.Assert.assertEquals;
+
+public class DdlInContextTest {
+
+	private FakeAttribute buildAttribute(String name, String neutralType, boolean key, String dbName) {
+		FakeAttribute attribute = new FakeAttribute(name, neutralType, key);
+		attribute.setDatabaseName(dbName);
+		attribute.setNotNull(key);
+		attribute.setDatabaseSize("20");
+		return attribute ;
+	}
+	
+	private EntityInContext buildEntity(String className, String table, String referencedTable, EnvInContext env) {
+		FakeEntity entity = new FakeEntity(className, table);
+		entity.storeAttribute(buildAttribute("id", "int", true, "ID"));
+		entity.storeAttribute(buildAttribute("name", "string", false, "NAME"));
+		if ( referencedTable != null ) {
+			entity.storeForeignKey(new FakeForeignKey("FK_" + table, table, referencedTable));
+		}
+		return new EntityInContext(entity, null, null, env);
+	}
+	
+	private String names(List<EntityInContext> entities) {
+		StringBuilder sb = new StringBuilder();
+		for ( EntityInContext e : entities ) {
+			sb.append(e.getDatabaseTable()).append(" ");
+		}
+		return sb.toString().trim();
+	}
+	
+	@Test
+	public void testSortByDependencies() {
+		EnvInContext env = new EnvInContext();
+		List<EntityInContext> entities = new LinkedList<>();
+		entities.add(buildEntity("Employee", "EMPLOYEE", "TEAM", env));
+		entities.add(buildEntity("Team", "TEAM", "COUNTRY", env));
+		entities.add(buildEntity("Country", "COUNTRY", null, env));
+		entities.add(buildEntity("Foo", "FOO", null, env));
+		assertEquals("COUNTRY TEAM EMPLOYEE FOO", names(DdlInContext.sortByDependencies(entities)));
+	}
+
+	@Test
+	public void testSortByDependenciesWithCycle() {
+		EnvInContext env = new EnvInContext();
+		List<EntityInContext> entities = new LinkedList<>();
+		entities.add(buildEntity("A", "A", "B", env));
+		entities.add(buildEntity("B", "B", "A", env));
+		entities.add(buildEntity("C", "C", "C", env)); // self reference
+		// cycle A <-> B : the first remaining entity is taken 
+		assertEquals("C A B", names(DdlInContext.sortByDependencies(entities)));
+	}
+
+	@Test
+	public void testSortByDependenciesLongChain() {
+		EnvInContext env = new EnvInContext();
+		List<EntityInContext> entities = new LinkedList<>();
+		int n = 20000 ;
+		for ( int i = 0 ; i < n ; i++ ) {
+			// each table references the next one
+			entities.add(buildEntity("E" + i, "T" + i, ( i < n - 1 ? "T" + (i + 1) : null ), env));
+		}
+		List<EntityInContext> sorted = DdlInContext.sortByDependencies(entities);
+		assertEquals(n, sorted.size());
+		assertEquals("T" + (n - 1), sorted.get(0).getDatabaseTable());
+		assertEquals("T0", sorted.get(n - 1).getDatabaseTable());
+	}
+
+	@Test
+	public void testCreateTable() {
+		EnvInContext env = new EnvInContext();
+		env.setDatabase("PostgreSQL");
+		DdlInContext ddl = new DdlInContext(env);
+		EntityInContext entity = buildEntity("Country", "COUNTRY", null, env);
+		String expected = "CREATE TABLE COUNTRY (\n"
+				+ "  ID integer NOT NULL,\n"
+				+ "  NAME varchar(20),\n"
+				+ "  PRIMARY KEY(ID)\n"
+				+ ");\n";
+		assertEquals(expected, ddl.createTable(entity));
+		// same result from the cache
+		assertEquals(expected, ddl.createTable(entity));
+	}
+}
@@ -149,6 +149,25 @@ public class EntityInContextTest {
 		assertEquals("{{name}}, {{desc}}", e.nonKeyAttributesNamesAsString(", ", "{{", "}}"));
 	}
 
+	@Test
+	public void namesWithPrefixAndSuffix() {
+		EnvInContext env = new EnvInContext();
+		EntityInContext e = new EntityInContext(new Car(), "org.bean", null, env);
+		assertEquals("Car", e.getName());
+		assertEquals("org.bean.Car", e.getFullName());
+		// names must be updated after each change in the environment 
+		env.setEntityClassNamePrefix("My");
+		assertEquals("MyCar", e.getName());
+		assertEquals("org.bean.MyCar", e.getFullName());
+		env.setEntityClassNameSuffix("Entity");
+		assertEquals("MyCarEntity", e.getName());
+		assertEquals("org.bean.MyCarEntity", e.getFullName());
+		env.setEntityClassNamePrefix("");
+		env.setEntityClassNameSuffix("");
+		assertEquals("Car", e.getName());
+		assertEquals("org.bean.Car", e.getFullName());
+	}
+
 	//---------------------------------------------------------------------------
 	// Test with 'Foo1' entity : only 1 attribute (key element)
 	//---------------------------------------------------------------------------
@@ -1,13 +1,19 @@
 package org.telosys.tools.generator.context;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileWriter;
+import java.util.Iterator;
 import java.util.List;
 
 import org.junit.Test;
+import org.telosys.tools.generator.context.tools.MemoCache;
+import org.telosys.tools.generator.context.tools.RenderingResources;
 
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class FileInContextTest {
 	
@@ -109,4 +115,79 @@ public class FileInContextTest {
 		FileInContext file = getFile("foo-csv.txt") ;
 		file.loadValues(null);
 	}
+
+	@Test
+	public void testReadLines() throws Exception {
+		FileInContext file = getFile("foo.txt") ;
+		Iterator<String> iterator = file.readLines();
+		assertTrue(iterator.hasNext());
+		assertEquals("aa", iterator.next());
+		assertEquals("bb", iterator.next());
+		assertTrue(iterator.hasNext());
+		iterator.next();
+		assertFalse(iterator.hasNext());
+		
+		iterator = file.readLines(1);
+		assertEquals("bb", iterator.next());
+	}
+	
+	@Test
+	public void testValuesCanBeModified() throws Exception {
+		MemoCache memoCache = new MemoCache();
+		File csvFile = new File("src/test/resources/files/foo-csv.txt");
+		List<List<String>> values = new FileInContext(csvFile, memoCache).loadValues(";");
+		int rows = values.size();
+		values.get(0).add("new");
+		values.remove(1);
+		// other call (parsed file from the cache) => not impacted by the changes
+		List<List<String>> values2 = new FileInContext(csvFile, memoCache).loadValues(";");
+		assertEquals(rows, values2.size());
+		assertEquals(values.get(0).size() - 1, values2.get(0).size());
+	}
+	
+	@Test
+	public void testReadLinesClosedAtEndOfRendering() throws Exception {
+		FileInContext file = getFile("foo.txt") ;
+		List<Closeable> previous = RenderingResources.begin();
+		Iterator<String> iterator ;
+		try {
+			iterator = file.readLines();
+			assertEquals("aa", iterator.next()); // not read until the end (eg '#break')
+		} finally {
+			RenderingResources.end(previous);
+		}
+		// the reader has been closed at the end of the rendering
+		try {
+			iterator.next();
+			iterator.next();
+			fail("Exception expected");
+		} catch (Exception e) {
+			// expected 
+		}
+	}
+	
+	@Test
+	public void testLinesCacheInvalidation() throws Exception {
+		File tmpFile = File.createTempFile("telosys-file-", ".txt");
+		tmpFile.deleteOnExit();
+		writeFile(tmpFile, "aa\nbb\n");
+		MemoCache memoCache = new MemoCache();
+
+		FileInContext file = new FileInContext(tmpFile, memoCache);
+		assertEquals(2, file.loadLines().size());
+		assertEquals(1, memoCache.size());
+		// other instance for the same file => lines from the cache
+		assertEquals(2, new FileInContext(tmpFile, memoCache).loadLines().size());
+		
+		// file modified (new size) => file reloaded
+		writeFile(tmpFile, "aa\nbb\ncc\n");
+		assertEquals(3, new FileInContext(tmpFile, memoCache).loadLines().size());
+		assertEquals("aa\nbb\ncc\n", file.loadContent());
+	}
+	
+	private void writeFile(File file, String content) throws Exception {
+		try ( FileWriter writer = new FileWriter(file) ) {
+			writer.write(content);
+		}
+	}
 }
@@ -285,4 +285,22 @@ public class FnInContextForJavaTest {
 		Assert.assertEquals("", fn.argumentsListWithWrapperType(null) );
 		Assert.assertEquals("", fn.argumentsListWithWrapperType(ATTRIBUTES_VOID_LIST) );
 	}
+
+	//-----------------------------------------------------------------------------------
+	// fn.buildValues
+	//-----------------------------------------------------------------------------------
+	@Test
+	public void testBuildValues() { 
+		EnvInContext envInContext = new EnvInContext();
+		List<AttributeInContext> attributes = buildAttributes(envInContext);
+		FnInContext fn = new FnInContext(null, envInContext);
+		ValuesInContext values1 = fn.buildValues(attributes, 1);
+		Assert.assertEquals(3, values1.size() );
+		// same attributes and same step => same values 
+		Assert.assertSame(values1, fn.buildValues(buildAttributes(envInContext), 1) );
+		// other step => other values 
+		ValuesInContext values2 = fn.buildValues(attributes, 2);
+		Assert.assertNotSame(values1, values2 );
+		Assert.assertNotEquals(values1.getAllValues(), values2.getAllValues() );
+	}
 }
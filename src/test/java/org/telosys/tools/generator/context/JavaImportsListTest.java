@@ -0,0 +1,57 @@
+package org.telosys.tools.generator.context;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class JavaImportsListTest {
+
+	@Test
+	public void testSortedWithoutDuplicates() {
+		JavaImportsList imports = new JavaImportsList();
+		imports.declareType("java.util.Date");
+		imports.declareType("java.math.BigDecimal");
+		imports.declareType("java.util.Date"); // duplicate
+		imports.declareType("java.time.LocalDate");
+		imports.declareType("java.math.BigDecimal"); // duplicate
+		imports.declareType("java.lang.String"); // no import
+		imports.declareType("int"); // no import
+		assertEquals(Arrays.asList("java.math.BigDecimal", "java.time.LocalDate", "java.util.Date"),
+				imports.getFinalImportsList());
+	}
+
+	@Test
+	public void testCollidedTypes() {
+		JavaImportsList imports = new JavaImportsList();
+		imports.declareType("java.util.Date");
+		imports.declareType("java.sql.Date");
+		imports.declareType("java.sql.Time");
+		assertEquals(Arrays.asList("java.sql.Time"), imports.getFinalImportsList());
+	}
+
+	@Test
+	public void testBuildImports() {
+		List<String> basicTypes = new LinkedList<>();
+		basicTypes.add("java.util.List");
+		basicTypes.add("java.math.BigDecimal");
+		basicTypes.add("java.lang.Integer");
+		List<String> linkTypes = new LinkedList<>();
+		linkTypes.add("List<Book>");        // already declared
+		linkTypes.add(" Set<Author> ");
+		linkTypes.add("Collection<Book>");
+		linkTypes.add("Map < String, Book >");
+		linkTypes.add("TreeSet<Book>");
+		linkTypes.add("Set<Book>");         // duplicate
+		linkTypes.add("Publisher");         // not a collection
+		linkTypes.add("MyList<Book>");      // unknown collection
+		linkTypes.add("List<Book");         // invalid
+		JavaImportsList imports = new JavaImportsList();
+		imports.buildImports(basicTypes, linkTypes);
+		assertEquals(Arrays.asList("java.math.BigDecimal", "java.util.Collection", "java.util.List",
+				"java.util.Map", "java.util.Set", "java.util.TreeSet"), imports.getFinalImportsList());
+	}
+}
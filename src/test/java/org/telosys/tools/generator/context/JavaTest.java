@@ -0,0 +1,84 @@
+package org.telosys.tools.generator.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+import org.telosys.tools.generator.context.tools.LinesBuilder;
+import org.telosys.tools.generator.context.tools.MemoCache;
+import org.telosys.tools.generic.model.types.NeutralType;
+
+import junit.env.telosys.tools.generator.fakemodel.FakeAttribute;
+
+public class JavaTest {
+
+	private List<AttributeInContext> buildAttributes() {
+		EnvInContext env = new EnvInContext();
+		List<AttributeInContext> attributes = new LinkedList<>();
+		attributes.add(new AttributeInContext(null, new FakeAttribute("id", NeutralType.INTEGER, true), null, env));
+		attributes.add(new AttributeInContext(null, new FakeAttribute("name", NeutralType.STRING, false), null, env));
+		return attributes ;
+	}
+
+	private String firstLine(LinesBuilder lb, String line) {
+		lb.append(1, line);
+		return lb.toString();
+	}
+
+	@Test
+	public void testEqualsMethodMemo() {
+		MemoCache memoCache = new MemoCache();
+		Java java = new Java(memoCache);
+		List<AttributeInContext> attributes = buildAttributes();
+
+		String tabs = java.equalsMethod("Foo", attributes);
+		assertSame(tabs, java.equalsMethod("Foo", attributes));
+		assertTrue(tabs.startsWith(firstLine(new LinesBuilder(), "public boolean equals(Object obj) { ")));
+		assertEquals(1, memoCache.size());
+
+		String spaces = java.equalsMethod("Foo", attributes, 4);
+		assertSame(spaces, java.equalsMethod("Foo", attributes, 4));
+		assertTrue(spaces.startsWith(firstLine(new LinesBuilder(4), "public boolean equals(Object obj) { ")));
+		assertEquals(2, memoCache.size());
+
+		// explicit -1 : same as 'new LinesBuilder(-1)', not the tabulations variant
+		String minusOne = java.equalsMethod("Foo", attributes, -1);
+		assertEquals(3, memoCache.size());
+		assertFalse(tabs.equals(minusOne));
+		assertFalse(minusOne.contains("\t"));
+		assertTrue(minusOne.startsWith(firstLine(new LinesBuilder(-1), "public boolean equals(Object obj) { ")));
+		assertSame(tabs, java.equalsMethod("Foo", attributes));
+
+		// other class name => other result
+		assertTrue(java.equalsMethod("Bar", attributes).contains("Bar other = (Bar) obj;"));
+		assertEquals(4, memoCache.size());
+	}
+
+	@Test
+	public void testHashCodeMethodMemo() {
+		MemoCache memoCache = new MemoCache();
+		Java java = new Java(memoCache);
+		List<AttributeInContext> attributes = buildAttributes();
+
+		String tabs = java.hashCodeMethod("Foo", attributes);
+		assertSame(tabs, java.hashCodeMethod("Foo", attributes));
+		// class name not used
+		assertSame(tabs, java.hashCodeMethod("Bar", attributes));
+		assertTrue(tabs.startsWith(firstLine(new LinesBuilder(), "public int hashCode() { ")));
+		assertEquals(1, memoCache.size());
+
+		String minusOne = java.hashCodeMethod("Foo", attributes, -1);
+		assertEquals(2, memoCache.size());
+		assertFalse(minusOne.contains("\t"));
+		assertTrue(minusOne.startsWith(firstLine(new LinesBuilder(-1), "public int hashCode() { ")));
+		assertSame(minusOne, java.hashCodeMethod("Foo", attributes, -1));
+
+		// not shared with another cache
+		assertEquals(tabs, new Java(new MemoCache()).hashCodeMethod("Foo", buildAttributes()));
+	}
+}
@@ -0,0 +1,57 @@
+package org.telosys.tools.generator.context;
+
+import org.junit.Test;
+import org.telosys.tools.generator.context.tools.MemoCache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import junit.env.telosys.tools.generator.fakemodel.entities.Car;
+import junit.env.telosys.tools.generator.fakemodel.entities.Employee;
+
+public class JdbcFactoryInContextTest {
+
+	private EntityInContext buildEntity(org.telosys.tools.generic.model.Entity entity) {
+		// a new context object for each target 
+		return new EntityInContext(entity, "org.bean", null, new EnvInContext());
+	}
+	
+	private Object getCachedSqlRequests(MemoCache memoCache, EntityInContext entity, boolean useSchema) {
+		return memoCache.get(MemoCache.key("jdbc.sql", entity.getMemoKey(), useSchema));
+	}
+	
+	@Test
+	public void testCacheHits() {
+		MemoCache memoCache = new MemoCache();
+		JdbcFactoryInContext factory = new JdbcFactoryInContext(memoCache);
+		
+		EntityInContext car1 = buildEntity(new Car());
+		JdbcInContext jdbc1 = factory.getInstance(car1);
+		assertEquals(1, memoCache.size());
+		Object sqlRequests = getCachedSqlRequests(memoCache, car1, false);
+		assertNotNull(sqlRequests);
+		String sqlSelect = jdbc1.getSqlSelect();
+
+		// same entity in another target => same SQL requests (cache hit) 
+		EntityInContext car2 = buildEntity(new Car());
+		JdbcInContext jdbc2 = new JdbcFactoryInContext(memoCache).getInstance(car2);
+		assertEquals(1, memoCache.size());
+		assertSame(sqlRequests, getCachedSqlRequests(memoCache, car2, false));
+		assertSame(sqlSelect, jdbc2.getSqlSelect()); // built once 
+		assertEquals(3, jdbc2.getAttributesForSelect().size());
+		
+		// same entity with schema => other SQL requests 
+		factory.useSchema(true);
+		factory.getInstance(car1);
+		assertEquals(2, memoCache.size());
+		assertNotSame(sqlRequests, getCachedSqlRequests(memoCache, car1, true));
+		factory.getInstance(car2);
+		assertEquals(2, memoCache.size());
+		
+		// other entity 
+		factory.getInstance(buildEntity(new Employee()));
+		assertEquals(3, memoCache.size());
+	}
+}
@@ -0,0 +1,74 @@
+package org.telosys.tools.generator.context;
+
+import org.junit.Test;
+import org.telosys.tools.generator.context.tools.MemoCache;
+import org.telosys.tools.generator.task.TelosysProject;
+import org.telosys.tools.generic.model.Model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import junit.env.telosys.tools.generator.TestsProject;
+
+public class JpaTest {
+
+	private LinkInContext getBookAuthorLink() throws Exception {
+		TelosysProject telosysProject = TestsProject.initProjectEnv("myproject", TestsProject.BUNDLE_NAME) ;
+		Model model = telosysProject.loadModelFromDbRep(TestsProject.REPO_FILENAME);
+		ModelInContext modelInContext = new ModelInContext(model, telosysProject.loadTelosysToolsCfg(), new EnvInContext());
+		for ( LinkInContext link : modelInContext.getEntityByClassName("Book").getLinks() ) {
+			if ( "author".equals(link.getFieldName()) ) {
+				return link ;
+			}
+		}
+		return null ;
+	}
+	
+	@Test
+	public void testSettingsChangeAnnotations() throws Exception {
+		LinkInContext link = getBookAuthorLink();
+		assertNotNull(link);
+		MemoCache memoCache = new MemoCache();
+		Jpa jpa = new Jpa(memoCache);
+		
+		String annotations = jpa.linkAnnotations(4, link);
+		assertTrue(annotations.contains("@ManyToOne"));
+		assertFalse(annotations.contains("fetch"));
+		assertFalse(annotations.contains("insertable"));
+		assertSame(annotations, jpa.linkAnnotations(4, link)); // memoized 
+		
+		//--- fetch type 
+		jpa.setManyToOneFetchType("LAZY");
+		annotations = jpa.linkAnnotations(4, link);
+		assertTrue(annotations.contains("fetch = FetchType.LAZY"));
+		jpa.setManyToOneFetchType("EAGER");
+		annotations = jpa.linkAnnotations(4, link);
+		assertTrue(annotations.contains("fetch = FetchType.EAGER"));
+		jpa.setOneToManyFetchType("LAZY"); // not used for a 'ManyToOne' link 
+		assertEquals(annotations, jpa.linkAnnotations(4, link));
+		
+		//--- insertable / updatable 
+		jpa.setJoinColumnInsertable(false);
+		annotations = jpa.linkAnnotations(4, link);
+		assertTrue(annotations.contains("insertable=false"));
+		assertFalse(annotations.contains("updatable=false"));
+		jpa.setJoinColumnUpdatable("false");
+		annotations = jpa.linkAnnotations(4, link);
+		assertTrue(annotations.contains("insertable=false"));
+		assertTrue(annotations.contains("updatable=false"));
+		jpa.setJoinColumnInsertable(true);
+		jpa.setJoinColumnUpdatable(true);
+		annotations = jpa.linkAnnotations(4, link);
+		assertFalse(annotations.contains("insertable=false"));
+		assertFalse(annotations.contains("updatable=false"));
+		
+		//--- collection type : new settings => computed again (same text for a 'ManyToOne' link)
+		int size = memoCache.size();
+		jpa.setCollectionType("Set");
+		assertEquals(annotations, jpa.linkAnnotations(4, link));
+		assertEquals(size + 1, memoCache.size());
+	}
+}
@@ -0,0 +1,70 @@
+package org.telosys.tools.generator.context;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.telosys.tools.commons.cfg.TelosysToolsCfg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import junit.env.telosys.tools.generator.TestsProject;
+import junit.env.telosys.tools.generator.fakemodel.FakeAttribute;
+import junit.env.telosys.tools.generator.fakemodel.FakeEntity;
+import junit.env.telosys.tools.generator.fakemodel.FakeModel;
+
+public class ModelInContextTest {
+
+	private FakeModel buildModel(int entitiesCount) {
+		FakeModel model = new FakeModel("mymodel");
+		for ( int i = 0 ; i < entitiesCount ; i++ ) {
+			// names not sorted (the original order must be kept)
+			FakeEntity entity = new FakeEntity("Entity" + ( ( i * 37 ) % entitiesCount ), "TABLE" + i);
+			entity.storeAttribute(new FakeAttribute("id", "int", true));
+			FakeAttribute ref = new FakeAttribute("refId", "int", false);
+			ref.setReferencedEntityClassName("Entity0");
+			entity.storeAttribute(ref);
+			model.addEntity(entity);
+		}
+		return model ;
+	}
+	
+	private TelosysToolsCfg getTelosysToolsCfg() throws Exception {
+		return TestsProject.initProjectEnv("myproject", TestsProject.BUNDLE_NAME).loadTelosysToolsCfg();
+	}
+	
+	@Test
+	public void testParallelBuildOrder() throws Exception {
+		FakeModel model = buildModel(500); // more than the parallel build threshold
+		EnvInContext env = new EnvInContext();
+		TelosysToolsCfg cfg = getTelosysToolsCfg();
+		ModelInContext modelInContext = new ModelInContext(model, cfg, env);
+		List<EntityInContext> entities = modelInContext.getAllEntites();
+		
+		// same order as the sequential build 
+		assertEquals(model.getEntities().size(), entities.size());
+		for ( int i = 0 ; i < entities.size() ; i++ ) {
+			EntityInContext sequential = new EntityInContext(model.getEntities().get(i), cfg.getEntityPackage(), modelInContext, env);
+			assertEquals(sequential.getName(), entities.get(i).getName());
+			assertEquals(sequential.getDatabaseTable(), entities.get(i).getDatabaseTable());
+		}
+		
+		// model attached to each entity and attribute 
+		EntityInContext entity0 = modelInContext.getEntityByClassName("Entity0");
+		for ( EntityInContext entity : entities ) {
+			assertSame(entity0, entity.getAttributes().get(1).getReferencedEntity());
+		}
+	}
+
+	@Test
+	public void testSequentialBuildOrder() throws Exception {
+		FakeModel model = buildModel(10);
+		ModelInContext modelInContext = new ModelInContext(model, getTelosysToolsCfg(), new EnvInContext());
+		List<EntityInContext> entities = modelInContext.getAllEntites();
+		for ( int i = 0 ; i < entities.size() ; i++ ) {
+			assertEquals(model.getEntities().get(i).getClassName(), entities.get(i).getName());
+		}
+		assertSame(modelInContext.getEntityByClassName("Entity0"), 
+				entities.get(3).getAttributes().get(1).getReferencedEntity());
+	}
+}
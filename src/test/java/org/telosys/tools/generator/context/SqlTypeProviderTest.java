@@ -0,0 +1,64 @@
+package org.telosys.tools.generator.context;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.telosys.tools.generic.model.Entity;
+
+import junit.env.telosys.tools.generator.fakemodel.FakeAttribute;
+import junit.env.telosys.tools.generator.fakemodel.FakeEntity;
+
+import static org.junit.Assert.assertEquals;
+
+public class SqlTypeProviderTest {
+
+	private AttributeInContext buildAttribute(String name, String neutralType, String size, EnvInContext env) {
+		Entity entity = new FakeEntity("Foo", "FOO");
+		EntityInContext entityInContext = new EntityInContext(entity, null, null, env);
+		FakeAttribute attribute = new FakeAttribute(name, neutralType, false);
+		attribute.setDatabaseSize(size);
+		return new AttributeInContext(entityInContext, attribute, null, env);
+	}
+	
+	@Test
+	public void testDefaultDatabase() {
+		EnvInContext env = new EnvInContext();
+		assertEquals("VARCHAR(20)", buildAttribute("name", "string", "20", env).getSqlType() );
+		assertEquals("INTEGER", buildAttribute("id", "int", null, env).getSqlType() );
+	}
+
+	@Test
+	public void testPredefinedDatabases() {
+		EnvInContext env = new EnvInContext();
+		env.setDatabase("PostgreSQL");
+		assertEquals("varchar(20)", buildAttribute("name", "string", "20", env).getSqlType() );
+		env.setDatabase("MYSQL");
+		assertEquals("INT", buildAttribute("id", "int", null, env).getSqlType() );
+		env.setDatabase("oracle");
+		assertEquals("VARCHAR2(20)", buildAttribute("name", "string", "20", env).getSqlType() );
+	}
+
+	@Test
+	public void testDatabaseChange() {
+		EnvInContext env = new EnvInContext();
+		AttributeInContext attribute = buildAttribute("name", "string", "20", env);
+		env.setDatabase("POSTGRESQL");
+		assertEquals("varchar(20)", attribute.getSqlType() );
+		env.setDatabase("ORACLE");
+		assertEquals("VARCHAR2(20)", attribute.getSqlType() );
+	}
+
+	@Test
+	public void testSpecificTypesMapping() {
+		EnvInContext env = new EnvInContext();
+		Map<String,String> map = new HashMap<>();
+		map.put("string", "text(%)");
+		env.setDatabaseTypesMapping(map);
+		AttributeInContext attribute = buildAttribute("name", "string", "20", env);
+		assertEquals("text(20)", attribute.getSqlType() );
+		map.put("string", "varchar(%)");
+		assertEquals("varchar(20)", attribute.getSqlType() );
+		assertEquals("ERROR_NO_SQL_TYPE", buildAttribute("id", "int", null, env).getSqlType() );
+	}
+}
@@ -1,9 +1,11 @@
 package org.telosys.tools.generator.context.tools;
 
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class AmbiguousTypesDetectorTest  {
@@ -39,6 +41,21 @@ public class AmbiguousTypesDetectorTest  {
 		report(detector, 6, 4);
 	}
 	
+	@Test
+	public void test4() {		
+		AmbiguousTypesDetector detector = new AmbiguousTypesDetector();
+		detector.registerType("java.util.Date");
+		detector.registerType("java.sql.Date");
+		detector.registerType("java.util.Date"); // already registered
+		detector.registerType("MyClass"); // no package
+		detector.registerType("foo.bar.MyClass");
+		report(detector, 4, 2);
+		Set<String> ambiguousTypes = detector.getAmbiguousTypesSet();
+		assertTrue(ambiguousTypes.contains("java.util.Date"));
+		assertTrue(ambiguousTypes.contains("java.sql.Date"));
+		assertFalse(ambiguousTypes.contains("foo.bar.MyClass"));
+	}
+	
 	private void report(AmbiguousTypesDetector detector, int countAll, int countAmbiguous) {
 		List<String> allTypes = detector.getAllTypes();
 		print(allTypes);
@@ -0,0 +1,36 @@
+package org.telosys.tools.generator.context.tools;
+
+import org.junit.Test;
+import org.telosys.tools.generic.model.types.AttributeTypeInfo;
+import org.telosys.tools.generic.model.types.NeutralType;
+
+import junit.env.telosys.tools.generator.fakemodel.FakeAttribute;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class AttributeTypeInfoPoolTest  {
+
+	@Test
+	public void testSameInstance() {		
+		FakeAttribute a1 = new FakeAttribute("id", NeutralType.INTEGER, true);
+		FakeAttribute a2 = new FakeAttribute("count", NeutralType.INTEGER, false);
+		AttributeTypeInfo t1 = AttributeTypeInfoPool.get(a1);
+		AttributeTypeInfo t2 = AttributeTypeInfoPool.get(a2);
+		assertSame(t1, t2);
+	}
+	
+	@Test
+	public void testDifferentInstances() {		
+		FakeAttribute a1 = new FakeAttribute("name", NeutralType.STRING, false);
+		FakeAttribute a2 = new FakeAttribute("code", NeutralType.STRING, false);
+		a2.setNotNull(true);
+		FakeAttribute a3 = new FakeAttribute("flag", NeutralType.BOOLEAN, false);
+		AttributeTypeInfo t1 = AttributeTypeInfoPool.get(a1);
+		AttributeTypeInfo t2 = AttributeTypeInfoPool.get(a2);
+		AttributeTypeInfo t3 = AttributeTypeInfoPool.get(a3);
+		assertNotSame(t1, t2);
+		assertNotSame(t1, t3);
+		assertSame(t2, AttributeTypeInfoPool.get(a2));
+	}
+}
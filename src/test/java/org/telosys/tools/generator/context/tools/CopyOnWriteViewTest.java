@@ -0,0 +1,84 @@
+package org.telosys.tools.generator.context.tools;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CopyOnWriteViewTest {
+
+	/**
+	 * Shared list building a new row at each 'get' (as CsvFile) 
+	 */
+	private static class RowsList extends AbstractList<List<String>> {
+		private int reads = 0 ;
+		@Override
+		public List<String> get(int index) {
+			reads++ ;
+			return new ArrayList<>(Arrays.asList("r" + index, "v" + index));
+		}
+		@Override
+		public int size() {
+			return 3 ;
+		}
+	}
+	
+	@Test
+	public void testLazyRead() {
+		RowsList rows = new RowsList();
+		CopyOnWriteView<List<String>> view = new CopyOnWriteView<>(rows);
+		assertEquals(3, view.size());
+		assertEquals(0, rows.reads);
+		List<String> row = view.get(1);
+		assertEquals("r1", row.get(0));
+		assertEquals(1, rows.reads);
+		// same row for the next calls (modifications are kept by the view)
+		row.add("new");
+		assertSame(row, view.get(1));
+		assertEquals(3, view.get(1).size());
+		assertEquals(1, rows.reads);
+		assertFalse(view.isCopied());
+	}
+
+	@Test
+	public void testCopyOnWrite() {
+		List<String> shared = Arrays.asList("a", "b", "c");
+		CopyOnWriteView<String> view = new CopyOnWriteView<>(shared);
+		view.add("d");
+		view.remove(0);
+		view.set(0, "x");
+		assertTrue(view.isCopied());
+		assertEquals(Arrays.asList("x", "c", "d"), view);
+		// shared list not modified
+		assertEquals(Arrays.asList("a", "b", "c"), shared);
+		
+		CopyOnWriteView<String> view2 = new CopyOnWriteView<>(shared);
+		assertEquals(shared, view2);
+		assertFalse(view2.isCopied());
+	}
+
+	@Test
+	public void testRowsReadBeforeCopy() {
+		RowsList rows = new RowsList();
+		CopyOnWriteView<List<String>> view = new CopyOnWriteView<>(rows);
+		List<String> row = view.get(0);
+		row.add("new");
+		view.remove(2);
+		// the rows already read are kept in the copy 
+		assertSame(row, view.get(0));
+		assertEquals(2, view.size());
+		assertEquals(3, rows.reads); // 1 + 2 rows read for the copy
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testInvalidIndex() {
+		new CopyOnWriteView<>(new RowsList()).get(3);
+	}
+}
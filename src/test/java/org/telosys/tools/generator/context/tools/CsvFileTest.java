@@ -0,0 +1,68 @@
+package org.telosys.tools.generator.context.tools;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class CsvFileTest {
+
+	private File createFile(String content) throws Exception {
+		File file = File.createTempFile("telosys-csv-", ".csv");
+		file.deleteOnExit();
+		try ( OutputStream out = new FileOutputStream(file) ) {
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+		return file ;
+	}
+	
+	@Test
+	public void testSimpleValues() throws Exception {
+		File file = createFile("a1;a2;a3\nb1;;b3\n;c2\n");
+		CsvFile csv = new CsvFile(file, ';', 0);
+		assertEquals(3, csv.size());
+		assertEquals("[a1, a2, a3]", csv.get(0).toString());
+		assertEquals("[b1, , b3]", csv.get(1).toString());
+		assertEquals("[, c2]", csv.get(2).toString());
+	}
+
+	@Test
+	public void testIgnoredRows() throws Exception {
+		File file = createFile("h1;h2\r\nv1;v2\r\nw1;w2");
+		CsvFile csv = new CsvFile(file, ';', 1);
+		assertEquals(2, csv.size());
+		assertEquals("[v1, v2]", csv.get(0).toString());
+		assertEquals("[w1, w2]", csv.get(1).toString());
+		assertEquals(0, new CsvFile(file, ';', 5).size());
+	}
+
+	@Test
+	public void testQuotedValues() throws Exception {
+		File file = createFile("\"a;1\",\"say \"\"hello\"\"\",é\n\"multi\nline\",x\n");
+		CsvFile csv = new CsvFile(file, ',', 0);
+		assertEquals(2, csv.size());
+		List<String> row = csv.get(0);
+		assertEquals(3, row.size());
+		assertEquals("a;1", row.get(0));
+		assertEquals("say \"hello\"", row.get(1));
+		assertEquals("é", row.get(2));
+		assertEquals("multi\nline", csv.get(1).get(0));
+		assertEquals("x", csv.get(1).get(1));
+	}
+
+	@Test
+	public void testEmptyFile() throws Exception {
+		CsvFile csv = new CsvFile(createFile(""), ';', 0);
+		assertEquals(0, csv.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidSeparator() throws Exception {
+		new CsvFile(createFile("a;b"), '"', 0);
+	}
+}
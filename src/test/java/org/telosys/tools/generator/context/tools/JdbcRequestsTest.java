@@ -0,0 +1,71 @@
+package org.telosys.tools.generator.context.tools;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.telosys.tools.generator.context.EntityInContext;
+import org.telosys.tools.generator.context.EnvInContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import junit.env.telosys.tools.generator.fakemodel.entities.Car;
+
+public class JdbcRequestsTest {
+
+	private EntityInContext buildCar() {
+		return new EntityInContext(new Car(), "org.bean", null, new EnvInContext());
+	}
+	
+	@Test
+	public void testSqlRequestsBuiltOnFirstUse() {
+		List<String> pk = Arrays.asList("ID");
+		List<String> all = Arrays.asList("ID", "NAME", "DESC");
+		List<String> data = Arrays.asList("NAME", "DESC");
+		JdbcSqlRequests sqlRequests = new JdbcSqlRequests("CAR", pk, all, all, data);
+		assertEquals(0, sqlRequests.getBuiltRequestsCount());
+		
+		String sqlInsert = sqlRequests.getSqlInsert();
+		assertEquals("insert into CAR ( ID, NAME, DESC ) values ( ?, ?, ? )", sqlInsert);
+		assertEquals(1, sqlRequests.getBuiltRequestsCount());
+		assertSame(sqlInsert, sqlRequests.getSqlInsert());
+		assertEquals(1, sqlRequests.getBuiltRequestsCount());
+		
+		assertEquals("update CAR set NAME = ?, DESC = ? where ID = ?", sqlRequests.getSqlUpdate());
+		assertEquals("select ID, NAME, DESC from CAR where ID = ?", sqlRequests.getSqlSelectWherePK());
+		assertEquals(3, sqlRequests.getBuiltRequestsCount());
+	}
+
+	@Test
+	public void testAttributesBuiltOnFirstUse() {
+		JdbcRequests requests = new JdbcRequests(buildCar(), false);
+		assertFalse(requests.hasAttributesLists());
+		assertEquals(1, requests.getAttributesForPrimaryKey().size());
+		assertTrue(requests.hasAttributesLists());
+		assertSame(requests.getAttributesForPrimaryKey(), requests.getAttributesForPrimaryKey());
+		assertEquals(2, requests.getAttributesForUpdate().size());
+		
+		// SQL requests : only the columns are collected 
+		JdbcSqlRequests sqlRequests = requests.getSqlRequests();
+		assertSame(sqlRequests, requests.getSqlRequests());
+		assertEquals(0, sqlRequests.getBuiltRequestsCount());
+		assertEquals("delete from CAR where ID = ?", requests.getSqlDelete());
+		assertEquals(1, sqlRequests.getBuiltRequestsCount());
+	}
+
+	@Test
+	public void testSharedSqlRequests() {
+		JdbcSqlRequests sqlRequests = new JdbcRequests(buildCar(), false).getSqlRequests();
+		// other target : the SQL requests are reused without building the attributes lists 
+		JdbcRequests requests = new JdbcRequests(buildCar(), false, sqlRequests);
+		assertSame(sqlRequests, requests.getSqlRequests());
+		assertEquals("select count(*) from CAR", requests.getSqlSelectCount());
+		assertEquals("CAR", requests.getTable());
+		assertFalse(requests.hasAttributesLists());
+		// attributes of the current target 
+		assertEquals(3, requests.getAttributesForSelect().size());
+	}
+}
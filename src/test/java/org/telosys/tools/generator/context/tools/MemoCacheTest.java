@@ -0,0 +1,128 @@
+package org.telosys.tools.generator.context.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MemoCacheTest  {
+
+	@Test
+	public void testKeys() {		
+		MemoCache cache = new MemoCache();
+		List<String> attributes1 = Arrays.asList("Car.id", "Car.name");
+		List<String> attributes2 = Arrays.asList("Car.id", "Car.name");
+		cache.put(MemoCache.key("equals", "Car", attributes1, 4), "result1");
+		// same key content => same value
+		assertEquals("result1", cache.get(MemoCache.key("equals", "Car", attributes2, 4)));
+		// other arguments => no value
+		assertNull(cache.get(MemoCache.key("equals", "Car", attributes2, 2)));
+		assertNull(cache.get(MemoCache.key("equals", "Car", null, 4)));
+		assertEquals(1, cache.size());
+	}
+	
+	@Test
+	public void testNullValue() {		
+		MemoCache cache = new MemoCache();
+		cache.put(MemoCache.key("foo"), null);
+		assertEquals(0, cache.size());
+		cache.put(MemoCache.key("foo"), "bar");
+		assertEquals(1, cache.size());
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testEntitiesReplay() {		
+		MemoCache cache = new MemoCache();
+		EntitiesTracker tracker1 = new EntitiesTracker();
+		EntitiesTracker.setCurrent(tracker1);
+		try {
+			assertNull(cache.get(MemoCache.key("fk", "Car")));
+			EntitiesTracker.touch("Car");
+			EntitiesTracker.touch("Driver");
+			cache.put(MemoCache.key("fk", "Car"), "result");
+		} finally {
+			EntitiesTracker.setCurrent(null);
+		}
+		cache.put(MemoCache.key("untracked"), "value");
+		
+		// value reused by another template => same entities 
+		EntitiesTracker tracker2 = new EntitiesTracker();
+		EntitiesTracker.setCurrent(tracker2);
+		try {
+			assertEquals("result", cache.get(MemoCache.key("fk", "Car")));
+			assertEquals(Arrays.asList("Car", "Driver"), new ArrayList<>(tracker2.getEntities()));
+			// value computed without tracker => all the entities
+			assertEquals("value", cache.get(MemoCache.key("untracked")));
+			assertTrue(tracker2.usesAllEntities());
+		} finally {
+			EntitiesTracker.setCurrent(null);
+		}
+		assertNull(EntitiesTracker.getCurrent());
+	}
+	
+	@Test
+	public void testOnlyEntitiesUsedForTheValue() {		
+		MemoCache cache = new MemoCache();
+		// rendering 'D' : reads 'A' through a link then computes a value for 'A' 
+		EntitiesTracker trackerD = new EntitiesTracker();
+		EntitiesTracker.setCurrent(trackerD);
+		try {
+			EntitiesTracker.touch("D");
+			EntitiesTracker.touch("A"); // link target (already used before the value)
+			assertNull(cache.get(MemoCache.key("fieldAnnotations", "A")));
+			EntitiesTracker.touch("A");
+			// nested value computed for 'B' 
+			assertNull(cache.get(MemoCache.key("fieldAnnotations", "B")));
+			EntitiesTracker.touch("B");
+			cache.put(MemoCache.key("fieldAnnotations", "B"), "resultB");
+			cache.put(MemoCache.key("fieldAnnotations", "A"), "resultA");
+			assertEquals(Arrays.asList("A", "B", "D"), new ArrayList<>(trackerD.getEntities()));
+		} finally {
+			EntitiesTracker.setCurrent(null);
+		}
+		
+		// rendering 'C' : reuses the value computed for 'A' => 'A' and 'B' but not 'D' 
+		EntitiesTracker trackerC = new EntitiesTracker();
+		EntitiesTracker.setCurrent(trackerC);
+		try {
+			EntitiesTracker.touch("C");
+			assertEquals("resultA", cache.get(MemoCache.key("fieldAnnotations", "A")));
+			assertEquals(Arrays.asList("A", "B", "C"), new ArrayList<>(trackerC.getEntities()));
+		} finally {
+			EntitiesTracker.setCurrent(null);
+		}
+		
+		// rendering 'E' : reuses the value computed for 'B' => only 'B' 
+		EntitiesTracker trackerE = new EntitiesTracker();
+		EntitiesTracker.setCurrent(trackerE);
+		try {
+			assertEquals("resultB", cache.get(MemoCache.key("fieldAnnotations", "B")));
+			assertEquals(Arrays.asList("B"), new ArrayList<>(trackerE.getEntities()));
+		} finally {
+			EntitiesTracker.setCurrent(null);
+		}
+	}
+	
+	@Test
+	public void testTrackedList() {		
+		EntitiesTracker tracker = new EntitiesTracker();
+		List<String> list = new EntitiesTrackedList<>(Arrays.asList("a", "b"));
+		EntitiesTracker.setCurrent(tracker);
+		try {
+			assertEquals(0, tracker.getEntities().size());
+			for ( String s : list ) {
+				assertEquals(1, s.length());
+			}
+			assertTrue(tracker.usesAllEntities());
+		} finally {
+			EntitiesTracker.setCurrent(null);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package org.telosys.tools.generator.context.tools;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StringsPoolTest  {
+
+	@Test
+	public void testIntern() {		
+		StringsPool pool = new StringsPool();
+		String s1 = new String("java.util.Date");
+		String s2 = new String("java.util.Date");
+		assertSame(s1, pool.intern(s1));
+		assertSame(s1, pool.intern(s2));
+		assertEquals(1, pool.size());
+		pool.intern("VARCHAR");
+		assertEquals(2, pool.size());
+	}
+	
+	@Test
+	public void testNull() {		
+		StringsPool pool = new StringsPool();
+		assertNull(pool.intern(null));
+		assertEquals(0, pool.size());
+	}
+}
@@ -0,0 +1,217 @@
+package org.telosys.tools.generator.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+import org.telosys.tools.commons.bundles.TargetDefinition;
+import org.telosys.tools.commons.cfg.TelosysToolsCfg;
+import org.telosys.tools.generator.GenerationCache;
+import org.telosys.tools.generic.model.Model;
+
+import junit.env.telosys.tools.generator.LoggerProvider;
+import junit.env.telosys.tools.generator.TestsPlan;
+import junit.env.telosys.tools.generator.TestsProject;
+
+public class GenerationDaemonTest {
+
+	private static class CountingContext implements GenerationDaemonContext {
+		private int cfgLoads = 0 ;
+		private int modelLoads = 0 ;
+		private int bundleLoads = 0 ;
+		private long modelVersion = 1 ;
+		private final List<TargetDefinition> templatesTargets = new LinkedList<>();
+		private final CountDownLatch modelLoadStarted = new CountDownLatch(1);
+		private CountDownLatch modelLoadAllowed = null ; // model loading blocked until released if not null
+		
+		@Override
+		public TelosysToolsCfg loadTelosysToolsCfg() throws Exception {
+			cfgLoads++ ;
+			TelosysProject telosysProject = TestsProject.initProjectEnv("myproject", TestsProject.BUNDLE_NAME) ;
+			return telosysProject.loadTelosysToolsCfg();
+		}
+		@Override
+		public long getModelVersion(String modelName) {
+			return modelVersion ;
+		}
+		@Override
+		public Model loadModel(String modelName) throws Exception {
+			if ( ! "mymodel".equals(modelName) ) {
+				throw new Exception("Unknown model " + modelName);
+			}
+			modelLoads++ ;
+			modelLoadStarted.countDown();
+			if ( modelLoadAllowed != null ) {
+				modelLoadAllowed.await();
+			}
+			return TestsPlan.buildModel(TestsPlan.buildEntity("Author", 2), TestsPlan.buildEntity("Book", 3));
+		}
+		@Override
+		public long getBundleVersion(String bundleName) {
+			return 1 ;
+		}
+		@Override
+		public List<TargetDefinition> loadTemplatesTargets(String bundleName) throws Exception {
+			bundleLoads++ ;
+			return new LinkedList<>(templatesTargets);
+		}
+		@Override
+		public List<TargetDefinition> loadResourcesTargets(String bundleName) throws Exception {
+			return null;
+		}
+	}
+	
+	@Test
+	public void testDaemon() throws Exception {
+		CountingContext context = new CountingContext();
+		GenerationDaemon daemon = new GenerationDaemon(context, LoggerProvider.getLogger());
+		File tokenFile = new File(Files.createTempDirectory("daemon").toFile(), "daemon.token");
+		int port = daemon.start(0, tokenFile);
+		assertTrue(daemon.isRunning());
+		GenerationDaemonClient client = new GenerationDaemonClient(port, GenerationDaemon.readToken(tokenFile));
+		try {
+			assertTrue(client.ping());
+			assertTrue(client.send("FOO").startsWith(GenerationDaemon.ERROR));
+			
+			// invalid token => rejected 
+			GenerationDaemonClient badClient = new GenerationDaemonClient(port, "bad-token");
+			assertFalse(badClient.ping());
+			assertEquals(GenerationDaemon.ERROR + " invalid token", badClient.send(GenerationDaemon.STOP));
+			assertTrue(daemon.isRunning());
+			
+			assertTrue(client.generate("mymodel", TestsProject.BUNDLE_NAME, null).startsWith("OK files=0 "));
+			assertTrue(client.generate("mymodel", TestsProject.BUNDLE_NAME, null).startsWith("OK files=0 "));
+			// loaded once 
+			assertEquals(1, context.cfgLoads);
+			assertEquals(1, context.modelLoads);
+			assertEquals(1, context.bundleLoads);
+			
+			// new model version => model reloaded
+			context.modelVersion = 2 ;
+			client.generate("mymodel", TestsProject.BUNDLE_NAME, null);
+			assertEquals(2, context.modelLoads);
+			assertEquals(1, context.bundleLoads);
+			
+			// invalidate => all reloaded 
+			assertEquals(GenerationDaemon.OK, client.send(GenerationDaemon.INVALIDATE));
+			client.generate("mymodel", TestsProject.BUNDLE_NAME, null);
+			assertEquals(2, context.cfgLoads);
+			assertEquals(3, context.modelLoads);
+			assertEquals(2, context.bundleLoads);
+			
+			assertTrue(client.generate("nomodel", TestsProject.BUNDLE_NAME, null).startsWith(GenerationDaemon.ERROR));
+		}
+		finally {
+			client.stop();
+			daemon.join();
+		}
+		assertFalse(daemon.isRunning());
+		assertFalse(client.ping());
+		assertFalse(tokenFile.exists());
+	}
+
+	@Test
+	public void testTokenFilePermissions() throws Exception {
+		GenerationDaemon daemon = new GenerationDaemon(new CountingContext(), LoggerProvider.getLogger());
+		File tokenFile = new File(Files.createTempDirectory("daemon").toFile(), "daemon.token");
+		daemon.start(0, tokenFile);
+		try {
+			assertEquals(64, GenerationDaemon.readToken(tokenFile).length());
+			if ( Files.getFileStore(tokenFile.toPath()).supportsFileAttributeView("posix") ) {
+				assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile.toPath())));
+			}
+		}
+		finally {
+			daemon.stop();
+		}
+	}
+
+	@Test(timeout=10000)
+	public void testIdleConnection() throws Exception {
+		GenerationDaemon daemon = new GenerationDaemon(new CountingContext(), LoggerProvider.getLogger());
+		File tokenFile = new File(Files.createTempDirectory("daemon").toFile(), "daemon.token");
+		int port = daemon.start(0, tokenFile);
+		GenerationDaemonClient client = new GenerationDaemonClient(port, GenerationDaemon.readToken(tokenFile));
+		// a connection without request doesn't block the other clients
+		try ( Socket idle = new Socket(InetAddress.getLoopbackAddress(), port) ) {
+			assertTrue(client.ping());
+		}
+		finally {
+			daemon.stop();
+		}
+	}
+
+	@Test
+	public void testWarmGeneration() throws Exception {
+		TelosysToolsCfg telosysToolsCfg = TestsProject.initProjectEnv("myproject", TestsProject.BUNDLE_NAME).loadTelosysToolsCfg();
+		File templateFile = new File(telosysToolsCfg.getTemplatesFolderAbsolutePath(TestsProject.BUNDLE_NAME), "daemon_bean.vm");
+		Files.write(templateFile.toPath(), 
+				"$entity.name\n$java.toStringMethod($entity.attributes, 4)\n".getBytes(StandardCharsets.UTF_8));
+		CountingContext context = new CountingContext();
+		context.templatesTargets.add(new TargetDefinition("Daemon", "${BEANNAME}.txt", "daemon", "daemon_bean.vm", "*"));
+		GenerationDaemon daemon = new GenerationDaemon(context, LoggerProvider.getLogger());
+		
+		File authorFile = new File(telosysToolsCfg.getDestinationFolderAbsolutePath(), "daemon/Author.txt");
+		Files.deleteIfExists(authorFile.toPath());
+		assertTrue(daemon.execute(GenerationDaemon.GENERATE + "\tmymodel\t" + TestsProject.BUNDLE_NAME).startsWith("OK files=2 "));
+		assertTrue(authorFile.exists());
+		GenerationCache generationCache = daemon.getGenerationCache("mymodel");
+		assertNotNull(generationCache);
+		int memoSize = generationCache.getMemoCache().size();
+		assertTrue(memoSize > 0);
+		
+		// warm request : files generated again with the same cache (memoized values reused)
+		Files.delete(authorFile.toPath());
+		assertTrue(daemon.execute(GenerationDaemon.GENERATE + "\tmymodel\t" + TestsProject.BUNDLE_NAME).startsWith("OK files=2 "));
+		assertTrue(authorFile.exists());
+		assertSame(generationCache, daemon.getGenerationCache("mymodel"));
+		assertEquals(memoSize, generationCache.getMemoCache().size());
+		assertEquals(1, context.modelLoads);
+	}
+
+	@Test(timeout=20000)
+	public void testPingDuringGeneration() throws Exception {
+		CountingContext context = new CountingContext();
+		context.modelLoadAllowed = new CountDownLatch(1);
+		GenerationDaemon daemon = new GenerationDaemon(context, LoggerProvider.getLogger());
+		File tokenFile = new File(Files.createTempDirectory("daemon").toFile(), "daemon.token");
+		int port = daemon.start(0, tokenFile);
+		final GenerationDaemonClient client = new GenerationDaemonClient(port, GenerationDaemon.readToken(tokenFile));
+		Thread generation = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					client.generate("mymodel", TestsProject.BUNDLE_NAME, null);
+				} catch (IOException e) {
+					// checked below 
+				}
+			}
+		});
+		try {
+			generation.start();
+			context.modelLoadStarted.await(); // the generation holds the daemon lock 
+			assertTrue(client.ping());
+			context.modelLoadAllowed.countDown();
+			generation.join();
+			assertEquals(1, context.modelLoads);
+		}
+		finally {
+			context.modelLoadAllowed.countDown();
+			daemon.stop();
+		}
+	}
+}
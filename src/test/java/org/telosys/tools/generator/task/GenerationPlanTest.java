@@ -0,0 +1,102 @@
+package org.telosys.tools.generator.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+import org.telosys.tools.commons.bundles.TargetDefinition;
+
+import junit.env.telosys.tools.generator.TestsPlan;
+import junit.env.telosys.tools.generator.fakemodel.FakeModel;
+
+public class GenerationPlanTest {
+
+	private FakeModel buildModel() {
+		return TestsPlan.buildModel("Author", "Book");
+	}
+	
+	@Test
+	public void testPlan() {
+		GenerationPlan plan = TestsPlan.buildPlan(buildModel(), TestsPlan.entities("Author", "Book", "Foo"), TestsPlan.targets());
+		assertEquals(5, plan.size());
+		assertFalse(plan.hasConflicts());
+		assertEquals(0, plan.getDuplicates().size());
+		assertEquals(1, plan.getUnknownEntities().size());
+		assertEquals("Foo", plan.getUnknownEntities().get(0));
+		
+		// original order : entity by entity then 'once' targets
+		assertEquals("Author", plan.getItems().get(0).getEntityName());
+		assertEquals("bean.vm", plan.getItems().get(0).getTemplate());
+		assertEquals(GenerationPlan.normalize(TestsPlan.DESTINATION + "/src/bean/Author.java"), plan.getItems().get(0).getOutputFile());
+		assertEquals("Book", plan.getItems().get(3).getEntityName());
+		assertTrue(plan.getItems().get(4).isOnce());
+		assertEquals("readme.vm|", plan.getItems().get(4).getKey());
+		
+		// sort by template 
+		plan.sort(new Comparator<GenerationPlanItem>() {
+			@Override
+			public int compare(GenerationPlanItem item1, GenerationPlanItem item2) {
+				return item1.getTemplate().compareTo(item2.getTemplate());
+			}
+		});
+		assertEquals("bean.vm", plan.getItems().get(0).getTemplate());
+		assertEquals("bean.vm", plan.getItems().get(1).getTemplate());
+		assertEquals("dao.vm", plan.getItems().get(2).getTemplate());
+		assertEquals("readme.vm", plan.getItems().get(4).getTemplate());
+		
+		// keep only 'Book'
+		int removed = plan.retain(new GenerationPlanFilter() {
+			@Override
+			public boolean accept(GenerationPlanItem item) {
+				return "Book".equals(item.getEntityName());
+			}
+		});
+		assertEquals(3, removed);
+		assertEquals(2, plan.size());
+	}
+
+	@Test
+	public void testDuplicatesAndConflicts() {
+		List<TargetDefinition> targets = new LinkedList<>();
+		targets.add(new TargetDefinition("Bean",   "${BEANNAME}.java", "src/bean", "bean.vm", "*"));
+		targets.add(new TargetDefinition("Bean2",  "${BEANNAME}.java", "src/bean/", "bean.vm", "*")); // duplicate
+		targets.add(new TargetDefinition("Other",  "${BEANNAME}.java", "src/./bean", "other.vm", "*")); // conflict
+		targets.add(new TargetDefinition("Once",   "Author.java", "src/bean", "once.vm", "1")); // conflict
+		
+		GenerationPlan plan = TestsPlan.buildPlan(buildModel(), TestsPlan.entities("Author", "Book", "Author"), targets);
+		assertEquals(2, plan.size());
+		// duplicates : 'Bean2' for each entity (the second 'Author' is a conflict with 'other.vm' generated before)
+		assertEquals(3, plan.getDuplicates().size());
+		assertTrue(plan.hasConflicts());
+		// 'Author' : bean.vm, other.vm, bean.vm, other.vm and finally once.vm  ( 4 overwritten ) 
+		// 'Book'   : bean.vm and finally other.vm ( 1 overwritten ) 
+		assertEquals(5, plan.getConflicts().size());
+		// the last one wins (same result as the original generation) 
+		assertEquals("once.vm", plan.getItems().get(0).getTemplate());
+		assertEquals("other.vm", plan.getItems().get(1).getTemplate());
+		assertEquals("Book", plan.getItems().get(1).getEntityName());
+		GenerationPlanItem conflict = plan.getConflicts().get(4);
+		assertEquals("other.vm", conflict.getTemplate());
+		assertEquals("Author", conflict.getEntityName());
+		assertEquals("once.vm", plan.getConflictingItem(conflict).getTemplate());
+	}
+
+	@Test
+	public void testSameTemplateForAnotherEntity() {
+		List<TargetDefinition> targets = new LinkedList<>();
+		targets.add(new TargetDefinition("Constants", "Constants.java", "src", "constants.vm", "*")); // same file for each entity
+		
+		GenerationPlan plan = TestsPlan.buildPlan(buildModel(), targets);
+		// not a duplicate : the content depends on the entity 
+		assertEquals(0, plan.getDuplicates().size());
+		assertEquals(1, plan.size());
+		assertEquals("Book", plan.getItems().get(0).getEntityName());
+		assertEquals(1, plan.getConflicts().size());
+		assertEquals("Author", plan.getConflicts().get(0).getEntityName());
+	}
+}
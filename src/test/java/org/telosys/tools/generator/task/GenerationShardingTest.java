@@ -0,0 +1,205 @@
+package org.telosys.tools.generator.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import junit.env.telosys.tools.generator.TestsPlan;
+import junit.env.telosys.tools.generator.fakemodel.FakeEntity;
+import junit.env.telosys.tools.generator.fakemodel.FakeModel;
+
+public class GenerationShardingTest {
+
+	private static final int ENTITIES = 50 ;
+	
+	private FakeModel buildModel() {
+		FakeEntity[] entities = new FakeEntity[ENTITIES];
+		for ( int i = 0 ; i < ENTITIES ; i++ ) {
+			entities[i] = TestsPlan.buildEntity("Entity" + i, ( i % 7 ) + 1);
+		}
+		return TestsPlan.buildModel(entities);
+	}
+	
+	private GenerationPlan buildPlan(FakeModel model) {
+		return TestsPlan.buildPlan(model, TestsPlan.targets());
+	}
+	
+	@Test
+	public void testShardByHash() {
+		assertEquals(Math.floorMod("Entity1".hashCode(), 4), GenerationSharding.shardByHash("Entity1", 4));
+		assertEquals(0, GenerationSharding.shardByHash("Entity1", 1));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidShard() {
+		new GenerationSharding(3, 3, null);
+	}
+
+	@Test
+	public void testShards() {
+		FakeModel model = buildModel();
+		int shardCount = 3 ;
+		Set<String> allItems = new HashSet<>();
+		int total = 0 ;
+		long[] costs = new long[shardCount];
+		ModelEntityCostEstimator estimator = new ModelEntityCostEstimator();
+		for ( int shard = 0 ; shard < shardCount ; shard++ ) {
+			GenerationPlan plan = buildPlan(model);
+			GenerationSharding sharding = new GenerationSharding(shard, shardCount, estimator);
+			sharding.apply(plan);
+			for ( GenerationPlanItem item : plan.getItems() ) {
+				allItems.add(item.getKey());
+				if ( item.isOnce() ) {
+					assertEquals(GenerationSharding.ONCE_TARGETS_SHARD, shard);
+				}
+				else {
+					costs[shard] += estimator.estimateCost(item.getEntity());
+				}
+			}
+			total = total + plan.size() ;
+			// same assignment for each shard (deterministic)
+			Map<String,Integer> entitiesShards = sharding.assignShards(buildPlan(model));
+			assertEquals(entitiesShards, new GenerationSharding(0, shardCount, estimator).assignShards(buildPlan(model)));
+		}
+		// each item in one and only one shard 
+		assertEquals(( ENTITIES * 2 ) + 1, total);
+		assertEquals(total, allItems.size());
+		// balanced shards
+		for ( int shard = 1 ; shard < shardCount ; shard++ ) {
+			assertTrue(Math.abs(costs[shard] - costs[0]) <= 20 );
+		}
+	}
+	
+	@Test
+	public void testShardsWithStatsSnapshot() throws IOException {
+		FakeModel model = buildModel();
+		int shardCount = 3 ;
+		File statsFile = new File(Files.createTempDirectory("stats").toFile(), "stats.txt");
+		GenerationStats snapshot = new GenerationStats();
+		for ( GenerationPlanItem item : buildPlan(model).getItems() ) {
+			snapshot.recordDuration(item.getKey(), "Entity7".equals(item.getEntityName()) ? 1000000 : 100 );
+		}
+		snapshot.save(statsFile);
+		
+		Map<String,Integer> entitiesShards = null ;
+		for ( int shard = 0 ; shard < shardCount ; shard++ ) {
+			// each shard reads the same snapshot (the main file is not modified by the shards)
+			GenerationStats stats = GenerationStats.load(statsFile);
+			GenerationPlan plan = buildPlan(model);
+			LongestJobFirstScheduler scheduler = new LongestJobFirstScheduler(stats, new ModelEntityCostEstimator());
+			scheduler.init(plan);
+			GenerationSharding sharding = GenerationSharding.withItemCostEstimator(shard, shardCount, scheduler);
+			Map<String,Integer> shards = sharding.assignShards(plan);
+			if ( entitiesShards == null ) {
+				entitiesShards = shards ;
+			}
+			else {
+				assertEquals(entitiesShards, shards);
+			}
+			sharding.apply(plan);
+			// the measured durations of this shard are saved in its own file 
+			GenerationStats recorded = new GenerationStats();
+			for ( GenerationPlanItem item : plan.getItems() ) {
+				recorded.recordDuration(item.getKey(), 1);
+			}
+			recorded.save(GenerationStats.getShardFile(statsFile, shard, shardCount));
+		}
+		// the longest entity (measured) is alone in its shard 
+		int longestShard = entitiesShards.get("Entity7");
+		for ( Map.Entry<String,Integer> entry : entitiesShards.entrySet() ) {
+			if ( ! "Entity7".equals(entry.getKey()) ) {
+				assertTrue(entry.getValue() != longestShard);
+			}
+		}
+		// merged at the end of all the shards 
+		GenerationStats merged = GenerationStats.mergeShards(statsFile);
+		assertEquals(Long.valueOf(1), merged.getDuration(buildPlan(model).getItems().get(0).getKey()));
+		assertEquals(merged.size(), GenerationStats.load(statsFile).size());
+		assertFalse(GenerationStats.getShardFile(statsFile, 0, shardCount).exists());
+	}
+	
+	@Test
+	public void testManifestMerge() throws IOException {
+		File dir = Files.createTempDirectory("manifest").toFile();
+		GenerationManifest manifest1 = new GenerationManifest();
+		manifest1.setShard("1/2");
+		manifest1.add(new GenerationManifestEntry("bean.vm", "Author", "/tmp/dest/Author.java"));
+		manifest1.add(new GenerationManifestEntry("readme.vm", null, "/tmp/dest/README.txt"));
+		File file1 = new File(dir, "manifest-1.txt");
+		manifest1.write(file1);
+		
+		GenerationManifest manifest2 = new GenerationManifest();
+		manifest2.add(new GenerationManifestEntry("bean.vm", "Book", "/tmp/dest/Book.java"));
+		manifest2.add(new GenerationManifestEntry("other.vm", "Author", "/tmp/dest/Author.java")); // conflict
+		File file2 = new File(dir, "manifest-2.txt");
+		manifest2.write(file2);
+		
+		GenerationManifest read = GenerationManifest.read(file1);
+		assertEquals("1/2", read.getShard());
+		assertEquals(2, read.size());
+		assertEquals("", read.getEntry("/tmp/dest/README.txt").getEntityName());
+		
+		List<File> files = new LinkedList<>();
+		files.add(file1);
+		files.add(file2);
+		GenerationManifest merged = GenerationManifest.merge(files);
+		assertEquals(3, merged.size());
+		assertEquals(1, merged.getConflicts().size());
+		assertEquals("bean.vm", merged.getEntry("/tmp/dest/Author.java").getTemplate());
+		assertEquals("/tmp/dest/Author.java", merged.getEntries().get(0).getOutputFile());
+	}
+
+	@Test
+	public void testManifestShardFiles() throws IOException {
+		File dir = Files.createTempDirectory("manifest").toFile();
+		File file = new File(dir, "manifest.txt");
+		assertEquals(new File(dir, "manifest.txt.shard-2-of-3"), GenerationManifest.getShardFile(file, 1, 3));
+		for ( int shard = 0 ; shard < 3 ; shard++ ) {
+			GenerationManifest manifest = new GenerationManifest();
+			manifest.setShard(( shard + 1 ) + "/3");
+			manifest.add(new GenerationManifestEntry("bean.vm", "Entity" + shard, "/tmp/dest/Entity" + shard + ".java"));
+			manifest.write(GenerationManifest.getShardFile(file, shard, 3));
+		}
+		GenerationManifest merged = GenerationManifest.mergeShards(file, 3);
+		assertEquals(3, merged.size());
+		assertEquals(3, GenerationManifest.read(file).size());
+		// shard files deleted, no temporary file left 
+		assertEquals(Arrays.asList("manifest.txt"), Arrays.asList(dir.list()));
+	}
+
+	@Test
+	public void testManifestUsedEntities() throws IOException {
+		File file = new File(Files.createTempDirectory("manifest").toFile(), "manifest.txt");
+		GenerationManifest manifest = new GenerationManifest();
+		manifest.add(new GenerationManifestEntry("bean.vm", "Author", Arrays.asList("Author"), "/tmp/dest/Author.java"));
+		manifest.add(new GenerationManifestEntry("dao.vm", "Book", Arrays.asList("Book", "Author"), "/tmp/dest/BookDao.java"));
+		manifest.add(new GenerationManifestEntry("list.vm", null, Arrays.asList("*"), "/tmp/dest/list.txt"));
+		manifest.add(new GenerationManifestEntry("readme.vm", null, new LinkedList<String>(), "/tmp/dest/README.txt"));
+		manifest.add(new GenerationManifestEntry("other.vm", "Book", "/tmp/dest/Book.txt")); // unknown
+		manifest.write(file);
+		
+		GenerationManifest read = GenerationManifest.read(file);
+		assertEquals(5, read.size());
+		assertEquals(2, read.getEntry("/tmp/dest/BookDao.java").getUsedEntities().size());
+		assertEquals(0, read.getEntry("/tmp/dest/README.txt").getUsedEntities().size());
+		assertNull(read.getEntry("/tmp/dest/Book.txt").getUsedEntities());
+		
+		// 'Author' changed : Author.java, BookDao.java, list.txt
+		assertEquals(3, read.getAffectedEntries(Arrays.asList("Author")).size());
+		// 'Book' changed : BookDao.java, list.txt, Book.txt (own entity)
+		assertEquals(3, read.getAffectedEntries(Arrays.asList("Book")).size());
+	}
+}
@@ -0,0 +1,139 @@
+package org.telosys.tools.generator.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+import junit.env.telosys.tools.generator.LoggerProvider;
+import junit.env.telosys.tools.generator.TestsPlan;
+
+public class GenerationWatcherTest {
+
+	private static final Path MODEL_FOLDER     = Paths.get("/tmp/project/TelosysTools/mymodel_model");
+	private static final Path TEMPLATES_FOLDER = Paths.get("/tmp/project/TelosysTools/templates/mybundle");
+	
+	private GenerationPlan buildPlan() {
+		return TestsPlan.buildPlan(TestsPlan.buildModel("Author", "Book"), TestsPlan.targets());
+	}
+	
+	private GenerationWatcher buildWatcher() {
+		return new GenerationWatcher(new GenerationDaemon(null, LoggerProvider.getLogger()), 
+				"mymodel", "mybundle", MODEL_FOLDER, TEMPLATES_FOLDER, LoggerProvider.getLogger());
+	}
+	
+	private int countAccepted(GenerationPlanFilter filter) {
+		GenerationPlan plan = buildPlan();
+		plan.retain(filter);
+		return plan.size();
+	}
+	
+	@Test
+	public void testTemplateChange() {
+		List<Path> changes = new LinkedList<>();
+		changes.add(TEMPLATES_FOLDER.resolve("dao.vm"));
+		assertEquals(2, countAccepted(buildWatcher().buildFilter(changes)));
+	}
+
+	@Test
+	public void testEntityChange() {
+		List<Path> changes = new LinkedList<>();
+		changes.add(MODEL_FOLDER.resolve("Book.entity"));
+		// 'Book' targets + 'once' target 
+		assertEquals(3, countAccepted(buildWatcher().buildFilter(changes)));
+	}
+
+	@Test
+	public void testOtherChanges() {
+		List<Path> changes = new LinkedList<>();
+		changes.add(TEMPLATES_FOLDER.resolve("readme.vm"));
+		changes.add(TEMPLATES_FOLDER.resolve(".readme.vm.swp")); // ignored
+		assertEquals(1, countAccepted(buildWatcher().buildFilter(changes)));
+		changes.add(TEMPLATES_FOLDER.resolve("templates.cfg"));
+		assertNull(buildWatcher().buildFilter(changes));
+		assertNull(buildWatcher().buildFilter(null));
+	}
+
+	/**
+	 * Daemon keeping the filters of the requested generations (nothing generated)
+	 */
+	private static class RecordingDaemon extends GenerationDaemon {
+		private final List<GenerationPlanFilter> filters = new CopyOnWriteArrayList<>();
+		RecordingDaemon() {
+			super(null, LoggerProvider.getLogger());
+		}
+		@Override
+		public synchronized String generate(String modelName, String bundleName, List<String> entities, 
+				GenerationPlanFilter filter) throws Exception {
+			filters.add(filter);
+			return OK ;
+		}
+	}
+	
+	private void waitForGenerations(RecordingDaemon daemon, int count) throws InterruptedException {
+		long end = System.currentTimeMillis() + 20000 ;
+		while ( daemon.filters.size() < count && System.currentTimeMillis() < end ) {
+			Thread.sleep(50);
+		}
+	}
+	
+	private void write(Path file, String content) throws Exception {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void testWatchBurst() throws Exception {
+		Path root = Files.createTempDirectory("telosys-watcher");
+		Path modelFolder = Files.createDirectories(root.resolve("mymodel_model"));
+		Path templatesFolder = Files.createDirectories(root.resolve("mybundle"));
+		write(modelFolder.resolve("Book.entity"), "Book { id : int { @Id } ; }");
+		write(templatesFolder.resolve("bean.vm"), "#parse(\"include/header.vm\")\n$entity.name\n");
+		write(templatesFolder.resolve("dao.vm"), "$entity.name\n");
+		write(templatesFolder.resolve("readme.vm"), "readme\n");
+		
+		RecordingDaemon daemon = new RecordingDaemon();
+		GenerationWatcher watcher = new GenerationWatcher(daemon, "mymodel", "mybundle", 
+				modelFolder, templatesFolder, LoggerProvider.getLogger());
+		watcher.setDebounceDelay(200);
+		watcher.start();
+		try {
+			//--- 1) new folder => registered by the watcher 
+			Files.createDirectories(templatesFolder.resolve("include"));
+			waitForGenerations(daemon, 1);
+			assertEquals(1, daemon.filters.size());
+			assertEquals(0, countAccepted(daemon.filters.get(0))); // no template changed 
+			
+			//--- 2) burst of changes in the new folder and in the model => only one generation 
+			for ( int i = 0 ; i < 5 ; i++ ) {
+				write(templatesFolder.resolve("include/header.vm"), "// header " + i + "\n");
+				write(templatesFolder.resolve("include/.header.vm.swp"), "tmp " + i); // ignored
+				write(modelFolder.resolve("Book.entity"), "Book { id : int { @Id } ; } // " + i);
+			}
+			waitForGenerations(daemon, 2);
+			Thread.sleep(1000); // no other generation after the delay
+			assertEquals(2, daemon.filters.size());
+			assertEquals(GenerationDaemon.OK, watcher.getLastResult());
+			
+			//--- 'bean.vm' (uses the changed file) for all the entities + 'Book' targets + 'once' target 
+			GenerationPlanFilter filter = daemon.filters.get(1);
+			GenerationPlan plan = buildPlan();
+			plan.retain(filter);
+			assertEquals(4, plan.size());
+			for ( GenerationPlanItem item : plan.getItems() ) {
+				assertTrue(item.getTemplate().equals("bean.vm") || "Book".equals(item.getEntityName()) || item.isOnce());
+			}
+		}
+		finally {
+			watcher.stop();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package org.telosys.tools.generator.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import junit.env.telosys.tools.generator.TestsPlan;
+import junit.env.telosys.tools.generator.fakemodel.FakeModel;
+
+public class LongestJobFirstSchedulerTest {
+
+	private GenerationPlan buildPlan() {
+		FakeModel model = TestsPlan.buildModel(TestsPlan.buildEntity("Small", 2), 
+				TestsPlan.buildEntity("Huge", 300), TestsPlan.buildEntity("Medium", 20));
+		return TestsPlan.buildPlan(model, TestsPlan.entityTargets());
+	}
+	
+	@Test
+	public void testScheduleWithoutStats() {
+		GenerationPlan plan = buildPlan();
+		new LongestJobFirstScheduler(new GenerationStats(), new ModelEntityCostEstimator()).schedule(plan);
+		// by model cost, same order for the same cost 
+		assertEquals("bean.vm|Huge",   plan.getItems().get(0).getKey());
+		assertEquals("dao.vm|Huge",    plan.getItems().get(1).getKey());
+		assertEquals("bean.vm|Medium", plan.getItems().get(2).getKey());
+		assertEquals("dao.vm|Small",   plan.getItems().get(5).getKey());
+	}
+
+	@Test
+	public void testScheduleWithStats() {
+		GenerationStats stats = new GenerationStats();
+		stats.recordDuration("dao.vm|Small", 50000);
+		stats.recordDuration("bean.vm|Huge", 1000);
+		stats.recordDuration("bean.vm|Small", 10);
+		GenerationPlan plan = buildPlan();
+		LongestJobFirstScheduler scheduler = new LongestJobFirstScheduler(stats, new ModelEntityCostEstimator());
+		scheduler.schedule(plan);
+		// 'dao.vm' : 50000 micros for an entity cost of 3 => 'Huge' (cost 301) and 'Medium' (cost 21) estimated from this ratio
+		assertEquals("dao.vm|Huge",    plan.getItems().get(0).getKey());
+		assertEquals("dao.vm|Medium",  plan.getItems().get(1).getKey());
+		assertEquals("dao.vm|Small",   plan.getItems().get(2).getKey());
+		assertEquals("bean.vm|Huge",   plan.getItems().get(3).getKey());
+		assertEquals("bean.vm|Medium", plan.getItems().get(4).getKey());
+		assertEquals("bean.vm|Small",  plan.getItems().get(5).getKey());
+	}
+
+	@Test
+	public void testStatsFile() throws IOException {
+		File file = new File(Files.createTempDirectory("stats").toFile(), "stats.txt");
+		assertEquals(0, GenerationStats.load(file).size());
+		GenerationStats stats = new GenerationStats();
+		stats.recordDuration("bean.vm|Huge", 1000);
+		stats.recordDuration("bean.vm|Huge", 3000); // averaged
+		stats.recordDuration("readme.vm|", 10);
+		stats.save(file);
+		GenerationStats loaded = GenerationStats.load(file);
+		assertEquals(2, loaded.size());
+		assertEquals(Long.valueOf(2000), loaded.getDuration("bean.vm|Huge"));
+		assertEquals(Long.valueOf(10), loaded.getDuration("readme.vm|"));
+		assertNull(loaded.getDuration("dao.vm|Huge"));
+	}
+
+	@Test
+	public void testStatsShardFiles() throws IOException {
+		File dir = Files.createTempDirectory("stats").toFile();
+		File file = new File(dir, "stats.txt");
+		GenerationStats previous = new GenerationStats();
+		previous.recordDuration("bean.vm|Author", 100);
+		previous.recordDuration("bean.vm|Book", 100);
+		previous.save(file);
+		file.setLastModified(1000000);
+		
+		// each shard saves only its own durations in its own file 
+		GenerationStats stats1 = GenerationStats.loadWithShards(file);
+		stats1.recordDuration("bean.vm|Author", 300); // averaged with 100
+		stats1.getRecordedDurations().save(GenerationStats.getShardFile(file, 0, 2));
+		GenerationStats stats2 = GenerationStats.loadWithShards(file);
+		stats2.recordDuration("readme.vm|", 10);
+		stats2.getRecordedDurations().save(GenerationStats.getShardFile(file, 1, 2));
+		assertEquals(1, GenerationStats.load(GenerationStats.getShardFile(file, 1, 2)).size());
+		assertEquals(3, dir.list().length); // no temporary file left
+		
+		GenerationStats merged = GenerationStats.loadWithShards(file);
+		assertEquals(3, merged.size());
+		assertEquals(Long.valueOf(200), merged.getDuration("bean.vm|Author"));
+		assertEquals(Long.valueOf(100), merged.getDuration("bean.vm|Book"));
+		assertEquals(Long.valueOf(10), merged.getDuration("readme.vm|"));
+	}
+}